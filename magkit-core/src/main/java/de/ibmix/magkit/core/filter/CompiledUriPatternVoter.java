@@ -0,0 +1,246 @@
+package de.ibmix.magkit.core.filter;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import info.magnolia.cms.util.SimpleUrlPattern;
+import info.magnolia.voting.voters.BasePatternVoter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * Composite voter replacing a set of {@link info.magnolia.voting.voters.URIPatternVoter} instances by one voter that
+ * evaluates all configured URI patterns in a single pass over the URI.
+ * <p>All patterns are compiled into a prefix trie keyed by their literal prefix (the characters before the first
+ * wildcard or special character). While walking the URI through the trie only patterns whose literal prefix matches
+ * become candidates; only those candidates are matched with the Magnolia {@link SimpleUrlPattern} semantics of the
+ * {@link info.magnolia.voting.voters.URIPatternVoter}. Patterns without a literal prefix are always candidates.</p>
+ * <p><strong>Weighting:</strong> Each rule has a level that is voted when its pattern matches, non-matching rules
+ * vote 0. The combined vote is the level with the highest absolute value, the first configured rule wins on equal
+ * absolute values. This corresponds to a voter set of URI pattern voters using Magnolia's highest level voting.
+ * Patterns added by {@link #addPattern(String)} vote with the true value of this voter at the time of voting, so the
+ * true value may be configured after the patterns.</p>
+ * <p><strong>Inverse:</strong> An inverse (not) voter votes its true value if no rule votes a non-zero level and its
+ * false value otherwise, like an inverse {@link info.magnolia.voting.voters.URIPatternVoter}.</p>
+ * <p><strong>Thread-safety:</strong> Voting is safe for concurrent use once the configuration is complete. Adding
+ * rules is not meant to happen concurrently to voting.</p>
+ * <p><strong>Example:</strong></p>
+ * <pre>{@code
+ * CompiledUriPatternVoter voter = new CompiledUriPatternVoter();
+ * voter.addPattern("/.resources/*");
+ * voter.addRule(new CompiledUriPatternVoter.PatternRule("/search*", -2));
+ * int vote = voter.vote("/search/results.html");
+ * }</pre>
+ *
+ * @author frank.sommer
+ * @since 2026-10-19
+ */
+public class CompiledUriPatternVoter extends BasePatternVoter {
+
+    private final List<CompiledRule> _rules = new ArrayList<>();
+    private final List<CompiledRule> _unprefixedRules = new ArrayList<>();
+    private final TrieNode _root = new TrieNode();
+
+    /**
+     * Adds a URI pattern voting with the configured true value of this voter on match.
+     * Blank patterns are ignored.
+     *
+     * @param pattern the URI pattern in {@link SimpleUrlPattern} syntax
+     */
+    public void addPattern(final String pattern) {
+        if (isNotBlank(pattern)) {
+            addCompiledRule(pattern, 0, true);
+        }
+    }
+
+    /**
+     * Adds a weighted URI pattern rule. Rules with blank patterns are ignored.
+     *
+     * @param rule the rule to add, may be null
+     */
+    public void addRule(final PatternRule rule) {
+        if (rule != null && isNotBlank(rule.getPattern())) {
+            addCompiledRule(rule.getPattern(), rule.getLevel(), false);
+        }
+    }
+
+    private void addCompiledRule(final String rawPattern, final int level, final boolean trueValue) {
+        String pattern = rawPattern.trim();
+        CompiledRule compiled = new CompiledRule(_rules.size(), level, trueValue, new SimpleUrlPattern(pattern));
+        _rules.add(compiled);
+
+        int prefixLength = literalPrefixLength(pattern);
+        if (prefixLength == 0) {
+            _unprefixedRules.add(compiled);
+        } else {
+            TrieNode node = _root;
+            for (int i = 0; i < prefixLength; i++) {
+                node = node._children.computeIfAbsent(pattern.charAt(i), c -> new TrieNode());
+            }
+            node._rules.add(compiled);
+        }
+    }
+
+    /**
+     * Returns the number of configured rules.
+     *
+     * @return the rule count
+     */
+    public int getRuleCount() {
+        return _rules.size();
+    }
+
+    /**
+     * Evaluates all rules in one pass over the URI and returns the combined vote.
+     * Inverse voters vote the true or false value of the inverted {@link #boolVote(Object)} instead.
+     *
+     * @param value the vote input, typically a URI String or a request
+     * @return the level with the highest absolute value of all matching rules or 0 if no rule matches
+     */
+    @Override
+    public int vote(final Object value) {
+        return isInverse() ? super.vote(value) : levelOf(findBestRule(value));
+    }
+
+    /**
+     * Performs the boolean vote.
+     *
+     * @param value the vote input, typically a URI String or a request
+     * @return true if any rule with a non-zero level matches
+     */
+    @Override
+    protected boolean boolVote(final Object value) {
+        return levelOf(findBestRule(value)) != 0;
+    }
+
+    private CompiledRule findBestRule(final Object value) {
+        CompiledRule best = null;
+        if (value != null && !_rules.isEmpty()) {
+            String uri = resolveURIFromValue(value);
+            if (uri != null) {
+                for (CompiledRule rule : _unprefixedRules) {
+                    best = better(best, rule, uri);
+                }
+                TrieNode node = _root;
+                int length = uri.length();
+                for (int i = 0; i < length && node != null; i++) {
+                    node = node._children.get(uri.charAt(i));
+                    if (node != null) {
+                        for (CompiledRule rule : node._rules) {
+                            best = better(best, rule, uri);
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private int levelOf(final CompiledRule rule) {
+        int level = 0;
+        if (rule != null) {
+            level = rule._trueValue ? getTrueValue() : rule._level;
+        }
+        return level;
+    }
+
+    private CompiledRule better(final CompiledRule best, final CompiledRule candidate, final String uri) {
+        CompiledRule result = best;
+        int candidateLevel = Math.abs(levelOf(candidate));
+        int bestLevel = Math.abs(levelOf(best));
+        boolean outranks = candidateLevel > bestLevel || (best != null && candidateLevel == bestLevel && candidate._index < best._index);
+        if (outranks && candidate._pattern.match(uri)) {
+            result = candidate;
+        }
+        return result;
+    }
+
+    /**
+     * Determines the length of the literal pattern prefix. Only characters that are never special in
+     * {@link SimpleUrlPattern} count as literal, so the prefix trie never prunes a potentially matching pattern.
+     */
+    static int literalPrefixLength(final String pattern) {
+        int length = 0;
+        while (length < pattern.length() && isLiteral(pattern.charAt(length))) {
+            length++;
+        }
+        return length;
+    }
+
+    private static boolean isLiteral(final char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '/' || c == '.' || c == '-' || c == '_' || c == '~';
+    }
+
+    /**
+     * Configuration bean of a weighted URI pattern rule.
+     */
+    public static class PatternRule {
+        private String _pattern;
+        private int _level = 1;
+
+        public PatternRule() {
+        }
+
+        public PatternRule(final String pattern, final int level) {
+            _pattern = pattern;
+            _level = level;
+        }
+
+        public String getPattern() {
+            return _pattern;
+        }
+
+        public void setPattern(final String pattern) {
+            _pattern = pattern;
+        }
+
+        public int getLevel() {
+            return _level;
+        }
+
+        public void setLevel(final int level) {
+            _level = level;
+        }
+    }
+
+    private static final class CompiledRule {
+        private final int _index;
+        private final int _level;
+        private final boolean _trueValue;
+        private final SimpleUrlPattern _pattern;
+
+        private CompiledRule(final int index, final int level, final boolean trueValue, final SimpleUrlPattern pattern) {
+            _index = index;
+            _level = level;
+            _trueValue = trueValue;
+            _pattern = pattern;
+        }
+    }
+
+    private static final class TrieNode {
+        private final Map<Character, TrieNode> _children = new HashMap<>();
+        private final List<CompiledRule> _rules = new ArrayList<>();
+    }
+}
@@ -0,0 +1,214 @@
+package de.ibmix.magkit.core.filter;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.core.utils.CacheHeaderPolicy;
+import de.ibmix.magkit.core.utils.DependencyIndex;
+import de.ibmix.magkit.core.utils.NodeUtils;
+import info.magnolia.cms.core.AggregationState;
+import info.magnolia.cms.filters.AbstractMgnlFilter;
+import info.magnolia.context.MgnlContext;
+import jakarta.inject.Inject;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.ItemNotFoundException;
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Filter answering conditional GET requests for pages before rendering starts, using a {@link CacheHeaderPolicy}.
+ * <p>The page is taken from the main content node of the current aggregation state, so the filter must be placed
+ * after the content type and aggregator filters and before the rendering filter. If the client copy is still valid
+ * a 304 response is sent and the filter chain is not continued. Otherwise the validator and Cache-Control headers are
+ * set and the chain proceeds.</p>
+ * <p>Validation is opt-in per template, pages of other templates are always rendered:</p>
+ * <ul>
+ *   <li>Pages of {@link #setSelfContainedTemplates(Collection) self-contained templates} only render their own content
+ *   and are validated without recorded dependencies.</li>
+ *   <li>Pages of {@link #setDependentTemplates(Collection) dependent templates} render content of other nodes
+ *   (teasers, navigation, assets). Their validators include the dependencies recorded for the request by the
+ *   {@link DependencyRecordingFilter} in the {@link DependencyIndex} while the page was rendered the last time. Until
+ *   dependencies are recorded for a request, no validators are set and the page is rendered. Dependencies are
+ *   resolved in the workspace of the page and the configured {@link #setDependencyWorkspaces(Collection) dependency
+ *   workspaces}; removed dependencies change the ETag. Requests with more than
+ *   {@link #setMaxDependencies(int) max dependencies} are rendered without resolving them, because every identifier
+ *   is resolved on every request.</li>
+ * </ul>
+ * <p><strong>Limitation:</strong> Only nodes read through the magkit utilities reporting to the
+ * {@link de.ibmix.magkit.core.utils.DependencyRecorder} are recorded. Content read with <code>cmsfn</code>, template
+ * functions of other modules or the plain JCR API is missing in the dependencies, so changes of that content are
+ * answered with a stale 304. Only opt in templates whose rendering reads all other content through the magkit
+ * utilities.</p>
+ * <p>Use the bypasses of the filter to exclude personalized or otherwise request specific content.</p>
+ *
+ * @author frank.sommer
+ * @since 2026-10-19
+ */
+public class ConditionalGetFilter extends AbstractMgnlFilter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConditionalGetFilter.class);
+
+    private final DependencyIndex _dependencyIndex;
+    private CacheHeaderPolicy _policy = new CacheHeaderPolicy();
+    private final Set<String> _selfContainedTemplates = new HashSet<>();
+    private final Set<String> _dependentTemplates = new HashSet<>();
+    private final Set<String> _dependencyWorkspaces = new LinkedHashSet<>();
+    private int _maxDependencies = 200;
+
+    @Inject
+    public ConditionalGetFilter(final DependencyIndex dependencyIndex) {
+        _dependencyIndex = dependencyIndex;
+    }
+
+    public CacheHeaderPolicy getPolicy() {
+        return _policy;
+    }
+
+    public void setPolicy(final CacheHeaderPolicy policy) {
+        _policy = policy;
+    }
+
+    /**
+     * Sets the templates of pages rendering only their own content, validated without recorded dependencies.
+     *
+     * @param templateIds the template ids, may be null
+     */
+    public void setSelfContainedTemplates(final Collection<String> templateIds) {
+        _selfContainedTemplates.clear();
+        if (templateIds != null) {
+            _selfContainedTemplates.addAll(templateIds);
+        }
+    }
+
+    /**
+     * Sets the templates of pages validated with the dependencies recorded by the {@link DependencyRecordingFilter}.
+     * Their rendering must read all other content through the magkit utilities, see the class comment.
+     *
+     * @param templateIds the template ids, may be null
+     */
+    public void setDependentTemplates(final Collection<String> templateIds) {
+        _dependentTemplates.clear();
+        if (templateIds != null) {
+            _dependentTemplates.addAll(templateIds);
+        }
+    }
+
+    /**
+     * Sets the maximum number of recorded dependencies resolved for a request. Requests with more dependencies are
+     * rendered without validation.
+     *
+     * @param maxDependencies the maximum number of dependencies, 0 or less for no limit
+     */
+    public void setMaxDependencies(final int maxDependencies) {
+        _maxDependencies = maxDependencies;
+    }
+
+    /**
+     * Sets the workspaces of recorded dependencies in addition to the workspace of the page, e.g. <code>dam</code>.
+     * Changes of dependencies in other workspaces are not detected.
+     *
+     * @param workspaces the workspace names, may be null
+     */
+    public void setDependencyWorkspaces(final Collection<String> workspaces) {
+        _dependencyWorkspaces.clear();
+        if (workspaces != null) {
+            _dependencyWorkspaces.addAll(workspaces);
+        }
+    }
+
+    @Override
+    public void doFilter(final HttpServletRequest request, final HttpServletResponse response, final FilterChain chain) throws IOException, ServletException {
+        AggregationState aggregationState = MgnlContext.getAggregationState();
+        Node page = aggregationState == null ? null : aggregationState.getMainContentNode();
+        Node[] dependencies = page == null ? null : getDependencies(request, page);
+        if (dependencies == null || !_policy.apply(request, response, page, dependencies)) {
+            chain.doFilter(request, response);
+        }
+    }
+
+    /**
+     * Resolves the recorded dependencies of the request.
+     *
+     * @return the dependency nodes with null values for removed nodes, empty for self-contained templates or null if
+     * the page is not validated
+     */
+    private Node[] getDependencies(final HttpServletRequest request, final Node page) {
+        Node[] nodes = null;
+        String template = NodeUtils.getTemplate(page);
+        if (_selfContainedTemplates.contains(template)) {
+            nodes = new Node[0];
+        } else if (_dependentTemplates.contains(template)) {
+            Set<String> identifiers = _dependencyIndex.getDependencies(DependencyRecordingFilter.getCacheKey(request));
+            if (identifiers != null && _maxDependencies > 0 && identifiers.size() > _maxDependencies) {
+                LOGGER.debug("{} dependencies of {} exceed the maximum of {}, not validating.", identifiers.size(), page, _maxDependencies);
+            } else if (identifiers != null) {
+                List<Session> sessions = getSessions(page);
+                List<Node> resolved = new ArrayList<>(identifiers.size());
+                for (String identifier : identifiers) {
+                    resolved.add(resolve(sessions, identifier));
+                }
+                nodes = resolved.toArray(new Node[0]);
+            }
+        }
+        return nodes;
+    }
+
+    private List<Session> getSessions(final Node page) {
+        List<Session> sessions = new ArrayList<>();
+        try {
+            sessions.add(page.getSession());
+            for (String workspace : _dependencyWorkspaces) {
+                if (!workspace.equals(page.getSession().getWorkspace().getName())) {
+                    sessions.add(MgnlContext.getJCRSession(workspace));
+                }
+            }
+        } catch (RepositoryException e) {
+            LOGGER.warn("Could not get sessions of dependency workspaces {}.", _dependencyWorkspaces, e);
+        }
+        return sessions;
+    }
+
+    private static Node resolve(final List<Session> sessions, final String identifier) {
+        Node node = null;
+        for (int i = 0; node == null && i < sessions.size(); i++) {
+            try {
+                node = sessions.get(i).getNodeByIdentifier(identifier);
+            } catch (ItemNotFoundException e) {
+                LOGGER.trace("Dependency {} not found, trying the next workspace.", identifier);
+            } catch (RepositoryException e) {
+                LOGGER.debug("Could not resolve dependency {}.", identifier, e);
+            }
+        }
+        return node;
+    }
+}
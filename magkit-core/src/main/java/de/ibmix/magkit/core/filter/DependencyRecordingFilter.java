@@ -0,0 +1,119 @@
+package de.ibmix.magkit.core.filter;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.core.utils.DependencyIndex;
+import de.ibmix.magkit.core.utils.DependencyRecorder;
+import info.magnolia.cms.filters.AbstractMgnlFilter;
+import jakarta.inject.Inject;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Set;
+
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * Opt-in filter recording the content nodes read while rendering a request with the {@link DependencyRecorder}.
+ * <p>After the filter chain returns, the recorded identifiers are</p>
+ * <ul>
+ *   <li>stored as request attribute {@link DependencyRecorder#ATTRIBUTE_DEPENDENCIES},</li>
+ *   <li>emitted as <code>Surrogate-Key</code> header (configurable name and maximum length) if the response is not
+ *   committed yet, so the filter must be placed inside a buffering filter like the Magnolia cache filter,</li>
+ *   <li>registered in the {@link DependencyIndex} for the request URI including the query string.</li>
+ * </ul>
+ * <p>Use the bypasses of the filter to restrict recording to page requests.</p>
+ *
+ * @author frank.sommer
+ * @since 2026-10-19
+ */
+public class DependencyRecordingFilter extends AbstractMgnlFilter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DependencyRecordingFilter.class);
+
+    private final DependencyIndex _dependencyIndex;
+    private String _headerName = DependencyRecorder.HEADER_SURROGATE_KEY;
+    private int _maxHeaderLength = 16384;
+
+    @Inject
+    public DependencyRecordingFilter(final DependencyIndex dependencyIndex) {
+        _dependencyIndex = dependencyIndex;
+    }
+
+    /**
+     * Sets the response header name, e.g. <code>Cache-Tag</code> for CDNs using that name. A blank name emits no header.
+     *
+     * @param headerName the header name
+     */
+    public void setHeaderName(final String headerName) {
+        _headerName = headerName;
+    }
+
+    /**
+     * Sets the maximum length of the header value. Exceeding identifiers are replaced by {@link DependencyRecorder#OVERFLOW_KEY}.
+     *
+     * @param maxHeaderLength the maximum length, 0 or less for no limit
+     */
+    public void setMaxHeaderLength(final int maxHeaderLength) {
+        _maxHeaderLength = maxHeaderLength;
+    }
+
+    @Override
+    public void doFilter(final HttpServletRequest request, final HttpServletResponse response, final FilterChain chain) throws IOException, ServletException {
+        DependencyRecorder.start();
+        Set<String> dependencies;
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            dependencies = DependencyRecorder.stop();
+        }
+        request.setAttribute(DependencyRecorder.ATTRIBUTE_DEPENDENCIES, dependencies);
+        if (!dependencies.isEmpty()) {
+            emitHeader(response, dependencies);
+            _dependencyIndex.register(getCacheKey(request), dependencies);
+        }
+    }
+
+    private void emitHeader(final HttpServletResponse response, final Set<String> dependencies) {
+        if (isNotBlank(_headerName)) {
+            if (response.isCommitted()) {
+                LOGGER.debug("Response already committed, cannot emit {} header.", _headerName);
+            } else {
+                response.setHeader(_headerName, DependencyRecorder.toSurrogateKey(dependencies, _maxHeaderLength));
+            }
+        }
+    }
+
+    /**
+     * Creates the key of the request in the {@link DependencyIndex}: the request URI including the query string.
+     *
+     * @param request the request
+     * @return the cache key
+     */
+    static String getCacheKey(final HttpServletRequest request) {
+        String queryString = request.getQueryString();
+        return queryString == null ? request.getRequestURI() : request.getRequestURI() + '?' + queryString;
+    }
+}
@@ -20,6 +20,7 @@ package de.ibmix.magkit.core.filter;
  * #L%
  */
 
+import de.ibmix.magkit.core.utils.InvalidationListener;
 import info.magnolia.context.Context;
 import info.magnolia.context.MgnlContext;
 import info.magnolia.context.SystemContext;
@@ -29,8 +30,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.jcr.Node;
+import javax.jcr.PathNotFoundException;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 import static info.magnolia.jcr.util.NodeUtil.getNodePathIfPossible;
@@ -50,15 +54,23 @@ import static org.apache.commons.lang3.StringUtils.substringBeforeLast;
  *   <li>Resolves target node path either from Magnolia aggregation state or by trimming the extension from a URI.</li>
  *   <li>Retrieves a property value in the <code>website</code> workspace via the injected {@link SystemContext}.</li>
  *   <li>Matches the property value against a pre-compiled regex for performance.</li>
+ *   <li>Caches vote results per node path in a bounded LRU cache, including a negative cache for missing nodes.
+ *   The cache is kept fresh by a JCR observation listener on the <code>website</code> workspace, registered once on a
+ *   dedicated session.</li>
  *   <li>Graceful degradation: returns false if configuration is incomplete or repository lookup fails.</li>
  * </ul>
  * <p><strong>Usage preconditions:</strong> You must configure both a non blank property name and a non blank pattern
  * string before calling {@link #boolVote(Object)}; otherwise the voter will always return <code>false</code>.</p>
- * <p><strong>Null and error handling:</strong> Repository access exceptions are caught and logged at WARN level; a
- * missing node or property results in a <code>false</code> vote. No exception is propagated to callers.</p>
- * <p><strong>Thread-safety:</strong> This class is <em>not</em> thread-safe due to its mutable configuration state
- * (property name, pattern and compiled regex). Create a dedicated instance per configuration or ensure external
- * synchronization if modified at runtime.</p>
+ * <p><strong>Null and error handling:</strong> Repository access exceptions are caught; a missing node or property
+ * results in a <code>false</code> vote. A missing node is logged at WARN level only when it is added to the negative
+ * cache, repeated misses are served from the cache. Other repository errors are not cached. No exception is propagated to callers.</p>
+ * <p><strong>Caching:</strong> The cache holds at most {@link #setMaxCacheSize(int)} entries (default
+ * {@value #DEFAULT_MAX_CACHE_SIZE}). A size of 0 disables caching. If no observation manager is available for the
+ * website workspace, results are not cached because they could not be kept fresh. A failed listener registration is
+ * retried after {@value #REGISTRATION_RETRY_MILLIS} ms, not on every vote.</p>
+ * <p><strong>Thread-safety:</strong> Voting is safe for concurrent use, the result cache is synchronized. The
+ * configuration state (property name, pattern, cache size) is not meant to be modified concurrently to voting.
+ * Create a dedicated instance per configuration or ensure external synchronization if modified at runtime.</p>
  * <p><strong>Example:</strong></p>
  * <pre>{@code
  * NodePropertyVoter voter = new NodePropertyVoter();
@@ -74,9 +86,21 @@ import static org.apache.commons.lang3.StringUtils.substringBeforeLast;
 public class NodePropertyVoter extends BasePatternVoter {
     private static final Logger LOGGER = LoggerFactory.getLogger(NodePropertyVoter.class);
 
+    public static final int DEFAULT_MAX_CACHE_SIZE = 1000;
+    public static final long REGISTRATION_RETRY_MILLIS = 60000;
+
     private Context _systemContext;
     private String _propertyName;
     private Pattern _regex;
+    private int _maxCacheSize = DEFAULT_MAX_CACHE_SIZE;
+    private final Map<String, Boolean> _voteCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, Boolean> eldest) {
+            return size() > _maxCacheSize;
+        }
+    };
+    private volatile InvalidationListener<NodePropertyVoter> _listener;
+    private volatile long _nextRegistration;
 
     /**
      * Sets the JCR property name whose value should be matched against the configured pattern.
@@ -86,6 +110,17 @@ public class NodePropertyVoter extends BasePatternVoter {
      */
     public void setPropertyName(final String propertyName) {
         _propertyName = propertyName;
+        clearCache();
+    }
+
+    /**
+     * Sets the maximum number of node paths whose vote result is cached. Least recently used entries are evicted first.
+     *
+     * @param maxCacheSize the maximum cache size; 0 or less disables caching
+     */
+    public void setMaxCacheSize(final int maxCacheSize) {
+        _maxCacheSize = Math.max(0, maxCacheSize);
+        clearCache();
     }
 
     /**
@@ -117,9 +152,13 @@ public class NodePropertyVoter extends BasePatternVoter {
             try {
                 path = resolveNodePath(value);
                 Session jcrSession = _systemContext.getJCRSession(WEBSITE);
-                Node node = jcrSession.getNode(path);
-                String currentValue = getString(node, _propertyName, "");
-                vote = _regex.matcher(currentValue).matches();
+                boolean cacheable = isCacheable();
+                Boolean cached = cacheable ? getCachedVote(path) : null;
+                if (cached != null) {
+                    vote = cached;
+                } else {
+                    vote = evaluate(jcrSession, path, cacheable);
+                }
             } catch (RepositoryException e) {
                 LOGGER.warn("No website content found on {}. Perhaps use an additional voter.", path);
             }
@@ -129,6 +168,109 @@ public class NodePropertyVoter extends BasePatternVoter {
         return vote;
     }
 
+    /**
+     * Reads the configured property of the node at the given path and matches it against the compiled pattern.
+     * The result is cached if caching is possible; a missing node is cached as negative vote. Other repository errors
+     * may be temporary, their negative vote is not cached.
+     *
+     * @param jcrSession the website session
+     * @param path the node path
+     * @param cacheable true, if the result should be stored in the cache
+     * @return true if the node exists and the property value matches
+     */
+    private boolean evaluate(final Session jcrSession, final String path, final boolean cacheable) {
+        boolean vote = false;
+        boolean cache = cacheable;
+        try {
+            Node node = jcrSession.getNode(path);
+            String currentValue = getString(node, _propertyName, "");
+            vote = _regex.matcher(currentValue).matches();
+        } catch (PathNotFoundException e) {
+            if (cacheable) {
+                LOGGER.warn("No website content found on {}. Perhaps use an additional voter.", path);
+            } else {
+                LOGGER.debug("No website content found on {}.", path);
+            }
+        } catch (RepositoryException e) {
+            cache = false;
+            LOGGER.warn("Could not read website content on {}, vote is not cached.", path, e);
+        }
+        if (cache) {
+            synchronized (_voteCache) {
+                _voteCache.put(path, vote);
+            }
+        }
+        return vote;
+    }
+
+    private Boolean getCachedVote(final String path) {
+        synchronized (_voteCache) {
+            return _voteCache.get(path);
+        }
+    }
+
+    /**
+     * Checks whether vote results may be cached. Registers the observation listener that keeps the cache fresh on first
+     * use and again whenever its session is no longer live. The listener uses a session of its own, see
+     * {@link InvalidationListener}, so the cache outlives the sessions of the system context. After a failed
+     * registration votes are not cached and the registration is retried after {@value #REGISTRATION_RETRY_MILLIS} ms.
+     *
+     * @return true if caching is enabled and an observation listener is registered
+     */
+    private boolean isCacheable() {
+        boolean cacheable = false;
+        if (_maxCacheSize > 0) {
+            InvalidationListener<NodePropertyVoter> listener = _listener;
+            if ((listener == null || !listener.isActive()) && System.currentTimeMillis() >= _nextRegistration) {
+                listener = registerListener();
+            }
+            cacheable = listener != null && listener.isActive();
+        }
+        return cacheable;
+    }
+
+    private synchronized InvalidationListener<NodePropertyVoter> registerListener() {
+        InvalidationListener<NodePropertyVoter> listener = _listener;
+        if ((listener == null || !listener.isActive()) && System.currentTimeMillis() >= _nextRegistration) {
+            if (listener != null) {
+                listener.unregister();
+            }
+            listener = InvalidationListener.register(WEBSITE, this, NodePropertyVoter::invalidate);
+            _listener = listener;
+            if (listener == null) {
+                LOGGER.debug("Votes are not cached, registration of the observation listener is retried in {} ms.", REGISTRATION_RETRY_MILLIS);
+                _nextRegistration = System.currentTimeMillis() + REGISTRATION_RETRY_MILLIS;
+            } else {
+                // changes may have been missed while no listener was registered
+                clearCache();
+            }
+        }
+        return listener;
+    }
+
+    /**
+     * Removes the cached vote results of the node at the given path. Node events also remove all cached descendants
+     * because moving or removing a node does not fire events for its subtree.
+     *
+     * @param path the changed node path
+     * @param includeDescendants true to remove the cached results of all descendants as well
+     */
+    void invalidate(final String path, final boolean includeDescendants) {
+        String prefix = "/".equals(path) ? path : path + '/';
+        synchronized (_voteCache) {
+            _voteCache.remove(path);
+            if (includeDescendants) {
+                _voteCache.keySet().removeIf(key -> key.startsWith(prefix));
+            }
+        }
+    }
+
+    private void clearCache() {
+        synchronized (_voteCache) {
+            _voteCache.clear();
+        }
+    }
+
     /**
      * Resolves the JCR node path either from the current aggregation state (if available) or from the incoming
      * value (expected to be a URI String) by stripping the file extension.
@@ -158,5 +300,6 @@ public class NodePropertyVoter extends BasePatternVoter {
     public void setPattern(String pattern) {
         super.setPattern(pattern);
         _regex = Pattern.compile(pattern);
+        clearCache();
     }
 }
@@ -20,6 +20,7 @@ package de.ibmix.magkit.core.node;
  * #L%
  */
 
+import de.ibmix.magkit.core.utils.DependencyRecorder;
 import info.magnolia.jcr.wrapper.DelegateNodeWrapper;
 import org.apache.jackrabbit.commons.iterator.NodeIteratorAdapter;
 import org.apache.jackrabbit.commons.iterator.PropertyIteratorAdapter;
@@ -70,7 +71,8 @@ import static org.apache.commons.lang3.Validate.notEmpty;
  * Null and error handling: If a wrapped node exists all repository exceptions propagate unchanged. Without a wrapped
  * node, methods return neutral defaults and do not throw (unless contract requires otherwise, e.g. validation inside
  * constructors). Thread-safety: Not thread-safe; instances should be confined to request scope. Side effects: None –
- * calls never modify repository state when underlying node is absent.
+ * calls never modify repository state when underlying node is absent. A wrapped node is reported to an active
+ * {@link DependencyRecorder}.
  *
  * @author wolf.bubenik@ibmix.de
  * @since 2024-03-15
@@ -103,6 +105,7 @@ public abstract class NullableDelegateNodeWrapper extends DelegateNodeWrapper {
     protected NullableDelegateNodeWrapper(Node node) {
         super(node);
         requireNonNull(node);
+        DependencyRecorder.record(node);
     }
 
     /**
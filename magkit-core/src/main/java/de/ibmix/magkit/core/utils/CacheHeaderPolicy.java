@@ -0,0 +1,315 @@
+package de.ibmix.magkit.core.utils;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import jakarta.annotation.Nullable;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import javax.jcr.Node;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
+
+import static de.ibmix.magkit.core.utils.NodeUtils.IS_AREA;
+import static de.ibmix.magkit.core.utils.NodeUtils.IS_COMPONENT;
+import static info.magnolia.cms.cache.CacheConstants.HEADER_CACHE_CONTROL;
+import static info.magnolia.jcr.util.NodeTypes.LastModified.LAST_MODIFIED;
+import static org.apache.commons.lang3.StringUtils.split;
+import static org.apache.commons.lang3.StringUtils.strip;
+
+/**
+ * Cache header policy deriving HTTP validators from content modification dates and answering conditional GET requests.
+ * Complements {@link CacheUtils#preventCaching(HttpServletResponse)} for content that may be cached and revalidated.
+ *
+ * <p>Key features:
+ * <ul>
+ *   <li>Derives <code>Last-Modified</code> from the latest <code>mgnl:lastModified</code> of the page, its areas and
+ *   components (optional) and any additionally referenced content nodes.</li>
+ *   <li>Derives a strong <code>ETag</code> from that modification date and a 64 bit content version hashed from the
+ *   identifiers and modification dates of all these nodes, so added, removed or replaced components and references
+ *   change the ETag even if the latest modification date does not increase.</li>
+ *   <li>Answers <code>If-None-Match</code> with status 304 before rendering starts. <code>If-Modified-Since</code> is
+ *   only evaluated if enabled (see {@link #setEvaluateIfModifiedSince(boolean)}), because removing a component can
+ *   move the latest modification date backwards. <code>If-None-Match</code> takes precedence as defined by
+ *   RFC 9110.</li>
+ *   <li>Applies <code>Cache-Control: max-age</code> rules per template id with an optional default.</li>
+ * </ul>
+ *
+ * <p>Usage preconditions: Only GET and HEAD requests are evaluated. Content rendered with request specific data
+ * (personalization, forms) must be excluded by the caller, e.g. by voters of the filter using this policy.
+ *
+ * <p>Null and error handling: A null page results in no headers and no 304 response. Nodes without modification
+ * date do not change the last modification date, null references (e.g. removed nodes) change the content version.
+ *
+ * <p>Thread-safety: Configure once, then the policy may be used concurrently.
+ *
+ * <p>Usage example:
+ * <pre>
+ *   CacheHeaderPolicy policy = new CacheHeaderPolicy();
+ *   policy.setDefaultMaxAge(60);
+ *   policy.addTemplateMaxAge("my-module:pages/home", 300);
+ *   if (policy.apply(request, response, page)) {
+ *       return; // 304 sent, skip rendering
+ *   }
+ * </pre>
+ *
+ * @author frank.sommer
+ * @since 2026-10-19
+ */
+public class CacheHeaderPolicy {
+    public static final String HEADER_ETAG = "ETag";
+    public static final String HEADER_LAST_MODIFIED = "Last-Modified";
+    public static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+    public static final String HEADER_IF_MODIFIED_SINCE = "If-Modified-Since";
+
+    private static final String METHOD_GET = "GET";
+    private static final String METHOD_HEAD = "HEAD";
+
+    private final Map<String, Long> _templateMaxAges = new HashMap<>();
+    private long _defaultMaxAge = -1;
+    private boolean _includeComponents = true;
+    private boolean _evaluateIfModifiedSince;
+
+    /**
+     * Sets the max-age in seconds used for templates without a specific rule. A negative value (default) sets no
+     * Cache-Control header for those templates.
+     *
+     * @param defaultMaxAge the default max-age in seconds
+     */
+    public void setDefaultMaxAge(final long defaultMaxAge) {
+        _defaultMaxAge = defaultMaxAge;
+    }
+
+    /**
+     * Replaces the max-age rules per template id.
+     *
+     * @param templateMaxAges map of template id to max-age in seconds, may be null
+     */
+    public void setTemplateMaxAges(@Nullable final Map<String, Long> templateMaxAges) {
+        _templateMaxAges.clear();
+        if (templateMaxAges != null) {
+            _templateMaxAges.putAll(templateMaxAges);
+        }
+    }
+
+    /**
+     * Adds a max-age rule for a template id.
+     *
+     * @param templateId the template id
+     * @param maxAge     max-age in seconds, a negative value sets no Cache-Control header
+     */
+    public void addTemplateMaxAge(final String templateId, final long maxAge) {
+        _templateMaxAges.put(templateId, maxAge);
+    }
+
+    /**
+     * Defines whether the modification dates of areas and components below the page are considered (default true).
+     *
+     * @param includeComponents false to use the page and the referenced nodes only
+     */
+    public void setIncludeComponents(final boolean includeComponents) {
+        _includeComponents = includeComponents;
+    }
+
+    /**
+     * Defines whether requests with <code>If-Modified-Since</code> but without <code>If-None-Match</code> are answered
+     * with 304 (default false). Enable only if components are never removed without updating the modification date of
+     * their page or area.
+     *
+     * @param evaluateIfModifiedSince true to evaluate <code>If-Modified-Since</code>
+     */
+    public void setEvaluateIfModifiedSince(final boolean evaluateIfModifiedSince) {
+        _evaluateIfModifiedSince = evaluateIfModifiedSince;
+    }
+
+    /**
+     * Sets the validator and Cache-Control headers for the page and answers conditional requests.
+     * If the client copy is still valid, status 304 is set and the caller must not render the page.
+     *
+     * @param request    the current request
+     * @param response   the current response
+     * @param page       the page to be rendered, may be null
+     * @param referenced additional content nodes rendered on the page, e.g. teaser targets or assets. Pass null for
+     *                   references that cannot be resolved anymore.
+     * @return true if a 304 Not Modified response has been set and rendering must be skipped
+     */
+    public boolean apply(final HttpServletRequest request, final HttpServletResponse response, @Nullable final Node page, final Node... referenced) {
+        boolean notModified = false;
+        String method = request.getMethod();
+        if (page != null && (METHOD_GET.equals(method) || METHOD_HEAD.equals(method))) {
+            Validators validators = collect(page, referenced);
+            applyCacheControl(response, page);
+            if (validators._lastModified > 0) {
+                String eTag = createETag(validators._lastModified, validators._version);
+                response.setHeader(HEADER_ETAG, eTag);
+                response.setDateHeader(HEADER_LAST_MODIFIED, validators._lastModified);
+                notModified = isNotModified(request, eTag, validators._lastModified, _evaluateIfModifiedSince);
+                if (notModified) {
+                    response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                }
+            }
+        }
+        return notModified;
+    }
+
+    /**
+     * Determines the latest modification date of the page, its areas and components and the referenced nodes.
+     *
+     * @param page       the page node, may be null
+     * @param referenced additional content nodes, may contain null values
+     * @return the latest modification in milliseconds or 0 if none is known
+     */
+    public long getLastModified(@Nullable final Node page, final Node... referenced) {
+        return collect(page, referenced)._lastModified;
+    }
+
+    /**
+     * Determines the content version of the page, its areas and components and the referenced nodes: a hash of their
+     * identifiers and modification dates in rendering order.
+     *
+     * @param page       the page node, may be null
+     * @param referenced additional content nodes, may contain null values for removed nodes
+     * @return the content version
+     */
+    public long getVersion(@Nullable final Node page, final Node... referenced) {
+        return collect(page, referenced)._version;
+    }
+
+    /**
+     * Creates a strong entity tag from the modification date and the content version.
+     *
+     * @param lastModified the latest modification in milliseconds
+     * @param version      the content version, see {@link #getVersion(Node, Node...)}
+     * @return the quoted entity tag
+     */
+    public String createETag(final long lastModified, final long version) {
+        return '"' + Long.toHexString(lastModified) + '-' + Long.toHexString(version) + '"';
+    }
+
+    /**
+     * Resolves the max-age for the page template: the template rule if present, otherwise the default.
+     *
+     * @param page the page node
+     * @return the max-age in seconds or a negative value if no Cache-Control header should be set
+     */
+    public long getMaxAge(final Node page) {
+        String template = NodeUtils.getTemplate(page);
+        Long maxAge = template == null ? null : _templateMaxAges.get(template);
+        return maxAge == null ? _defaultMaxAge : maxAge;
+    }
+
+    private void applyCacheControl(final HttpServletResponse response, final Node page) {
+        long maxAge = getMaxAge(page);
+        if (maxAge >= 0) {
+            response.setHeader(HEADER_CACHE_CONTROL, "max-age=" + maxAge);
+        }
+    }
+
+    static boolean isNotModified(final HttpServletRequest request, final String eTag, final long lastModified, final boolean evaluateIfModifiedSince) {
+        boolean notModified = false;
+        String ifNoneMatch = request.getHeader(HEADER_IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            notModified = matchesETag(ifNoneMatch, eTag);
+        } else if (evaluateIfModifiedSince) {
+            long ifModifiedSince = request.getDateHeader(HEADER_IF_MODIFIED_SINCE);
+            // HTTP dates have a precision of seconds
+            notModified = ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+        }
+        return notModified;
+    }
+
+    private static boolean matchesETag(final String ifNoneMatch, final String eTag) {
+        boolean matches = false;
+        if ("*".equals(ifNoneMatch.trim())) {
+            matches = true;
+        } else {
+            for (String candidate : split(ifNoneMatch, ',')) {
+                String tag = strip(candidate);
+                // weak comparison as required for If-None-Match
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (eTag.equals(tag)) {
+                    matches = true;
+                    break;
+                }
+            }
+        }
+        return matches;
+    }
+
+    private Validators collect(@Nullable final Node page, final Node... referenced) {
+        Validators validators = new Validators();
+        if (page != null) {
+            if (_includeComponents) {
+                addSubtree(validators, page);
+            } else {
+                validators.add(page);
+            }
+        }
+        if (referenced != null) {
+            for (Node node : referenced) {
+                validators.add(node);
+            }
+        }
+        return validators;
+    }
+
+    private static void addSubtree(final Validators validators, final Node node) {
+        validators.add(node);
+        for (Node child : NodeUtils.getChildren(node, IS_AREA.or(IS_COMPONENT))) {
+            addSubtree(validators, child);
+        }
+    }
+
+    private static long lastModifiedOf(@Nullable final Node node) {
+        Calendar calendar = node == null ? null : PropertyUtils.getCalendarValue(node, LAST_MODIFIED);
+        return calendar == null ? 0 : calendar.getTimeInMillis();
+    }
+
+    /**
+     * Latest modification date and content version (64 bit FNV-1a hash) of the collected nodes.
+     */
+    private static final class Validators {
+        private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+        private static final long FNV_PRIME = 0x100000001b3L;
+
+        private long _lastModified;
+        private long _version = FNV_OFFSET;
+
+        private void add(@Nullable final Node node) {
+            long lastModified = lastModifiedOf(node);
+            _lastModified = Math.max(_lastModified, lastModified);
+            String identifier = node == null ? null : NodeUtils.getIdentifier(node);
+            if (identifier != null) {
+                for (int i = 0; i < identifier.length(); i++) {
+                    hash(identifier.charAt(i));
+                }
+            }
+            hash(lastModified);
+        }
+
+        private void hash(final long value) {
+            _version = (_version ^ value) * FNV_PRIME;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package de.ibmix.magkit.core.utils;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import jakarta.inject.Singleton;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of render dependencies mapping content node identifiers to the cache entries that used them.
+ * <p>Cache entries are registered with the identifiers recorded by {@link DependencyRecorder} while rendering them.
+ * On publication or content change, {@link #invalidate(Collection)} returns the affected cache entry keys and removes
+ * them from the index, so a flush policy can evict exactly those entries instead of large parts of the cache.</p>
+ * <p>The index holds at most {@link #setMaxEntries(int)} cache entries (default {@value #DEFAULT_MAX_ENTRIES}). When
+ * the bound is exceeded, the entries registered first are dropped. Dropped entries are not reported by
+ * {@link #invalidate(Collection)} anymore, so a flush policy must treat cache entries unknown to the index (see
+ * {@link #contains(String)}) as depending on any content.</p>
+ * <p>Thread-safety: All methods are safe for concurrent use. Registration, removal and invalidation are atomic, lookups
+ * do not block. The instance is a singleton when obtained via injection.</p>
+ * <p>Usage example:</p>
+ * <pre>{@code
+ * index.register("/de/home.html", DependencyRecorder.stop());
+ * Set<String> toFlush = index.invalidate(changedIdentifiers);
+ * }</pre>
+ *
+ * @author frank.sommer
+ * @since 2026-10-19
+ */
+@Singleton
+public class DependencyIndex {
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    private final Map<String, Set<String>> _entriesByIdentifier = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> _identifiersByEntry = new LinkedHashMap<>();
+    private int _maxEntries = DEFAULT_MAX_ENTRIES;
+
+    /**
+     * Sets the maximum number of registered cache entries. The entries registered first are dropped when the index grows
+     * beyond this size.
+     *
+     * @param maxEntries the maximum number of entries, 0 or less disables the index
+     */
+    public void setMaxEntries(final int maxEntries) {
+        synchronized (_identifiersByEntry) {
+            _maxEntries = Math.max(0, maxEntries);
+            trim();
+        }
+    }
+
+    /**
+     * Registers a cache entry with its dependencies, replacing a previous registration of the same entry.
+     *
+     * @param cacheKey    the key of the cache entry
+     * @param identifiers the node identifiers read while rendering the entry
+     */
+    public void register(final String cacheKey, final Collection<String> identifiers) {
+        Set<String> dependencies = Collections.unmodifiableSet(new LinkedHashSet<>(identifiers));
+        synchronized (_identifiersByEntry) {
+            unlink(cacheKey);
+            _identifiersByEntry.put(cacheKey, dependencies);
+            for (String identifier : dependencies) {
+                _entriesByIdentifier.computeIfAbsent(identifier, id -> ConcurrentHashMap.newKeySet()).add(cacheKey);
+            }
+            trim();
+        }
+    }
+
+    /**
+     * Returns the cache entries depending on any of the given identifiers without changing the index.
+     *
+     * @param identifiers changed node identifiers
+     * @return the keys of the affected cache entries, never null
+     */
+    public Set<String> getAffectedEntries(final Collection<String> identifiers) {
+        Set<String> result = new LinkedHashSet<>();
+        for (String identifier : identifiers) {
+            Set<String> entries = _entriesByIdentifier.get(identifier);
+            if (entries != null) {
+                result.addAll(entries);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Determines the cache entries depending on any of the given identifiers and removes them from the index.
+     *
+     * @param identifiers changed node identifiers
+     * @return the keys of the cache entries to be evicted, never null
+     */
+    public Set<String> invalidate(final Collection<String> identifiers) {
+        Set<String> affected;
+        synchronized (_identifiersByEntry) {
+            affected = getAffectedEntries(identifiers);
+            affected.forEach(this::unlink);
+        }
+        return affected;
+    }
+
+    /**
+     * Removes a cache entry from the index, e.g. after it has been evicted by the cache itself.
+     *
+     * @param cacheKey the key of the cache entry
+     */
+    public void remove(final String cacheKey) {
+        synchronized (_identifiersByEntry) {
+            unlink(cacheKey);
+        }
+    }
+
+    /**
+     * Returns the dependencies of a cache entry.
+     *
+     * @param cacheKey the key of the cache entry
+     * @return the node identifiers read while rendering the entry or null if the entry is not registered
+     */
+    public Set<String> getDependencies(final String cacheKey) {
+        synchronized (_identifiersByEntry) {
+            return _identifiersByEntry.get(cacheKey);
+        }
+    }
+
+    /**
+     * Checks whether the dependencies of a cache entry are known.
+     *
+     * @param cacheKey the key of the cache entry
+     * @return true if the entry is registered and has not been dropped or invalidated since
+     */
+    public boolean contains(final String cacheKey) {
+        synchronized (_identifiersByEntry) {
+            return _identifiersByEntry.containsKey(cacheKey);
+        }
+    }
+
+    /**
+     * Removes all registrations, e.g. after a complete cache flush.
+     */
+    public void clear() {
+        synchronized (_identifiersByEntry) {
+            _identifiersByEntry.clear();
+            _entriesByIdentifier.clear();
+        }
+    }
+
+    /**
+     * Returns the number of registered cache entries.
+     *
+     * @return the entry count
+     */
+    public int size() {
+        synchronized (_identifiersByEntry) {
+            return _identifiersByEntry.size();
+        }
+    }
+
+    private void unlink(final String cacheKey) {
+        Set<String> identifiers = _identifiersByEntry.remove(cacheKey);
+        if (identifiers != null) {
+            for (String identifier : identifiers) {
+                _entriesByIdentifier.computeIfPresent(identifier, (id, entries) -> {
+                    entries.remove(cacheKey);
+                    return entries.isEmpty() ? null : entries;
+                });
+            }
+        }
+    }
+
+    private void trim() {
+        while (_identifiersByEntry.size() > _maxEntries) {
+            unlink(_identifiersByEntry.keySet().iterator().next());
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package de.ibmix.magkit.core.utils;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import jakarta.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+import static org.apache.commons.lang3.StringUtils.remove;
+
+/**
+ * Opt-in recorder of the content node identifiers read while rendering a request.
+ * <p>Recording is bound to the current thread and only active between {@link #start()} and {@link #stop()}.
+ * Recordings can be nested, e.g. for a fragment rendered within a page: each one ends with its own stop and the outer
+ * recordings contain the identifiers of the nested ones. While active, {@link NodeUtils}, {@link PropertyUtils},
+ * {@link LinkTool} and the magkit node wrappers report the nodes they read. Outside a recording all calls are no-ops, so the utilities only pay for a thread local lookup.</p>
+ * <p>The recorded identifiers can be emitted as compact <code>Surrogate-Key</code> header value
+ * (see {@link #toSurrogateKey(Collection, int)}) and registered in a {@link DependencyIndex} for targeted invalidation.</p>
+ * <p>Thread-safety: Each thread records into its own sets, the class is stateless otherwise.</p>
+ * <p>Usage example:</p>
+ * <pre>{@code
+ * DependencyRecorder.start();
+ * try {
+ *     // render ...
+ * } finally {
+ *     Set<String> identifiers = DependencyRecorder.stop();
+ * }
+ * }</pre>
+ *
+ * @author frank.sommer
+ * @since 2026-10-19
+ */
+public final class DependencyRecorder {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DependencyRecorder.class);
+
+    public static final String HEADER_SURROGATE_KEY = "Surrogate-Key";
+    public static final String ATTRIBUTE_DEPENDENCIES = DependencyRecorder.class.getName() + ".dependencies";
+    public static final String OVERFLOW_KEY = "magkit-all";
+
+    private static final ThreadLocal<Deque<Set<String>>> RECORDED = new ThreadLocal<>();
+
+    /**
+     * Starts a new recording for the current thread. A recording started while another one is active is nested: it
+     * ends with the next {@link #stop()} and its identifiers are recorded by the outer recording as well.
+     */
+    public static void start() {
+        Deque<Set<String>> recordings = RECORDED.get();
+        if (recordings == null) {
+            recordings = new ArrayDeque<>();
+            RECORDED.set(recordings);
+        }
+        recordings.push(new LinkedHashSet<>());
+    }
+
+    /**
+     * Checks whether a recording is active for the current thread.
+     *
+     * @return true if nodes are recorded
+     */
+    public static boolean isRecording() {
+        return RECORDED.get() != null;
+    }
+
+    private static void add(final String identifier) {
+        for (Set<String> recorded : RECORDED.get()) {
+            recorded.add(identifier);
+        }
+    }
+
+    /**
+     * Records the identifier of the given node if a recording is active.
+     *
+     * @param node the node read, may be null
+     */
+    public static void record(@Nullable final Node node) {
+        if (isRecording() && node != null) {
+            try {
+                String identifier = node.getIdentifier();
+                if (isNotBlank(identifier)) {
+                    add(identifier);
+                }
+            } catch (RepositoryException e) {
+                LOGGER.debug("Cannot record node identifier.", e);
+            }
+        }
+    }
+
+    /**
+     * Records a node identifier if a recording is active.
+     *
+     * @param identifier the node identifier, may be null
+     */
+    public static void record(@Nullable final String identifier) {
+        if (isRecording() && isNotBlank(identifier)) {
+            add(identifier);
+        }
+    }
+
+    /**
+     * Ends the innermost recording of the current thread. Outer recordings stay active.
+     *
+     * @return the identifiers recorded in reading order, empty if no recording was active
+     */
+    public static Set<String> stop() {
+        Deque<Set<String>> recordings = RECORDED.get();
+        Set<String> recorded = recordings == null ? Collections.emptySet() : recordings.pop();
+        if (recordings != null && recordings.isEmpty()) {
+            RECORDED.remove();
+        }
+        return recorded;
+    }
+
+    /**
+     * Creates a compact Surrogate-Key header value: space separated identifiers without dashes.
+     * If the value would exceed the maximum length, the remaining identifiers are replaced by {@link #OVERFLOW_KEY},
+     * so that a purge of that key still reaches the entry.
+     *
+     * @param identifiers the recorded identifiers
+     * @param maxLength   maximum header value length, 0 or less for no limit
+     * @return the header value, empty if no identifiers are given
+     */
+    public static String toSurrogateKey(final Collection<String> identifiers, final int maxLength) {
+        StringBuilder result = new StringBuilder();
+        for (String identifier : identifiers) {
+            String key = toKey(identifier);
+            int separatorLength = result.length() > 0 ? 1 : 0;
+            if (maxLength > 0 && result.length() + separatorLength + key.length() > maxLength - OVERFLOW_KEY.length() - 1) {
+                result.append(separatorLength > 0 ? " " : "").append(OVERFLOW_KEY);
+                break;
+            }
+            result.append(separatorLength > 0 ? " " : "").append(key);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Converts a node identifier into its compact surrogate key.
+     *
+     * @param identifier the node identifier
+     * @return the identifier without dashes
+     */
+    public static String toKey(final String identifier) {
+        return remove(identifier, '-');
+    }
+
+    private DependencyRecorder() {
+    }
+}
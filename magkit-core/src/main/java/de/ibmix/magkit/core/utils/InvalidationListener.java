@@ -0,0 +1,171 @@
+package de.ibmix.magkit.core.utils;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import info.magnolia.objectfactory.Components;
+import info.magnolia.repository.RepositoryManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.observation.Event;
+import javax.jcr.observation.EventIterator;
+import javax.jcr.observation.EventListener;
+import javax.jcr.observation.ObservationManager;
+import java.lang.ref.WeakReference;
+
+import static org.apache.commons.lang3.StringUtils.isEmpty;
+import static org.apache.commons.lang3.StringUtils.substringBeforeLast;
+
+/**
+ * JCR observation listener keeping caches of content derived data fresh.
+ * <p>Purpose: Caches like the vote cache of the {@link de.ibmix.magkit.core.filter.NodePropertyVoter} or the query
+ * result cache of magkit-query must drop their entries when the content they were computed from changes. This
+ * listener observes a whole workspace and reports the changed paths to its target.</p>
+ * <p>Key features:</p>
+ * <ul>
+ *   <li>The listener is registered on a dedicated system session of its own, so it is not bound to the lifetime of a
+ *   request or of the per-thread sessions of the system context. Register it once per target and workspace.</li>
+ *   <li>Node events (added, removed, moved) report the node path including its subtree, property events report the
+ *   path of the parent node only.</li>
+ *   <li>The target is held weakly. Once it has been garbage collected (e.g. after a configuration reload), the listener
+ *   unregisters itself and logs out its session.</li>
+ * </ul>
+ * <p>Null and error handling: {@link #register(String, Object, Invalidation)} returns null if the workspace does not
+ * support observation. If the path of an event cannot be resolved, the whole workspace is reported as changed.</p>
+ * <p>Thread-safety: Thread-safe, events are delivered by the repository on its own thread.</p>
+ * <p>Usage example:</p>
+ * <pre>{@code
+ * InvalidationListener<MyCache> listener = InvalidationListener.register("website", this, MyCache::invalidate);
+ * boolean cacheable = listener != null && listener.isActive();
+ * }</pre>
+ *
+ * @param <T> the type of the invalidated target
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public final class InvalidationListener<T> implements EventListener {
+    private static final Logger LOG = LoggerFactory.getLogger(InvalidationListener.class);
+
+    private static final String ROOT_PATH = "/";
+    private static final int NODE_EVENTS = Event.NODE_ADDED | Event.NODE_REMOVED | Event.NODE_MOVED;
+    private static final int OBSERVED_EVENTS = NODE_EVENTS | Event.PROPERTY_ADDED | Event.PROPERTY_CHANGED | Event.PROPERTY_REMOVED;
+
+    private final WeakReference<T> _target;
+    private final Invalidation<T> _invalidation;
+    private final Session _session;
+
+    private InvalidationListener(final T target, final Invalidation<T> invalidation, final Session session) {
+        _target = new WeakReference<>(target);
+        _invalidation = invalidation;
+        _session = session;
+    }
+
+    /**
+     * Register a listener for all changes of the workspace on a dedicated system session.
+     * @param workspace the observed workspace
+     * @param target the invalidated target, held weakly
+     * @param invalidation invalidates the target, must not keep a reference to the target itself,
+     * e.g. {@code MyCache::invalidate}
+     * @param <T> the type of the target
+     * @return the registered listener or null if the workspace does not support observation
+     */
+    public static <T> InvalidationListener<T> register(final String workspace, final T target, final Invalidation<T> invalidation) {
+        InvalidationListener<T> listener = null;
+        Session session = null;
+        try {
+            session = Components.getComponent(RepositoryManager.class).getSystemSession(workspace);
+            ObservationManager observationManager = session.getWorkspace().getObservationManager();
+            if (observationManager != null) {
+                listener = new InvalidationListener<>(target, invalidation, session);
+                observationManager.addEventListener(listener, OBSERVED_EVENTS, ROOT_PATH, true, null, null, false);
+            }
+        } catch (RepositoryException e) {
+            LOG.debug("Could not register observation listener for workspace {}.", workspace, e);
+            listener = null;
+        }
+        if (listener == null && session != null) {
+            session.logout();
+        }
+        return listener;
+    }
+
+    /**
+     * Check whether the listener still receives events.
+     * @return true if the session of the listener is live
+     */
+    public boolean isActive() {
+        return _session.isLive();
+    }
+
+    /**
+     * Remove the listener and log out its session.
+     */
+    public void unregister() {
+        try {
+            if (_session.isLive()) {
+                _session.getWorkspace().getObservationManager().removeEventListener(this);
+            }
+        } catch (RepositoryException e) {
+            LOG.debug("Could not remove event listener.", e);
+        } finally {
+            _session.logout();
+        }
+    }
+
+    @Override
+    public void onEvent(final EventIterator events) {
+        T target = _target.get();
+        if (target == null) {
+            unregister();
+        } else {
+            while (events.hasNext()) {
+                Event event = events.nextEvent();
+                try {
+                    boolean nodeEvent = (event.getType() & NODE_EVENTS) != 0;
+                    String path = nodeEvent ? event.getPath() : substringBeforeLast(event.getPath(), ROOT_PATH);
+                    _invalidation.invalidate(target, isEmpty(path) ? ROOT_PATH : path, nodeEvent);
+                } catch (RepositoryException e) {
+                    LOG.debug("Could not resolve event path, invalidating the whole workspace.", e);
+                    _invalidation.invalidate(target, ROOT_PATH, true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Invalidates the target for a changed path.
+     *
+     * @param <T> the type of the target
+     */
+    @FunctionalInterface
+    public interface Invalidation<T> {
+
+        /**
+         * Invalidate the data of the target depending on the changed path.
+         * @param target the target
+         * @param path the changed path
+         * @param subtreeChanged true if the node itself has been added, removed or moved
+         */
+        void invalidate(T target, String path, boolean subtreeChanged);
+    }
+}
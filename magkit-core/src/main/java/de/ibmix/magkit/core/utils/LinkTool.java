@@ -139,6 +139,7 @@ public final class LinkTool {
      * @return the resolved URL (internal/external/redirect) or null if resolution fails or input blank/external
      */
     public static String createLinkForReference(Node source, String linkPropertyName, String workspace, LinkType linkType) {
+        DependencyRecorder.record(source);
         String link = isNotBlank(linkPropertyName) ? trimToNull(getString(source, linkPropertyName)) : null;
         if (isNotBlank(link) && !isExternalLink(link)) {
             Node target = NodeUtils.getNodeByReference(workspace, link);
@@ -60,6 +60,7 @@ import static org.apache.commons.lang3.StringUtils.isNotBlank;
  *   <li>Child node collection with predicate-based filtering and safe iteration</li>
  *   <li>Safe accessors for frequently used Node attributes (name, identifier, path, depth)</li>
  *   <li>Wrapping of Java {@link java.util.function.Predicate} into Jackrabbit predicate for Magnolia utilities</li>
+ *   <li>Resolved nodes are reported to an active {@link DependencyRecorder}</li>
  * </ul>
  *
  * <p>
@@ -144,6 +145,7 @@ public final class NodeUtils {
         Node node = null;
         try {
             node = NodeUtil.getNodeByIdentifier(workspace, identifier);
+            DependencyRecorder.record(node);
         } catch (RepositoryException e) {
             LOGGER.info("Error getting node with id {} in {}.", identifier, workspace);
             LOGGER.debug(e.getLocalizedMessage(), e);
@@ -167,6 +169,7 @@ public final class NodeUtils {
             result = getNodeByIdentifier(workspace, ref);
         } else if (Strings.CS.startsWith(reference, "/")) {
             result = SessionUtil.getNode(workspace, reference);
+            DependencyRecorder.record(result);
         }
         return result;
     }
@@ -216,6 +219,7 @@ public final class NodeUtils {
         if (node != null && isNotBlank(path)) {
             try {
                 result = node.hasNode(path) ? node.getNode(path) : null;
+                DependencyRecorder.record(result);
             } catch (RepositoryException e) {
                 LOGGER.warn("Unable to get child of node [{}]", getPathIfPossible(node));
                 LOGGER.debug(e.getLocalizedMessage(), e);
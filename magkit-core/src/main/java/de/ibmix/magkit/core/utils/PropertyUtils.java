@@ -125,6 +125,7 @@ public final class PropertyUtils {
     public static Property getProperty(@Nullable final Node node, @Nullable final String relPath) {
         Property result = null;
         if (node != null && isNotEmpty(relPath)) {
+            DependencyRecorder.record(node);
             try {
                 result = node.getProperty(relPath);
             } catch (RepositoryException e) {
@@ -143,6 +144,7 @@ public final class PropertyUtils {
     public static PropertyIterator getProperties(@Nullable final Node node) {
         PropertyIterator result = null;
         if (node != null) {
+            DependencyRecorder.record(node);
             try {
                 result = node.getProperties();
             } catch (RepositoryException e) {
@@ -162,6 +164,7 @@ public final class PropertyUtils {
     public static PropertyIterator getProperties(@Nullable final Node node, @Nonnull final String namePattern) {
         PropertyIterator result = null;
         if (node != null) {
+            DependencyRecorder.record(node);
             try {
                 result = node.getProperties(namePattern);
             } catch (RepositoryException e) {
@@ -181,6 +184,7 @@ public final class PropertyUtils {
     public static PropertyIterator getProperties(@Nullable final Node node, @Nonnull final String[] nameGlobs) {
         PropertyIterator result = null;
         if (node != null) {
+            DependencyRecorder.record(node);
             try {
                 result = node.getProperties(nameGlobs);
             } catch (RepositoryException e) {
@@ -0,0 +1,124 @@
+package de.ibmix.magkit.core.filter;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link CompiledUriPatternVoter} validating prefix trie candidate selection and the highest level
+ * weighting of matching rules.
+ *
+ * @author frank.sommer
+ * @since 2026-10-19
+ */
+public class CompiledUriPatternVoterTest {
+
+    private CompiledUriPatternVoter _voter;
+
+    @BeforeEach
+    public void setUp() {
+        _voter = new CompiledUriPatternVoter();
+    }
+
+    @Test
+    public void voteWithoutRules() {
+        assertEquals(0, _voter.vote("/page.html"));
+        assertEquals(0, _voter.vote(null));
+        assertFalse(_voter.boolVote("/page.html"));
+    }
+
+    @Test
+    public void addPattern() {
+        _voter.addPattern(null);
+        _voter.addPattern("  ");
+        assertEquals(0, _voter.getRuleCount());
+
+        _voter.addPattern("/.resources/*");
+        _voter.addPattern("/docroot/*");
+        assertEquals(2, _voter.getRuleCount());
+        assertTrue(_voter.boolVote("/.resources/styles.css"));
+        assertTrue(_voter.boolVote("/docroot/img/logo.png"));
+        assertFalse(_voter.boolVote("/page.html"));
+        assertFalse(_voter.boolVote("/docroo"));
+    }
+
+    @Test
+    public void addPatternVotesCurrentTrueValue() {
+        _voter.addPattern("/.resources/*");
+        _voter.setTrueValue(5);
+        assertEquals(5, _voter.vote("/.resources/styles.css"));
+        assertEquals(0, _voter.vote("/page.html"));
+    }
+
+    @Test
+    public void voteInverse() {
+        _voter.addPattern("/.resources/*");
+        _voter.addRule(new CompiledUriPatternVoter.PatternRule("/search*", -2));
+        _voter.setTrueValue(3);
+        _voter.setInverse(true);
+        assertEquals(0, _voter.vote("/.resources/styles.css"));
+        assertEquals(0, _voter.vote("/search.html"));
+        assertEquals(3, _voter.vote("/page.html"));
+    }
+
+    @Test
+    public void voteWithLeadingWildcard() {
+        _voter.addPattern("*.json");
+        assertTrue(_voter.boolVote("/api/data.json"));
+        assertFalse(_voter.boolVote("/api/data.html"));
+    }
+
+    @Test
+    public void voteWithLiteralPattern() {
+        _voter.addPattern("/robots.txt");
+        assertTrue(_voter.boolVote("/robots.txt"));
+        assertFalse(_voter.boolVote("/robots.txt.bak"));
+    }
+
+    @Test
+    public void voteHighestLevelWins() {
+        _voter.addRule(new CompiledUriPatternVoter.PatternRule("/search*", 1));
+        _voter.addRule(new CompiledUriPatternVoter.PatternRule("/search/results*", -3));
+        _voter.addRule(new CompiledUriPatternVoter.PatternRule("*", 2));
+        assertEquals(-3, _voter.vote("/search/results.html"));
+        assertEquals(2, _voter.vote("/search.html"));
+        assertEquals(2, _voter.vote("/other.html"));
+    }
+
+    @Test
+    public void voteFirstRuleWinsOnEqualLevel() {
+        _voter.addRule(new CompiledUriPatternVoter.PatternRule("*", -2));
+        _voter.addRule(new CompiledUriPatternVoter.PatternRule("/news/*", 2));
+        assertEquals(-2, _voter.vote("/news/article.html"));
+    }
+
+    @Test
+    public void literalPrefixLength() {
+        assertEquals(0, CompiledUriPatternVoter.literalPrefixLength("*.css"));
+        assertEquals(6, CompiledUriPatternVoter.literalPrefixLength("/news/*"));
+        assertEquals(11, CompiledUriPatternVoter.literalPrefixLength("/robots.txt"));
+    }
+}
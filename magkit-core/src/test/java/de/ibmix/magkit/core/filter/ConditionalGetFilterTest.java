@@ -0,0 +1,151 @@
+package de.ibmix.magkit.core.filter;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.core.utils.DependencyIndex;
+import info.magnolia.cms.core.AggregationState;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import javax.jcr.ItemNotFoundException;
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import java.util.Calendar;
+import java.util.List;
+
+import static de.ibmix.magkit.core.utils.CacheHeaderPolicy.HEADER_ETAG;
+import static de.ibmix.magkit.core.utils.CacheHeaderPolicy.HEADER_IF_NONE_MATCH;
+import static de.ibmix.magkit.test.cms.context.ContextMockUtils.cleanContext;
+import static de.ibmix.magkit.test.cms.context.ContextMockUtils.mockAggregationState;
+import static de.ibmix.magkit.test.cms.node.MagnoliaNodeMockUtils.mockPageNode;
+import static de.ibmix.magkit.test.cms.node.MagnoliaNodeStubbingOperation.stubLastModified;
+import static de.ibmix.magkit.test.cms.node.PageNodeStubbingOperation.stubTemplate;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubIdentifier;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link ConditionalGetFilter} covering validation with recorded dependencies and self-contained templates.
+ *
+ * @author frank.sommer
+ * @since 2026-10-19
+ */
+public class ConditionalGetFilterTest {
+    private static final String PAGE_URI = "/root/page.html";
+
+    private DependencyIndex _index;
+    private ConditionalGetFilter _filter;
+    private Node _page;
+    private HttpServletRequest _request;
+    private HttpServletResponse _response;
+    private FilterChain _chain;
+
+    @BeforeEach
+    public void setUp() throws RepositoryException {
+        cleanContext();
+        _page = mockPageNode("/root/page", stubIdentifier("page-id"), stubTemplate("test:pages/home"));
+        stubLastModified(calendar(1_700_000_000_000L)).of(_page);
+        Node teaser = mockPageNode("/root/teaser", stubIdentifier("teaser-id"));
+        stubLastModified(calendar(1_700_000_005_000L)).of(teaser);
+        when(_page.getSession().getNodeByIdentifier("teaser-id")).thenReturn(teaser);
+        AggregationState aggregationState = mockAggregationState();
+        when(aggregationState.getMainContentNode()).thenReturn(_page);
+
+        _index = new DependencyIndex();
+        _filter = new ConditionalGetFilter(_index);
+        _filter.setDependentTemplates(List.of("test:pages/home"));
+        _request = mock(HttpServletRequest.class);
+        when(_request.getMethod()).thenReturn("GET");
+        when(_request.getRequestURI()).thenReturn(PAGE_URI);
+        when(_request.getDateHeader(anyString())).thenReturn(-1L);
+        when(_request.getHeader(HEADER_IF_NONE_MATCH)).thenReturn("*");
+        _response = mock(HttpServletResponse.class);
+        _chain = mock(FilterChain.class);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        cleanContext();
+    }
+
+    @Test
+    public void pageWithoutRecordedDependenciesIsRendered() throws Exception {
+        _filter.doFilter(_request, _response, _chain);
+        verify(_chain).doFilter(_request, _response);
+        verify(_response, never()).setHeader(eq(HEADER_ETAG), anyString());
+    }
+
+    @Test
+    public void pageOfOtherTemplateIsRendered() throws Exception {
+        _index.register(PAGE_URI, List.of("page-id", "teaser-id"));
+        _filter.setDependentTemplates(null);
+        _filter.doFilter(_request, _response, _chain);
+        verify(_chain).doFilter(_request, _response);
+        verify(_response, never()).setHeader(eq(HEADER_ETAG), anyString());
+        verify(_page.getSession(), never()).getNodeByIdentifier(anyString());
+    }
+
+    @Test
+    public void pageWithTooManyDependenciesIsRendered() throws Exception {
+        _index.register(PAGE_URI, List.of("page-id", "teaser-id"));
+        _filter.setMaxDependencies(1);
+        _filter.doFilter(_request, _response, _chain);
+        verify(_chain).doFilter(_request, _response);
+        verify(_page.getSession(), never()).getNodeByIdentifier(anyString());
+    }
+
+    @Test
+    public void selfContainedTemplateIsValidatedWithoutDependencies() throws Exception {
+        _filter.setSelfContainedTemplates(List.of("test:pages/home"));
+        _filter.doFilter(_request, _response, _chain);
+        verify(_chain, never()).doFilter(_request, _response);
+        verify(_response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    }
+
+    @Test
+    public void removedDependencyChangesETag() throws Exception {
+        _index.register(PAGE_URI, List.of("page-id", "teaser-id"));
+        _filter.doFilter(_request, _response, _chain);
+        verify(_chain, never()).doFilter(_request, _response);
+        ArgumentCaptor<String> eTag = ArgumentCaptor.forClass(String.class);
+        verify(_response).setHeader(eq(HEADER_ETAG), eTag.capture());
+
+        when(_page.getSession().getNodeByIdentifier("teaser-id")).thenThrow(new ItemNotFoundException());
+        when(_request.getHeader(HEADER_IF_NONE_MATCH)).thenReturn(eTag.getValue());
+        _filter.doFilter(_request, _response, _chain);
+        verify(_chain).doFilter(_request, _response);
+    }
+
+    private static Calendar calendar(long millis) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(millis);
+        return calendar;
+    }
+}
@@ -21,17 +21,25 @@ package de.ibmix.magkit.core.filter;
  */
 
 import info.magnolia.context.SystemContext;
+import info.magnolia.repository.RepositoryManager;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
+import org.mockito.ArgumentCaptor;
 
 import javax.jcr.PathNotFoundException;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
+import javax.jcr.Workspace;
+import javax.jcr.observation.Event;
+import javax.jcr.observation.EventIterator;
+import javax.jcr.observation.EventListener;
+import javax.jcr.observation.ObservationManager;
 
 import static de.ibmix.magkit.test.cms.context.AggregationStateStubbingOperation.stubCurrentContentNode;
+import static de.ibmix.magkit.test.cms.context.ComponentsMockUtils.mockComponentInstance;
 import static de.ibmix.magkit.test.cms.context.ContextMockUtils.cleanContext;
 import static de.ibmix.magkit.test.cms.context.ContextMockUtils.mockAggregationState;
 import static de.ibmix.magkit.test.cms.context.ContextMockUtils.mockSystemContext;
@@ -42,7 +50,16 @@ import static de.ibmix.magkit.test.jcr.SessionMockUtils.mockSession;
 import static info.magnolia.repository.RepositoryConstants.WEBSITE;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -54,6 +71,9 @@ import static org.mockito.Mockito.when;
  */
 public class NodePropertyVoterTest {
     private NodePropertyVoter _propertyVoter;
+    private Session _session;
+    private ObservationManager _observationManager;
+    private RepositoryManager _repositoryManager;
 
     @ParameterizedTest
     @CsvSource({
@@ -96,14 +116,111 @@ public class NodePropertyVoterTest {
         assertTrue(voting);
     }
 
+    @Test
+    public void testMissingNodeIsCached() throws RepositoryException {
+        _propertyVoter.setPropertyName("secure");
+        _propertyVoter.setPattern("true");
+        assertFalse(_propertyVoter.boolVote("/bs/old.html"));
+        assertFalse(_propertyVoter.boolVote("/bs/old.html"));
+        verify(_session, times(1)).getNode("/bs/old");
+    }
+
+    @Test
+    public void testRepositoryErrorIsNotCached() throws RepositoryException {
+        _propertyVoter.setPropertyName("secure");
+        _propertyVoter.setPattern("true");
+        assertFalse(_propertyVoter.boolVote("/bs/broken.html"));
+        assertFalse(_propertyVoter.boolVote("/bs/broken.html"));
+        verify(_session, times(2)).getNode("/bs/broken");
+    }
+
+    @Test
+    public void testListenerIsRegisteredOnce() throws RepositoryException {
+        _propertyVoter.setPropertyName("secure");
+        _propertyVoter.setPattern("true");
+        assertTrue(_propertyVoter.boolVote("/bs/secure.html"));
+        assertFalse(_propertyVoter.boolVote("/bs/old.html"));
+        verify(_observationManager, times(1)).addEventListener(any(EventListener.class), anyInt(), anyString(), anyBoolean(), isNull(), isNull(), anyBoolean());
+    }
+
+    @Test
+    public void testFailedRegistrationIsNotRetriedOnEveryVote() throws RepositoryException {
+        when(_repositoryManager.getSystemSession(WEBSITE)).thenThrow(new RepositoryException("test"));
+        _propertyVoter.setPropertyName("secure");
+        _propertyVoter.setPattern("true");
+        assertTrue(_propertyVoter.boolVote("/bs/secure.html"));
+        assertTrue(_propertyVoter.boolVote("/bs/secure.html"));
+        verify(_session, times(2)).getNode("/bs/secure");
+        verify(_repositoryManager, times(1)).getSystemSession(WEBSITE);
+    }
+
+    @Test
+    public void testNoCachingWithoutSize() throws RepositoryException {
+        _propertyVoter.setPropertyName("secure");
+        _propertyVoter.setPattern("true");
+        _propertyVoter.setMaxCacheSize(0);
+        assertTrue(_propertyVoter.boolVote("/bs/secure.html"));
+        assertTrue(_propertyVoter.boolVote("/bs/secure.html"));
+        verify(_session, times(2)).getNode("/bs/secure");
+    }
+
+    @Test
+    public void testCacheInvalidationOnPropertyChange() throws RepositoryException {
+        _propertyVoter.setPropertyName("secure");
+        _propertyVoter.setPattern("true");
+        assertTrue(_propertyVoter.boolVote("/bs/secure.html"));
+        assertTrue(_propertyVoter.boolVote("/bs/secure.html"));
+        verify(_session, times(1)).getNode("/bs/secure");
+
+        ArgumentCaptor<EventListener> listener = ArgumentCaptor.forClass(EventListener.class);
+        verify(_observationManager).addEventListener(listener.capture(), anyInt(), anyString(), anyBoolean(), isNull(), isNull(), anyBoolean());
+        listener.getValue().onEvent(mockEvents(Event.PROPERTY_CHANGED, "/bs/secure/secure"));
+
+        assertTrue(_propertyVoter.boolVote("/bs/secure.html"));
+        verify(_session, times(2)).getNode("/bs/secure");
+    }
+
+    @Test
+    public void testCacheInvalidationOnNodeRemoval() throws RepositoryException {
+        _propertyVoter.setPropertyName("secure");
+        _propertyVoter.setPattern("true");
+        assertTrue(_propertyVoter.boolVote("/bs/secure.html"));
+
+        ArgumentCaptor<EventListener> listener = ArgumentCaptor.forClass(EventListener.class);
+        verify(_observationManager).addEventListener(listener.capture(), anyInt(), anyString(), anyBoolean(), isNull(), isNull(), anyBoolean());
+        listener.getValue().onEvent(mockEvents(Event.NODE_REMOVED, "/bs"));
+
+        assertTrue(_propertyVoter.boolVote("/bs/secure.html"));
+        verify(_session, times(2)).getNode("/bs/secure");
+    }
+
+    private EventIterator mockEvents(int type, String path) throws RepositoryException {
+        Event event = mock(Event.class);
+        when(event.getType()).thenReturn(type);
+        when(event.getPath()).thenReturn(path);
+        EventIterator events = mock(EventIterator.class);
+        when(events.hasNext()).thenReturn(true, false);
+        when(events.nextEvent()).thenReturn(event);
+        return events;
+    }
+
     @BeforeEach
     public void initVoter() throws RepositoryException {
         _propertyVoter = new NodePropertyVoter();
-        Session session = mockSession(WEBSITE);
+        _session = mockSession(WEBSITE);
         SystemContext systemContext = mockSystemContext(stubJcrSession(WEBSITE));
-        when(session.getNode(contains("old"))).thenThrow(new PathNotFoundException());
+        when(_session.getNode(contains("old"))).thenThrow(new PathNotFoundException());
+        when(_session.getNode(contains("broken"))).thenThrow(new RepositoryException());
         mockPageNode("/bs/secure", stubProperty("secure", "true"));
+        _observationManager = mock(ObservationManager.class);
+        Workspace workspace = mock(Workspace.class);
+        when(workspace.getObservationManager()).thenReturn(_observationManager);
+        when(_session.getWorkspace()).thenReturn(workspace);
+        when(_session.isLive()).thenReturn(true);
+        _repositoryManager = mockComponentInstance(RepositoryManager.class);
+        when(_repositoryManager.getSystemSession(WEBSITE)).thenReturn(_session);
         _propertyVoter.setSystemContext(systemContext);
+        clearInvocations(_session);
     }
 
     @AfterEach
@@ -0,0 +1,180 @@
+package de.ibmix.magkit.core.utils;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.jcr.Node;
+import javax.jcr.NodeIterator;
+import javax.jcr.RepositoryException;
+import java.util.Calendar;
+
+import static de.ibmix.magkit.core.utils.CacheHeaderPolicy.HEADER_ETAG;
+import static de.ibmix.magkit.core.utils.CacheHeaderPolicy.HEADER_IF_MODIFIED_SINCE;
+import static de.ibmix.magkit.core.utils.CacheHeaderPolicy.HEADER_IF_NONE_MATCH;
+import static de.ibmix.magkit.core.utils.CacheHeaderPolicy.HEADER_LAST_MODIFIED;
+import static de.ibmix.magkit.test.cms.context.ContextMockUtils.cleanContext;
+import static de.ibmix.magkit.test.cms.node.MagnoliaNodeMockUtils.mockAreaNode;
+import static de.ibmix.magkit.test.cms.node.MagnoliaNodeMockUtils.mockComponentNode;
+import static de.ibmix.magkit.test.cms.node.MagnoliaNodeMockUtils.mockPageNode;
+import static de.ibmix.magkit.test.cms.node.MagnoliaNodeStubbingOperation.stubLastModified;
+import static de.ibmix.magkit.test.cms.node.PageNodeStubbingOperation.stubTemplate;
+import static info.magnolia.cms.cache.CacheConstants.HEADER_CACHE_CONTROL;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link CacheHeaderPolicy} covering validator derivation, conditional request evaluation and max-age rules.
+ *
+ * @author frank.sommer
+ * @since 2026-10-19
+ */
+public class CacheHeaderPolicyTest {
+    private static final long PAGE_MODIFIED = 1_700_000_000_000L;
+
+    private CacheHeaderPolicy _policy;
+    private Node _page;
+    private HttpServletRequest _request;
+    private HttpServletResponse _response;
+
+    @BeforeEach
+    public void setUp() throws RepositoryException {
+        cleanContext();
+        _policy = new CacheHeaderPolicy();
+        _page = mockPageNode("/root/page");
+        stubLastModified(calendar(PAGE_MODIFIED)).of(_page);
+        stubTemplate("test:pages/home").of(_page);
+        _request = mock(HttpServletRequest.class);
+        when(_request.getMethod()).thenReturn("GET");
+        when(_request.getDateHeader(anyString())).thenReturn(-1L);
+        _response = mock(HttpServletResponse.class);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        cleanContext();
+    }
+
+    @Test
+    public void applySetsValidators() {
+        assertFalse(_policy.apply(_request, _response, _page));
+        verify(_response).setHeader(HEADER_ETAG, _policy.createETag(PAGE_MODIFIED, _policy.getVersion(_page)));
+        verify(_response).setDateHeader(HEADER_LAST_MODIFIED, PAGE_MODIFIED);
+        verify(_response, never()).setHeader(eq(HEADER_CACHE_CONTROL), anyString());
+        verify(_response, never()).setStatus(anyInt());
+    }
+
+    @Test
+    public void applyWithoutPageOrForPost() {
+        assertFalse(_policy.apply(_request, _response, null));
+        when(_request.getMethod()).thenReturn("POST");
+        assertFalse(_policy.apply(_request, _response, _page));
+        verify(_response, never()).setHeader(anyString(), anyString());
+    }
+
+    @Test
+    public void applyIfNoneMatch() {
+        String eTag = _policy.createETag(PAGE_MODIFIED, _policy.getVersion(_page));
+        when(_request.getHeader(HEADER_IF_NONE_MATCH)).thenReturn("\"other\", " + eTag);
+        assertTrue(_policy.apply(_request, _response, _page));
+        verify(_response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    }
+
+    @Test
+    public void applyIfNoneMatchTakesPrecedence() {
+        when(_request.getHeader(HEADER_IF_NONE_MATCH)).thenReturn("\"other\"");
+        when(_request.getDateHeader(HEADER_IF_MODIFIED_SINCE)).thenReturn(PAGE_MODIFIED);
+        assertFalse(_policy.apply(_request, _response, _page));
+    }
+
+    @Test
+    public void applyIfModifiedSince() {
+        when(_request.getDateHeader(HEADER_IF_MODIFIED_SINCE)).thenReturn(PAGE_MODIFIED);
+        assertFalse(_policy.apply(_request, _response, _page));
+
+        _policy.setEvaluateIfModifiedSince(true);
+        when(_request.getDateHeader(HEADER_IF_MODIFIED_SINCE)).thenReturn(PAGE_MODIFIED - 1000);
+        assertFalse(_policy.apply(_request, _response, _page));
+
+        when(_request.getDateHeader(HEADER_IF_MODIFIED_SINCE)).thenReturn(PAGE_MODIFIED);
+        assertTrue(_policy.apply(_request, _response, _page));
+    }
+
+    @Test
+    public void lastModifiedOfComponentsAndReferences() throws RepositoryException {
+        mockAreaNode("/root/page/main");
+        Node component = mockComponentNode("/root/page/main/0");
+        stubLastModified(calendar(PAGE_MODIFIED + 5000)).of(component);
+        Node asset = mockPageNode("/other/asset");
+        stubLastModified(calendar(PAGE_MODIFIED + 9000)).of(asset);
+
+        assertEquals(PAGE_MODIFIED + 9000, _policy.getLastModified(_page, asset, null));
+        _policy.setIncludeComponents(false);
+        assertEquals(PAGE_MODIFIED, _policy.getLastModified(_page));
+    }
+
+    @Test
+    public void versionChangesWhenComponentIsRemoved() throws RepositoryException {
+        Node area = mockAreaNode("/root/page/main");
+        Node component = mockComponentNode("/root/page/main/0");
+        stubLastModified(calendar(PAGE_MODIFIED - 5000)).of(component);
+        long version = _policy.getVersion(_page);
+        String eTag = _policy.createETag(PAGE_MODIFIED, version);
+
+        when(area.getNodes()).thenAnswer(invocation -> mock(NodeIterator.class));
+        assertEquals(PAGE_MODIFIED, _policy.getLastModified(_page));
+        assertNotEquals(version, _policy.getVersion(_page));
+        assertNotEquals(eTag, _policy.createETag(PAGE_MODIFIED, _policy.getVersion(_page)));
+        // a removed reference changes the version as well
+        assertNotEquals(_policy.getVersion(_page, component), _policy.getVersion(_page, (Node) null));
+    }
+
+    @Test
+    public void maxAgeRules() {
+        assertEquals(-1, _policy.getMaxAge(_page));
+        _policy.setDefaultMaxAge(60);
+        assertEquals(60, _policy.getMaxAge(_page));
+        _policy.addTemplateMaxAge("test:pages/home", 300);
+        assertEquals(300, _policy.getMaxAge(_page));
+
+        _policy.apply(_request, _response, _page);
+        verify(_response).setHeader(HEADER_CACHE_CONTROL, "max-age=300");
+    }
+
+    private static Calendar calendar(long millis) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(millis);
+        return calendar;
+    }
+}
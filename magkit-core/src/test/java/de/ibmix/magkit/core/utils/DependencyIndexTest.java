@@ -0,0 +1,85 @@
+package de.ibmix.magkit.core.utils;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link DependencyIndex} covering registration, lookup and invalidation of cache entries.
+ *
+ * @author frank.sommer
+ * @since 2026-10-19
+ */
+public class DependencyIndexTest {
+
+    private DependencyIndex _index;
+
+    @BeforeEach
+    public void setUp() {
+        _index = new DependencyIndex();
+        _index.register("/home.html", List.of("page-1", "teaser-1"));
+        _index.register("/news.html", List.of("page-2", "teaser-1"));
+    }
+
+    @Test
+    public void getAffectedEntries() {
+        assertEquals(Set.of("/home.html", "/news.html"), _index.getAffectedEntries(List.of("teaser-1")));
+        assertEquals(Set.of("/home.html"), _index.getAffectedEntries(List.of("page-1", "unknown")));
+        assertEquals(2, _index.size());
+    }
+
+    @Test
+    public void invalidate() {
+        assertEquals(Set.of("/news.html"), _index.invalidate(List.of("page-2")));
+        assertEquals(1, _index.size());
+        assertEquals(Set.of("/home.html"), _index.getAffectedEntries(List.of("teaser-1")));
+        assertTrue(_index.invalidate(List.of("page-2")).isEmpty());
+    }
+
+    @Test
+    public void eldestEntriesAreDroppedBeyondMaxEntries() {
+        _index.setMaxEntries(2);
+        _index.register("/events.html", List.of("page-3", "teaser-1"));
+        assertEquals(2, _index.size());
+        assertFalse(_index.contains("/home.html"));
+        assertTrue(_index.contains("/events.html"));
+        assertEquals(Set.of("/news.html", "/events.html"), _index.getAffectedEntries(List.of("teaser-1")));
+        assertTrue(_index.getAffectedEntries(List.of("page-1")).isEmpty());
+        _index.setMaxEntries(0);
+        assertEquals(0, _index.size());
+    }
+
+    @Test
+    public void registerReplacesDependencies() {
+        _index.register("/home.html", List.of("page-1"));
+        assertEquals(Set.of("/news.html"), _index.getAffectedEntries(List.of("teaser-1")));
+        _index.clear();
+        assertEquals(0, _index.size());
+    }
+}
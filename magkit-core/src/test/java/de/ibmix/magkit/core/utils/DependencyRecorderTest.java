@@ -0,0 +1,98 @@
+package de.ibmix.magkit.core.utils;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import java.util.List;
+import java.util.Set;
+
+import static de.ibmix.magkit.test.cms.context.ContextMockUtils.cleanContext;
+import static de.ibmix.magkit.test.cms.node.MagnoliaNodeMockUtils.mockPageNode;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubIdentifier;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubProperty;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link DependencyRecorder} covering the recording lifecycle, utility hooks and header value creation.
+ *
+ * @author frank.sommer
+ * @since 2026-10-19
+ */
+public class DependencyRecorderTest {
+
+    @AfterEach
+    public void tearDown() {
+        DependencyRecorder.stop();
+        cleanContext();
+    }
+
+    @Test
+    public void recordOnlyWhileRecording() {
+        DependencyRecorder.record("id-1");
+        assertFalse(DependencyRecorder.isRecording());
+        assertTrue(DependencyRecorder.stop().isEmpty());
+
+        DependencyRecorder.start();
+        assertTrue(DependencyRecorder.isRecording());
+        DependencyRecorder.record("id-1");
+        DependencyRecorder.record("id-2");
+        DependencyRecorder.record("id-1");
+        DependencyRecorder.record((String) null);
+        DependencyRecorder.record((Node) null);
+        assertEquals(Set.of("id-1", "id-2"), DependencyRecorder.stop());
+        assertFalse(DependencyRecorder.isRecording());
+    }
+
+    @Test
+    public void nestedRecordingsKeepOuterRecording() {
+        DependencyRecorder.start();
+        DependencyRecorder.record("page");
+        DependencyRecorder.start();
+        DependencyRecorder.record("fragment");
+        assertEquals(Set.of("fragment"), DependencyRecorder.stop());
+        assertTrue(DependencyRecorder.isRecording());
+        DependencyRecorder.record("footer");
+        assertEquals(Set.of("page", "fragment", "footer"), DependencyRecorder.stop());
+        assertFalse(DependencyRecorder.isRecording());
+    }
+
+    @Test
+    public void recordPropertyAccess() throws RepositoryException {
+        Node page = mockPageNode("/root/page", stubIdentifier("4711"), stubProperty("title", "Title"));
+        DependencyRecorder.start();
+        PropertyUtils.getStringValue(page, "title");
+        assertEquals(Set.of("4711"), DependencyRecorder.stop());
+    }
+
+    @Test
+    public void toSurrogateKey() {
+        List<String> identifiers = List.of("0fbe8c3a-1b2c-4d5e-8f90-123456789abc", "1fbe8c3a-1b2c-4d5e-8f90-123456789abc");
+        assertEquals("", DependencyRecorder.toSurrogateKey(List.of(), 0));
+        assertEquals("0fbe8c3a1b2c4d5e8f90123456789abc 1fbe8c3a1b2c4d5e8f90123456789abc", DependencyRecorder.toSurrogateKey(identifiers, 0));
+        assertEquals("0fbe8c3a1b2c4d5e8f90123456789abc " + DependencyRecorder.OVERFLOW_KEY, DependencyRecorder.toSurrogateKey(identifiers, 60));
+    }
+}
@@ -22,12 +22,24 @@ package de.ibmix.magkit.query;
 
 import org.apache.commons.lang3.time.DateFormatUtils;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalQueries;
+import java.util.Calendar;
 import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
 
 /**
  * Utility class for common date handling within Magnolia queries.
  * <p>
- * Provides helper functionality to format {@link java.util.Date} instances
+ * Provides helper functionality to format {@link java.util.Date}, {@link Calendar} and {@code java.time} instances
  * into JCR compatible ISO-8601 date-time literals including milliseconds and
  * a timezone offset with colon (pattern: {@code yyyy-MM-dd'T'HH:mm:ss.SSS±HH:MM}).
  * </p>
@@ -37,6 +49,11 @@ import java.util.Date;
  *   <li>Generates JCR/XPath compliant date literal usable inside Magnolia repository queries.</li>
  *   <li>Ensures the timezone offset contains a colon (e.g. {@code +02:00}) as required by ISO-8601
  *       and JCR specifications.</li>
+ *   <li>Allocation-free ISO-8601 writer appending the digits directly into a {@link StringBuilder}: the civil date is
+ *       computed from the epoch millis with integer arithmetic, no formatter, calendar or intermediate String is
+ *       created.</li>
+ *   <li>Overloads for {@link Instant}, {@link ZonedDateTime} and {@link LocalDate} and conversion of {@code java.time}
+ *       values into {@link Calendar} values for the SQL2 date conditions.</li>
  *   <li>Stateless, immutable and therefore thread-safe.</li>
  * </ul>
  *
@@ -45,11 +62,19 @@ import java.util.Date;
  * Date now = new Date();
  * String jcrDate = DateUtils.createQueryDate(now);
  * // Example result: "2025-10-17T14:53:21.123+02:00"
+ * StringBuilder sql2 = new StringBuilder("[mgnl:created] &gt; cast('");
+ * DateUtils.appendIso8601(sql2, Instant.now().toEpochMilli(), 0, true).append("' as date)");
  * </pre>
  *
  * <h2>Null and Error Handling</h2>
- * Passing {@code null} to {@link #createQueryDate(Date)} will result in a {@link NullPointerException}
- * thrown by the underlying formatter.
+ * Passing {@code null} to the {@code createQueryDate} methods will result in a {@link NullPointerException}.
+ * {@link #createQueryDate(Date)} keeps the output of its former {@link DateFormatUtils} based implementation: dates
+ * before the gregorian cutover (1582-10-15) use the julian calendar, BC dates are rendered with their year of era and
+ * years above 9999 with all their digits. These rare values are formatted through {@link DateFormatUtils}, all others by
+ * the allocation-free writer. The {@code java.time} overloads and {@code appendIso8601} use the proleptic gregorian
+ * calendar with astronomical year numbering; years with more than four digits cannot be formatted there and cause an
+ * {@link IllegalArgumentException}.
+ * {@link #toCalendar(TemporalAccessor)} returns {@code null} for {@code null} values.
  *
  * <h2>Thread-safety</h2>
  * The class is thread-safe because it is stateless and only uses immutable formatting operations.
@@ -59,17 +84,242 @@ import java.util.Date;
  */
 public final class DateUtils {
 
+    private static final long MILLIS_PER_DAY = 86400000L;
+    private static final int MILLIS_PER_SECOND = 1000;
+    private static final int MILLIS_PER_MINUTE = 60000;
+    private static final int SECONDS_PER_MINUTE = 60;
+    private static final int MINUTES_PER_HOUR = 60;
+    private static final int NANOS_PER_MILLI = 1000000;
+    private static final int MAX_YEAR = 9999;
+    private static final int MIN_YEAR = -9999;
+    private static final long GREGORIAN_CUTOVER_MILLIS = -12219292800000L;
+    private static final long YEAR_10000_MILLIS = 253402300800000L;
+
+    // constants of the days to civil date algorithm, counting in eras of 400 years starting at 0000-03-01
+    private static final long DAYS_0000_03_01_TO_EPOCH = 719468L;
+    private static final int DAYS_PER_ERA = 146097;
+    private static final int DAYS_PER_4_YEARS = 1460;
+    private static final int DAYS_PER_100_YEARS = 36524;
+    private static final int DAYS_PER_ERA_MINUS_ONE = 146096;
+    private static final int DAYS_PER_YEAR = 365;
+    private static final int YEARS_PER_LEAP_YEAR = 4;
+    private static final int YEARS_PER_ERA = 400;
+    private static final int MONTH_DAYS_FACTOR = 153;
+    private static final int MONTH_DAYS_DIVISOR = 5;
+    private static final int MARCH_BASED_MONTHS_TO_DECEMBER = 10;
+    private static final int MONTHS_PER_YEAR = 12;
+    private static final int MARCH = 3;
+
+    private static final int TEN = 10;
+    private static final int HUNDRED = 100;
+
     /**
      * Formats the given date into a JCR query compatible ISO-8601 string with millisecond precision and a colon in the
-     * timezone offset (pattern: {@code yyyy-MM-dd'T'HH:mm:ss.SSS±HH:MM}).
+     * timezone offset (pattern: {@code yyyy-MM-dd'T'HH:mm:ss.SSS±HH:MM}) using the default time zone.
+     * Dates before the gregorian cutover or after the year 9999 are formatted like {@link DateFormatUtils} does.
      *
      * @param date the date to format (must not be {@code null})
      * @return formatted JCR query date string
      * @throws NullPointerException if {@code date} is {@code null}
      */
     public static String createQueryDate(Date date) {
-        String queryDate = DateFormatUtils.format(date, "yyyy-MM-dd'T'HH:mm:ss.SSSZ");
-        return queryDate.substring(0, queryDate.length() - 2) + ":" + queryDate.substring(queryDate.length() - 2);
+        long millis = date.getTime();
+        int offsetMillis = TimeZone.getDefault().getOffset(millis);
+        long localMillis = millis + offsetMillis;
+        String queryDate;
+        if (localMillis >= GREGORIAN_CUTOVER_MILLIS && localMillis < YEAR_10000_MILLIS) {
+            queryDate = createQueryDate(millis, offsetMillis);
+        } else {
+            queryDate = DateFormatUtils.format(date, "yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+            queryDate = queryDate.substring(0, queryDate.length() - 2) + ":" + queryDate.substring(queryDate.length() - 2);
+        }
+        return queryDate;
+    }
+
+    /**
+     * Formats the given instant like {@link #createQueryDate(Date)} using the default time zone.
+     *
+     * @param instant the instant to format (must not be {@code null})
+     * @return formatted JCR query date string
+     * @throws NullPointerException if {@code instant} is {@code null}
+     */
+    public static String createQueryDate(Instant instant) {
+        long millis = instant.toEpochMilli();
+        return createQueryDate(millis, TimeZone.getDefault().getOffset(millis));
+    }
+
+    /**
+     * Formats the given date time like {@link #createQueryDate(Date)} keeping its zone offset.
+     *
+     * @param dateTime the date time to format (must not be {@code null})
+     * @return formatted JCR query date string, e.g. {@code 2025-10-17T14:53:21.123-05:00}
+     * @throws NullPointerException if {@code dateTime} is {@code null}
+     */
+    public static String createQueryDate(ZonedDateTime dateTime) {
+        long millis = dateTime.toEpochSecond() * MILLIS_PER_SECOND + dateTime.getNano() / NANOS_PER_MILLI;
+        return createQueryDate(millis, dateTime.getOffset().getTotalSeconds() * MILLIS_PER_SECOND);
+    }
+
+    /**
+     * Formats the start of the given day in the default time zone like {@link #createQueryDate(Date)}.
+     *
+     * @param date the day to format (must not be {@code null})
+     * @return formatted JCR query date string, e.g. {@code 2025-10-17T00:00:00.000+02:00}
+     * @throws NullPointerException if {@code date} is {@code null}
+     */
+    public static String createQueryDate(LocalDate date) {
+        return createQueryDate(date.atStartOfDay(ZoneId.systemDefault()));
+    }
+
+    /**
+     * Append the ISO-8601 representation ({@code [-]YYYY-MM-DDThh:mm:ss.SSSTZD}) of the given point in time to the buffer.
+     *
+     * @param buffer destination buffer
+     * @param epochMillis milliseconds since 1970-01-01T00:00:00Z
+     * @param offsetMillis offset of the local time from UTC in milliseconds, truncated to minutes
+     * @param utcDesignator true to append {@code Z} instead of {@code +00:00} for a zero offset
+     * @return the buffer
+     * @throws IllegalArgumentException if the year has more than four digits
+     */
+    public static StringBuilder appendIso8601(final StringBuilder buffer, final long epochMillis, final int offsetMillis, final boolean utcDesignator) {
+        long localMillis = epochMillis + offsetMillis;
+        long epochDay = Math.floorDiv(localMillis, MILLIS_PER_DAY);
+        int millisOfDay = (int) Math.floorMod(localMillis, MILLIS_PER_DAY);
+
+        // civil date of the epoch day in the proleptic gregorian calendar, years starting at March 1st
+        long days = epochDay + DAYS_0000_03_01_TO_EPOCH;
+        long era = Math.floorDiv(days, DAYS_PER_ERA);
+        int dayOfEra = (int) (days - era * DAYS_PER_ERA);
+        int yearOfEra = (dayOfEra - dayOfEra / DAYS_PER_4_YEARS + dayOfEra / DAYS_PER_100_YEARS - dayOfEra / DAYS_PER_ERA_MINUS_ONE) / DAYS_PER_YEAR;
+        int dayOfYear = dayOfEra - (DAYS_PER_YEAR * yearOfEra + yearOfEra / YEARS_PER_LEAP_YEAR - yearOfEra / HUNDRED);
+        int marchBasedMonth = (MONTH_DAYS_DIVISOR * dayOfYear + 2) / MONTH_DAYS_FACTOR;
+        int day = dayOfYear - (MONTH_DAYS_FACTOR * marchBasedMonth + 2) / MONTH_DAYS_DIVISOR + 1;
+        int month = marchBasedMonth < MARCH_BASED_MONTHS_TO_DECEMBER ? marchBasedMonth + MARCH : marchBasedMonth + MARCH - MONTHS_PER_YEAR;
+        long year = era * YEARS_PER_ERA + yearOfEra + (month < MARCH ? 1 : 0);
+
+        appendDate(buffer, checkYear(year), month, day);
+        int seconds = millisOfDay / MILLIS_PER_SECOND;
+        int minutes = seconds / SECONDS_PER_MINUTE;
+        appendTime(buffer, minutes / MINUTES_PER_HOUR, minutes % MINUTES_PER_HOUR, seconds % SECONDS_PER_MINUTE, millisOfDay % MILLIS_PER_SECOND);
+        return appendOffset(buffer, offsetMillis, utcDesignator);
+    }
+
+    /**
+     * Append the ISO-8601 representation ({@code [-]YYYY-MM-DDThh:mm:ss.SSSTZD}) of the calendar to the buffer.
+     * The calendar fields are used as they are, including BC era years (astronomical year numbering). A zero offset
+     * is rendered as {@code Z}.
+     *
+     * @param buffer destination buffer
+     * @param calendar calendar to format (must not be {@code null})
+     * @return the buffer
+     * @throws IllegalArgumentException if the year has more than four digits
+     */
+    public static StringBuilder appendIso8601(final StringBuilder buffer, final Calendar calendar) {
+        int year = calendar.get(Calendar.YEAR);
+        if (calendar.isSet(Calendar.ERA) && calendar.get(Calendar.ERA) == GregorianCalendar.BC) {
+            // astronomical year numbering: year n BCE => year -n + 1
+            year = 1 - year;
+        }
+        appendDate(buffer, checkYear(year), calendar.get(Calendar.MONTH) + 1, calendar.get(Calendar.DAY_OF_MONTH));
+        appendTime(buffer, calendar.get(Calendar.HOUR_OF_DAY), calendar.get(Calendar.MINUTE), calendar.get(Calendar.SECOND), calendar.get(Calendar.MILLISECOND));
+        return appendOffset(buffer, calendar.getTimeZone().getOffset(calendar.getTimeInMillis()), true);
+    }
+
+    /**
+     * Convert a {@code java.time} value into a {@link Calendar} for the SQL2 date conditions.
+     * <ul>
+     *   <li>Values with a time line position ({@link Instant}, {@link ZonedDateTime}, {@link java.time.OffsetDateTime})
+     *   keep their zone, an {@link Instant} is converted in UTC.</li>
+     *   <li>Local values ({@link LocalDate}, {@link java.time.LocalDateTime}) are interpreted in the default time zone,
+     *   a {@link LocalDate} at the start of the day.</li>
+     * </ul>
+     *
+     * @param temporal the value to convert, may be null
+     * @return the calendar or null for a null value
+     * @throws IllegalArgumentException if the value has no date, e.g. a {@link LocalTime}
+     */
+    public static Calendar toCalendar(final TemporalAccessor temporal) {
+        Calendar calendar = null;
+        if (temporal != null) {
+            ZoneId zone = temporal.query(TemporalQueries.zone());
+            ZonedDateTime dateTime;
+            if (temporal.isSupported(ChronoField.INSTANT_SECONDS)) {
+                dateTime = ZonedDateTime.ofInstant(Instant.from(temporal), zone == null ? ZoneOffset.UTC : zone);
+            } else {
+                LocalDate date = temporal.query(TemporalQueries.localDate());
+                if (date == null) {
+                    throw new IllegalArgumentException("Cannot convert a value without date into a calendar: " + temporal);
+                }
+                LocalTime time = temporal.query(TemporalQueries.localTime());
+                dateTime = ZonedDateTime.of(date, time == null ? LocalTime.MIDNIGHT : time, zone == null ? ZoneId.systemDefault() : zone);
+            }
+            calendar = GregorianCalendar.from(dateTime);
+        }
+        return calendar;
+    }
+
+    private static String createQueryDate(final long epochMillis, final int offsetMillis) {
+        return appendIso8601(new StringBuilder(29), epochMillis, offsetMillis, false).toString();
+    }
+
+    private static int checkYear(final long year) {
+        if (year > MAX_YEAR || year < MIN_YEAR) {
+            throw new IllegalArgumentException("Calendar has more than four year digits, cannot be formatted as ISO8601: " + year);
+        }
+        return (int) year;
+    }
+
+    private static void appendDate(final StringBuilder buffer, final int year, final int month, final int day) {
+        int absYear = year;
+        if (year < 0) {
+            buffer.append('-');
+            absYear = -year;
+        }
+        appendFourDigits(buffer, absYear);
+        buffer.append('-');
+        appendTwoDigits(buffer, month);
+        buffer.append('-');
+        appendTwoDigits(buffer, day);
+    }
+
+    private static void appendTime(final StringBuilder buffer, final int hour, final int minute, final int second, final int millis) {
+        buffer.append('T');
+        appendTwoDigits(buffer, hour);
+        buffer.append(':');
+        appendTwoDigits(buffer, minute);
+        buffer.append(':');
+        appendTwoDigits(buffer, second);
+        buffer.append('.');
+        appendDigit(buffer, millis / HUNDRED);
+        appendTwoDigits(buffer, millis % HUNDRED);
+    }
+
+    private static StringBuilder appendOffset(final StringBuilder buffer, final int offsetMillis, final boolean utcDesignator) {
+        int offsetMinutes = offsetMillis / MILLIS_PER_MINUTE;
+        if (offsetMinutes == 0 && utcDesignator) {
+            buffer.append('Z');
+        } else {
+            buffer.append(offsetMinutes < 0 ? '-' : '+');
+            int absMinutes = Math.abs(offsetMinutes);
+            appendTwoDigits(buffer, absMinutes / MINUTES_PER_HOUR);
+            buffer.append(':');
+            appendTwoDigits(buffer, absMinutes % MINUTES_PER_HOUR);
+        }
+        return buffer;
+    }
+
+    private static void appendFourDigits(final StringBuilder buffer, final int value) {
+        appendTwoDigits(buffer, value / HUNDRED);
+        appendTwoDigits(buffer, value % HUNDRED);
+    }
+
+    private static void appendTwoDigits(final StringBuilder buffer, final int value) {
+        appendDigit(buffer, value / TEN);
+        appendDigit(buffer, value % TEN);
+    }
+
+    private static void appendDigit(final StringBuilder buffer, final int digit) {
+        buffer.append((char) ('0' + digit));
     }
 
     private DateUtils() {
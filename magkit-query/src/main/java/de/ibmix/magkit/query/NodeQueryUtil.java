@@ -20,8 +20,21 @@ package de.ibmix.magkit.query;
  * #L%
  */
 
+import de.ibmix.magkit.query.monitor.QueryMeasurement;
+import de.ibmix.magkit.query.monitor.QueryStatistics;
+import de.ibmix.magkit.query.sql2.condition.Sql2ConstraintGroup;
+import de.ibmix.magkit.query.sql2.condition.Sql2JoinConstraint;
+import de.ibmix.magkit.query.sql2.condition.Sql2PathCondition;
+import de.ibmix.magkit.query.sql2.condition.Sql2PathJoinCondition;
+import de.ibmix.magkit.query.sql2.condition.Sql2StringCondition;
+import de.ibmix.magkit.query.sql2.query.Sql2QueryBuilder;
+import de.ibmix.magkit.query.sql2.query.jcrwrapper.NodesResult;
+import de.ibmix.magkit.query.sql2.query.jcrwrapper.RowsResult;
+import de.ibmix.magkit.query.sql2.statement.Sql2Builder;
+import de.ibmix.magkit.query.sql2.statement.Sql2Statement;
 import de.ibmix.magkit.query.xpath.ConstraintBuilder;
 import de.ibmix.magkit.query.xpath.XpathBuilder;
+import de.ibmix.magkit.query.xpath.XpathTranslator;
 import info.magnolia.context.MgnlContext;
 import info.magnolia.jcr.util.NodeUtil;
 import org.apache.commons.lang3.ArrayUtils;
@@ -37,21 +50,31 @@ import javax.jcr.query.Query;
 import javax.jcr.query.QueryManager;
 import javax.jcr.query.QueryResult;
 import javax.jcr.query.Row;
-import javax.jcr.query.RowIterator;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static info.magnolia.cms.util.QueryUtil.search;
+import static info.magnolia.jcr.util.NodeTypes.Area;
 import static info.magnolia.jcr.util.NodeTypes.Component;
+import static info.magnolia.jcr.util.NodeTypes.Page;
+import static info.magnolia.jcr.util.NodeTypes.Renderable;
 import static info.magnolia.jcr.util.NodeUtil.asIterable;
-import static info.magnolia.jcr.util.NodeUtil.asList;
 import static info.magnolia.jcr.util.NodeUtil.getPathIfPossible;
 import static info.magnolia.repository.RepositoryConstants.WEBSITE;
 import static javax.jcr.query.Query.JCR_SQL2;
 import static javax.jcr.query.Query.XPATH;
-import static org.apache.commons.collections4.CollectionUtils.collect;
 import static org.apache.commons.lang3.StringUtils.EMPTY;
 import static org.apache.commons.lang3.StringUtils.defaultString;
 import static org.apache.commons.lang3.StringUtils.isNotEmpty;
@@ -65,10 +88,17 @@ import static org.apache.commons.lang3.StringUtils.join;
  * Key features:
  * <ul>
  *   <li>Execution of simple JCR-SQL2 and XPath queries returning {@link Node} lists.</li>
- *   <li>Lookup of pages/components by template name with optional additional XPath constraints.</li>
+ *   <li>Lazily evaluated {@link Stream} and consumer variants for large results and "first match wins" lookups.</li>
+ *   <li>Lookup of pages/components by template name with optional additional XPath constraints, also as JCR-SQL2
+ *   queries with XPath constraints translated by the {@link XpathTranslator}.</li>
  *   <li>Retrieval of descendant components across multiple area roots.</li>
+ *   <li>Lookup of the first component with a template on one or many pages, traversing small pages in memory and
+ *   querying larger pages with a single query.</li>
  *   <li>Factory methods to create {@link Query} instances with optional bind values (SQL2 only).</li>
  *   <li>Selector-based result extraction for multi-selector queries.</li>
+ *   <li>All executions are measured by the {@link QueryStatistics} (timings, result count, slow query log).</li>
+ *   <li>Results are bounded by the {@link QueryGuardrails#getDefaults() default guardrails} or per-call
+ *   {@link QueryGuardrails}.</li>
  * </ul>
  *
  * Usage preconditions:
@@ -104,6 +134,8 @@ public final class NodeQueryUtil {
 
     public static final String QUERY_SELECTOR_PAGE = "page";
     public static final String QUERY_SELECTOR_COMPONENT = "component";
+    public static final String QUERY_SELECTOR_AREA = "area";
+    public static final int DEFAULT_TRAVERSAL_LIMIT = 50;
     public static final String DUMMY_ORDERING = "@jcr:primaryType";
 
     /**
@@ -138,16 +170,128 @@ public final class NodeQueryUtil {
      * @see info.magnolia.cms.util.QueryUtil
      */
     public static List<Node> executeQuery(final String queryStatement, final String language, final String repository) {
+        return executeQuery(queryStatement, language, repository, QueryGuardrails.getDefaults());
+    }
+
+    /**
+     * Executes a query and returns the matched nodes for single-selector statements until a guardrail trips. The
+     * maximum limit is enforced while iterating the result.
+     *
+     * @param queryStatement query statement (SQL2 or XPath)
+     * @param language query language identifier
+     * @param repository target repository name
+     * @param guardrails guardrails bounding the result, null for none
+     * @return list of matching nodes or {@code null} on error
+     * @see info.magnolia.cms.util.QueryUtil
+     */
+    public static List<Node> executeQuery(final String queryStatement, final String language, final String repository, final QueryGuardrails guardrails) {
         List<Node> nodes = null;
+        QueryMeasurement measurement = QueryStatistics.getInstance().start(queryStatement, language, repository);
         try {
             NodeIterator result = search(repository, queryStatement, language);
-            nodes = asList(asIterable(result));
+            measurement.executed();
+            Iterator<Node> iterator = asIterable(result).iterator();
+            if (guardrails != null) {
+                iterator = guardrails.guard(iterator, queryStatement);
+            }
+            nodes = new ArrayList<>();
+            iterator.forEachRemaining(nodes::add);
+            measurement.finished(nodes.size());
         } catch (RepositoryException e) {
+            measurement.failed();
             LOGGER.error("Error executing query with statement {}.", queryStatement, e);
         }
         return nodes;
     }
 
+    /**
+     * Executes a query and returns a lazily evaluated stream of the matched nodes for single-selector statements.
+     * Nodes are pulled from the repository on demand, so short-circuiting operations stop fetching results. Close the
+     * stream to release the result early.
+     *
+     * @param queryStatement query statement (SQL2 or XPath)
+     * @param language query language identifier
+     * @param repository target repository name
+     * @return stream of matching nodes, empty on error
+     */
+    public static Stream<Node> executeQueryAsStream(final String queryStatement, final String language, final String repository) {
+        return executeQueryAsStream(queryStatement, language, repository, QueryGuardrails.getDefaults());
+    }
+
+    /**
+     * Executes a query with the maximum limit of the guardrails and returns a lazily evaluated stream of the matched
+     * nodes that ends when a guardrail trips.
+     *
+     * @param queryStatement query statement (SQL2 or XPath)
+     * @param language query language identifier
+     * @param repository target repository name
+     * @param guardrails guardrails bounding the result, null for none
+     * @return stream of matching nodes, empty on error
+     */
+    public static Stream<Node> executeQueryAsStream(final String queryStatement, final String language, final String repository, final QueryGuardrails guardrails) {
+        Stream<Node> nodes = Stream.empty();
+        final Query query = createQuery(queryStatement, language, null, repository);
+        if (query != null) {
+            QueryMeasurement measurement = QueryStatistics.getInstance().start(queryStatement, language, repository);
+            try {
+                long limit = guardrails == null ? 0 : guardrails.applyLimit(0, queryStatement);
+                if (limit > 0) {
+                    query.setLimit(limit);
+                }
+                nodes = new NodesResult(measurement.execute(query), measurement, guardrails == null ? null : guardrails.forQueryLimit(0), queryStatement).getNodeStream();
+            } catch (RepositoryException e) {
+                LOGGER.error("Error executing query with statement {}.", queryStatement, e);
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * Executes a query asynchronously on the default query executor with its own JCR sessions. The nodes are
+     * loaded in the session of the thread accessing the result list.
+     *
+     * @param queryStatement query statement (SQL2 or XPath)
+     * @param language query language identifier
+     * @param repository target repository name
+     * @param timeout timeout, 0 or less to wait without timeout
+     * @param unit unit of the timeout
+     * @return future completing with the matching nodes (empty on error) or the nodes collected until the timeout
+     * @see QueryExecutors#supplyNodesAsync(String, java.util.concurrent.Callable, Executor, long, TimeUnit)
+     */
+    public static CompletableFuture<List<Node>> executeQueryAsync(final String queryStatement, final String language, final String repository, final long timeout, final TimeUnit unit) {
+        return executeQueryAsync(queryStatement, language, repository, QueryExecutors.getDefaultExecutor(), timeout, unit);
+    }
+
+    /**
+     * Executes a query asynchronously on the given executor with its own JCR sessions. The nodes are
+     * loaded in the session of the thread accessing the result list.
+     *
+     * @param queryStatement query statement (SQL2 or XPath)
+     * @param language query language identifier
+     * @param repository target repository name
+     * @param executor executor running the query, e.g. a virtual thread executor
+     * @param timeout timeout, 0 or less to wait without timeout
+     * @param unit unit of the timeout
+     * @return future completing with the matching nodes (empty on error) or the nodes collected until the timeout
+     */
+    public static CompletableFuture<List<Node>> executeQueryAsync(final String queryStatement, final String language, final String repository, final Executor executor, final long timeout, final TimeUnit unit) {
+        return QueryExecutors.supplyNodesAsync(repository, () -> executeQueryAsStream(queryStatement, language, repository), executor, timeout, unit);
+    }
+
+    /**
+     * Executes a query and passes each matched node to the consumer without collecting the nodes.
+     *
+     * @param queryStatement query statement (SQL2 or XPath)
+     * @param language query language identifier
+     * @param repository target repository name
+     * @param consumer action performed for each node
+     */
+    public static void forEachNode(final String queryStatement, final String language, final String repository, final Consumer<? super Node> consumer) {
+        try (Stream<Node> nodes = executeQueryAsStream(queryStatement, language, repository)) {
+            nodes.forEach(consumer);
+        }
+    }
+
     /**
      * Returns pages having the given template, optionally scoped to a search root.
      *
@@ -222,25 +366,224 @@ public final class NodeQueryUtil {
     }
 
     /**
-     * Finds the first component node with the specified template on a page identified by its path.
+     * Returns pages having the given template like {@link #getPagesWithTemplate(String, Node, String)}, but executes
+     * a JCR-SQL2 query. The XPath condition is translated by the {@link XpathTranslator}.
+     *
+     * @param templateName fully qualified page template name
+     * @param searchRoot optional root node limiting the search scope (may be {@code null})
+     * @param xPathPageCondition optional additional XPath condition (with or without surrounding brackets); may be {@code null}
+     * @return list of page nodes matching the criteria or {@code null} on error
+     * @throws IllegalArgumentException if the XPath condition uses syntax the translator does not support
+     */
+    public static List<Node> getPagesWithTemplateSql2FromXpath(final String templateName, final Node searchRoot, final String xPathPageCondition) {
+        return getPagesWithTemplateSql2(templateName, searchRoot, XpathTranslator.toConstraint(xPathPageCondition));
+    }
+
+    /**
+     * Returns pages having the given template, optionally scoped to a search root and filtered by an additional
+     * SQL2 condition, using a JCR-SQL2 query.
+     *
+     * @param templateName fully qualified page template name
+     * @param searchRoot optional root node limiting the search scope (may be {@code null})
+     * @param pageCondition optional additional condition; may be {@code null}
+     * @return list of page nodes matching the criteria or {@code null} on error
+     */
+    public static List<Node> getPagesWithTemplateSql2(final String templateName, final Node searchRoot, final Sql2JoinConstraint pageCondition) {
+        String rootPath = searchRoot != null ? getPathIfPossible(searchRoot) : EMPTY;
+        return executeQuery(buildTemplateStatement(Page.NAME, templateName, rootPath, pageCondition), JCR_SQL2, WEBSITE);
+    }
+
+    /**
+     * Returns components having a given template like {@link #getComponentsWithTemplate(String, String, String)},
+     * but executes a JCR-SQL2 query. The XPath condition is translated by the {@link XpathTranslator}.
+     *
+     * @param templateName fully qualified component template name
+     * @param searchRoot optional root path limiting the search scope (may be empty)
+     * @param xPathCondition optional additional XPath condition (with or without surrounding brackets); may be {@code null}
+     * @return list of component nodes matching the criteria or {@code null} on error
+     * @throws IllegalArgumentException if the XPath condition uses syntax the translator does not support
+     */
+    public static List<Node> getComponentsWithTemplateSql2FromXpath(final String templateName, final String searchRoot, final String xPathCondition) {
+        return getComponentsWithTemplateSql2(templateName, searchRoot, XpathTranslator.toConstraint(xPathCondition));
+    }
+
+    /**
+     * Returns components having a given template, optionally scoped to a search root path and filtered by an
+     * additional SQL2 condition, using a JCR-SQL2 query.
+     *
+     * @param templateName fully qualified component template name
+     * @param searchRoot optional root path limiting the search scope (may be empty)
+     * @param condition optional additional condition; may be {@code null}
+     * @return list of component nodes matching the criteria or {@code null} on error
+     */
+    public static List<Node> getComponentsWithTemplateSql2(final String templateName, final String searchRoot, final Sql2JoinConstraint condition) {
+        return executeQuery(buildTemplateStatement(Component.NAME, templateName, searchRoot, condition), JCR_SQL2, WEBSITE);
+    }
+
+    private static String buildTemplateStatement(final String nodeType, final String templateName, final String searchRoot, final Sql2JoinConstraint condition) {
+        List<Sql2JoinConstraint> constraints = new ArrayList<>();
+        if (isNotEmpty(searchRoot) && !"/".equals(searchRoot)) {
+            constraints.add(Sql2PathCondition.is().descendant(searchRoot));
+        }
+        constraints.add(Sql2StringCondition.template().equalsAny().values(templateName));
+        if (condition != null) {
+            constraints.add(condition);
+        }
+        return Sql2Statement.select().from(nodeType).whereAll(constraints.toArray(new Sql2JoinConstraint[0])).build();
+    }
+
+    /**
+     * Finds the first component node with the specified template on a page identified by its path, i.e. in the areas
+     * of the page but not on its sub pages. Small pages are searched in memory, see
+     * {@link #findComponentOnPage(String, String, int)}.
      *
      * @param componentsTemplateName component template name
      * @param searchRoot page node path used as search root
      * @return first matching component node or {@code null} if none found or on error
      */
     public static Node findComponentOnPage(final String componentsTemplateName, final String searchRoot) {
+        return findComponentOnPage(componentsTemplateName, searchRoot, DEFAULT_TRAVERSAL_LIMIT);
+    }
+
+    /**
+     * Finds the first component node with the specified template in the areas of a page. The areas and components of
+     * the page are traversed in memory until the traversal limit is reached; only larger pages are searched with a
+     * single query limited to one result.
+     *
+     * @param componentsTemplateName component template name
+     * @param searchRoot page node path used as search root
+     * @param traversalLimit maximum number of area and component nodes to visit in memory, 0 to query pages with any content
+     * @return first matching component node or {@code null} if none found or on error
+     */
+    public static Node findComponentOnPage(final String componentsTemplateName, final String searchRoot, final int traversalLimit) {
         Node componentNode = null;
-        List<String> areaRoots = retrieveChildAreas(searchRoot);
-        final NodeIterator componentsIterator = findDescendantComponents(componentsTemplateName, areaRoots.toArray(new String[0]));
-        if (componentsIterator != null && componentsIterator.hasNext()) {
-            componentNode = componentsIterator.nextNode();
+        try {
+            final Session session = MgnlContext.getJCRSession(WEBSITE);
+            if (session.nodeExists(searchRoot)) {
+                final int[] budget = {traversalLimit};
+                componentNode = findInAreas(session.getNode(searchRoot), componentsTemplateName, budget);
+                if (budget[0] < 0) {
+                    final Iterator<Row> rows = Sql2QueryBuilder.forRows().fromWebsite()
+                        .withStatement(buildComponentsOnPagesStatement(componentsTemplateName, searchRoot))
+                        .withLimit(1)
+                        .buildRowsQuery().execute().getRows();
+                    componentNode = rows.hasNext() ? rows.next().getNode(QUERY_SELECTOR_COMPONENT) : null;
+                }
+            }
+        } catch (RepositoryException e) {
+            LOGGER.error("Error finding component {} on page {}.", componentsTemplateName, searchRoot, e);
+        }
+        return componentNode;
+    }
+
+    /**
+     * Finds the first component node with the specified template on each of the given pages, like
+     * {@link #findComponentOnPage(String, String)}. Small pages are searched in memory, all larger pages together with
+     * one query.
+     *
+     * @param componentsTemplateName component template name
+     * @param pagePaths paths of the pages
+     * @return non-null map of page path to the first matching component, in the order of the pages; pages without
+     * matching component are not included
+     */
+    public static Map<String, Node> findComponentsOnPages(final String componentsTemplateName, final String... pagePaths) {
+        return findComponentsOnPages(componentsTemplateName, DEFAULT_TRAVERSAL_LIMIT, pagePaths);
+    }
+
+    /**
+     * Finds the first component node with the specified template on each of the given pages. Each page is traversed
+     * in memory until the traversal limit is reached; all pages exceeding the limit are searched with one query.
+     *
+     * @param componentsTemplateName component template name
+     * @param traversalLimit maximum number of area and component nodes to visit in memory per page, 0 to query pages with any content
+     * @param pagePaths paths of the pages
+     * @return non-null map of page path to the first matching component, in the order of the pages; pages without
+     * matching component are not included
+     */
+    public static Map<String, Node> findComponentsOnPages(final String componentsTemplateName, final int traversalLimit, final String... pagePaths) {
+        final Map<String, Node> components = new LinkedHashMap<>();
+        final Set<String> queryPages = new LinkedHashSet<>();
+        try {
+            final Session session = MgnlContext.getJCRSession(WEBSITE);
+            for (String pagePath : ArrayUtils.nullToEmpty(pagePaths)) {
+                // queried pages are contained in the components as well, so each page is only visited once
+                if (!components.containsKey(pagePath) && session.nodeExists(pagePath)) {
+                    final int[] budget = {traversalLimit};
+                    final Node componentNode = findInAreas(session.getNode(pagePath), componentsTemplateName, budget);
+                    if (budget[0] < 0) {
+                        queryPages.add(pagePath);
+                    }
+                    // keep the page order, pages without component are removed below
+                    components.put(pagePath, componentNode);
+                }
+            }
+            if (!queryPages.isEmpty()) {
+                final Iterator<Row> rows = Sql2QueryBuilder.forRows().fromWebsite()
+                    .withStatement(buildComponentsOnPagesStatement(componentsTemplateName, queryPages.toArray(new String[0])))
+                    .buildRowsQuery().execute().getRows();
+                // stop reading rows as soon as a component has been found for every queried page
+                int remaining = queryPages.size();
+                while (remaining > 0 && rows.hasNext()) {
+                    final Row row = rows.next();
+                    final String pagePath = row.getNode(QUERY_SELECTOR_AREA).getParent().getPath();
+                    if (components.get(pagePath) == null) {
+                        components.put(pagePath, row.getNode(QUERY_SELECTOR_COMPONENT));
+                        remaining--;
+                    }
+                }
+            }
+        } catch (RepositoryException e) {
+            LOGGER.error("Error finding component {} on pages.", componentsTemplateName, e);
+        }
+        components.values().removeIf(Objects::isNull);
+        return components;
+    }
+
+    private static Sql2Builder buildComponentsOnPagesStatement(final String componentsTemplateName, final String... pagePaths) {
+        final Sql2JoinConstraint[] pages = Arrays.stream(pagePaths).map(pagePath -> Sql2PathCondition.is().child(pagePath)).toArray(Sql2JoinConstraint[]::new);
+        return Sql2Statement.select().from(Area.NAME).as(QUERY_SELECTOR_AREA)
+            .innerJoin(Component.NAME).joinAs(QUERY_SELECTOR_COMPONENT).on(Sql2PathJoinCondition.isJoinedDescendantOfSelected())
+            .whereAll(
+                Sql2ConstraintGroup.or().matches(pages),
+                Sql2StringCondition.template().equalsAny().values(componentsTemplateName).forJoin()
+            );
+    }
+
+    /**
+     * Depth first search of the first component with the template in the areas of the page. Sub pages are not
+     * searched.
+     *
+     * @param page the page node
+     * @param templateName the component template name
+     * @param budget remaining number of area and component nodes to visit, negative if the traversal was aborted
+     * @return the first matching component or {@code null} if none found or the budget is exhausted
+     */
+    private static Node findInAreas(final Node page, final String templateName, final int[] budget) throws RepositoryException {
+        Node componentNode = null;
+        for (NodeIterator children = page.getNodes(); componentNode == null && budget[0] >= 0 && children.hasNext();) {
+            final Node child = children.nextNode();
+            if (NodeUtil.isNodeType(child, Area.NAME)) {
+                componentNode = findInContent(child, templateName, budget);
+            }
         }
         return componentNode;
     }
 
-    private static List<String> retrieveChildAreas(final String searchRoot) {
-        final List<Node> nodes = executeSqlQuery("select * from [mgnl:area] where ischildnode('" + searchRoot + "')");
-        return (List<String>) collect(nodes, NodeUtil::getPathIfPossible);
+    private static Node findInContent(final Node parent, final String templateName, final int[] budget) throws RepositoryException {
+        Node componentNode = null;
+        for (NodeIterator children = parent.getNodes(); componentNode == null && budget[0] >= 0 && children.hasNext();) {
+            final Node child = children.nextNode();
+            final boolean isComponent = NodeUtil.isNodeType(child, Component.NAME);
+            if (isComponent || NodeUtil.isNodeType(child, Area.NAME)) {
+                budget[0]--;
+                if (budget[0] >= 0 && isComponent && templateName.equals(Renderable.getTemplate(child))) {
+                    componentNode = child;
+                } else if (budget[0] >= 0) {
+                    componentNode = findInContent(child, templateName, budget);
+                }
+            }
+        }
+        return componentNode;
     }
 
     /**
@@ -261,6 +604,7 @@ public final class NodeQueryUtil {
 
     /**
      * Finds descendant component nodes matching the given template below one or more search root paths.
+     * Duplicate search roots and roots below other search roots are ignored.
      *
      * @param componentsTemplateName component template name to match
      * @param searchRoots one or more root paths used to limit the search
@@ -271,16 +615,30 @@ public final class NodeQueryUtil {
 
         StringBuilder statement = new StringBuilder();
         statement.append("select * from [mgnl:component] where [mgnl:template] = '").append(componentsTemplateName).append("'");
-        if (ArrayUtils.isNotEmpty(searchRoots)) {
+        String[] roots = Sql2PathCondition.removeNestedPaths(searchRoots);
+        if (ArrayUtils.isNotEmpty(roots)) {
             statement.append(" and (");
-            statement.append(join(Arrays.stream(searchRoots).map(searchRoot -> "ISDESCENDANTNODE('" + searchRoot + "')").toArray(), " or "));
+            statement.append(join(Arrays.stream(roots).map(searchRoot -> "ISDESCENDANTNODE('" + searchRoot + "')").toArray(), " or "));
             statement.append(")");
         }
 
         try {
             final Query sqlQuery = createSqlQuery(statement.toString(), null);
-            final QueryResult queryResult = sqlQuery.execute();
+            final QueryGuardrails guardrails = QueryGuardrails.getDefaults().forQueryLimit(0);
+            final long limit = guardrails.applyLimit(0, sqlQuery.getStatement());
+            if (limit > 0) {
+                sqlQuery.setLimit(limit);
+            }
+            final QueryMeasurement measurement = QueryStatistics.getInstance().start(sqlQuery.getStatement(), JCR_SQL2, WEBSITE);
+            final QueryResult queryResult = measurement.execute(sqlQuery);
             nodeIterator = queryResult.getNodes();
+            // the iterator is consumed by the caller, record the size if the repository reports it;
+            // an unknown size (-1) would be recorded as negative row count, the execution is recorded anyway
+            final long size = nodeIterator.getSize();
+            if (size >= 0) {
+                measurement.finished(size);
+                guardrails.checkResultSize(size, sqlQuery.getStatement());
+            }
         } catch (RepositoryException e) {
             LOGGER.error("Error executing query for component {}.", componentsTemplateName, e);
         }
@@ -359,17 +717,20 @@ public final class NodeQueryUtil {
      * @param selectorName selector name used to extract the node from each row
      * @return list of nodes matching the selector or empty list if query is {@code null}; {@code null} entries are not added
      */
+    @SuppressWarnings("unchecked")
     public static List<Node> executeQuery(final Query query, final String selectorName) {
         final List<Node> resultList = new ArrayList<>();
         try {
             if (query != null) {
-                final QueryResult result = query.execute();
-                final RowIterator rows = result.getRows();
+                final QueryMeasurement measurement = QueryStatistics.getInstance().start(query.getStatement(), query.getLanguage(), null);
+                final QueryResult result = measurement.execute(query);
+                final Iterator<Row> rows = QueryGuardrails.getDefaults().guard(result.getRows(), query.getStatement());
 
                 while (rows.hasNext()) {
-                    final Row row = rows.nextRow();
+                    final Row row = rows.next();
                     resultList.add(row.getNode(selectorName));
                 }
+                measurement.finished(resultList.size());
             }
         } catch (RepositoryException e) {
             LOGGER.error("Error executing query with statement {}", query.getStatement(), e);
@@ -377,6 +738,27 @@ public final class NodeQueryUtil {
         return resultList;
     }
 
+    /**
+     * Executes a multi-selector query and returns a lazily evaluated stream of the nodes identified by the given
+     * selector name. Unlike {@link #executeQuery(Query, String)} rows without node for the selector are skipped.
+     *
+     * @param query the prepared query object (may be {@code null})
+     * @param selectorName selector name used to extract the node from each row
+     * @return stream of nodes matching the selector, empty if query is {@code null} or on error
+     */
+    public static Stream<Node> executeQueryAsStream(final Query query, final String selectorName) {
+        Stream<Node> nodes = Stream.empty();
+        if (query != null) {
+            try {
+                QueryMeasurement measurement = QueryStatistics.getInstance().start(query.getStatement(), query.getLanguage(), null);
+                nodes = new RowsResult(measurement.execute(query), measurement, QueryGuardrails.getDefaults(), query.getStatement()).getRowNodeStreamFor(selectorName);
+            } catch (RepositoryException e) {
+                LOGGER.error("Error executing query with statement {}", query.getStatement(), e);
+            }
+        }
+        return nodes;
+    }
+
     /**
      * Private constructor to prevent instantiation of this utility class.
      */
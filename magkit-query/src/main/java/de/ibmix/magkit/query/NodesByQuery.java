@@ -21,6 +21,7 @@ package de.ibmix.magkit.query;
  */
 
 import de.ibmix.magkit.query.sql2.Sql2;
+import de.ibmix.magkit.query.sql2.condition.Sql2JoinConstraint;
 import de.ibmix.magkit.query.sql2.condition.Sql2StringCondition;
 import de.ibmix.magkit.query.sql2.statement.Sql2Builder;
 import de.ibmix.magkit.query.sql2.statement.Sql2Statement;
@@ -42,6 +43,8 @@ import java.util.function.Function;
  * - Exact match constraint for a single String property value.
  * - Result ordering by Magnolia last modified property ({@code NodeTypes.LastModified.NAME}).
  * - Applies a fixed limit of 1 (returns at most one node) while still exposing a {@link List} result.
+ * - Count and existence checks ({@link #count(String)}, {@link #exists(String)}, {@link #existsOther(String, String)})
+ *   without loading the matching nodes.
  * <p>
  * Usage Preconditions:
  * - The workspace and node type must exist and be readable in the current Magnolia/JCR context.
@@ -96,4 +99,43 @@ public class NodesByQuery implements Function<String, List<Node>> {
             .orderBy(NodeTypes.LastModified.NAME);
         return Sql2.Query.nodesFrom(_workspaceName).withStatement(sql2Builder).withLimit(1).getResultNodes();
     }
+
+    /**
+     * Counts the nodes matching the value on the configured property without loading them.
+     *
+     * @param value the property value to match (should be non-null)
+     * @return the number of matching nodes
+     */
+    public long count(String value) {
+        return Sql2.Query.nodesFrom(_workspaceName).withStatement(matching(value, null)).count();
+    }
+
+    /**
+     * Checks whether any node matches the value on the configured property without loading it.
+     *
+     * @param value the property value to match (should be non-null)
+     * @return true if a matching node exists
+     */
+    public boolean exists(String value) {
+        return existsOther(value, null);
+    }
+
+    /**
+     * Checks whether any node other than the node with the given identifier matches the value on the configured
+     * property, e.g. for uniqueness checks on update.
+     *
+     * @param value the property value to match (should be non-null)
+     * @param identifier the identifier of the node to ignore; {@code null} to consider all nodes
+     * @return true if another matching node exists
+     */
+    public boolean existsOther(String value, String identifier) {
+        return Sql2.Query.nodesFrom(_workspaceName).withStatement(matching(value, identifier)).exists();
+    }
+
+    private Sql2Builder matching(String value, String excludedIdentifier) {
+        final Sql2JoinConstraint valueCondition = Sql2StringCondition.property(_propertyName).equalsAny().values(value);
+        final Sql2JoinConstraint[] conditions = excludedIdentifier == null ? new Sql2JoinConstraint[]{valueCondition}
+            : new Sql2JoinConstraint[]{valueCondition, Sql2StringCondition.identifier().excludeAll().values(excludedIdentifier)};
+        return Sql2Statement.select().from(_nodeType).whereAll(conditions);
+    }
 }
@@ -0,0 +1,313 @@
+package de.ibmix.magkit.query;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.query.sql2.query.jcrwrapper.DetachedNodeList;
+import de.ibmix.magkit.query.sql2.query.jcrwrapper.DetachedRow;
+import de.ibmix.magkit.query.sql2.query.jcrwrapper.DetachedRowList;
+import de.ibmix.magkit.query.sql2.query.jcrwrapper.RowsResult;
+import info.magnolia.cms.security.Security;
+import info.magnolia.cms.security.User;
+import info.magnolia.context.Context;
+import info.magnolia.context.DefaultRepositoryStrategy;
+import info.magnolia.context.MgnlContext;
+import info.magnolia.context.SystemContext;
+import info.magnolia.context.ThreadDependentSystemContext;
+import info.magnolia.context.UserContextImpl;
+import info.magnolia.objectfactory.Components;
+import info.magnolia.repository.RepositoryManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.query.Row;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Executors for queries executed on other threads.
+ * <p>Purpose: The Magnolia {@link MgnlContext} and thereby the JCR sessions of the current user are bound to the
+ * calling thread. JCR sessions must not be used by several threads concurrently, so query tasks executed by an
+ * executor must not use the sessions of the caller. They run with a context of their own instead, which opens new
+ * sessions for the user of the calling thread and logs them out when the task is done. Queries of the task are thereby
+ * executed with the access rights of the caller, so limits, counts and cache keys respect the access control of the
+ * caller. Their results are detached from these sessions and loaded in the session of the thread accessing them.</p>
+ * <p>Key features:</p>
+ * <ul>
+ *   <li>{@link #withOwnSessions(Callable)} wraps a task to run with its own sessions of the calling user and to release
+ *   them afterwards. Tasks executed on the creating thread itself run unchanged with the context of that thread.
+ *   Only tasks created in a {@link SystemContext} run with the system context.</li>
+ *   <li>{@link #getDefaultExecutor()} provides a shared, bounded pool of daemon threads. The pool size defaults to the
+ *   system property {@value #PARALLELISM_PROPERTY} or the number of processors, at most {@value #MAX_DEFAULT_PARALLELISM}.</li>
+ *   <li>{@link #supplyNodesAsync(String, Callable, Executor, long, TimeUnit)} and
+ *   {@link #supplyRowsAsync(String, Callable, Executor, long, TimeUnit)} collect query results asynchronously into a
+ *   {@link CompletableFuture} with timeout and cancellation. On timeout the future completes with the results
+ *   collected so far.</li>
+ * </ul>
+ * <p>Timeouts and cancellation stop collecting results before the next result. A running repository call, e.g. the
+ * query execution itself, cannot be interrupted and finishes in the background on the sessions of the task.</p>
+ * <p>Null and error handling: Exceptions and errors of the task are propagated unchanged, asynchronous results
+ * complete exceptionally.</p>
+ * <p>Thread-safety: Thread-safe.</p>
+ * <p>Usage example:</p>
+ * <pre>{@code
+ * Future<Long> count = QueryExecutors.getDefaultExecutor().submit(QueryExecutors.withOwnSessions(() -> builder.count()));
+ * CompletableFuture<List<Node>> news = QueryExecutors.supplyNodesAsync("website", () -> newsBuilder.getResultNodeStream(), 500, TimeUnit.MILLISECONDS);
+ * }</pre>
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public final class QueryExecutors {
+    private static final Logger LOG = LoggerFactory.getLogger(QueryExecutors.class);
+
+    public static final String PARALLELISM_PROPERTY = "magkit.query.parallelism";
+    public static final int MAX_DEFAULT_PARALLELISM = 8;
+
+    private QueryExecutors() {
+    }
+
+    /**
+     * Get the shared executor for parallel queries.
+     * @return the bounded default executor, never shut down
+     */
+    public static ExecutorService getDefaultExecutor() {
+        return DefaultExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * Wrap the task to run with its own JCR sessions of the current user. The user and locale of the current context
+     * are captured when the task is created, the task then runs with a new context logging in this user (the anonymous
+     * user if there is no current context) and therefore with the same access rights. If the task is created in a
+     * system context, it runs with the per-thread sessions of the system context. The sessions are logged out and the
+     * previous context of the executing thread is restored afterwards. Results of the task must not keep references
+     * to JCR items, use node identifiers or values instead. If the task is executed on the current thread, it runs
+     * unchanged with the context of the current thread.
+     * @param task the task to wrap
+     * @param <T> the result type
+     * @return task running on its own sessions
+     */
+    public static <T> Callable<T> withOwnSessions(final Callable<T> task) {
+        final Thread creator = Thread.currentThread();
+        final Context caller = MgnlContext.hasInstance() ? MgnlContext.getInstance() : null;
+        final boolean isSystem = caller instanceof SystemContext;
+        final User user = caller == null || isSystem ? null : caller.getUser();
+        final Locale locale = caller == null ? null : caller.getLocale();
+        return () -> {
+            T result;
+            if (Thread.currentThread() == creator) {
+                result = task.call();
+            } else {
+                Context previous = MgnlContext.hasInstance() ? MgnlContext.getInstance() : null;
+                Context context = isSystem ? MgnlContext.getSystemContext() : new TaskContext(user == null ? Security.getAnonymousUser() : user, locale);
+                MgnlContext.setInstance(context);
+                try {
+                    result = task.call();
+                } finally {
+                    release(context);
+                    MgnlContext.setInstance(previous);
+                }
+            }
+            return result;
+        };
+    }
+
+    private static void release(final Context context) {
+        try {
+            if (context instanceof ThreadDependentSystemContext) {
+                ((ThreadDependentSystemContext) context).releaseThread();
+            } else if (!(context instanceof SystemContext)) {
+                context.release();
+            }
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to release the sessions of a query task.", e);
+        }
+    }
+
+    /**
+     * Collect the result nodes of the query stream asynchronously on their own sessions, see
+     * {@link #withOwnSessions(Callable)}. The future completes with a {@link DetachedNodeList} loading the nodes in
+     * the session of the thread accessing it.
+     * @param workspace the workspace of the query
+     * @param nodes opens the result stream on the executing thread, e.g. {@code () -> builder.getResultNodeStream()}
+     * @param executor the executor, e.g. {@link #getDefaultExecutor()} or a virtual thread executor
+     * @param timeout the timeout, 0 or less to wait without timeout
+     * @param unit the unit of the timeout
+     * @return future completing with all nodes, with the nodes collected so far on timeout, or exceptionally on
+     * errors. Cancelling the future stops collecting results.
+     */
+    public static CompletableFuture<List<Node>> supplyNodesAsync(final String workspace, final Callable<? extends Stream<Node>> nodes, final Executor executor, final long timeout, final TimeUnit unit) {
+        return supply(() -> nodes.call().map(QueryExecutors::identifierOf).filter(Objects::nonNull), identifiers -> new DetachedNodeList(workspace, identifiers), executor, timeout, unit);
+    }
+
+    /**
+     * Collect the result nodes of the query stream asynchronously on the {@link #getDefaultExecutor() default executor}.
+     * @param workspace the workspace of the query
+     * @param nodes opens the result stream on the executing thread
+     * @param timeout the timeout, 0 or less to wait without timeout
+     * @param unit the unit of the timeout
+     * @return future completing with all nodes or the nodes collected so far on timeout
+     */
+    public static CompletableFuture<List<Node>> supplyNodesAsync(final String workspace, final Callable<? extends Stream<Node>> nodes, final long timeout, final TimeUnit unit) {
+        return supplyNodesAsync(workspace, nodes, getDefaultExecutor(), timeout, unit);
+    }
+
+    /**
+     * Collect the result rows of the query stream asynchronously on their own sessions, see
+     * {@link #withOwnSessions(Callable)}. The stream must provide {@link DetachedRow detached rows}, e.g.
+     * {@link RowsResult#getDetachedRowStream(String)}. The future completes with a {@link DetachedRowList} removing
+     * the rows the thread accessing it cannot read.
+     * @param workspace the workspace of the query
+     * @param rows opens the detached row stream on the executing thread
+     * @param executor the executor, e.g. {@link #getDefaultExecutor()} or a virtual thread executor
+     * @param timeout the timeout, 0 or less to wait without timeout
+     * @param unit the unit of the timeout
+     * @return future completing with all rows, with the rows collected so far on timeout, or exceptionally on
+     * errors. Cancelling the future stops collecting results.
+     */
+    public static CompletableFuture<List<Row>> supplyRowsAsync(final String workspace, final Callable<? extends Stream<Row>> rows, final Executor executor, final long timeout, final TimeUnit unit) {
+        return supply(rows, collected -> new DetachedRowList(workspace, collected), executor, timeout, unit);
+    }
+
+    private static <T, R> CompletableFuture<List<R>> supply(final Callable<? extends Stream<T>> results, final Function<List<T>, List<R>> finisher, final Executor executor, final long timeout, final TimeUnit unit) {
+        final List<T> collected = Collections.synchronizedList(new ArrayList<>());
+        final AtomicBoolean stopped = new AtomicBoolean();
+        final CompletableFuture<List<R>> future = new CompletableFuture<>();
+        final Callable<Void> task = withOwnSessions(() -> {
+            try (Stream<T> stream = results.call()) {
+                Iterator<T> iterator = stream.iterator();
+                while (!stopped.get() && iterator.hasNext()) {
+                    collected.add(iterator.next());
+                }
+            }
+            future.complete(finisher.apply(copy(collected)));
+            return null;
+        });
+        future.whenComplete((result, error) -> stopped.set(true));
+        if (timeout > 0) {
+            ScheduledFuture<?> timer = SchedulerHolder.SCHEDULER.schedule(() -> {
+                if (future.complete(finisher.apply(copy(collected)))) {
+                    LOG.warn("Query timed out after {} ms, returning {} results collected so far.", unit.toMillis(timeout), collected.size());
+                }
+            }, timeout, unit);
+            future.whenComplete((result, error) -> timer.cancel(false));
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    task.call();
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private static String identifierOf(final Node node) {
+        String identifier = null;
+        try {
+            identifier = node == null ? null : node.getIdentifier();
+        } catch (RepositoryException e) {
+            LOG.warn("Failed to read identifier of result node, skipping it.", e);
+        }
+        return identifier;
+    }
+
+    private static <T> List<T> copy(final List<T> collected) {
+        List<T> copy;
+        synchronized (collected) {
+            copy = new ArrayList<>(collected);
+        }
+        return copy;
+    }
+
+    /**
+     * Context of a task executed on another thread, opening its own sessions for the user of the calling thread.
+     */
+    private static final class TaskContext extends UserContextImpl {
+        private final User _user;
+
+        private TaskContext(final User user, final Locale locale) {
+            _user = user;
+            if (locale != null) {
+                setLocale(locale);
+            }
+            setRepositoryStrategy(new DefaultRepositoryStrategy(Components.getComponent(RepositoryManager.class), this));
+        }
+
+        @Override
+        public User getUser() {
+            return _user;
+        }
+    }
+
+    /**
+     * Lazy holder of the timer completing timed out asynchronous queries.
+     */
+    private static final class SchedulerHolder {
+        private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory());
+    }
+
+    /**
+     * Lazy holder of the default executor, created on first use.
+     */
+    private static final class DefaultExecutorHolder {
+        private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+            Math.max(1, Integer.getInteger(PARALLELISM_PROPERTY, Math.min(Runtime.getRuntime().availableProcessors(), MAX_DEFAULT_PARALLELISM))),
+            new DaemonThreadFactory()
+        );
+    }
+
+    /**
+     * Creates named daemon threads that do not prevent the shutdown of the JVM.
+     */
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        private final AtomicInteger _count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            Thread thread = new Thread(runnable, "magkit-query-" + _count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
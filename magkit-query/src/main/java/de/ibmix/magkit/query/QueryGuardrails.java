@@ -0,0 +1,305 @@
+package de.ibmix.magkit.query;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.query.monitor.QueryStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Guardrails cutting off runaway queries before they exhaust heap or threads.
+ * <p>Purpose: A badly configured component, e.g. a list without limit below {@code /}, can make a query materialize
+ * hundreds of thousands of nodes. Guardrails bound every query of the {@link NodeQueryUtil} and the
+ * {@link de.ibmix.magkit.query.sql2.query.Sql2QueryBuilder}.</p>
+ * <p>Key features:</p>
+ * <ul>
+ *   <li>Maximum limit: applied to queries without limit or with a larger limit. A result filling the capped limit is
+ *   reported as tripped guardrail, see {@link #forQueryLimit(long)}. Count queries are not capped.</li>
+ *   <li>Maximum reads: the iteration stops after the given number of results.</li>
+ *   <li>Maximum time: the iteration stops when it takes longer than the given time.</li>
+ *   <li>Global defaults from the system properties {@value #MAX_LIMIT_PROPERTY}, {@value #MAX_READS_PROPERTY} and
+ *   {@value #MAX_TIME_PROPERTY}, replaceable with {@link #setDefaults(QueryGuardrails)}, and per-call overrides.</li>
+ *   <li>Every tripped guardrail of a guarded iterator is logged at WARN level and counted by the
+ *   {@link QueryStatistics}.</li>
+ * </ul>
+ * <p>By default the limit of queries is capped at {@value #DEFAULT_MAX_LIMIT} results. Maximum reads and maximum time
+ * are opt-in, so existing callers iterating large results are not truncated unless configured. A value of 0 disables
+ * a guardrail. A tripped guardrail truncates the result, it does not fail the query.</p>
+ * <p>Null and error handling: Negative values are treated as 0. Null defaults reset the defaults to the system
+ * properties.</p>
+ * <p>Thread-safety: Immutable and thread-safe. Guarded iterators are NOT thread-safe, like the underlying iterators.</p>
+ * <p>Usage example:</p>
+ * <pre>{@code
+ * QueryGuardrails.setDefaults(QueryGuardrails.of(1000, 10000, 5000));
+ * List<Node> all = Sql2QueryBuilder.forNodes().fromWebsite().withStatement(statement)
+ *     .withGuardrails(QueryGuardrails.getDefaults().withMaxLimit(50000)).getResultNodes();
+ * }</pre>
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public final class QueryGuardrails {
+    private static final Logger LOG = LoggerFactory.getLogger(QueryGuardrails.class);
+
+    public static final String MAX_LIMIT_PROPERTY = "magkit.query.maxLimit";
+    public static final String MAX_READS_PROPERTY = "magkit.query.maxReads";
+    public static final String MAX_TIME_PROPERTY = "magkit.query.maxTimeMillis";
+    public static final long DEFAULT_MAX_LIMIT = 10000;
+    public static final long DEFAULT_MAX_READS = 0;
+    public static final long DEFAULT_MAX_TIME_MILLIS = 0;
+
+    public static final String MAX_LIMIT = "maxLimit";
+    public static final String MAX_READS = "maxReads";
+    public static final String MAX_TIME = "maxTime";
+
+    /**
+     * Guardrails disabling all checks.
+     */
+    public static final QueryGuardrails NONE = new QueryGuardrails(0, 0, 0, 0);
+
+    private static final AtomicReference<QueryGuardrails> DEFAULTS = new AtomicReference<>();
+
+    private final long _maxLimit;
+    private final long _maxReads;
+    private final long _maxTimeMillis;
+    private final long _cappedLimit;
+
+    private QueryGuardrails(final long maxLimit, final long maxReads, final long maxTimeMillis, final long cappedLimit) {
+        _maxLimit = Math.max(maxLimit, 0);
+        _maxReads = Math.max(maxReads, 0);
+        _maxTimeMillis = Math.max(maxTimeMillis, 0);
+        _cappedLimit = cappedLimit;
+    }
+
+    /**
+     * Create guardrails.
+     * @param maxLimit maximum query limit, 0 for none
+     * @param maxReads maximum number of results read, 0 for no maximum
+     * @param maxTimeMillis maximum iteration time in milliseconds, 0 for no maximum
+     * @return new guardrails
+     */
+    public static QueryGuardrails of(final long maxLimit, final long maxReads, final long maxTimeMillis) {
+        return new QueryGuardrails(maxLimit, maxReads, maxTimeMillis, 0);
+    }
+
+    /**
+     * Get the guardrails applied to queries without per-call guardrails.
+     * @return the default guardrails, initialized from the system properties
+     */
+    public static QueryGuardrails getDefaults() {
+        return DEFAULTS.updateAndGet(defaults -> defaults != null ? defaults : of(Long.getLong(MAX_LIMIT_PROPERTY, DEFAULT_MAX_LIMIT),
+            Long.getLong(MAX_READS_PROPERTY, DEFAULT_MAX_READS), Long.getLong(MAX_TIME_PROPERTY, DEFAULT_MAX_TIME_MILLIS)));
+    }
+
+    /**
+     * Replace the default guardrails, e.g. on module start.
+     * @param defaults the new defaults, null to reinitialize them from the system properties
+     */
+    public static void setDefaults(final QueryGuardrails defaults) {
+        DEFAULTS.set(defaults);
+    }
+
+    /**
+     * Copy these guardrails with another maximum limit.
+     * @param maxLimit maximum query limit, 0 for none
+     * @return new guardrails
+     */
+    public QueryGuardrails withMaxLimit(final long maxLimit) {
+        return of(maxLimit, _maxReads, _maxTimeMillis);
+    }
+
+    /**
+     * Copy these guardrails with another maximum number of results read.
+     * @param maxReads maximum number of results read, 0 for no maximum
+     * @return new guardrails
+     */
+    public QueryGuardrails withMaxReads(final long maxReads) {
+        return of(_maxLimit, maxReads, _maxTimeMillis);
+    }
+
+    /**
+     * Copy these guardrails with another maximum iteration time.
+     * @param maxTime maximum iteration time, 0 for no maximum
+     * @param unit unit of the time
+     * @return new guardrails
+     */
+    public QueryGuardrails withMaxTime(final long maxTime, final TimeUnit unit) {
+        return of(_maxLimit, _maxReads, unit.toMillis(maxTime));
+    }
+
+    /**
+     * Copy these guardrails for the result of a query whose limit was capped with {@link #applyLimit(long, String)}.
+     * The repository truncates such a result at the maximum limit, so a guarded iterator of the copy reports a result
+     * filling the capped limit as tripped guardrail.
+     * @param limit the limit of the query before applying the maximum limit, 0 or less for none
+     * @return new guardrails, these guardrails if the limit is not capped
+     */
+    public QueryGuardrails forQueryLimit(final long limit) {
+        return isCapped(limit) ? new QueryGuardrails(_maxLimit, _maxReads, _maxTimeMillis, _maxLimit) : this;
+    }
+
+    /**
+     * Get the maximum query limit.
+     * @return the maximum limit, 0 for none
+     */
+    public long getMaxLimit() {
+        return _maxLimit;
+    }
+
+    /**
+     * Get the maximum number of results read.
+     * @return the maximum reads, 0 for no maximum
+     */
+    public long getMaxReads() {
+        return _maxReads;
+    }
+
+    /**
+     * Get the maximum iteration time.
+     * @return the maximum time in milliseconds, 0 for no maximum
+     */
+    public long getMaxTimeMillis() {
+        return _maxTimeMillis;
+    }
+
+    /**
+     * Apply the maximum limit to the limit of a query. Capping the limit is logged at DEBUG level, the result is only
+     * known to be truncated when it fills the capped limit. Guard the result with the guardrails
+     * {@link #forQueryLimit(long) for the query limit} or call {@link #checkResultSize(long, String)} to report it.
+     * @param limit the limit of the query, 0 or less for none
+     * @param statement the statement for logging
+     * @return the limit to apply, 0 for none
+     */
+    public long applyLimit(final long limit, final String statement) {
+        long result = Math.max(limit, 0);
+        if (isCapped(result)) {
+            LOG.debug("Limit {} of query capped to {}: {}", result, _maxLimit, statement);
+            result = _maxLimit;
+        }
+        return result;
+    }
+
+    /**
+     * Report a result filling the capped limit as tripped maximum limit, logged at WARN level and counted by the
+     * {@link QueryStatistics}. Only guardrails {@link #forQueryLimit(long) for a capped query limit} report results.
+     * @param size the size of the result, negative if unknown
+     * @param statement the statement for logging
+     * @return true if the result fills the capped limit
+     */
+    public boolean checkResultSize(final long size, final String statement) {
+        boolean truncated = _cappedLimit > 0 && size >= _cappedLimit;
+        if (truncated) {
+            trip(MAX_LIMIT, size, -1, statement);
+        }
+        return truncated;
+    }
+
+    /**
+     * Wrap the result iterator to stop at the maximum limit, the maximum number of reads or the maximum time.
+     * @param iterator the result iterator
+     * @param statement the statement for logging
+     * @param <T> the element type
+     * @return the guarded iterator or the given iterator if all guardrails are disabled
+     */
+    public <T> Iterator<T> guard(final Iterator<T> iterator, final String statement) {
+        return _maxLimit > 0 || _maxReads > 0 || _maxTimeMillis > 0 ? new GuardedIterator<>(iterator, this, statement) : iterator;
+    }
+
+    private boolean isCapped(final long limit) {
+        return _maxLimit > 0 && (limit <= 0 || limit > _maxLimit);
+    }
+
+    private static void trip(final String guardrail, final long reads, final long millis, final String statement) {
+        if (millis < 0) {
+            LOG.warn("Query guardrail {} tripped after {} results, result truncated. Statement: {}", guardrail, reads, statement);
+        } else {
+            LOG.warn("Query guardrail {} tripped after {} results and {} ms, result truncated. Statement: {}", guardrail, reads, millis, statement);
+        }
+        QueryStatistics.getInstance().recordGuardrailTrip(guardrail, statement);
+    }
+
+    @Override
+    public String toString() {
+        return "QueryGuardrails{maxLimit=" + _maxLimit + ", maxReads=" + _maxReads + ", maxTimeMillis=" + _maxTimeMillis + '}';
+    }
+
+    /**
+     * Iterator stopping when a guardrail trips.
+     * @param <T> the element type
+     */
+    private static final class GuardedIterator<T> implements Iterator<T> {
+        private final Iterator<T> _delegate;
+        private final QueryGuardrails _guardrails;
+        private final String _statement;
+        private final long _maxReads;
+        private final String _readsGuardrail;
+        private final long _deadline;
+        private final long _start;
+        private long _reads;
+        private boolean _tripped;
+
+        private GuardedIterator(final Iterator<T> delegate, final QueryGuardrails guardrails, final String statement) {
+            _delegate = delegate;
+            _guardrails = guardrails;
+            _statement = statement;
+            boolean limitFirst = guardrails._maxLimit > 0 && (guardrails._maxReads == 0 || guardrails._maxLimit <= guardrails._maxReads);
+            _maxReads = limitFirst ? guardrails._maxLimit : guardrails._maxReads;
+            _readsGuardrail = limitFirst ? MAX_LIMIT : MAX_READS;
+            _start = System.nanoTime();
+            _deadline = guardrails._maxTimeMillis > 0 ? _start + TimeUnit.MILLISECONDS.toNanos(guardrails._maxTimeMillis) : 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            boolean hasNext = !_tripped && _delegate.hasNext();
+            if (!hasNext && !_tripped) {
+                // the repository truncated the result at the capped limit
+                _tripped = _guardrails.checkResultSize(_reads, _statement);
+            } else if (hasNext && _maxReads > 0 && _reads >= _maxReads) {
+                trip(_readsGuardrail);
+                hasNext = false;
+            } else if (hasNext && _deadline != 0 && System.nanoTime() - _deadline > 0) {
+                trip(MAX_TIME);
+                hasNext = false;
+            }
+            return hasNext;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more query results.");
+            }
+            _reads++;
+            return _delegate.next();
+        }
+
+        private void trip(final String guardrail) {
+            _tripped = true;
+            QueryGuardrails.trip(guardrail, _reads, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - _start), _statement);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package de.ibmix.magkit.query.monitor;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregated metrics of all executions of one statement fingerprint in one workspace.
+ * <p>Instances returned by {@link QueryStatistics#getStatistics()} are snapshots and do not change afterwards.</p>
+ * <p>Thread-safety: Updates are synchronized, snapshots are immutable.</p>
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public final class FingerprintStatistics {
+    private final String _fingerprint;
+    private final String _language;
+    private final String _workspace;
+    private long _count;
+    private long _failures;
+    private long _totalExecuteNanos;
+    private long _maxExecuteNanos;
+    private long _totalIterateNanos;
+    private long _totalRows;
+    private String _lastCaller;
+
+    FingerprintStatistics(final String fingerprint, final String language, final String workspace) {
+        _fingerprint = fingerprint;
+        _language = language;
+        _workspace = workspace;
+    }
+
+    synchronized void addExecution(final QueryExecution execution, final String caller) {
+        _count++;
+        _totalExecuteNanos += execution.getExecuteNanos();
+        _maxExecuteNanos = Math.max(_maxExecuteNanos, execution.getExecuteNanos());
+        if (caller != null) {
+            _lastCaller = caller;
+        }
+    }
+
+    synchronized void addIteration(final QueryExecution execution, final String caller) {
+        if (execution.isFailed()) {
+            _failures++;
+        } else {
+            _totalRows += Math.max(execution.getRowCount(), 0);
+        }
+        _totalIterateNanos += execution.getIterateNanos();
+        if (caller != null) {
+            _lastCaller = caller;
+        }
+    }
+
+    synchronized FingerprintStatistics snapshot() {
+        FingerprintStatistics snapshot = new FingerprintStatistics(_fingerprint, _language, _workspace);
+        snapshot._count = _count;
+        snapshot._failures = _failures;
+        snapshot._totalExecuteNanos = _totalExecuteNanos;
+        snapshot._maxExecuteNanos = _maxExecuteNanos;
+        snapshot._totalIterateNanos = _totalIterateNanos;
+        snapshot._totalRows = _totalRows;
+        snapshot._lastCaller = _lastCaller;
+        return snapshot;
+    }
+
+    /**
+     * Get the literal-stripped statement.
+     * @return the statement fingerprint
+     */
+    public String getFingerprint() {
+        return _fingerprint;
+    }
+
+    /**
+     * Get the query language.
+     * @return the language of the statement
+     */
+    public String getLanguage() {
+        return _language;
+    }
+
+    /**
+     * Get the workspace of the executions.
+     * @return the workspace name or null if unknown
+     */
+    public String getWorkspace() {
+        return _workspace;
+    }
+
+    /**
+     * Get the number of executions.
+     * @return execution count
+     */
+    public synchronized long getCount() {
+        return _count;
+    }
+
+    /**
+     * Get the number of failed executions.
+     * @return failure count
+     */
+    public synchronized long getFailures() {
+        return _failures;
+    }
+
+    /**
+     * Get the summed execute time.
+     * @return execute time in nanoseconds
+     */
+    public synchronized long getTotalExecuteNanos() {
+        return _totalExecuteNanos;
+    }
+
+    /**
+     * Get the longest execute time.
+     * @return maximum execute time in nanoseconds
+     */
+    public synchronized long getMaxExecuteNanos() {
+        return _maxExecuteNanos;
+    }
+
+    /**
+     * Get the summed iterate time.
+     * @return iterate time in nanoseconds
+     */
+    public synchronized long getTotalIterateNanos() {
+        return _totalIterateNanos;
+    }
+
+    /**
+     * Get the summed number of consumed results of all successful executions.
+     * @return total number of results
+     */
+    public synchronized long getTotalRows() {
+        return _totalRows;
+    }
+
+    /**
+     * Get the caller of the latest slow execution.
+     * @return template and path of the rendered content or null if unknown
+     */
+    public synchronized String getLastSlowCaller() {
+        return _lastCaller;
+    }
+
+    /**
+     * Get the total time of execution and iteration of all executions.
+     * @return total time in nanoseconds
+     */
+    public synchronized long getTotalNanos() {
+        return _totalExecuteNanos + _totalIterateNanos;
+    }
+
+    @Override
+    public synchronized String toString() {
+        double count = Math.max(_count, 1);
+        return String.format(Locale.ROOT, "%s [%s, %s] count=%d failures=%d avgExecuteMs=%.3f maxExecuteMs=%.3f avgIterateMs=%.3f avgRows=%.1f caller=%s",
+            _fingerprint, _workspace, _language, _count, _failures, toMillis(_totalExecuteNanos) / count, toMillis(_maxExecuteNanos),
+            toMillis(_totalIterateNanos) / count, _totalRows / count, _lastCaller);
+    }
+
+    private static double toMillis(final long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,171 @@
+package de.ibmix.magkit.query.monitor;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import info.magnolia.jcr.util.NodeTypes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+
+/**
+ * Recorded execution of one JCR query.
+ * <p>Purpose: Event passed to {@link QueryMetricsListener}s and aggregated by {@link QueryStatistics}. Holds the time
+ * needed by the repository to execute the query, the time spent iterating the result and the number of results.</p>
+ * <p>Key features:</p>
+ * <ul>
+ *   <li>Statement, literal-stripped fingerprint, query language and workspace.</li>
+ *   <li>Execute and iterate time in nanoseconds and the number of results consumed.</li>
+ *   <li>The rendering caller (template and path of the content rendered when the query was started).</li>
+ * </ul>
+ * <p>Null and error handling: The workspace is null if unknown, the caller is null outside of rendering. For failed
+ * executions the row count is -1.</p>
+ * <p>Thread-safety: Effectively immutable, fingerprint and caller are computed lazily.</p>
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public final class QueryExecution {
+    private static final Logger LOG = LoggerFactory.getLogger(QueryExecution.class);
+
+    private final String _statement;
+    private final String _language;
+    private final String _workspace;
+    private final long _executeNanos;
+    private final long _iterateNanos;
+    private final long _rowCount;
+    private final boolean _failed;
+    private final String _callerTemplate;
+    private final Node _callerContent;
+    private String _fingerprint;
+
+    QueryExecution(final String statement, final String language, final String workspace, final long executeNanos, final long iterateNanos,
+                   final long rowCount, final boolean failed, final String callerTemplate, final Node callerContent) {
+        _statement = statement;
+        _language = language;
+        _workspace = workspace;
+        _executeNanos = executeNanos;
+        _iterateNanos = iterateNanos;
+        _rowCount = rowCount;
+        _failed = failed;
+        _callerTemplate = callerTemplate;
+        _callerContent = callerContent;
+    }
+
+    /**
+     * Get the executed statement.
+     * @return the statement as passed to the repository
+     */
+    public String getStatement() {
+        return _statement;
+    }
+
+    /**
+     * Get the statement with all literals replaced by {@code ?}, grouping executions differing only by values.
+     * @return the statement fingerprint
+     */
+    public String getFingerprint() {
+        if (_fingerprint == null) {
+            _fingerprint = QueryStatistics.fingerprint(_statement);
+        }
+        return _fingerprint;
+    }
+
+    /**
+     * Get the query language.
+     * @return the language, e.g. {@link javax.jcr.query.Query#JCR_SQL2}
+     */
+    public String getLanguage() {
+        return _language;
+    }
+
+    /**
+     * Get the workspace the query was executed in.
+     * @return the workspace name or null if unknown
+     */
+    public String getWorkspace() {
+        return _workspace;
+    }
+
+    /**
+     * Get the time the repository needed to execute the query.
+     * @return execute time in nanoseconds
+     */
+    public long getExecuteNanos() {
+        return _executeNanos;
+    }
+
+    /**
+     * Get the time spent iterating the result, including lazy loading of result batches by the repository.
+     * @return iterate time in nanoseconds
+     */
+    public long getIterateNanos() {
+        return _iterateNanos;
+    }
+
+    /**
+     * Get the total time of execution and iteration.
+     * @return total time in nanoseconds
+     */
+    public long getTotalNanos() {
+        return _executeNanos + _iterateNanos;
+    }
+
+    /**
+     * Get the number of results consumed by the caller.
+     * @return number of nodes or rows, -1 for failed executions
+     */
+    public long getRowCount() {
+        return _rowCount;
+    }
+
+    /**
+     * Check whether the execution failed.
+     * @return true if the repository threw an exception
+     */
+    public boolean isFailed() {
+        return _failed;
+    }
+
+    /**
+     * Get the rendering caller: the template and path of the page or component rendered when the query was started.
+     * @return the caller description or null if the query was not executed while rendering
+     */
+    public String getCaller() {
+        String caller = _callerTemplate;
+        if (_callerContent != null) {
+            try {
+                String template = NodeTypes.Renderable.getTemplate(_callerContent);
+                caller = (template == null ? _callerTemplate : template) + " (" + _callerContent.getPath() + ')';
+            } catch (RepositoryException e) {
+                LOG.debug("Could not resolve query caller content.", e);
+            }
+        }
+        return caller;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryExecution{" + "workspace=" + _workspace + ", executeNanos=" + _executeNanos + ", iterateNanos=" + _iterateNanos
+            + ", rowCount=" + _rowCount + ", failed=" + _failed + ", statement=" + _statement + '}';
+    }
+}
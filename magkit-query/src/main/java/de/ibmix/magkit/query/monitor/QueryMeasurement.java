@@ -0,0 +1,144 @@
+package de.ibmix.magkit.query.monitor;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.query.Query;
+import javax.jcr.query.QueryResult;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Measurement of one query execution from start until the result has been consumed.
+ * <p>Purpose: Created by {@link QueryStatistics#start(String, String, String)} before the execution. The executing
+ * code marks the end of the execution, which records the execution with its execute time. The result wrappers report
+ * the end of the iteration with the number of consumed results, which adds the iteration time. Both are recorded
+ * once, further calls are ignored.</p>
+ * <p>Usage example:</p>
+ * <pre>{@code
+ * QueryMeasurement measurement = QueryStatistics.getInstance().start(statement, Query.JCR_SQL2, "website");
+ * QueryResult result = measurement.execute(query);
+ * List<Node> nodes = asList(result.getNodes());
+ * measurement.finished(nodes.size());
+ * }</pre>
+ * <p>Null and error handling: {@link #NONE} is used if instrumentation is disabled and ignores all calls.</p>
+ * <p>Thread-safety: Thread-safe recording, a measurement is meant to be used by a single thread.</p>
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public final class QueryMeasurement {
+
+    /**
+     * Measurement ignoring all calls, used if instrumentation is disabled.
+     */
+    public static final QueryMeasurement NONE = new QueryMeasurement(null, null, null, null, null, null);
+
+    private final QueryStatistics _statistics;
+    private final String _statement;
+    private final String _language;
+    private final String _workspace;
+    private final String _callerTemplate;
+    private final Node _callerContent;
+    private final long _start;
+    private final AtomicBoolean _executed = new AtomicBoolean();
+    private final AtomicBoolean _recorded = new AtomicBoolean();
+    private volatile long _executeNanos;
+    private volatile long _iterateStart;
+    private volatile boolean _loggedSlow;
+
+    QueryMeasurement(final QueryStatistics statistics, final String statement, final String language, final String workspace,
+                     final String callerTemplate, final Node callerContent) {
+        _statistics = statistics;
+        _statement = statement;
+        _language = language;
+        _workspace = workspace;
+        _callerTemplate = callerTemplate;
+        _callerContent = callerContent;
+        _start = statistics == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Check whether this measurement records anything.
+     * @return false for {@link #NONE}
+     */
+    public boolean isActive() {
+        return _statistics != null;
+    }
+
+    /**
+     * Execute the query and mark the end of the execution. Failures are recorded and rethrown.
+     * @param query the query to execute
+     * @return the query result
+     * @throws RepositoryException on execution errors
+     */
+    public QueryResult execute(final Query query) throws RepositoryException {
+        try {
+            QueryResult result = query.execute();
+            executed();
+            return result;
+        } catch (RepositoryException | RuntimeException e) {
+            failed();
+            throw e;
+        }
+    }
+
+    /**
+     * Mark the end of the execution and the start of the result iteration. Records the execution with its execute
+     * time, so executions whose result is never consumed are recorded and logged as slow queries as well.
+     */
+    public void executed() {
+        if (isActive() && _executed.compareAndSet(false, true)) {
+            _iterateStart = System.nanoTime();
+            _executeNanos = _iterateStart - _start;
+            _loggedSlow = _statistics.recordExecuted(new QueryExecution(_statement, _language, _workspace, _executeNanos, 0, -1, false, _callerTemplate, _callerContent));
+        }
+    }
+
+    /**
+     * Mark the end of the result iteration and add the iteration time and the number of results to the recorded
+     * execution. Marks the end of the execution first if that has not been done.
+     * @param rowCount number of results consumed
+     */
+    public void finished(final long rowCount) {
+        if (isActive() && _recorded.compareAndSet(false, true)) {
+            executed();
+            long iterateNanos = System.nanoTime() - _iterateStart;
+            _statistics.recordFinished(new QueryExecution(_statement, _language, _workspace, _executeNanos, iterateNanos, rowCount, false, _callerTemplate, _callerContent), _loggedSlow);
+        }
+    }
+
+    /**
+     * Record a failed execution.
+     */
+    public void failed() {
+        if (isActive() && _recorded.compareAndSet(false, true)) {
+            QueryExecution execution;
+            if (_executed.compareAndSet(false, true)) {
+                execution = new QueryExecution(_statement, _language, _workspace, System.nanoTime() - _start, 0, -1, true, _callerTemplate, _callerContent);
+                _loggedSlow = _statistics.recordExecuted(execution);
+            } else {
+                execution = new QueryExecution(_statement, _language, _workspace, _executeNanos, System.nanoTime() - _iterateStart, -1, true, _callerTemplate, _callerContent);
+            }
+            _statistics.recordFinished(execution, _loggedSlow);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package de.ibmix.magkit.query.monitor;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Listener notified about every instrumented query execution, e.g. to forward the metrics to a monitoring system.
+ * <p>Listeners are registered at {@link QueryStatistics#addListener(QueryMetricsListener)} and called synchronously
+ * in the thread that consumed the query result. Implementations must be fast and thread-safe; exceptions are logged
+ * and do not affect the query.</p>
+ * <p>Usage example:</p>
+ * <pre>{@code
+ * QueryStatistics.getInstance().addListener(execution -> registry.timer("jcr.query", "fingerprint", execution.getFingerprint())
+ *     .record(execution.getExecuteNanos(), TimeUnit.NANOSECONDS));
+ * }</pre>
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+@FunctionalInterface
+public interface QueryMetricsListener {
+    /**
+     * Called after the result of a query has been consumed or the execution failed.
+     * @param execution the recorded execution, never null
+     */
+    void onQueryExecuted(QueryExecution execution);
+
+    /**
+     * Called when a query guardrail truncated a result. Ignored by default.
+     * @param guardrail the name of the guardrail, e.g. {@link de.ibmix.magkit.query.QueryGuardrails#MAX_TIME}
+     * @param statement the statement of the truncated query
+     */
+    default void onGuardrailTripped(String guardrail, String statement) {
+    }
+}
@@ -0,0 +1,382 @@
+package de.ibmix.magkit.query.monitor;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import info.magnolia.cms.core.AggregationState;
+import info.magnolia.context.MgnlContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.Node;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.apache.commons.lang3.StringUtils.EMPTY;
+
+/**
+ * Instrumentation of the JCR query executions of this module.
+ * <p>Purpose: Makes expensive SQL2 and XPath queries visible. {@link de.ibmix.magkit.query.NodeQueryUtil}, the
+ * {@code jcrwrapper} query classes (and thereby the {@code Sql2QueryBuilder}) and the {@code Sql2PreparedQuery}
+ * measure every execution with a {@link QueryMeasurement}.</p>
+ * <p>Key features:</p>
+ * <ul>
+ *   <li>Execute time, iterate time, number of results and workspace of every execution.</li>
+ *   <li>Aggregation by workspace and literal-stripped statement fingerprint ({@link #fingerprint(String)}).</li>
+ *   <li>JMX access as {@value #OBJECT_NAME} ({@link QueryStatisticsMBean}).</li>
+ *   <li>Pluggable {@link QueryMetricsListener}s, e.g. for Micrometer or logging.</li>
+ *   <li>Slow query log at WARN level on the logger {@value #SLOW_QUERY_LOGGER} including the template and path of
+ *   the content rendered by the caller. The threshold defaults to the system property
+ *   {@value #SLOW_QUERY_THRESHOLD_PROPERTY} or {@value #DEFAULT_SLOW_QUERY_THRESHOLD} milliseconds.</li>
+ *   <li>Count of results truncated by the {@link de.ibmix.magkit.query.QueryGuardrails}.</li>
+ * </ul>
+ * <p>An execution and its execute time are recorded, and slow executions logged, as soon as the repository returned
+ * the result. The iteration time and the number of consumed results are added, and the listeners notified, when the
+ * result has been fully iterated or its result stream has been closed. Results that are neither consumed nor closed
+ * are counted with their execute time only. Cached results of the {@code QueryResultCache} are not executions and not
+ * recorded.</p>
+ * <p>Null and error handling: Failing listeners are logged at WARN level. At most {@value #DEFAULT_MAX_FINGERPRINTS}
+ * fingerprints are aggregated, further fingerprints are only passed to the listeners and the slow query log.</p>
+ * <p>Thread-safety: Thread-safe.</p>
+ * <p>Usage example:</p>
+ * <pre>{@code
+ * QueryStatistics statistics = QueryStatistics.getInstance();
+ * statistics.setSlowQueryThresholdMillis(200);
+ * statistics.getStatistics().forEach(stats -> LOG.info("{}", stats));
+ * }</pre>
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public final class QueryStatistics implements QueryStatisticsMBean {
+    private static final Logger LOG = LoggerFactory.getLogger(QueryStatistics.class);
+
+    public static final String OBJECT_NAME = "de.ibmix.magkit:type=QueryStatistics";
+    public static final String SLOW_QUERY_LOGGER = "de.ibmix.magkit.query.SlowQueries";
+    public static final String SLOW_QUERY_THRESHOLD_PROPERTY = "magkit.query.slowQueryThresholdMillis";
+    public static final long DEFAULT_SLOW_QUERY_THRESHOLD = 1000;
+    public static final int DEFAULT_MAX_FINGERPRINTS = 1000;
+    public static final int TOP_FINGERPRINTS = 20;
+
+    private static final Logger SLOW_QUERY_LOG = LoggerFactory.getLogger(SLOW_QUERY_LOGGER);
+    private static final QueryStatistics INSTANCE = new QueryStatistics(DEFAULT_MAX_FINGERPRINTS);
+
+    static {
+        registerMBean(INSTANCE);
+    }
+
+    private final int _maxFingerprints;
+    private final Map<String, FingerprintStatistics> _statistics = new ConcurrentHashMap<>();
+    private final List<QueryMetricsListener> _listeners = new CopyOnWriteArrayList<>();
+    private final LongAdder _executions = new LongAdder();
+    private final LongAdder _slowExecutions = new LongAdder();
+    private final LongAdder _guardrailTrips = new LongAdder();
+    private volatile boolean _enabled = true;
+    private volatile long _slowQueryThreshold = Long.getLong(SLOW_QUERY_THRESHOLD_PROPERTY, DEFAULT_SLOW_QUERY_THRESHOLD);
+
+    QueryStatistics(final int maxFingerprints) {
+        _maxFingerprints = maxFingerprints;
+    }
+
+    /**
+     * Get the instance used by the query classes of this module.
+     * @return the shared statistics
+     */
+    public static QueryStatistics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Start measuring a query execution.
+     * @param statement the statement to execute
+     * @param language the query language
+     * @param workspace the workspace name, may be null if unknown
+     * @return the measurement, {@link QueryMeasurement#NONE} if instrumentation is disabled
+     */
+    public QueryMeasurement start(final String statement, final String language, final String workspace) {
+        QueryMeasurement measurement = QueryMeasurement.NONE;
+        if (_enabled) {
+            String callerTemplate = null;
+            Node callerContent = null;
+            if (MgnlContext.hasInstance() && MgnlContext.isWebContext()) {
+                AggregationState state = MgnlContext.getAggregationState();
+                if (state != null) {
+                    callerTemplate = state.getTemplateName();
+                    callerContent = state.getCurrentContentNode();
+                }
+            }
+            measurement = new QueryMeasurement(this, statement, language, workspace, callerTemplate, callerContent);
+        }
+        return measurement;
+    }
+
+    /**
+     * Record the execution of a query when the repository returned its result, before the result is iterated.
+     * Executions slower than the threshold are logged.
+     * @param execution the execution without iteration time and row count
+     * @return true if the execution has been logged as slow query
+     */
+    boolean recordExecuted(final QueryExecution execution) {
+        _executions.increment();
+        String caller = null;
+        boolean slow = isSlow(execution.getExecuteNanos());
+        if (slow) {
+            _slowExecutions.increment();
+            caller = execution.getCaller();
+            SLOW_QUERY_LOG.warn("Slow query in workspace {} called by {}: execute {} ms, statement: {}",
+                execution.getWorkspace(), caller, TimeUnit.NANOSECONDS.toMillis(execution.getExecuteNanos()), execution.getStatement());
+        }
+        FingerprintStatistics statistics = getFingerprintStatistics(execution);
+        if (statistics != null) {
+            statistics.addExecution(execution, caller);
+        }
+        return slow;
+    }
+
+    /**
+     * Add the iteration time and the number of consumed results of a recorded execution and notify the listeners.
+     * Executions exceeding the threshold only by their iteration time are logged now.
+     * @param execution the complete execution
+     * @param loggedSlow true if the execution has already been logged as slow query
+     */
+    void recordFinished(final QueryExecution execution, final boolean loggedSlow) {
+        String caller = null;
+        if (!loggedSlow && isSlow(execution.getTotalNanos())) {
+            _slowExecutions.increment();
+            caller = execution.getCaller();
+            SLOW_QUERY_LOG.warn("Slow query in workspace {} called by {}: execute {} ms, iterate {} ms, {} results, statement: {}",
+                execution.getWorkspace(), caller, TimeUnit.NANOSECONDS.toMillis(execution.getExecuteNanos()),
+                TimeUnit.NANOSECONDS.toMillis(execution.getIterateNanos()), execution.getRowCount(), execution.getStatement());
+        }
+        FingerprintStatistics statistics = getFingerprintStatistics(execution);
+        if (statistics != null) {
+            statistics.addIteration(execution, caller);
+        }
+
+        for (QueryMetricsListener listener : _listeners) {
+            try {
+                listener.onQueryExecuted(execution);
+            } catch (RuntimeException e) {
+                LOG.warn("Query metrics listener {} failed.", listener, e);
+            }
+        }
+    }
+
+    private boolean isSlow(final long nanos) {
+        return _slowQueryThreshold > 0 && nanos >= TimeUnit.MILLISECONDS.toNanos(_slowQueryThreshold);
+    }
+
+    private FingerprintStatistics getFingerprintStatistics(final QueryExecution execution) {
+        String key = execution.getWorkspace() + '|' + execution.getFingerprint();
+        FingerprintStatistics statistics = _statistics.get(key);
+        if (statistics == null && _statistics.size() < _maxFingerprints) {
+            statistics = _statistics.computeIfAbsent(key, k -> new FingerprintStatistics(execution.getFingerprint(), execution.getLanguage(), execution.getWorkspace()));
+        }
+        return statistics;
+    }
+
+    /**
+     * Count a tripped query guardrail and notify the listeners.
+     * @param guardrail the name of the guardrail, e.g. {@link de.ibmix.magkit.query.QueryGuardrails#MAX_READS}
+     * @param statement the statement of the truncated query
+     */
+    public void recordGuardrailTrip(final String guardrail, final String statement) {
+        _guardrailTrips.increment();
+        for (QueryMetricsListener listener : _listeners) {
+            try {
+                listener.onGuardrailTripped(guardrail, statement);
+            } catch (RuntimeException e) {
+                LOG.warn("Query metrics listener {} failed.", listener, e);
+            }
+        }
+    }
+
+    /**
+     * Register a listener notified about every recorded execution.
+     * @param listener the listener, null is ignored
+     */
+    public void addListener(final QueryMetricsListener listener) {
+        if (listener != null) {
+            _listeners.add(listener);
+        }
+    }
+
+    /**
+     * Remove a registered listener.
+     * @param listener the listener to remove
+     */
+    public void removeListener(final QueryMetricsListener listener) {
+        _listeners.remove(listener);
+    }
+
+    /**
+     * Get snapshots of the aggregated statistics, the most expensive fingerprints (by total time) first.
+     * @return non-null list of statistics
+     */
+    public List<FingerprintStatistics> getStatistics() {
+        List<FingerprintStatistics> snapshots = new ArrayList<>(_statistics.size());
+        for (FingerprintStatistics statistics : _statistics.values()) {
+            snapshots.add(statistics.snapshot());
+        }
+        snapshots.sort(Comparator.comparingLong(FingerprintStatistics::getTotalNanos).reversed());
+        return snapshots;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return _enabled;
+    }
+
+    @Override
+    public void setEnabled(final boolean enabled) {
+        _enabled = enabled;
+    }
+
+    @Override
+    public long getSlowQueryThresholdMillis() {
+        return _slowQueryThreshold;
+    }
+
+    @Override
+    public void setSlowQueryThresholdMillis(final long thresholdMillis) {
+        _slowQueryThreshold = Math.max(thresholdMillis, 0);
+    }
+
+    @Override
+    public long getExecutionCount() {
+        return _executions.sum();
+    }
+
+    @Override
+    public long getSlowExecutionCount() {
+        return _slowExecutions.sum();
+    }
+
+    @Override
+    public long getGuardrailTripCount() {
+        return _guardrailTrips.sum();
+    }
+
+    @Override
+    public int getFingerprintCount() {
+        return _statistics.size();
+    }
+
+    @Override
+    public String[] getTopFingerprints() {
+        return getStatistics().stream().limit(TOP_FINGERPRINTS).map(FingerprintStatistics::toString).toArray(String[]::new);
+    }
+
+    @Override
+    public void reset() {
+        _statistics.clear();
+        _executions.reset();
+        _slowExecutions.reset();
+        _guardrailTrips.reset();
+    }
+
+    /**
+     * Create the fingerprint of a statement by replacing all string and numeric literals with {@code ?} and collapsing
+     * whitespace, so that executions differing only by values are grouped together.
+     * @param statement SQL2 or XPath statement, may be null
+     * @return the fingerprint, empty for null
+     */
+    public static String fingerprint(final String statement) {
+        String result = EMPTY;
+        if (statement != null) {
+            int length = statement.length();
+            StringBuilder fingerprint = new StringBuilder(length);
+            int i = 0;
+            while (i < length) {
+                char c = statement.charAt(i);
+                if (c == '\'' || c == '"') {
+                    i = skipLiteral(statement, i, c);
+                    fingerprint.append('?');
+                } else if (Character.isDigit(c) && !isNamePart(fingerprint)) {
+                    while (i < length && (Character.isDigit(statement.charAt(i)) || statement.charAt(i) == '.')) {
+                        i++;
+                    }
+                    fingerprint.append('?');
+                } else if (Character.isWhitespace(c)) {
+                    if (fingerprint.length() > 0 && fingerprint.charAt(fingerprint.length() - 1) != ' ') {
+                        fingerprint.append(' ');
+                    }
+                    i++;
+                } else {
+                    fingerprint.append(c);
+                    i++;
+                }
+            }
+            result = fingerprint.toString().trim();
+        }
+        return result;
+    }
+
+    private static int skipLiteral(final String statement, final int start, final char quote) {
+        int length = statement.length();
+        int i = start + 1;
+        boolean closed = false;
+        while (!closed && i < length) {
+            if (statement.charAt(i) != quote) {
+                i++;
+            } else if (i + 1 < length && statement.charAt(i + 1) == quote) {
+                // escaped quote
+                i += 2;
+            } else {
+                closed = true;
+                i++;
+            }
+        }
+        return i;
+    }
+
+    private static boolean isNamePart(final StringBuilder fingerprint) {
+        boolean namePart = false;
+        if (fingerprint.length() > 0) {
+            char previous = fingerprint.charAt(fingerprint.length() - 1);
+            namePart = Character.isLetterOrDigit(previous) || previous == '_' || previous == '$' || previous == ':';
+        }
+        return namePart;
+    }
+
+    private static void registerMBean(final QueryStatistics statistics) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                // replace the instance of a previous deployment
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(statistics, name);
+        } catch (JMException | RuntimeException e) {
+            LOG.warn("Could not register query statistics MBean {}.", OBJECT_NAME, e);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package de.ibmix.magkit.query.monitor;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * JMX management interface of the {@link QueryStatistics}.
+ * <p>Registered as {@value QueryStatistics#OBJECT_NAME} in the platform MBean server.</p>
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public interface QueryStatisticsMBean {
+
+    /**
+     * Check whether query executions are recorded.
+     * @return true if instrumentation is enabled
+     */
+    boolean isEnabled();
+
+    /**
+     * Enable or disable the recording of query executions.
+     * @param enabled false to disable instrumentation
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * Get the threshold for logging slow queries.
+     * @return threshold in milliseconds, 0 if the slow query log is disabled
+     */
+    long getSlowQueryThresholdMillis();
+
+    /**
+     * Set the threshold for logging slow queries.
+     * @param thresholdMillis threshold in milliseconds, 0 or less disables the slow query log
+     */
+    void setSlowQueryThresholdMillis(long thresholdMillis);
+
+    /**
+     * Get the number of recorded executions since the last reset.
+     * @return execution count
+     */
+    long getExecutionCount();
+
+    /**
+     * Get the number of slow executions since the last reset.
+     * @return slow execution count
+     */
+    long getSlowExecutionCount();
+
+    /**
+     * Get the number of tripped query guardrails since the last reset.
+     * @return guardrail trip count
+     */
+    long getGuardrailTripCount();
+
+    /**
+     * Get the number of distinct statement fingerprints.
+     * @return fingerprint count
+     */
+    int getFingerprintCount();
+
+    /**
+     * Get a summary of the fingerprints with the highest total time.
+     * @return one line per fingerprint, most expensive first
+     */
+    String[] getTopFingerprints();
+
+    /**
+     * Clear all aggregated statistics.
+     */
+    void reset();
+}
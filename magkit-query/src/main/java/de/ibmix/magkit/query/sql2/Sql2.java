@@ -20,6 +20,7 @@ package de.ibmix.magkit.query.sql2;
  * #L%
  */
 
+import de.ibmix.magkit.query.DateUtils;
 import de.ibmix.magkit.query.sql2.condition.Sql2CalendarCondition;
 import de.ibmix.magkit.query.sql2.condition.Sql2CompareNot;
 import de.ibmix.magkit.query.sql2.condition.Sql2ConstraintGroup;
@@ -38,14 +39,18 @@ import de.ibmix.magkit.query.sql2.query.NodesQueryBuilder;
 import de.ibmix.magkit.query.sql2.query.QueryNodesStatement;
 import de.ibmix.magkit.query.sql2.query.QueryRowsStatement;
 import de.ibmix.magkit.query.sql2.query.RowsQueryBuilder;
+import de.ibmix.magkit.query.sql2.query.Sql2IdentifierLookup;
 import de.ibmix.magkit.query.sql2.query.Sql2QueryBuilder;
 import de.ibmix.magkit.query.sql2.statement.Sql2As;
+import de.ibmix.magkit.query.sql2.statement.Sql2Builder;
 import de.ibmix.magkit.query.sql2.statement.Sql2From;
+import de.ibmix.magkit.query.sql2.statement.Sql2ImmutableStatement;
 import de.ibmix.magkit.query.sql2.statement.Sql2Statement;
 import info.magnolia.jcr.util.NodeTypes;
 import org.apache.commons.lang3.ArrayUtils;
 
 import javax.jcr.Node;
+import java.time.temporal.TemporalAccessor;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.List;
@@ -118,16 +123,16 @@ public final class Sql2 {
 
         /**
          * Query nodes by JCR identifiers in the given workspace.
-         * Returns an empty list if no identifiers are provided.
+         * Returns an empty list if no identifiers are provided. Large numbers of identifiers are queried in chunks of
+         * {@value Sql2IdentifierLookup#DEFAULT_CHUNK_SIZE}, duplicates are removed and the result follows the order of
+         * the identifiers. Use {@link Sql2IdentifierLookup} for other chunk sizes, parallel execution or direct resolution.
          *
          * @param workspace the JCR workspace name
          * @param ids one or more JCR identifiers
          * @return list of matching nodes or empty list if ids is null/empty
          */
         public static List<Node> nodesByIdentifiers(final String workspace, final String... ids) {
-            return ArrayUtils.isNotEmpty(ids) ? nodesFrom(workspace).withStatement(
-                Statement.select().whereAny(Condition.String.identifierEquals(ids))
-            ).getResultNodes() : Collections.emptyList();
+            return Sql2IdentifierLookup.inWorkspace(workspace).getResultNodes(ids);
         }
 
         /**
@@ -277,6 +282,16 @@ public final class Sql2 {
             return Sql2Statement.select(attributes).from(NodeTypes.Component.NAME);
         }
 
+        /**
+         * Convert a statement into an immutable, thread-safe statement that can be shared as constant.
+         *
+         * @param statement the statement builder
+         * @return immutable statement with cached SQL2
+         */
+        public static Sql2ImmutableStatement immutable(Sql2Builder statement) {
+            return Sql2ImmutableStatement.of(statement);
+        }
+
         /**
          * Private constructor to prevent instantiation.
          */
@@ -393,6 +408,18 @@ public final class Sql2 {
                 return created().lowerThan().value(date);
             }
 
+            /**
+             * Same as {@link #createdBefore(Calendar)} for {@code java.time} values like {@link java.time.Instant},
+             * {@link java.time.ZonedDateTime} or {@link java.time.LocalDate} (start of day in the default time zone).
+             *
+             * @param date upper exclusive bound
+             * @return join constraint
+             * @see DateUtils#toCalendar(TemporalAccessor)
+             */
+            public static Sql2JoinConstraint createdBeforeTemporal(final TemporalAccessor date) {
+                return createdBefore(DateUtils.toCalendar(date));
+            }
+
             /**
              * Constraint for created after specified date.
              *
@@ -403,6 +430,18 @@ public final class Sql2 {
                 return created().greaterThan().value(date);
             }
 
+            /**
+             * Same as {@link #createdAfter(Calendar)} for {@code java.time} values like {@link java.time.Instant},
+             * {@link java.time.ZonedDateTime} or {@link java.time.LocalDate} (start of day in the default time zone).
+             *
+             * @param date lower exclusive bound
+             * @return join constraint
+             * @see DateUtils#toCalendar(TemporalAccessor)
+             */
+            public static Sql2JoinConstraint createdAfterTemporal(final TemporalAccessor date) {
+                return createdAfter(DateUtils.toCalendar(date));
+            }
+
             /**
              * Operand for last activation date.
              *
@@ -422,6 +461,18 @@ public final class Sql2 {
                 return lastActivated().lowerThan().value(date);
             }
 
+            /**
+             * Same as {@link #lastActivatedBefore(Calendar)} for {@code java.time} values like {@link java.time.Instant},
+             * {@link java.time.ZonedDateTime} or {@link java.time.LocalDate} (start of day in the default time zone).
+             *
+             * @param date upper exclusive bound
+             * @return join constraint
+             * @see DateUtils#toCalendar(TemporalAccessor)
+             */
+            public static Sql2JoinConstraint lastActivatedBeforeTemporal(final TemporalAccessor date) {
+                return lastActivatedBefore(DateUtils.toCalendar(date));
+            }
+
             /**
              * Constraint for last activation after specified date.
              *
@@ -432,6 +483,18 @@ public final class Sql2 {
                 return lastActivated().greaterThan().value(date);
             }
 
+            /**
+             * Same as {@link #lastActivatedAfter(Calendar)} for {@code java.time} values like {@link java.time.Instant},
+             * {@link java.time.ZonedDateTime} or {@link java.time.LocalDate} (start of day in the default time zone).
+             *
+             * @param date lower exclusive bound
+             * @return join constraint
+             * @see DateUtils#toCalendar(TemporalAccessor)
+             */
+            public static Sql2JoinConstraint lastActivatedAfterTemporal(final TemporalAccessor date) {
+                return lastActivatedAfter(DateUtils.toCalendar(date));
+            }
+
             /**
              * Operand for last modified date.
              *
@@ -451,6 +514,18 @@ public final class Sql2 {
                 return lastModified().lowerThan().value(date);
             }
 
+            /**
+             * Same as {@link #lastModifiedBefore(Calendar)} for {@code java.time} values like {@link java.time.Instant},
+             * {@link java.time.ZonedDateTime} or {@link java.time.LocalDate} (start of day in the default time zone).
+             *
+             * @param date upper exclusive bound
+             * @return join constraint
+             * @see DateUtils#toCalendar(TemporalAccessor)
+             */
+            public static Sql2JoinConstraint lastModifiedBeforeTemporal(final TemporalAccessor date) {
+                return lastModifiedBefore(DateUtils.toCalendar(date));
+            }
+
             /**
              * Constraint for last modified after specified date.
              *
@@ -461,6 +536,18 @@ public final class Sql2 {
                 return lastModified().greaterThan().value(date);
             }
 
+            /**
+             * Same as {@link #lastModifiedAfter(Calendar)} for {@code java.time} values like {@link java.time.Instant},
+             * {@link java.time.ZonedDateTime} or {@link java.time.LocalDate} (start of day in the default time zone).
+             *
+             * @param date lower exclusive bound
+             * @return join constraint
+             * @see DateUtils#toCalendar(TemporalAccessor)
+             */
+            public static Sql2JoinConstraint lastModifiedAfterTemporal(final TemporalAccessor date) {
+                return lastModifiedAfter(DateUtils.toCalendar(date));
+            }
+
             /**
              * Operand for deleted date (soft-deletion metadata).
              *
@@ -480,6 +567,18 @@ public final class Sql2 {
                 return deleted().lowerThan().value(date);
             }
 
+            /**
+             * Same as {@link #deletedBefore(Calendar)} for {@code java.time} values like {@link java.time.Instant},
+             * {@link java.time.ZonedDateTime} or {@link java.time.LocalDate} (start of day in the default time zone).
+             *
+             * @param date upper exclusive bound
+             * @return join constraint
+             * @see DateUtils#toCalendar(TemporalAccessor)
+             */
+            public static Sql2JoinConstraint deletedBeforeTemporal(final TemporalAccessor date) {
+                return deletedBefore(DateUtils.toCalendar(date));
+            }
+
             /**
              * Constraint for deleted after specified date.
              *
@@ -490,6 +589,18 @@ public final class Sql2 {
                 return deleted().greaterThan().value(date);
             }
 
+            /**
+             * Same as {@link #deletedAfter(Calendar)} for {@code java.time} values like {@link java.time.Instant},
+             * {@link java.time.ZonedDateTime} or {@link java.time.LocalDate} (start of day in the default time zone).
+             *
+             * @param date lower exclusive bound
+             * @return join constraint
+             * @see DateUtils#toCalendar(TemporalAccessor)
+             */
+            public static Sql2JoinConstraint deletedAfterTemporal(final TemporalAccessor date) {
+                return deletedAfter(DateUtils.toCalendar(date));
+            }
+
             /**
              * Private constructor to prevent instantiation.
              */
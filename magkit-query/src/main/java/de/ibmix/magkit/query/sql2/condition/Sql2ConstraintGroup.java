@@ -20,8 +20,16 @@ package de.ibmix.magkit.query.sql2.condition;
  * #L%
  */
 
+import de.ibmix.magkit.query.sql2.statement.Sql2BindValues;
 import de.ibmix.magkit.query.sql2.statement.Sql2SelectorNames;
 
+import javax.jcr.Node;
+import javax.jcr.Value;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
 import static org.apache.commons.lang3.StringUtils.EMPTY;
 
 /**
@@ -33,8 +41,10 @@ import static org.apache.commons.lang3.StringUtils.EMPTY;
  * <ul>
  *   <li>AND / OR logical grouping via {@link #and()} / {@link #or()}</li>
  *   <li>Optional NOT wrapper via {@link #not()}</li>
- *   <li>Transparent propagation of join selector usage via {@link #forJoin()}</li>
+ *   <li>Transparent propagation of join selector usage via {@link #forJoin()}, without changing the children</li>
  *   <li>Skips empty constraints to keep output clean</li>
+ *   <li>In-memory evaluation of all children via {@link #asPredicate()}</li>
+ *   <li>Optimized copies without empty, nested or redundant constraints via {@link #optimize()}</li>
  * </ul>
  * <p>
  * Usage example:
@@ -84,12 +94,18 @@ public final class Sql2ConstraintGroup implements Sql2JoinConstraint {
     }
 
     /**
-     * Indicates whether at least one child constraint reference was supplied (not considering individual emptiness).
-     * @return true if group may render output, false otherwise
+     * Indicates whether at least one child constraint is not empty.
+     * @return true if group renders output, false otherwise
      */
     @Override
     public boolean isNotEmpty() {
-        return _hasConstraints;
+        boolean result = false;
+        if (_hasConstraints) {
+            for (int i = 0; !result && i < _constraints.length; i++) {
+                result = _constraints[i] != null && _constraints[i].isNotEmpty();
+            }
+        }
+        return result;
     }
 
     /**
@@ -110,7 +126,6 @@ public final class Sql2ConstraintGroup implements Sql2JoinConstraint {
      */
     public Sql2ConstraintGroup matches(final Sql2JoinConstraint... conditions) {
         _constraints = conditions;
-        // TODO: If all conditions are empty, _hasConstraints should be false.
         _hasConstraints = conditions != null && conditions.length > 0;
         return this;
     }
@@ -132,7 +147,7 @@ public final class Sql2ConstraintGroup implements Sql2JoinConstraint {
      */
     @Override
     public void appendTo(final StringBuilder sql2, final Sql2SelectorNames selectorNames) {
-        if (_hasConstraints) {
+        if (isNotEmpty()) {
             if (_not) {
                 sql2.append("not(");
             } else if (_constraints.length > 1) {
@@ -145,17 +160,126 @@ public final class Sql2ConstraintGroup implements Sql2JoinConstraint {
         }
     }
 
+    /**
+     * Compile the group into a predicate combining the predicates of the non-empty child constraints.
+     * @return predicate on nodes, matching all nodes if the group is empty
+     * @throws UnsupportedOperationException if a child constraint cannot be evaluated in memory
+     */
+    @Override
+    public Predicate<Node> asPredicate() {
+        Predicate<Node> predicate = Sql2NodePredicates.ALWAYS;
+        if (_hasConstraints) {
+            List<Predicate<Node>> predicates = new ArrayList<>();
+            for (Sql2JoinConstraint c : _constraints) {
+                if (c != null && c.isNotEmpty()) {
+                    predicates.add(c.asPredicate());
+                }
+            }
+            predicate = Sql2NodePredicates.combine(predicates, _operator);
+            if (_not && !predicates.isEmpty()) {
+                predicate = predicate.negate();
+            }
+        }
+        return predicate;
+    }
+
+    /**
+     * Create an optimized copy of the group: empty constraints are removed, the children are optimized and nested
+     * groups with the same operator (or with a single child) are merged into this group. Path conditions covered by
+     * other path conditions are removed, e.g. {@code isdescendantnode('/a/b')} next to {@code isdescendantnode('/a')}
+     * in an OR group.
+     * @return the optimized group
+     */
+    @Override
+    public Sql2JoinConstraint optimize() {
+        List<Sql2JoinConstraint> children = new ArrayList<>();
+        if (_hasConstraints) {
+            for (Sql2JoinConstraint c : _constraints) {
+                if (c != null && c.isNotEmpty()) {
+                    addOptimized(children, c.optimize());
+                }
+            }
+        }
+        Sql2ConstraintGroup result = new Sql2ConstraintGroup(_operator);
+        result._not = _not;
+        result._forJoin = _forJoin;
+        return result.matches(Sql2PathCondition.removeRedundantPaths(children, SQL2_OP_AND.equals(_operator)).toArray(new Sql2JoinConstraint[0]));
+    }
+
+    private void addOptimized(final List<Sql2JoinConstraint> children, final Sql2JoinConstraint constraint) {
+        if (constraint.isNotEmpty()) {
+            if (constraint instanceof Sql2ConstraintGroup && ((Sql2ConstraintGroup) constraint).canMergeInto(this)) {
+                children.addAll(Arrays.asList(((Sql2ConstraintGroup) constraint)._constraints));
+            } else {
+                children.add(constraint);
+            }
+        }
+    }
+
+    private boolean canMergeInto(final Sql2ConstraintGroup parent) {
+        return !_not && (!_forJoin || parent._forJoin) && (_operator.equals(parent._operator) || _constraints.length == 1);
+    }
+
     private void appendConstraints(final StringBuilder sql2, final Sql2SelectorNames selectorNames) {
+        // render the children with the join selector instead of changing them, so that rendering has no side effects
+        Sql2SelectorNames childSelectorNames = _forJoin ? forJoin(selectorNames) : selectorNames;
         String operation = EMPTY;
         for (Sql2JoinConstraint c : _constraints) {
             if (c.isNotEmpty()) {
-                if (_forJoin) {
-                    c.forJoin();
-                }
                 sql2.append(operation);
-                c.appendTo(sql2, selectorNames);
+                c.appendTo(sql2, childSelectorNames);
                 operation = _operator;
             }
         }
     }
+
+    private static Sql2SelectorNames forJoin(final Sql2SelectorNames selectorNames) {
+        Sql2SelectorNames result = selectorNames;
+        if (selectorNames instanceof Sql2BindValues) {
+            result = new JoinBindValues(selectorNames);
+        } else if (selectorNames != null) {
+            result = new JoinSelectorNames(selectorNames);
+        }
+        return result;
+    }
+
+    /**
+     * Selector names using the join selector for both selectors.
+     */
+    private static class JoinSelectorNames implements Sql2SelectorNames {
+        private final Sql2SelectorNames _selectorNames;
+
+        JoinSelectorNames(final Sql2SelectorNames selectorNames) {
+            _selectorNames = selectorNames;
+        }
+
+        @Override
+        public String getFromSelectorName() {
+            return _selectorNames.getJoinSelectorName();
+        }
+
+        @Override
+        public String getJoinSelectorName() {
+            return _selectorNames.getJoinSelectorName();
+        }
+
+        Sql2SelectorNames getSelectorNames() {
+            return _selectorNames;
+        }
+    }
+
+    /**
+     * Join selector names passing generated literal bind variables on to the bindings of the statement.
+     */
+    private static final class JoinBindValues extends JoinSelectorNames implements Sql2BindValues {
+
+        JoinBindValues(final Sql2SelectorNames selectorNames) {
+            super(selectorNames);
+        }
+
+        @Override
+        public String addBindValue(final Value value) {
+            return ((Sql2BindValues) getSelectorNames()).addBindValue(value);
+        }
+    }
 }
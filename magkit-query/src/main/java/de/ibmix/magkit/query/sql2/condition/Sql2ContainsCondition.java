@@ -25,9 +25,13 @@ import de.ibmix.magkit.query.sql2.statement.Sql2SelectorNames;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 
+import javax.jcr.Node;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import static org.apache.commons.lang3.StringUtils.isEmpty;
@@ -61,6 +65,9 @@ import static org.apache.commons.lang3.StringUtils.isEmpty;
  *     .any(2, true, "world");
  * String fragment = c.asString("a", null);
  * }</pre>
+ * <p>
+ * In memory ({@link #asPredicate()}) the condition approximates the full text search of the repository without index.
+ * </p>
  * Thread-safety: Not thread safe.
  * Null handling: Null / empty term arrays are ignored.
  * Side effects: Builder is stateful; methods mutate internal term list.
@@ -71,6 +78,7 @@ import static org.apache.commons.lang3.StringUtils.isEmpty;
 public class Sql2ContainsCondition implements Sql2JoinConstraint {
 
     private static final String METHOD_NAME = "contains";
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
 
     private final String _property;
     private boolean _forJoin;
@@ -242,6 +250,36 @@ public class Sql2ContainsCondition implements Sql2JoinConstraint {
         }
     }
 
+    /**
+     * Compile the condition into a predicate approximating the full text search of the repository without index: the
+     * values of the property (of all properties except binaries for "*") are searched case-insensitive for the terms
+     * and phrases, {@code *} and {@code ?} are wildcards within a term. Terms joined by OR are alternatives, all other
+     * terms are required. Boost, fuzzy and proximity options are ignored and no linguistic analysis like stemming is
+     * applied, so the result may differ from a query using a full text index.
+     * @return predicate on nodes, matching all nodes if the condition has no terms
+     */
+    @Override
+    public Predicate<Node> asPredicate() {
+        Predicate<Node> predicate = Sql2NodePredicates.ALWAYS;
+        if (isNotEmpty()) {
+            Predicate<String> alternatives = null;
+            Predicate<String> required = null;
+            for (Term term : _terms) {
+                Predicate<String> termPredicate = term.asTextPredicate();
+                if (required != null && term.isOptional()) {
+                    alternatives = alternatives == null ? required : alternatives.or(required);
+                    required = termPredicate;
+                } else {
+                    required = required == null ? termPredicate : required.and(termPredicate);
+                }
+            }
+            final Predicate<String> text = alternatives == null ? required : alternatives.or(required);
+            final String property = StringUtils.removeEnd(StringUtils.removeStart(_property, "["), "]");
+            predicate = node -> text.test(Sql2NodePredicates.getText(node, property));
+        }
+        return predicate;
+    }
+
     /**
      * Indicates whether any terms were supplied and thus rendering would produce output.
      * @return true if at least one term exists, false otherwise
@@ -319,6 +357,29 @@ public class Sql2ContainsCondition implements Sql2JoinConstraint {
                 sql2.append('^').append(_boost);
             }
         }
+
+        @Override
+        public boolean isOptional() {
+            return _isOptional;
+        }
+
+        @Override
+        public Predicate<String> asTextPredicate() {
+            StringBuilder regex = new StringBuilder();
+            String term = _term.toLowerCase(Locale.ROOT);
+            int start = 0;
+            for (int i = 0; i < term.length(); i++) {
+                char c = term.charAt(i);
+                boolean isWildcard = c == '*' || (c == '?' && !(_escapeQuestionMark && i == term.length() - 1));
+                if (!_isPhrase && isWildcard) {
+                    regex.append(Pattern.quote(term.substring(start, i))).append(c == '*' ? "\\S*" : "\\S");
+                    start = i + 1;
+                }
+            }
+            regex.append(Pattern.quote(term.substring(start)));
+            final Pattern pattern = Pattern.compile(regex.toString());
+            return text -> pattern.matcher(text).find() != _isExclude;
+        }
     }
 
     private static class RangeTerm implements Term {
@@ -345,11 +406,37 @@ public class Sql2ContainsCondition implements Sql2JoinConstraint {
             appendEscaped(_to, sql2, false, false);
             sql2.append(_isInclusive ? ']' : '}');
         }
+
+        @Override
+        public boolean isOptional() {
+            return _isOptional;
+        }
+
+        @Override
+        public Predicate<String> asTextPredicate() {
+            final String from = _from == null ? null : _from.toLowerCase(Locale.ROOT);
+            final String to = _to == null ? null : _to.toLowerCase(Locale.ROOT);
+            return text -> Arrays.stream(WORD_SEPARATOR.split(text)).anyMatch(word -> isInRange(word, from, to));
+        }
+
+        private boolean isInRange(final String word, final String from, final String to) {
+            int lower = from == null ? 1 : word.compareTo(from);
+            int upper = to == null ? -1 : word.compareTo(to);
+            return !word.isEmpty() && (_isInclusive ? lower >= 0 && upper <= 0 : lower > 0 && upper < 0);
+        }
     }
 
     private interface Term {
         void appendTerm(StringBuilder sql2, boolean isFirst);
 
+        boolean isOptional();
+
+        /**
+         * Create the predicate of the term on the lower case text of the property values.
+         * @return predicate on the text
+         */
+        Predicate<String> asTextPredicate();
+
         default void appendEscaped(final String term, final StringBuilder sql2, final boolean isPhrase, final boolean escapeQuestionMark) {
             int last = term.length() - 1;
             // escape ' by ''
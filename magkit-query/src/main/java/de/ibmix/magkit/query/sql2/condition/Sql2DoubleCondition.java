@@ -20,6 +20,12 @@ package de.ibmix.magkit.query.sql2.condition;
  * #L%
  */
 
+import de.ibmix.magkit.query.sql2.statement.Sql2BindValues;
+import org.apache.jackrabbit.value.DoubleValue;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Value;
+
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 /**
@@ -52,12 +58,22 @@ public final class Sql2DoubleCondition extends Sql2PropertyCondition<Sql2DoubleC
     }
 
     @Override
-    protected void appendValueConstraint(StringBuilder sql2, final String selectorName, String name, Double value) {
+    int compareValue(final Value actual, final Double value) throws RepositoryException {
+        return Double.compare(actual.getDouble(), value);
+    }
+
+    @Override
+    protected void appendValueConstraint(StringBuilder sql2, final String selectorName, String name, Double value, final Sql2BindValues literalBindings) {
         if (value != null) {
             if (isNotBlank(selectorName)) {
                 sql2.append(selectorName).append('.');
             }
-            sql2.append('[').append(name).append(']').append(getCompareOperator()).append(value);
+            sql2.append('[').append(name).append(']').append(getCompareOperator());
+            if (literalBindings != null) {
+                appendLiteralBinding(sql2, literalBindings, new DoubleValue(value));
+            } else {
+                sql2.append(value);
+            }
         }
     }
 }
@@ -20,12 +20,43 @@ package de.ibmix.magkit.query.sql2.condition;
  * #L%
  */
 
+import javax.jcr.Node;
+import java.util.function.Predicate;
+
 /**
  * Base builder interface for all conditions allowing to select the selector used for joins.
+ * <p>Conditions can also be evaluated in memory against already loaded nodes with {@link #asPredicate()}, so that one
+ * condition definition can either be pushed down into a SQL2 statement or filter a small node list without a
+ * repository query.</p>
  *
  * @author wolf.bubenik@ibmix.de
  * @since 2020-06-18
  */
 public interface Sql2JoinConstraint extends Sql2Constraint {
     Sql2JoinConstraint forJoin();
+
+    /**
+     * Compile the constraint into a predicate evaluating it in memory against a node, following the JCR-SQL2
+     * comparison semantics. Empty constraints match all nodes. The selector is ignored, conditions marked with
+     * {@link #forJoin()} are evaluated against the given node as well.
+     * Create the predicate after the condition has been completely defined.
+     * All constraints of this library implement the method, the default only keeps custom constraints compatible.
+     *
+     * @return predicate matching the nodes that satisfy the constraint
+     * @throws UnsupportedOperationException if the constraint cannot be evaluated in memory, e.g. conditions with bind
+     * variables or custom constraints not implementing this method
+     */
+    default Predicate<Node> asPredicate() {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " cannot be evaluated in memory.");
+    }
+
+    /**
+     * Create an equivalent constraint that renders a smaller statement, e.g. without empty or nested groups and
+     * without duplicate values. Used by the statement builder before rendering. This constraint is not changed.
+     *
+     * @return the optimized constraint, this constraint if it cannot be optimized
+     */
+    default Sql2JoinConstraint optimize() {
+        return this;
+    }
 }
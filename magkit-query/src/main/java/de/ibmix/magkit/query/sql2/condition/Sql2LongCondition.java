@@ -20,6 +20,12 @@ package de.ibmix.magkit.query.sql2.condition;
  * #L%
  */
 
+import de.ibmix.magkit.query.sql2.statement.Sql2BindValues;
+import org.apache.jackrabbit.value.LongValue;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Value;
+
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 /**
@@ -58,12 +64,22 @@ public final class Sql2LongCondition extends Sql2PropertyCondition<Sql2LongCondi
     }
 
     @Override
-    protected void appendValueConstraint(StringBuilder sql2, final String selectorName, String name, Long value) {
+    int compareValue(final Value actual, final Long value) throws RepositoryException {
+        return Long.compare(actual.getLong(), value);
+    }
+
+    @Override
+    protected void appendValueConstraint(StringBuilder sql2, final String selectorName, String name, Long value, final Sql2BindValues literalBindings) {
         if (value != null) {
             if (isNotBlank(selectorName)) {
                 sql2.append(selectorName).append('.');
             }
-            sql2.append('[').append(name).append(']').append(getCompareOperator()).append(value);
+            sql2.append('[').append(name).append(']').append(getCompareOperator());
+            if (literalBindings != null) {
+                appendLiteralBinding(sql2, literalBindings, new LongValue(value));
+            } else {
+                sql2.append(value);
+            }
         }
     }
 }
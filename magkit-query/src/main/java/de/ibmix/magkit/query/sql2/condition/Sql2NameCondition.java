@@ -23,6 +23,12 @@ package de.ibmix.magkit.query.sql2.condition;
 import de.ibmix.magkit.query.sql2.statement.Sql2SelectorNames;
 import org.apache.commons.lang3.StringUtils;
 
+import javax.jcr.Node;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+
 import static org.apache.commons.lang3.StringUtils.EMPTY;
 
 /**
@@ -46,7 +52,7 @@ import static org.apache.commons.lang3.StringUtils.EMPTY;
  * @author wolf.bubenik@ibmix.de
  * @since 2020-11-11
  */
-public class Sql2NameCondition implements Sql2NameOperand, Sql2NameCompare, Sql2NameOperandSingle, Sql2NameOperandMultiple, Sql2JoinConstraint {
+public class Sql2NameCondition implements Sql2NameOperand, Sql2NameCompare, Sql2NameOperandSingle, Sql2NameOperandMultiple, Sql2JoinConstraint, Cloneable {
 
     public static final String METHOD_NAME = "name";
 
@@ -209,6 +215,62 @@ public class Sql2NameCondition implements Sql2NameOperand, Sql2NameCompare, Sql2
         }
     }
 
+    /**
+     * Compile the condition into a predicate on the node name, applying the case transformation to the node name.
+     * @return predicate on nodes, matching all nodes if the condition is empty
+     */
+    @Override
+    public Predicate<Node> asPredicate() {
+        Predicate<Node> predicate = Sql2NodePredicates.ALWAYS;
+        if (isNotEmpty()) {
+            List<Predicate<Node>> predicates = new ArrayList<>();
+            for (int i = 0; i < (_isMultiValue ? _values.length : 1); i++) {
+                final String value = _values[i];
+                if (StringUtils.isNotEmpty(value)) {
+                    predicates.add(node -> matchesName(Sql2NodePredicates.getName(node), value));
+                }
+            }
+            predicate = Sql2NodePredicates.combine(predicates, _joinOperator);
+        }
+        return predicate;
+    }
+
+    /**
+     * Create a copy of the condition without duplicate and null values.
+     * @return the copy without duplicate values or this condition if there are none
+     */
+    @Override
+    public Sql2JoinConstraint optimize() {
+        Sql2JoinConstraint result = this;
+        if (_isMultiValue) {
+            String[] values = Sql2PropertyCondition.distinct(_values);
+            if (values.length < _values.length) {
+                try {
+                    Sql2NameCondition copy = (Sql2NameCondition) clone();
+                    copy.withValues(values);
+                    result = copy;
+                } catch (CloneNotSupportedException e) {
+                    throw new IllegalStateException("Cannot copy name condition", e);
+                }
+            }
+        }
+        return result;
+    }
+
+    private boolean matchesName(final String name, final String value) {
+        boolean result = false;
+        if (name != null) {
+            String actual = name;
+            if (Sql2StringCondition.METHOD_LOWER.equals(_operandMethod)) {
+                actual = name.toLowerCase(Locale.ROOT);
+            } else if (Sql2StringCondition.METHOD_UPPER.equals(_operandMethod)) {
+                actual = name.toUpperCase(Locale.ROOT);
+            }
+            result = Sql2NodePredicates.compare(_compareOperator, actual.compareTo(value));
+        }
+        return result;
+    }
+
     private void appendValues(final StringBuilder sql2, final String selectorName) {
         String operator = EMPTY;
         for (String value : _values) {
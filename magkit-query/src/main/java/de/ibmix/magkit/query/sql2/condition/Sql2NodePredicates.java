@@ -0,0 +1,225 @@
+package de.ibmix.magkit.query.sql2.condition;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.Node;
+import javax.jcr.Property;
+import javax.jcr.PropertyIterator;
+import javax.jcr.PropertyType;
+import javax.jcr.RepositoryException;
+import javax.jcr.Value;
+import javax.jcr.ValueFormatException;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+
+/**
+ * Helpers for the in-memory evaluation of constraints with {@link Sql2JoinConstraint#asPredicate()}.
+ * <p>Property values are compared following the JCR-SQL2 semantics: missing properties never match, a multi value
+ * property matches if any of its values matches and values that cannot be converted into the type of the condition
+ * do not match. Repository exceptions are logged at DEBUG level and evaluate to false.</p>
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+final class Sql2NodePredicates {
+    private static final Logger LOG = LoggerFactory.getLogger(Sql2NodePredicates.class);
+
+    /**
+     * Predicate of empty constraints, which are ignored in SQL2 statements as well.
+     */
+    static final Predicate<Node> ALWAYS = node -> true;
+
+    private Sql2NodePredicates() {
+    }
+
+    /**
+     * Matcher of a single property value.
+     */
+    @FunctionalInterface
+    interface ValueMatcher {
+        boolean matches(Value value) throws RepositoryException;
+    }
+
+    /**
+     * Check whether any value of the node property matches.
+     * @param node the node, null never matches
+     * @param name the property name
+     * @param matcher the value matcher
+     * @return true if the property exists and one of its values matches
+     */
+    static boolean anyPropertyValue(final Node node, final String name, final ValueMatcher matcher) {
+        boolean result = false;
+        try {
+            if (node != null && node.hasProperty(name)) {
+                Property property = node.getProperty(name);
+                Value[] values = property.isMultiple() ? property.getValues() : new Value[]{property.getValue()};
+                for (int i = 0; !result && i < values.length; i++) {
+                    result = matchesValue(values[i], matcher);
+                }
+            }
+        } catch (RepositoryException e) {
+            LOG.debug("Could not read property {} for in-memory evaluation.", name, e);
+        }
+        return result;
+    }
+
+    private static boolean matchesValue(final Value value, final ValueMatcher matcher) throws RepositoryException {
+        boolean result = false;
+        try {
+            result = matcher.matches(value);
+        } catch (ValueFormatException e) {
+            LOG.debug("Value cannot be converted for in-memory evaluation.", e);
+        }
+        return result;
+    }
+
+    /**
+     * Check whether the node has the property.
+     * @param node the node, null has no properties
+     * @param name the property name
+     * @return true if the property exists
+     */
+    static boolean hasProperty(final Node node, final String name) {
+        boolean result = false;
+        try {
+            result = node != null && node.hasProperty(name);
+        } catch (RepositoryException e) {
+            LOG.debug("Could not check property {} for in-memory evaluation.", name, e);
+        }
+        return result;
+    }
+
+    /**
+     * Get the text of the property values for the in-memory evaluation of full text conditions.
+     * @param node the node, null has no text
+     * @param name the property name or {@code *} for the values of all properties except binaries
+     * @return the lower case values separated by blanks, empty if there are none or they cannot be read
+     */
+    static String getText(final Node node, final String name) {
+        StringBuilder text = new StringBuilder();
+        try {
+            if (node != null && "*".equals(name)) {
+                PropertyIterator properties = node.getProperties();
+                while (properties.hasNext()) {
+                    appendText(text, properties.nextProperty());
+                }
+            } else if (node != null && node.hasProperty(name)) {
+                appendText(text, node.getProperty(name));
+            }
+        } catch (RepositoryException e) {
+            LOG.debug("Could not read text of property {} for in-memory evaluation.", name, e);
+        }
+        return text.toString().toLowerCase(Locale.ROOT);
+    }
+
+    private static void appendText(final StringBuilder text, final Property property) throws RepositoryException {
+        if (property.getType() != PropertyType.BINARY) {
+            Value[] values = property.isMultiple() ? property.getValues() : new Value[]{property.getValue()};
+            for (Value value : values) {
+                text.append(value.getString()).append(' ');
+            }
+        }
+    }
+
+    /**
+     * Get the node name as returned by the SQL2 function {@code name()}.
+     * @param node the node
+     * @return the qualified node name or null if it cannot be read
+     */
+    static String getName(final Node node) {
+        String name = null;
+        try {
+            name = node == null ? null : node.getName();
+        } catch (RepositoryException e) {
+            LOG.debug("Could not read node name for in-memory evaluation.", e);
+        }
+        return name;
+    }
+
+    /**
+     * Get the node path.
+     * @param node the node
+     * @return the node path or null if it cannot be read
+     */
+    static String getPath(final Node node) {
+        String path = null;
+        try {
+            path = node == null ? null : node.getPath();
+        } catch (RepositoryException e) {
+            LOG.debug("Could not read node path for in-memory evaluation.", e);
+        }
+        return path;
+    }
+
+    /**
+     * Evaluate the SQL2 comparison operator for the result of a comparison.
+     * @param operator one of the comparison operators of {@link Sql2PropertyCondition}
+     * @param comparison the comparison result of the actual with the expected value
+     * @return true if the comparison satisfies the operator
+     */
+    static boolean compare(final String operator, final int comparison) {
+        boolean result;
+        switch (operator) {
+            case Sql2PropertyCondition.SQL2_OP_EQUALS:
+                result = comparison == 0;
+                break;
+            case Sql2PropertyCondition.SQL2_OP_NOT_EQUALS:
+                result = comparison != 0;
+                break;
+            case Sql2PropertyCondition.SQL2_OP_LOWER:
+                result = comparison < 0;
+                break;
+            case Sql2PropertyCondition.SQL2_OP_LOWER_EQUAL:
+                result = comparison <= 0;
+                break;
+            case Sql2PropertyCondition.SQL2_OP_GREATER_EQUAL:
+                result = comparison >= 0;
+                break;
+            case Sql2PropertyCondition.SQL2_OP_GREATER:
+                result = comparison > 0;
+                break;
+            default:
+                throw new IllegalStateException("Unsupported comparison operator " + operator);
+        }
+        return result;
+    }
+
+    /**
+     * Combine the predicates with the SQL2 operator.
+     * @param predicates the predicates, an empty list results in a predicate matching all nodes
+     * @param operator {@link Sql2Constraint#SQL2_OP_AND} or {@link Sql2Constraint#SQL2_OP_OR}
+     * @return the combined predicate
+     */
+    static Predicate<Node> combine(final List<Predicate<Node>> predicates, final String operator) {
+        Predicate<Node> result = ALWAYS;
+        if (!predicates.isEmpty()) {
+            result = predicates.get(0);
+            for (int i = 1; i < predicates.size(); i++) {
+                result = Sql2Constraint.SQL2_OP_AND.equals(operator) ? result.and(predicates.get(i)) : result.or(predicates.get(i));
+            }
+        }
+        return result;
+    }
+}
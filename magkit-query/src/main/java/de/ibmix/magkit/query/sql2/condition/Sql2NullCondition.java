@@ -22,6 +22,9 @@ package de.ibmix.magkit.query.sql2.condition;
 
 import de.ibmix.magkit.query.sql2.statement.Sql2SelectorNames;
 
+import javax.jcr.Node;
+import java.util.function.Predicate;
+
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 /**
@@ -94,6 +97,20 @@ public final class Sql2NullCondition implements Sql2JoinConstraint {
         }
     }
 
+    /**
+     * Compile the condition into a predicate checking the existence of the property.
+     * @return predicate on nodes, matching all nodes if the condition is empty
+     */
+    @Override
+    public Predicate<Node> asPredicate() {
+        Predicate<Node> predicate = Sql2NodePredicates.ALWAYS;
+        if (isNotEmpty()) {
+            final String name = _name;
+            predicate = node -> Sql2NodePredicates.hasProperty(node, name) == _isNot;
+        }
+        return predicate;
+    }
+
     /**
      * Switch to using the join selector name during rendering.
      * @return this for fluent chaining
@@ -23,6 +23,9 @@ package de.ibmix.magkit.query.sql2.condition;
 import de.ibmix.magkit.query.sql2.statement.Sql2SelectorNames;
 
 import javax.jcr.Node;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
 
 import static info.magnolia.jcr.util.NodeUtil.getPathIfPossible;
 import static org.apache.commons.lang3.StringUtils.EMPTY;
@@ -39,6 +42,7 @@ import static org.apache.commons.lang3.StringUtils.trim;
  *   <li>Same node, child node, descendant node checks</li>
  *   <li>Negation support wrapping the function call in {@code not(...)}</li>
  *   <li>Join selector awareness via {@link #forJoin()}</li>
+ *   <li>Removal of nested search roots via {@link #removeNestedPaths(String...)}</li>
  * </ul>
  * Thread-safety: Not thread safe.
  * Null handling: Null / blank paths result in an empty condition (ignored when rendering).
@@ -174,6 +178,124 @@ public final class Sql2PathCondition implements Sql2JoinConstraint {
         }
     }
 
+    /**
+     * Compile the condition into a predicate comparing the node path with the configured path.
+     * @return predicate on nodes, matching all nodes if the condition is empty
+     */
+    @Override
+    public Predicate<Node> asPredicate() {
+        Predicate<Node> predicate = Sql2NodePredicates.ALWAYS;
+        if (isNotEmpty()) {
+            final String path = normalize(_path);
+            final String method = _method;
+            predicate = node -> matchesPath(Sql2NodePredicates.getPath(node), method, path);
+            if (_not) {
+                predicate = predicate.negate();
+            }
+        }
+        return predicate;
+    }
+
+    private static boolean matchesPath(final String nodePath, final String method, final String path) {
+        boolean result = false;
+        if (nodePath != null) {
+            switch (method) {
+                case SQL2_METHOD_SAME:
+                    result = nodePath.equals(path);
+                    break;
+                case SQL2_METHOD_CHILD:
+                    result = isDescendant(nodePath, path) && nodePath.indexOf('/', path.length() + 1) < 0;
+                    break;
+                default:
+                    result = isDescendant(nodePath, path);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Remove duplicate paths and paths below other paths, e.g. of search roots for descendant nodes.
+     * @param paths the paths, null or blank paths are removed
+     * @return the remaining paths in their original order
+     */
+    public static String[] removeNestedPaths(final String... paths) {
+        List<String> result = new ArrayList<>();
+        if (paths != null) {
+            for (String path : paths) {
+                if (isNotBlank(path)) {
+                    result.add(path);
+                }
+            }
+            for (int i = 0; i < result.size(); i++) {
+                String path = normalize(result.get(i));
+                boolean nested = false;
+                for (int j = 0; !nested && j < result.size(); j++) {
+                    String other = normalize(result.get(j));
+                    nested = i != j && (isDescendant(path, other) || path.equals(other) && j < i);
+                }
+                if (nested) {
+                    result.remove(i--);
+                }
+            }
+        }
+        return result.toArray(new String[0]);
+    }
+
+    /**
+     * Remove path conditions made redundant by other path conditions of the same group: in OR groups conditions
+     * matching only descendants of another descendant condition, in AND groups descendant conditions including
+     * the nodes of another path condition.
+     * @param constraints the constraints of the group
+     * @param and true for an AND group, false for an OR group
+     * @return the remaining constraints in their original order
+     */
+    static List<Sql2JoinConstraint> removeRedundantPaths(final List<Sql2JoinConstraint> constraints, final boolean and) {
+        List<Sql2JoinConstraint> result = new ArrayList<>(constraints);
+        for (int i = 0; i < result.size(); i++) {
+            Sql2JoinConstraint candidate = result.get(i);
+            boolean redundant = false;
+            for (int j = 0; !redundant && j < result.size(); j++) {
+                Sql2JoinConstraint other = result.get(j);
+                redundant = i != j && (and ? covers(candidate, other) : covers(other, candidate));
+            }
+            if (redundant) {
+                result.remove(i--);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Check whether the first constraint is a descendant condition that matches all nodes of the second constraint.
+     */
+    private static boolean covers(final Sql2JoinConstraint root, final Sql2JoinConstraint constraint) {
+        boolean result = false;
+        if (isPlainPathCondition(root) && isPlainPathCondition(constraint)) {
+            Sql2PathCondition rootCondition = (Sql2PathCondition) root;
+            Sql2PathCondition pathCondition = (Sql2PathCondition) constraint;
+            if (SQL2_METHOD_DESCENDANT.equals(rootCondition._method) && rootCondition._forJoin == pathCondition._forJoin) {
+                String rootPath = normalize(rootCondition._path);
+                String path = normalize(pathCondition._path);
+                result = isDescendant(path, rootPath) || !SQL2_METHOD_SAME.equals(pathCondition._method) && path.equals(rootPath);
+            }
+        }
+        return result;
+    }
+
+    private static boolean isPlainPathCondition(final Sql2JoinConstraint constraint) {
+        return constraint instanceof Sql2PathCondition && constraint.isNotEmpty() && !((Sql2PathCondition) constraint)._not;
+    }
+
+    private static String normalize(final String path) {
+        String trimmed = trim(path);
+        return trimmed.charAt(0) == '/' ? trimmed : '/' + trimmed;
+    }
+
+    private static boolean isDescendant(final String nodePath, final String path) {
+        String prefix = path.endsWith("/") ? path : path + '/';
+        return nodePath.length() > prefix.length() && nodePath.startsWith(prefix);
+    }
+
     /**
      * Use the join selector name instead of the from selector when rendering.
      * @return this for fluent chaining
@@ -20,8 +20,19 @@ package de.ibmix.magkit.query.sql2.condition;
  * #L%
  */
 
+import de.ibmix.magkit.query.sql2.statement.Sql2BindValues;
 import de.ibmix.magkit.query.sql2.statement.Sql2SelectorNames;
 
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Value;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
 import static org.apache.commons.lang3.StringUtils.EMPTY;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import static org.apache.commons.lang3.StringUtils.trim;
@@ -37,6 +48,9 @@ import static org.apache.commons.lang3.StringUtils.trim;
  *   <li>AND/OR combination for equals/excludes via {@link #equalsAll()} / {@link #excludeAll()}</li>
  *   <li>Bind variable support ({@link #bindVariable(String)}) with automatic $ prefix insertion</li>
  *   <li>Selector aware output for joins via {@link #forJoin()}</li>
+ *   <li>Literals rendered as generated bind variables when the selector names are {@link Sql2BindValues}</li>
+ *   <li>In-memory evaluation against loaded nodes via {@link #asPredicate()}</li>
+ *   <li>Removal of duplicate values via {@link #optimize()}</li>
  * </ul>
  * Thread-safety: Not thread safe.
  * Null handling: Null property name or missing values produce an empty condition. Null values in an array
@@ -47,7 +61,7 @@ import static org.apache.commons.lang3.StringUtils.trim;
  * @author wolf.bubenik@ibmix.de
  * @since 2020-04-02
  **/
-public abstract class Sql2PropertyCondition<T extends Sql2PropertyCondition<T, V>, V> implements Sql2CompareNot<V>, Sql2StaticOperandSingle<V>, Sql2StaticOperandMultiple<V>, Sql2JoinConstraint {
+public abstract class Sql2PropertyCondition<T extends Sql2PropertyCondition<T, V>, V> implements Sql2CompareNot<V>, Sql2StaticOperandSingle<V>, Sql2StaticOperandMultiple<V>, Sql2JoinConstraint, Cloneable {
 
     public static final String METHOD_NOT = "not";
 
@@ -223,12 +237,13 @@ public abstract class Sql2PropertyCondition<T extends Sql2PropertyCondition<T, V
             }
 
             String selectorName = _forJoin ? selectorNames.getJoinSelectorName() : selectorNames.getFromSelectorName();
+            Sql2BindValues literalBindings = selectorNames instanceof Sql2BindValues ? (Sql2BindValues) selectorNames : null;
             if (_hasBindVariable) {
                 appendBindVariable(sql2, selectorName);
             } else if (_isMultiValue) {
-                appendValues(sql2, selectorName);
+                appendValues(sql2, selectorName, literalBindings);
             } else {
-                appendValueConstraint(sql2, selectorName, _name, _values[0]);
+                appendValueConstraint(sql2, selectorName, _name, _values[0], literalBindings);
             }
 
             if (_not || _isMultiValue) {
@@ -237,11 +252,99 @@ public abstract class Sql2PropertyCondition<T extends Sql2PropertyCondition<T, V
         }
     }
 
-    private void appendValues(final StringBuilder sql2, final String selectorName) {
+    /**
+     * Compile the condition into a predicate on the node property. Values are combined by OR or AND like in the
+     * rendered statement, a NOT negates the combined result. Values that are not rendered are ignored as well.
+     * @return predicate on nodes, matching all nodes if the condition is empty
+     * @throws UnsupportedOperationException if the condition uses a bind variable
+     */
+    @Override
+    public Predicate<Node> asPredicate() {
+        Predicate<Node> predicate = Sql2NodePredicates.ALWAYS;
+        if (isNotEmpty()) {
+            if (_hasBindVariable) {
+                throw new UnsupportedOperationException("Condition on " + _name + " with bind variable " + _bindVariableName + " cannot be evaluated in memory.");
+            }
+            List<Predicate<Node>> predicates = new ArrayList<>();
+            for (int i = 0; i < (_isMultiValue ? _values.length : 1); i++) {
+                final V value = _values[i];
+                if (isAddConstraint(value)) {
+                    predicates.add(node -> Sql2NodePredicates.anyPropertyValue(node, _name, actual -> matchesValue(actual, value)));
+                }
+            }
+            predicate = Sql2NodePredicates.combine(predicates, _joinOperator);
+            if (_not && !predicates.isEmpty()) {
+                predicate = predicate.negate();
+            }
+        }
+        return predicate;
+    }
+
+    /**
+     * Create a copy of the condition without duplicate and null values. Duplicate values never change the result,
+     * neither combined by OR nor by AND.
+     * @return the copy without duplicate values or this condition if there are none
+     */
+    @Override
+    public Sql2JoinConstraint optimize() {
+        Sql2JoinConstraint result = this;
+        if (!_hasBindVariable && _isMultiValue) {
+            V[] values = distinct(_values);
+            if (values.length < _values.length) {
+                T copy = copy();
+                copy.withValues(values);
+                result = copy;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Remove duplicate and null values.
+     * @param values the values
+     * @param <V> the value type
+     * @return array of the distinct values in their original order
+     */
+    static <V> V[] distinct(final V[] values) {
+        Set<V> distinct = new LinkedHashSet<>(Arrays.asList(values));
+        distinct.remove(null);
+        return distinct.toArray(Arrays.copyOf(values, 0));
+    }
+
+    @SuppressWarnings("unchecked")
+    private T copy() {
+        try {
+            return (T) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("Cannot copy condition on " + _name, e);
+        }
+    }
+
+    /**
+     * Check whether a literal value results in a constraint. Null values are never rendered.
+     * @param value the literal value
+     * @return true if the value is rendered and evaluated
+     */
+    boolean isAddConstraint(final V value) {
+        return value != null;
+    }
+
+    /**
+     * Check a single property value against the literal value of the condition.
+     * @param actual the property value
+     * @param value the literal value
+     * @return true if the value satisfies the comparison operator
+     * @throws RepositoryException if the value cannot be read or converted
+     */
+    boolean matchesValue(final Value actual, final V value) throws RepositoryException {
+        return Sql2NodePredicates.compare(getCompareOperator(), compareValue(actual, value));
+    }
+
+    private void appendValues(final StringBuilder sql2, final String selectorName, final Sql2BindValues literalBindings) {
         String operator = EMPTY;
         for (V value : _values) {
             sql2.append(operator);
-            appendValueConstraint(sql2, selectorName, _name, value);
+            appendValueConstraint(sql2, selectorName, _name, value, literalBindings);
             operator = _joinOperator;
         }
     }
@@ -264,6 +367,16 @@ public abstract class Sql2PropertyCondition<T extends Sql2PropertyCondition<T, V
         _isMultiValue = _hasValues && values.length > 1 && _values[1] != null;
     }
 
+    /**
+     * Register the literal value as generated bind variable and append the variable reference.
+     * @param sql2 buffer
+     * @param literalBindings the bindings collecting the generated bind variables
+     * @param value typed literal value
+     */
+    protected static void appendLiteralBinding(final StringBuilder sql2, final Sql2BindValues literalBindings, final Value value) {
+        sql2.append('$').append(literalBindings.addBindValue(value));
+    }
+
     void withOperator(final String joinOperator) {
         _joinOperator = joinOperator;
     }
@@ -280,10 +393,21 @@ public abstract class Sql2PropertyCondition<T extends Sql2PropertyCondition<T, V
 
     /**
      * Append a single literal value constraint (implemented by subclasses to adapt literal formatting).
+     * Implementations must not change the state of the condition, so that conditions can be rendered concurrently.
      * @param sql2 buffer
      * @param selectorName selector name or null
      * @param name property name
      * @param value literal value
+     * @param literalBindings bindings receiving the literal as generated bind variable, null to render the literal
+     */
+    abstract void appendValueConstraint(StringBuilder sql2, String selectorName, String name, V value, Sql2BindValues literalBindings);
+
+    /**
+     * Compare a property value with the literal value for the in-memory evaluation of {@link #asPredicate()}.
+     * @param actual the property value
+     * @param value the literal value
+     * @return negative, zero or positive if the property value is lower, equal or greater than the literal value
+     * @throws RepositoryException if the property value cannot be read or converted into the value type
      */
-    abstract void appendValueConstraint(StringBuilder sql2, String selectorName, String name, V value);
+    abstract int compareValue(Value actual, V value) throws RepositoryException;
 }
@@ -20,9 +20,15 @@ package de.ibmix.magkit.query.sql2.condition;
  * #L%
  */
 
+import de.ibmix.magkit.query.sql2.statement.Sql2BindValues;
 import info.magnolia.jcr.util.NodeTypes;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.jackrabbit.JcrConstants;
+import org.apache.jackrabbit.value.StringValue;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Value;
+import java.util.Locale;
 
 /**
  * Builder for a sql2 String property condition. Extends the generic property behaviour with LIKE based
@@ -164,11 +170,11 @@ public class Sql2StringCondition extends Sql2PropertyCondition<Sql2StringConditi
     }
 
     @Override
-    protected void appendValueConstraint(final StringBuilder sql2, final String selectorName, final String name, final String value) {
+    protected void appendValueConstraint(final StringBuilder sql2, final String selectorName, final String name, final String value, final Sql2BindValues literalBindings) {
         if (isAddConstraint(value)) {
-            final String end = (_startsWith || _contains) ? "%'" : "'";
-            final String begin = (_endsWith || _contains) ? "'%" : "'";
-            String cleanValue = value.replace("'", "''");
+            final String end = (_startsWith || _contains) ? "%" : StringUtils.EMPTY;
+            final String begin = (_endsWith || _contains) ? "%" : StringUtils.EMPTY;
+            String cleanValue = value;
             if (_isLike) {
                 cleanValue = cleanValue.replace("%", "\\%").replace("_", "\\_");
             }
@@ -186,11 +192,50 @@ public class Sql2StringCondition extends Sql2PropertyCondition<Sql2StringConditi
                 sql2.append(')');
             }
 
-            sql2.append(getCompareOperator()).append(begin).append(cleanValue).append(end);
+            sql2.append(getCompareOperator());
+            if (literalBindings != null) {
+                appendLiteralBinding(sql2, literalBindings, new StringValue(begin + cleanValue + end));
+            } else {
+                sql2.append('\'').append(begin).append(cleanValue.replace("'", "''")).append(end).append('\'');
+            }
+        }
+    }
+
+    @Override
+    boolean matchesValue(final Value actual, final String value) throws RepositoryException {
+        boolean result;
+        if (_isLike) {
+            String actualValue = applyOperandMethod(actual.getString());
+            if (_contains) {
+                result = actualValue.contains(value);
+            } else if (_startsWith) {
+                result = actualValue.startsWith(value);
+            } else {
+                result = actualValue.endsWith(value);
+            }
+        } else {
+            result = super.matchesValue(actual, value);
+        }
+        return result;
+    }
+
+    @Override
+    int compareValue(final Value actual, final String value) throws RepositoryException {
+        return applyOperandMethod(actual.getString()).compareTo(value);
+    }
+
+    private String applyOperandMethod(final String value) {
+        String result = value;
+        if (METHOD_LOWER.equals(_operandMethod)) {
+            result = value.toLowerCase(Locale.ROOT);
+        } else if (METHOD_UPPER.equals(_operandMethod)) {
+            result = value.toUpperCase(Locale.ROOT);
         }
+        return result;
     }
 
-    private boolean isAddConstraint(final String value) {
+    @Override
+    boolean isAddConstraint(final String value) {
         return value != null && (!_isLike || StringUtils.isNotEmpty(value));
     }
 
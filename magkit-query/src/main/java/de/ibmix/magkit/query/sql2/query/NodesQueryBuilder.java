@@ -20,10 +20,18 @@ package de.ibmix.magkit.query.sql2.query;
  * #L%
  */
 
+import de.ibmix.magkit.query.QueryGuardrails;
 import de.ibmix.magkit.query.sql2.query.jcrwrapper.NodesQuery;
 
 import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Value;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Final builder step interface for creating and executing node-oriented SQL2 queries.
@@ -56,4 +64,120 @@ public interface NodesQueryBuilder extends QueryLimit<NodesQueryBuilder> {
      * @return non-null list of nodes (possibly empty)
      */
     List<Node> getResultNodes();
+
+    /**
+     * Execute the query and return a lazily evaluated stream of the resulting {@link Node} objects. Results are
+     * pulled from the repository on demand; close the stream to release the result early.
+     * Implementations return an empty stream if execution fails.
+     * @return non-null stream of nodes (possibly empty)
+     */
+    Stream<Node> getResultNodeStream();
+
+    /**
+     * Execute the query asynchronously on the default query executor with its own JCR sessions of the current user, so
+     * the query respects the access rights of the caller. The result nodes are loaded with the access rights of the
+     * thread accessing the result list. The builder must not be changed until the future is completed.
+     * @param timeout timeout, 0 or less to wait without timeout
+     * @param unit unit of the timeout
+     * @return future completing with all nodes, with the nodes collected until the timeout, or exceptionally on
+     * repository errors
+     */
+    CompletableFuture<List<Node>> getResultNodesAsync(long timeout, TimeUnit unit);
+
+    /**
+     * Execute the query asynchronously on the given executor with its own JCR sessions of the current user, so the
+     * query respects the access rights of the caller. The result nodes are loaded with the access rights of the thread
+     * accessing the result list. The builder must not be changed until the future is completed.
+     * @param executor executor running the query, e.g. a virtual thread executor
+     * @param timeout timeout, 0 or less to wait without timeout
+     * @param unit unit of the timeout
+     * @return future completing with all nodes, with the nodes collected until the timeout, or exceptionally on
+     * repository errors
+     */
+    CompletableFuture<List<Node>> getResultNodesAsync(Executor executor, long timeout, TimeUnit unit);
+
+    /**
+     * Execute the query and pass each resulting {@link Node} to the consumer without collecting the results.
+     * @param consumer action performed for each node, must not be null
+     */
+    void forEachResultNode(Consumer<? super Node> consumer);
+
+    /**
+     * Bind a value to a variable of the statement.
+     * @param name bind variable name without leading {@code $}
+     * @param value value to bind
+     * @return fluent builder instance
+     */
+    NodesQueryBuilder withBindValue(String name, Value value);
+
+    /**
+     * Cache the results in the given cache. Any change in the workspace invalidates the cached results.
+     * @param resultCache shared cache instance, null disables caching
+     * @return fluent builder instance
+     */
+    NodesQueryBuilder withResultCache(QueryResultCache resultCache);
+
+    /**
+     * Cache the results in the given cache. Only changes in the subtree of the scope path invalidate the cached results.
+     * @param resultCache shared cache instance, null disables caching
+     * @param scopePath path of the subtree the results depend on
+     * @return fluent builder instance
+     */
+    NodesQueryBuilder withResultCache(QueryResultCache resultCache, String scopePath);
+
+    /**
+     * Use keyset (cursor) paging instead of offset paging. The page size is defined by the limit.
+     * @param keyset keyset paging definition with the continuation token of the previous page
+     * @return fluent builder instance
+     */
+    NodesQueryBuilder withKeyset(Sql2Keyset keyset);
+
+    /**
+     * Render the condition literals of the statement as generated bind variables, e.g. {@code [title] = $literal1}.
+     * The statement text does not change with the values, so the repository can reuse parsed queries.
+     * @return fluent builder instance
+     */
+    NodesQueryBuilder withBoundLiterals();
+
+    /**
+     * Explain every new statement once before execution and log a warning if it traverses the repository.
+     * @return fluent builder instance
+     */
+    NodesQueryBuilder withTraversalCheck();
+
+    /**
+     * Bound this query by the given guardrails instead of the {@link QueryGuardrails#getDefaults() default guardrails}:
+     * a maximum limit, a maximum number of results read and a maximum iteration time.
+     * @param guardrails the guardrails of this query, null for the defaults
+     * @return fluent builder instance
+     */
+    NodesQueryBuilder withGuardrails(QueryGuardrails guardrails);
+
+    /**
+     * Explain the query with the repository's {@code explain} command.
+     * @return the query plan, unsupported if the repository cannot explain queries
+     * @throws RepositoryException on repository errors
+     */
+    Sql2QueryPlan explain() throws RepositoryException;
+
+    /**
+     * Count the results of the query without loading the result nodes. Configured limit and offset apply.
+     * Implementations return 0 if execution fails.
+     * @return number of results
+     */
+    long count();
+
+    /**
+     * Check whether the query has any result. Executes the query with limit 1 without loading the result node.
+     * Implementations return false if execution fails.
+     * @return true if at least one result exists
+     */
+    boolean exists();
+
+    /**
+     * Execute the query and return the nodes of the requested page with the continuation token of the next page.
+     * Implementations return an empty page if execution fails.
+     * @return non-null result page
+     */
+    ResultPage<Node> getResultPage();
 }
@@ -0,0 +1,103 @@
+package de.ibmix.magkit.query.sql2.query;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.query.sql2.statement.Sql2Builder;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+/**
+ * Test helper asserting that SQL2 statements are backed by an index.
+ * <p>Purpose: Lets CI verify the hot queries of a project against a repository with the project's index definitions,
+ * e.g. an in-memory Jackrabbit Oak repository ({@code new Jcr(new Oak()).createRepository()}) in a unit test.</p>
+ * <p>Null and error handling: Failing assertions throw an {@link AssertionError} containing the plan. Repositories
+ * that cannot explain queries fail the assertions as well, since the index usage cannot be verified.</p>
+ * <p>Thread-safety: Stateless.</p>
+ * <p>Usage example:</p>
+ * <pre>{@code
+ * QueryPlanAssertions.assertIndexBacked(oakSession, Sql2Statement.select().from("mgnl:page")
+ *     .whereAll(Sql2.Condition.String.templateEquals("my-module:pages/news")));
+ * QueryPlanAssertions.assertUsesIndex(oakSession, "SELECT * FROM [mgnl:page] WHERE CONTAINS(*, 'news')", "lucene:fulltext");
+ * }</pre>
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public final class QueryPlanAssertions {
+
+    private QueryPlanAssertions() {
+        // static helper
+    }
+
+    /**
+     * Assert that no selector of the statement traverses the repository.
+     * @param session session of the repository to explain the statement in
+     * @param statement statement builder
+     * @return the verified plan
+     * @throws RepositoryException on repository errors
+     * @throws AssertionError if the plan is not supported or traverses
+     */
+    public static Sql2QueryPlan assertIndexBacked(final Session session, final Sql2Builder statement) throws RepositoryException {
+        return assertIndexBacked(session, statement.build());
+    }
+
+    /**
+     * Assert that no selector of the statement traverses the repository.
+     * @param session session of the repository to explain the statement in
+     * @param statement SQL2 statement
+     * @return the verified plan
+     * @throws RepositoryException on repository errors
+     * @throws AssertionError if the plan is not supported or traverses
+     */
+    public static Sql2QueryPlan assertIndexBacked(final Session session, final String statement) throws RepositoryException {
+        Sql2QueryPlan plan = explainSupported(session, statement);
+        if (plan.isTraversal()) {
+            throw new AssertionError("Statement is not backed by an index: " + statement + " Plan: " + plan.getPlan());
+        }
+        return plan;
+    }
+
+    /**
+     * Assert that the statement uses the given index for any of its selectors.
+     * @param session session of the repository to explain the statement in
+     * @param statement SQL2 statement
+     * @param index index as reported in the plan, e.g. {@code property} or {@code lucene:damAssetLucene}
+     * @return the verified plan
+     * @throws RepositoryException on repository errors
+     * @throws AssertionError if the plan is not supported or does not use the index
+     */
+    public static Sql2QueryPlan assertUsesIndex(final Session session, final String statement, final String index) throws RepositoryException {
+        Sql2QueryPlan plan = explainSupported(session, statement);
+        if (!plan.getIndexes().contains(index)) {
+            throw new AssertionError("Statement does not use index " + index + ": " + statement + " Plan: " + plan.getPlan());
+        }
+        return plan;
+    }
+
+    private static Sql2QueryPlan explainSupported(final Session session, final String statement) throws RepositoryException {
+        Sql2QueryPlan plan = Sql2QueryPlan.explain(session, statement, null);
+        if (!plan.isSupported()) {
+            throw new AssertionError("Repository cannot explain queries, use a Jackrabbit Oak repository: " + statement);
+        }
+        return plan;
+    }
+}
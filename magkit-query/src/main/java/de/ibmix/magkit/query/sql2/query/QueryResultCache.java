@@ -0,0 +1,445 @@
+package de.ibmix.magkit.query.sql2.query;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.core.utils.InvalidationListener;
+import de.ibmix.magkit.query.sql2.query.jcrwrapper.DetachedNodeList;
+import de.ibmix.magkit.query.sql2.query.jcrwrapper.DetachedRow;
+import de.ibmix.magkit.query.sql2.query.jcrwrapper.NodesResult;
+import de.ibmix.magkit.query.sql2.query.jcrwrapper.RowsResult;
+import info.magnolia.cms.security.User;
+import info.magnolia.context.MgnlContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Value;
+import javax.jcr.query.Row;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.apache.commons.lang3.StringUtils.EMPTY;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.join;
+
+/**
+ * Opt-in result cache for queries executed by the {@link Sql2QueryBuilder} API.
+ * <p>Purpose: Statements like "latest news below /x limit 5" are executed thousands of times between two publications.
+ * This cache keeps their results and serves repeated executions without running the JCR query again.</p>
+ * <p>Key features:</p>
+ * <ul>
+ *   <li>Entries are keyed by workspace, built statement, bind values, limit, offset and the ACL fingerprint of the
+ *   current user (see {@link #getAclFingerprint()}), so users with different permissions never share results.</li>
+ *   <li>Only node identifiers (and row values) are stored, never live nodes. On a hit the nodes are loaded again in the
+ *   JCR session of the caller.</li>
+ *   <li>Entries are invalidated by JCR observation events of their workspace, received by one listener per workspace
+ *   on a dedicated session. An entry may be restricted to a scope
+ *   path, then only changes in that subtree (or of its ancestors) invalidate it.</li>
+ *   <li>Every invalidation increments a generation counter of the workspace. A result is only cached if no
+ *   invalidation of its workspace happened while the query was executed, so a result loaded before a concurrent
+ *   change is never cached after the change.</li>
+ *   <li>Entries expire after a configurable time to live, the number of entries is bounded (least recently used
+ *   entries are evicted first).</li>
+ * </ul>
+ * <p>Preconditions: Results are only cached for workspaces that support observation, see
+ * {@link InvalidationListener}, otherwise they could not be kept fresh and every call executes the query. A failed
+ * listener registration is retried after {@value #REGISTRATION_RETRY_MILLIS} ms, not on every query.</p>
+ * <p>Null and error handling: Nodes that cannot be loaded anymore on a hit (removed or not readable) are skipped.
+ * Bind values that cannot be represented as String make the query uncacheable. Repository exceptions of the query
+ * execution are propagated to the caller.</p>
+ * <p>Thread-safety: Thread-safe. One instance is meant to be shared, e.g. as Magnolia component or static field.</p>
+ * <p>Usage example:</p>
+ * <pre>{@code
+ * private static final QueryResultCache NEWS_CACHE = new QueryResultCache();
+ * List<Node> news = Sql2QueryBuilder.forNodes().fromWebsite().withStatement(newsStatement)
+ *     .withLimit(5).withResultCache(NEWS_CACHE, "/x").getResultNodes();
+ * }</pre>
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public class QueryResultCache {
+    private static final Logger LOG = LoggerFactory.getLogger(QueryResultCache.class);
+
+    public static final int DEFAULT_MAX_SIZE = 500;
+    public static final long DEFAULT_TIME_TO_LIVE = 300000;
+    public static final long REGISTRATION_RETRY_MILLIS = 60000;
+
+    static final String TYPE_NODES = "nodes";
+    static final String TYPE_ROWS = "rows";
+
+    private static final String ROOT_PATH = "/";
+
+    private int _maxSize = DEFAULT_MAX_SIZE;
+    private long _timeToLive = DEFAULT_TIME_TO_LIVE;
+    private final Map<CacheKey, CacheEntry> _entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<CacheKey, CacheEntry> eldest) {
+            return size() > _maxSize;
+        }
+    };
+    private final Map<String, InvalidationListener<QueryResultCache>> _listeners = new ConcurrentHashMap<>();
+    private final Map<String, Long> _registrationRetries = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> _generations = new ConcurrentHashMap<>();
+
+    /**
+     * Sets the maximum number of cached results. Least recently used entries are evicted first.
+     *
+     * @param maxSize the maximum number of entries, 0 or less disables caching
+     */
+    public void setMaxSize(final int maxSize) {
+        synchronized (_entries) {
+            _maxSize = Math.max(0, maxSize);
+            _entries.clear();
+        }
+    }
+
+    /**
+     * Sets the time to live of cached results.
+     *
+     * @param timeToLive the time to live in milliseconds, 0 or less keeps entries until they are invalidated or evicted
+     */
+    public void setTimeToLive(final long timeToLive) {
+        _timeToLive = timeToLive;
+    }
+
+    /**
+     * Returns the number of cached results, including expired entries not yet evicted.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        synchronized (_entries) {
+            return _entries.size();
+        }
+    }
+
+    /**
+     * Removes all cached results.
+     */
+    public void clear() {
+        synchronized (_entries) {
+            _entries.clear();
+        }
+    }
+
+    /**
+     * Removes all cached results of the workspace that may be affected by a change of the node at the given path.
+     * These are all entries whose scope path is the path itself or one of its ancestors. If the whole subtree changed
+     * (node added, removed or moved), entries scoped to descendants of the path are removed as well.
+     *
+     * @param workspace the workspace of the changed node
+     * @param path the path of the changed node
+     * @param subtreeChanged true if the node itself has been added, removed or moved
+     */
+    public void invalidate(final String workspace, final String path, final boolean subtreeChanged) {
+        synchronized (_entries) {
+            getGeneration(workspace).incrementAndGet();
+            _entries.values().removeIf(entry -> entry._workspace.equals(workspace) && entry.isAffectedBy(path, subtreeChanged));
+        }
+    }
+
+    /**
+     * Provides the fingerprint of the permissions of the current user. Results are only shared between users with the
+     * same fingerprint. The default implementation uses the sorted names of all roles of the user, because Magnolia
+     * derives all access control lists from roles. Override this method if results depend on further user data.
+     *
+     * @return the ACL fingerprint, never null
+     */
+    protected String getAclFingerprint() {
+        String fingerprint = EMPTY;
+        User user = MgnlContext.hasInstance() ? MgnlContext.getUser() : null;
+        if (user != null) {
+            Collection<String> roles = user.getAllRoles();
+            fingerprint = roles == null ? EMPTY : join(new TreeSet<>(roles), ',');
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Creates the cache key for a query execution with the ACL fingerprint of the current user.
+     *
+     * @param type the result type, nodes or rows
+     * @param workspace the workspace name
+     * @param statement the built SQL2 statement
+     * @param bindValues the bound values by variable name, may be empty
+     * @param limit the result limit
+     * @param offset the result offset
+     * @param scopePath the path whose subtree affects the result, null or blank for the whole workspace
+     * @return the key or null if the query cannot be cached
+     */
+    CacheKey createKey(final String type, final String workspace, final String statement, final Map<String, Value> bindValues, final long limit, final long offset, final String scopePath) {
+        CacheKey key = null;
+        if (_maxSize > 0 && !isBlank(workspace) && !isBlank(statement)) {
+            try {
+                Map<String, String> bindings = new HashMap<>();
+                for (Map.Entry<String, Value> binding : bindValues.entrySet()) {
+                    Value value = binding.getValue();
+                    bindings.put(binding.getKey(), value.getType() + ":" + value.getString());
+                }
+                String scope = isBlank(scopePath) ? ROOT_PATH : scopePath.trim();
+                key = new CacheKey(type, workspace, statement, bindings, limit, offset, scope, getAclFingerprint());
+            } catch (RepositoryException | IllegalStateException e) {
+                LOG.debug("Bind values cannot be used as cache key, query result is not cached.", e);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Returns the cached result nodes loaded in the session of the caller or executes the query and caches the
+     * identifiers of the result nodes.
+     *
+     * @param key the cache key, null executes the query without caching
+     * @param loader the query execution
+     * @return the result nodes
+     * @throws RepositoryException on query execution errors
+     */
+    List<Node> getNodes(final CacheKey key, final ResultLoader<NodesResult> loader) throws RepositoryException {
+        List<Node> nodes;
+        CacheEntry entry = key != null && isCacheable(key._workspace) ? getEntry(key) : null;
+        if (entry != null) {
+            nodes = loadNodes(key._workspace, entry._identifiers);
+        } else {
+            long generation = key == null ? 0 : getGeneration(key._workspace).get();
+            nodes = loader.load().getNodeList();
+            if (key != null && isCacheable(key._workspace)) {
+                List<String> identifiers = new ArrayList<>(nodes.size());
+                for (Node node : nodes) {
+                    identifiers.add(node.getIdentifier());
+                }
+                putEntry(key, new CacheEntry(key, expiresAt(), identifiers, null), generation);
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * Returns the cached result rows with nodes loaded in the session of the caller or executes the query and caches
+     * the row values and the identifiers of the row nodes. With a key the rows are always {@link DetachedRow detached}
+     * from the session of the query.
+     *
+     * @param key the cache key, null executes the query without caching
+     * @param loader the query execution
+     * @return the result rows
+     * @throws RepositoryException on query execution errors
+     */
+    List<Row> getRows(final CacheKey key, final ResultLoader<RowsResult> loader) throws RepositoryException {
+        List<Row> rows;
+        CacheEntry entry = key != null && isCacheable(key._workspace) ? getEntry(key) : null;
+        if (entry != null) {
+            rows = new ArrayList<>(entry._rows);
+        } else if (key == null) {
+            rows = loader.load().getRowList();
+        } else {
+            long generation = getGeneration(key._workspace).get();
+            RowsResult result = loader.load();
+            List<DetachedRow> detached = detach(key._workspace, result);
+            if (isCacheable(key._workspace)) {
+                putEntry(key, new CacheEntry(key, expiresAt(), null, detached), generation);
+            }
+            rows = new ArrayList<>(detached);
+        }
+        return rows;
+    }
+
+    private long expiresAt() {
+        return _timeToLive > 0 ? System.currentTimeMillis() + _timeToLive : Long.MAX_VALUE;
+    }
+
+    private CacheEntry getEntry(final CacheKey key) {
+        synchronized (_entries) {
+            CacheEntry entry = _entries.get(key);
+            if (entry != null && entry._expires < System.currentTimeMillis()) {
+                _entries.remove(key);
+                entry = null;
+            }
+            return entry;
+        }
+    }
+
+    /**
+     * Stores the entry unless its workspace has been invalidated since the given generation, i.e. while the result was
+     * loaded.
+     */
+    private void putEntry(final CacheKey key, final CacheEntry entry, final long generation) {
+        synchronized (_entries) {
+            if (getGeneration(key._workspace).get() == generation) {
+                _entries.put(key, entry);
+            } else {
+                LOG.debug("Workspace {} changed while executing the query, result is not cached.", key._workspace);
+            }
+        }
+    }
+
+    private AtomicLong getGeneration(final String workspace) {
+        return _generations.computeIfAbsent(workspace, name -> new AtomicLong());
+    }
+
+    private List<Node> loadNodes(final String workspace, final List<String> identifiers) throws RepositoryException {
+        return DetachedNodeList.loadNodes(MgnlContext.getJCRSession(workspace), identifiers);
+    }
+
+    private static List<DetachedRow> detach(final String workspace, final RowsResult result) throws RepositoryException {
+        String[] columnNames = result.getColumnNames();
+        String[] selectorNames = result.getSelectorNames();
+        List<DetachedRow> rows = new ArrayList<>();
+        for (Row row : result.getRowList()) {
+            rows.add(DetachedRow.of(workspace, columnNames, selectorNames, row));
+        }
+        return rows;
+    }
+
+    /**
+     * Checks whether results of the workspace may be cached. Registers the observation listener that keeps the cache
+     * fresh on first use and again whenever its session is no longer live. Cache lookups are never blocked by a
+     * registration.
+     */
+    private boolean isCacheable(final String workspace) {
+        boolean cacheable = false;
+        if (_maxSize > 0) {
+            InvalidationListener<QueryResultCache> listener = _listeners.get(workspace);
+            if (listener == null || !listener.isActive()) {
+                listener = registerListener(workspace, listener);
+            }
+            cacheable = listener != null;
+        }
+        return cacheable;
+    }
+
+    /**
+     * Registers a listener for the workspace without holding a lock. Of concurrent registrations the first stored
+     * listener wins, the others are unregistered again. Cached results of the workspace are dropped on registration,
+     * because changes may have been missed. A failed registration is remembered and retried after
+     * {@value #REGISTRATION_RETRY_MILLIS} ms.
+     */
+    private InvalidationListener<QueryResultCache> registerListener(final String workspace, final InvalidationListener<QueryResultCache> inactive) {
+        InvalidationListener<QueryResultCache> listener = null;
+        Long retry = _registrationRetries.get(workspace);
+        if (retry == null || retry <= System.currentTimeMillis()) {
+            listener = InvalidationListener.register(workspace, this, (cache, path, subtreeChanged) -> cache.invalidate(workspace, path, subtreeChanged));
+            if (listener == null) {
+                LOG.debug("Results of workspace {} are not cached, registration is retried in {} ms.", workspace, REGISTRATION_RETRY_MILLIS);
+                _registrationRetries.put(workspace, System.currentTimeMillis() + REGISTRATION_RETRY_MILLIS);
+            } else {
+                _registrationRetries.remove(workspace);
+                boolean stored = inactive == null ? _listeners.putIfAbsent(workspace, listener) == null : _listeners.replace(workspace, inactive, listener);
+                if (stored) {
+                    if (inactive != null) {
+                        inactive.unregister();
+                    }
+                    invalidate(workspace, ROOT_PATH, true);
+                } else {
+                    listener.unregister();
+                    listener = _listeners.get(workspace);
+                }
+            }
+        }
+        return listener;
+    }
+
+    /**
+     * Functional interface for the query execution on a cache miss.
+     *
+     * @param <T> the result type
+     */
+    @FunctionalInterface
+    interface ResultLoader<T> {
+        T load() throws RepositoryException;
+    }
+
+    /**
+     * Immutable cache key of a query execution.
+     */
+    static final class CacheKey {
+        private final String _type;
+        private final String _workspace;
+        private final String _statement;
+        private final Map<String, String> _bindings;
+        private final long _limit;
+        private final long _offset;
+        private final String _scopePath;
+        private final String _aclFingerprint;
+        private final int _hashCode;
+
+        private CacheKey(final String type, final String workspace, final String statement, final Map<String, String> bindings, final long limit, final long offset, final String scopePath, final String aclFingerprint) {
+            _type = type;
+            _workspace = workspace;
+            _statement = statement;
+            _bindings = bindings;
+            _limit = limit;
+            _offset = offset;
+            _scopePath = scopePath;
+            _aclFingerprint = aclFingerprint;
+            _hashCode = Objects.hash(type, workspace, statement, bindings, limit, offset, scopePath, aclFingerprint);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            boolean result = this == o;
+            if (!result && o instanceof CacheKey) {
+                CacheKey other = (CacheKey) o;
+                result = _hashCode == other._hashCode && _limit == other._limit && _offset == other._offset
+                    && _type.equals(other._type) && _workspace.equals(other._workspace) && _statement.equals(other._statement)
+                    && _bindings.equals(other._bindings) && _scopePath.equals(other._scopePath) && _aclFingerprint.equals(other._aclFingerprint);
+            }
+            return result;
+        }
+
+        @Override
+        public int hashCode() {
+            return _hashCode;
+        }
+    }
+
+    private static final class CacheEntry {
+        private final String _workspace;
+        private final String _scopePath;
+        private final long _expires;
+        private final List<String> _identifiers;
+        private final List<DetachedRow> _rows;
+
+        private CacheEntry(final CacheKey key, final long expires, final List<String> identifiers, final List<DetachedRow> rows) {
+            _workspace = key._workspace;
+            _scopePath = key._scopePath;
+            _expires = expires;
+            _identifiers = identifiers;
+            _rows = rows;
+        }
+
+        private boolean isAffectedBy(final String path, final boolean subtreeChanged) {
+            return isAncestorOrSelf(_scopePath, path) || (subtreeChanged && isAncestorOrSelf(path, _scopePath));
+        }
+
+        private static boolean isAncestorOrSelf(final String ancestor, final String path) {
+            return ROOT_PATH.equals(ancestor) || path.equals(ancestor) || path.startsWith(ancestor + '/');
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package de.ibmix.magkit.query.sql2.query;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of query results together with the continuation token of the following page.
+ * <p>Purpose: Result type of keyset paging with {@link Sql2Keyset}. The continuation token is passed to
+ * {@link Sql2Keyset#after(String)} to request the next page.</p>
+ * <p>Null and error handling: The item list is never null. The continuation token is null if there is no further
+ * page (the page is not full) or no keyset paging has been configured.</p>
+ * <p>Thread-safety: Immutable, the item list is unmodifiable.</p>
+ * <p>Usage example:</p>
+ * <pre>{@code
+ * ResultPage<Node> page = builder.withKeyset(Sql2Keyset.orderBy("title").after(token)).getResultPage();
+ * if (page.hasNext()) {
+ *     nextLink = "?next=" + page.getContinuationToken();
+ * }
+ * }</pre>
+ *
+ * @param <T> the result type, {@link javax.jcr.Node} or {@link javax.jcr.query.Row}
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public final class ResultPage<T> {
+    private final List<T> _items;
+    private final String _continuationToken;
+
+    /**
+     * Create a result page.
+     * @param items the results of this page, null is treated as empty list
+     * @param continuationToken the token of the next page or null if there is none
+     */
+    public ResultPage(final List<T> items, final String continuationToken) {
+        _items = items == null ? Collections.emptyList() : Collections.unmodifiableList(items);
+        _continuationToken = continuationToken;
+    }
+
+    /**
+     * Get the results of this page.
+     * @return non-null unmodifiable list of results
+     */
+    public List<T> getItems() {
+        return _items;
+    }
+
+    /**
+     * Get the opaque token requesting the next page.
+     * @return the continuation token or null if there is no next page
+     */
+    public String getContinuationToken() {
+        return _continuationToken;
+    }
+
+    /**
+     * Check whether a next page may exist.
+     * @return true if a continuation token is available
+     */
+    public boolean hasNext() {
+        return _continuationToken != null;
+    }
+}
@@ -20,10 +20,24 @@ package de.ibmix.magkit.query.sql2.query;
  * #L%
  */
 
+import de.ibmix.magkit.query.QueryGuardrails;
+import de.ibmix.magkit.query.sql2.query.jcrwrapper.Facets;
+import de.ibmix.magkit.query.sql2.query.jcrwrapper.NodeGroup;
+import de.ibmix.magkit.query.sql2.query.jcrwrapper.NodePair;
+import de.ibmix.magkit.query.sql2.query.jcrwrapper.ProjectedRow;
+import de.ibmix.magkit.query.sql2.query.jcrwrapper.RowMapper;
 import de.ibmix.magkit.query.sql2.query.jcrwrapper.RowsQuery;
 
+import javax.jcr.RepositoryException;
+import javax.jcr.Value;
 import javax.jcr.query.Row;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Final builder step interface for creating and executing row-oriented SQL2 queries.
@@ -62,4 +76,170 @@ public interface RowsQueryBuilder extends QueryLimit<RowsQueryBuilder> {
      * @return {@code true} if at least one row is present; {@code false} otherwise or on error
      */
     boolean hasResultRows();
+
+    /**
+     * Execute the query and return a lazily evaluated stream of the resulting {@link Row} objects. Results are
+     * pulled from the repository on demand; close the stream to release the result early.
+     * Implementations return an empty stream if execution fails.
+     * @return non-null stream of rows (possibly empty)
+     */
+    Stream<Row> getResultRowStream();
+
+    /**
+     * Execute the query asynchronously on the default query executor with its own JCR sessions of the current user, so
+     * the query respects the access rights of the caller. The result rows are loaded with the access rights of the
+     * thread accessing the result list. The builder must not be changed until the future is completed.
+     * @param timeout timeout, 0 or less to wait without timeout
+     * @param unit unit of the timeout
+     * @return future completing with all rows, with the rows collected until the timeout, or exceptionally on
+     * repository errors
+     */
+    CompletableFuture<List<Row>> getResultRowsAsync(long timeout, TimeUnit unit);
+
+    /**
+     * Execute the query asynchronously on the given executor with its own JCR sessions of the current user, so the
+     * query respects the access rights of the caller. The result rows are loaded with the access rights of the thread
+     * accessing the result list. The builder must not be changed until the future is completed.
+     * @param executor executor running the query, e.g. a virtual thread executor
+     * @param timeout timeout, 0 or less to wait without timeout
+     * @param unit unit of the timeout
+     * @return future completing with all rows, with the rows collected until the timeout, or exceptionally on
+     * repository errors
+     */
+    CompletableFuture<List<Row>> getResultRowsAsync(Executor executor, long timeout, TimeUnit unit);
+
+    /**
+     * Execute the query and pass each resulting {@link Row} to the consumer without collecting the results.
+     * @param consumer action performed for each row, must not be null
+     */
+    void forEachResultRow(Consumer<? super Row> consumer);
+
+    /**
+     * Execute the query and project the selected columns of all rows without loading the result nodes. The result
+     * cache is not used for projections.
+     * Implementations return an empty list if execution fails.
+     * @return non-null list of projected rows (possibly empty)
+     */
+    List<ProjectedRow> getResultProjectedRows();
+
+    /**
+     * Execute the query and map the selected columns of all rows to typed objects without loading the result nodes.
+     * The result cache is not used for projections.
+     * Implementations return an empty list if execution fails.
+     * @param mapper the row mapper, must not be null
+     * @param <T> the result type
+     * @return non-null list of mapped objects (possibly empty)
+     */
+    <T> List<T> getResultProjection(RowMapper<T> mapper);
+
+    /**
+     * Execute a join query and return the nodes of the left and right selector of all rows, collected in one pass.
+     * The result cache is not used.
+     * Implementations return an empty list if execution fails.
+     * @return non-null list of node pairs (possibly empty)
+     */
+    List<NodePair> getResultNodePairs();
+
+    /**
+     * Execute a join query and return the right selector nodes grouped by their left selector node, collected in one
+     * pass. The result cache is not used.
+     * Implementations return an empty list if execution fails.
+     * @return non-null list of node groups (possibly empty)
+     */
+    List<NodeGroup> getResultNodeGroups();
+
+    /**
+     * Execute the query and count the results per value of the facet properties in one pass over the rows, using the
+     * native facet columns of the repository if selected (see {@link Facets#column(String)}). The result cache is not
+     * used. The counts cover different results depending on the mode:
+     * <ul>
+     *   <li>Native facets count the whole result, independent of limit and offset, but the repository only returns the
+     *   most frequent values (the top children configured for the facets of the Oak index).</li>
+     *   <li>Facets counted from the rows count all values, but only of the rows read: the page selected by limit and
+     *   offset, cut off by the limit and read guardrails. Use them without offset to count the whole result.</li>
+     * </ul>
+     * Implementations return an empty map if execution fails.
+     * @param properties the facet property names
+     * @return non-null map of property name to the counts per value ordered by descending count
+     */
+    Map<String, Map<String, Long>> getResultFacets(String... properties);
+
+    /**
+     * Bind a value to a variable of the statement.
+     * @param name bind variable name without leading {@code $}
+     * @param value value to bind
+     * @return fluent builder instance
+     */
+    RowsQueryBuilder withBindValue(String name, Value value);
+
+    /**
+     * Cache the results in the given cache. Any change in the workspace invalidates the cached results.
+     * @param resultCache shared cache instance, null disables caching
+     * @return fluent builder instance
+     */
+    RowsQueryBuilder withResultCache(QueryResultCache resultCache);
+
+    /**
+     * Cache the results in the given cache. Only changes in the subtree of the scope path invalidate the cached results.
+     * @param resultCache shared cache instance, null disables caching
+     * @param scopePath path of the subtree the results depend on
+     * @return fluent builder instance
+     */
+    RowsQueryBuilder withResultCache(QueryResultCache resultCache, String scopePath);
+
+    /**
+     * Use keyset (cursor) paging instead of offset paging. The page size is defined by the limit.
+     * @param keyset keyset paging definition with the continuation token of the previous page
+     * @return fluent builder instance
+     */
+    RowsQueryBuilder withKeyset(Sql2Keyset keyset);
+
+    /**
+     * Render the condition literals of the statement as generated bind variables, e.g. {@code [title] = $literal1}.
+     * The statement text does not change with the values, so the repository can reuse parsed queries.
+     * @return fluent builder instance
+     */
+    RowsQueryBuilder withBoundLiterals();
+
+    /**
+     * Explain every new statement once before execution and log a warning if it traverses the repository.
+     * @return fluent builder instance
+     */
+    RowsQueryBuilder withTraversalCheck();
+
+    /**
+     * Bound this query by the given guardrails instead of the {@link QueryGuardrails#getDefaults() default guardrails}:
+     * a maximum limit, a maximum number of results read and a maximum iteration time.
+     * @param guardrails the guardrails of this query, null for the defaults
+     * @return fluent builder instance
+     */
+    RowsQueryBuilder withGuardrails(QueryGuardrails guardrails);
+
+    /**
+     * Explain the query with the repository's {@code explain} command.
+     * @return the query plan, unsupported if the repository cannot explain queries
+     * @throws RepositoryException on repository errors
+     */
+    Sql2QueryPlan explain() throws RepositoryException;
+
+    /**
+     * Count the results of the query without loading the result nodes. Configured limit and offset apply.
+     * Implementations return 0 if execution fails.
+     * @return number of results
+     */
+    long count();
+
+    /**
+     * Check whether the query has any result. Executes the query with limit 1 without loading the result node.
+     * Implementations return false if execution fails.
+     * @return true if at least one result exists
+     */
+    boolean exists();
+
+    /**
+     * Execute the query and return the rows of the requested page with the continuation token of the next page.
+     * Implementations return an empty page if execution fails.
+     * @return non-null result page
+     */
+    ResultPage<Row> getResultPage();
 }
@@ -0,0 +1,254 @@
+package de.ibmix.magkit.query.sql2.query;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.query.QueryExecutors;
+import de.ibmix.magkit.query.sql2.condition.Sql2StringCondition;
+import de.ibmix.magkit.query.sql2.statement.Sql2Statement;
+import info.magnolia.context.MgnlContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.ItemNotFoundException;
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * Lookup of many nodes by their identifiers with chunked SQL2 queries.
+ * <p>Purpose: A single statement with one OR alternative per identifier gets slow to parse and execute for thousands
+ * of identifiers and may exceed statement limits of the repository. This lookup splits the identifiers into chunks
+ * of a configurable size and merges the chunk results.</p>
+ * <p>Key features:</p>
+ * <ul>
+ *   <li>Blank and duplicate identifiers are removed before querying.</li>
+ *   <li>Chunks of {@value #DEFAULT_CHUNK_SIZE} identifiers by default.</li>
+ *   <li>The chunks are queried one after another in the JCR session of the caller by default. Optional parallel
+ *   execution of the chunks on a bounded executor, each chunk with its own JCR session of the calling user
+ *   ({@link QueryExecutors#withOwnSessions(java.util.concurrent.Callable)}). The chunk results are loaded in the
+ *   session of the caller.</li>
+ *   <li>Optional direct resolution with {@link Session#getNodeByIdentifier(String)}, skipping the query for all
+ *   identifiers resolvable that way.</li>
+ *   <li>The merged result follows the order of the given identifiers and contains every node once.</li>
+ * </ul>
+ * <p>Null and error handling: Null or empty identifiers result in an empty list without query. Unknown identifiers
+ * are missing in the result. Repository errors are logged at WARN level and the nodes of the failed chunk are
+ * missing.</p>
+ * <p>Thread-safety: NOT thread-safe while configuring, {@link #getResultNodes(Collection)} may be called
+ * concurrently.</p>
+ * <p>Usage example:</p>
+ * <pre>{@code
+ * List<Node> assets = Sql2IdentifierLookup.inWorkspace("dam").withChunkSize(200).getResultNodes(assetIds);
+ * List<Node> many = Sql2IdentifierLookup.inWorkspace("dam").parallel().getResultNodes(manyAssetIds);
+ * }</pre>
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public final class Sql2IdentifierLookup {
+    private static final Logger LOG = LoggerFactory.getLogger(Sql2IdentifierLookup.class);
+
+    public static final int DEFAULT_CHUNK_SIZE = 100;
+
+    private final String _workspace;
+    private int _chunkSize = DEFAULT_CHUNK_SIZE;
+    private Executor _executor;
+    private boolean _resolveDirectly;
+
+    private Sql2IdentifierLookup(final String workspace) {
+        _workspace = workspace;
+    }
+
+    /**
+     * Create a lookup in the given workspace.
+     * @param workspace JCR workspace name
+     * @return new lookup
+     */
+    public static Sql2IdentifierLookup inWorkspace(final String workspace) {
+        return new Sql2IdentifierLookup(workspace);
+    }
+
+    /**
+     * Set the maximum number of identifiers per query.
+     * @param chunkSize the chunk size, values below 1 are treated as 1
+     * @return this lookup
+     */
+    public Sql2IdentifierLookup withChunkSize(final int chunkSize) {
+        _chunkSize = Math.max(1, chunkSize);
+        return this;
+    }
+
+    /**
+     * Execute the chunks in parallel on the shared {@link QueryExecutors#getDefaultExecutor() default executor}.
+     * @return this lookup
+     */
+    public Sql2IdentifierLookup parallel() {
+        return parallel(QueryExecutors.getDefaultExecutor());
+    }
+
+    /**
+     * Execute the chunks in parallel on the given executor, each chunk with its own JCR session of the calling user.
+     * Use a bounded executor, every running chunk holds an open session.
+     * @param executor the executor, null for sequential execution
+     * @return this lookup
+     */
+    public Sql2IdentifierLookup parallel(final Executor executor) {
+        _executor = executor;
+        return this;
+    }
+
+    /**
+     * Resolve identifiers with {@link Session#getNodeByIdentifier(String)} before querying. Identifiers that cannot
+     * be resolved directly because of repository errors other than {@link ItemNotFoundException} are queried.
+     * @return this lookup
+     */
+    public Sql2IdentifierLookup resolveDirectly() {
+        _resolveDirectly = true;
+        return this;
+    }
+
+    /**
+     * Look up the nodes of the given identifiers.
+     * @param ids the identifiers, may be null
+     * @return non-null list of nodes in the order of the identifiers
+     */
+    public List<Node> getResultNodes(final String... ids) {
+        return getResultNodes(ids == null ? null : Arrays.asList(ids));
+    }
+
+    /**
+     * Look up the nodes of the given identifiers.
+     * @param ids the identifiers, may be null
+     * @return non-null list of nodes in the order of the identifiers
+     */
+    public List<Node> getResultNodes(final Collection<String> ids) {
+        List<Node> result = Collections.emptyList();
+        Set<String> identifiers = new LinkedHashSet<>();
+        if (ids != null) {
+            ids.stream().filter(id -> isNotBlank(id)).forEach(identifiers::add);
+        }
+        if (!identifiers.isEmpty()) {
+            Map<String, Node> nodes = new HashMap<>();
+            List<Node> unmatched = new ArrayList<>();
+            List<String> queried = _resolveDirectly ? resolve(identifiers, nodes) : new ArrayList<>(identifiers);
+            for (List<Node> chunkNodes : queryChunks(queried)) {
+                collect(chunkNodes, identifiers, nodes, unmatched);
+            }
+            result = new ArrayList<>(nodes.size() + unmatched.size());
+            for (String id : identifiers) {
+                Node node = nodes.get(id);
+                if (node != null) {
+                    result.add(node);
+                }
+            }
+            result.addAll(unmatched);
+        }
+        return result;
+    }
+
+    private List<String> resolve(final Set<String> identifiers, final Map<String, Node> nodes) {
+        List<String> unresolved = new ArrayList<>();
+        try {
+            Session session = MgnlContext.getJCRSession(_workspace);
+            for (String id : identifiers) {
+                try {
+                    nodes.put(id, session.getNodeByIdentifier(id));
+                } catch (ItemNotFoundException e) {
+                    LOG.debug("No node with identifier {} in workspace {}.", id, _workspace);
+                } catch (RepositoryException e) {
+                    LOG.debug("Could not resolve identifier {} directly, querying it.", id, e);
+                    unresolved.add(id);
+                }
+            }
+        } catch (RepositoryException e) {
+            LOG.warn("Could not get session of workspace {}, querying all identifiers.", _workspace, e);
+            unresolved = new ArrayList<>(identifiers);
+        }
+        return unresolved;
+    }
+
+    private List<List<Node>> queryChunks(final List<String> ids) {
+        List<List<String>> chunks = new ArrayList<>();
+        for (int start = 0; start < ids.size(); start += _chunkSize) {
+            chunks.add(ids.subList(start, Math.min(start + _chunkSize, ids.size())));
+        }
+        List<List<Node>> results = new ArrayList<>(chunks.size());
+        if (_executor == null || chunks.size() < 2) {
+            chunks.forEach(chunk -> results.add(newBuilder(chunk).getResultNodes()));
+        } else {
+            List<CompletableFuture<List<Node>>> futures = new ArrayList<>(chunks.size());
+            chunks.forEach(chunk -> futures.add(QueryExecutors.supplyNodesAsync(_workspace, () -> newBuilder(chunk).getResultNodeStream(), _executor, 0, TimeUnit.SECONDS)));
+            futures.forEach(future -> results.add(await(future)));
+        }
+        return results;
+    }
+
+    private NodesQueryBuilder newBuilder(final List<String> chunk) {
+        return Sql2QueryBuilder.forNodes().fromWorkspace(_workspace).withStatement(
+            Sql2Statement.select().whereAny(Sql2StringCondition.identifier().equalsAny().values(chunk.toArray(new String[0])))
+        );
+    }
+
+    private List<Node> await(final CompletableFuture<List<Node>> future) {
+        List<Node> nodes = Collections.emptyList();
+        try {
+            nodes = future.get();
+        } catch (InterruptedException e) {
+            LOG.warn("Interrupted while waiting for identifier query in workspace {}.", _workspace);
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LOG.warn("Failed to query identifiers in workspace {}.", _workspace, e.getCause());
+        }
+        return nodes;
+    }
+
+    private void collect(final List<Node> chunkNodes, final Set<String> identifiers, final Map<String, Node> nodes, final List<Node> unmatched) {
+        for (Node node : chunkNodes) {
+            String id = null;
+            try {
+                id = node.getIdentifier();
+            } catch (RepositoryException e) {
+                LOG.debug("Could not read identifier of result node.", e);
+            }
+            if (id != null && identifiers.contains(id)) {
+                nodes.putIfAbsent(id, node);
+            } else {
+                unmatched.add(node);
+            }
+        }
+    }
+}
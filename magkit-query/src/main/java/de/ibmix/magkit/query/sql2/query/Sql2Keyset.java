@@ -0,0 +1,328 @@
+package de.ibmix.magkit.query.sql2.query;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.query.sql2.condition.Sql2CalendarCondition;
+import de.ibmix.magkit.query.sql2.condition.Sql2Compare;
+import de.ibmix.magkit.query.sql2.condition.Sql2ConstraintGroup;
+import de.ibmix.magkit.query.sql2.condition.Sql2DoubleCondition;
+import de.ibmix.magkit.query.sql2.condition.Sql2JoinConstraint;
+import de.ibmix.magkit.query.sql2.condition.Sql2LongCondition;
+import de.ibmix.magkit.query.sql2.condition.Sql2NullCondition;
+import de.ibmix.magkit.query.sql2.condition.Sql2StringCondition;
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.jackrabbit.JcrConstants;
+import org.apache.jackrabbit.util.ISO8601;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.Node;
+import javax.jcr.Property;
+import javax.jcr.PropertyType;
+import javax.jcr.RepositoryException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Calendar;
+import java.util.List;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.join;
+import static org.apache.commons.lang3.StringUtils.split;
+import static org.apache.commons.lang3.StringUtils.substringAfter;
+import static org.apache.commons.lang3.StringUtils.substringBefore;
+
+/**
+ * Keyset (cursor) paging for SQL2 queries as replacement for deep OFFSET paging.
+ * <p>Purpose: With an offset the repository has to skip and discard all results before the requested page, so deep
+ * pages of large results get linearly slower. Keyset paging instead continues after the sort key of the last result of
+ * the previous page, so every page costs about the same as the first one.</p>
+ * <p>Key features:</p>
+ * <ul>
+ *   <li>Orders by the configured sort properties and the node identifier ({@code jcr:uuid}) as unique tie-breaker.</li>
+ *   <li>Restricts the results to nodes having all sort properties ({@code IS NOT NULL}), so every result has a
+ *   complete sort key and no result is skipped or repeated between pages.</li>
+ *   <li>Creates the matching {@code >} / {@code <} constraint for the last sort key with {@link Sql2Compare}
+ *   conditions, e.g. {@code (date > d) OR (date = d AND jcr:uuid > id)}.</li>
+ *   <li>Provides an opaque, URL safe continuation token holding the typed sort key of the last result.</li>
+ * </ul>
+ * <p>Preconditions: The statement must be a {@link de.ibmix.magkit.query.sql2.statement.Sql2TemplateBuilder}, its ordering
+ * is replaced by the keyset ordering. Nodes without a sort property are not selected. The sort properties must be
+ * single valued and all results need a {@code jcr:uuid} (mix:referenceable), which is true for Magnolia content nodes.
+ * A limit defines the page size.</p>
+ * <p>Null and error handling: Invalid or foreign continuation tokens are rejected with an
+ * {@link IllegalArgumentException}, so a manipulated or outdated token does not silently restart at the first page.
+ * A last result without single valued sort properties violates the preconditions and is rejected with an
+ * {@link IllegalStateException}. If the sort key cannot be read because of a repository error, the error is logged and
+ * no continuation token is created.</p>
+ * <p>Thread-safety: NOT thread-safe. Use a new instance per page request.</p>
+ * <p>Usage example:</p>
+ * <pre>{@code
+ * ResultPage<Node> page = Sql2QueryBuilder.forNodes().fromWebsite()
+ *     .withStatement(Sql2Statement.select().from("mgnl:page").whereAll(Sql2.Condition.Path.isDescendant("/news")))
+ *     .withLimit(20)
+ *     .withKeyset(Sql2Keyset.orderBy("mgnl:created").descending().after(request.getParameter("next")))
+ *     .getResultPage();
+ * String next = page.getContinuationToken();
+ * }</pre>
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public final class Sql2Keyset {
+    private static final Logger LOG = LoggerFactory.getLogger(Sql2Keyset.class);
+
+    private static final char TOKEN_SEPARATOR = '.';
+    private static final String TYPE_SEPARATOR = ":";
+
+    private final String[] _orderAttributes;
+    private boolean _descending;
+    private List<SortKey> _lastKey;
+
+    private Sql2Keyset(final String... properties) {
+        _orderAttributes = ArrayUtils.add(ArrayUtils.nullToEmpty(properties), JcrConstants.JCR_UUID);
+    }
+
+    /**
+     * Create keyset paging ordered by the given properties (ascending by default) and the node identifier.
+     * @param properties sort property names, may be empty to order by identifier only
+     * @return new keyset starting at the first page
+     */
+    public static Sql2Keyset orderBy(final String... properties) {
+        return new Sql2Keyset(properties);
+    }
+
+    /**
+     * Order ascending (default).
+     * @return this keyset
+     */
+    public Sql2Keyset ascending() {
+        _descending = false;
+        return this;
+    }
+
+    /**
+     * Order descending.
+     * @return this keyset
+     */
+    public Sql2Keyset descending() {
+        _descending = true;
+        return this;
+    }
+
+    /**
+     * Continue after the last result of the previous page.
+     * @param continuationToken the token of the previous page, blank tokens start at the first page
+     * @return this keyset
+     * @throws IllegalArgumentException if the token is invalid or has been created for other sort properties
+     */
+    public Sql2Keyset after(final String continuationToken) {
+        _lastKey = decode(continuationToken);
+        return this;
+    }
+
+    /**
+     * Get the attributes the query is ordered by, the sort properties followed by {@code jcr:uuid}.
+     * @return copy of the order attributes
+     */
+    public String[] getOrderAttributes() {
+        return _orderAttributes.clone();
+    }
+
+    /**
+     * Check the order direction.
+     * @return true if ordered descending
+     */
+    public boolean isDescending() {
+        return _descending;
+    }
+
+    /**
+     * Check whether this keyset starts at the first page.
+     * @return true if no continuation token has been provided
+     */
+    public boolean isFirstPage() {
+        return _lastKey == null;
+    }
+
+    /**
+     * Create the constraint selecting all results having the sort properties after the last sort key.
+     * @return the keyset constraint, only requiring the sort properties for the first page
+     */
+    public Sql2JoinConstraint getConstraint() {
+        List<Sql2JoinConstraint> parts = new ArrayList<>(_orderAttributes.length);
+        for (int i = 0; i < _orderAttributes.length - 1; i++) {
+            parts.add(Sql2NullCondition.isNotNull(_orderAttributes[i]));
+        }
+        if (_lastKey != null) {
+            parts.add(getAfterLastKey());
+        }
+        return Sql2ConstraintGroup.and().matches(parts.toArray(new Sql2JoinConstraint[0]));
+    }
+
+    private Sql2JoinConstraint getAfterLastKey() {
+        Sql2JoinConstraint[] alternatives = new Sql2JoinConstraint[_orderAttributes.length];
+        for (int i = 0; i < _orderAttributes.length; i++) {
+            Sql2JoinConstraint[] parts = new Sql2JoinConstraint[i + 1];
+            for (int j = 0; j < i; j++) {
+                parts[j] = _lastKey.get(j).toCondition(_orderAttributes[j], true, _descending);
+            }
+            parts[i] = _lastKey.get(i).toCondition(_orderAttributes[i], false, _descending);
+            alternatives[i] = Sql2ConstraintGroup.and().matches(parts);
+        }
+        return Sql2ConstraintGroup.or().matches(alternatives);
+    }
+
+    /**
+     * Create the continuation token for the page following the given result node.
+     * @param lastNode the last result node of the current page
+     * @return the opaque continuation token, null for a null node or if the sort key cannot be read
+     * @throws IllegalStateException if the node has no single valued value of a sort property
+     */
+    public String createToken(final Node lastNode) {
+        String token = null;
+        if (lastNode != null) {
+            try {
+                List<String> parts = new ArrayList<>(_orderAttributes.length);
+                for (int i = 0; i < _orderAttributes.length - 1; i++) {
+                    SortKey key = SortKey.of(lastNode, _orderAttributes[i]);
+                    if (key == null) {
+                        throw new IllegalStateException("Missing or multi valued sort property " + _orderAttributes[i] + " on node " + lastNode.getPath());
+                    }
+                    parts.add(key.encode());
+                }
+                parts.add(new SortKey(PropertyType.STRING, lastNode.getIdentifier()).encode());
+                token = join(parts, TOKEN_SEPARATOR);
+            } catch (RepositoryException e) {
+                LOG.warn("Could not read sort key of the last result, no continuation token created.", e);
+            }
+        }
+        return token;
+    }
+
+    private List<SortKey> decode(final String token) {
+        List<SortKey> keys = null;
+        if (!isBlank(token)) {
+            String[] parts = split(token, TOKEN_SEPARATOR);
+            if (parts.length != _orderAttributes.length) {
+                throw new IllegalArgumentException("Continuation token " + token + " does not match the sort keys.");
+            }
+            try {
+                keys = new ArrayList<>(parts.length);
+                for (String part : parts) {
+                    keys.add(SortKey.decode(part));
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid continuation token " + token, e);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Typed sort key value of one order attribute.
+     */
+    private static final class SortKey {
+        private final int _type;
+        private final String _value;
+
+        private SortKey(final int type, final String value) {
+            _type = type;
+            _value = value;
+        }
+
+        private static SortKey of(final Node node, final String name) throws RepositoryException {
+            SortKey key = null;
+            if (node.hasProperty(name)) {
+                Property property = node.getProperty(name);
+                if (!property.isMultiple()) {
+                    switch (property.getType()) {
+                        case PropertyType.LONG:
+                            key = new SortKey(PropertyType.LONG, property.getString());
+                            break;
+                        case PropertyType.DOUBLE:
+                        case PropertyType.DECIMAL:
+                            key = new SortKey(PropertyType.DOUBLE, String.valueOf(property.getDouble()));
+                            break;
+                        case PropertyType.DATE:
+                            key = new SortKey(PropertyType.DATE, ISO8601.format(property.getDate()));
+                            break;
+                        default:
+                            key = new SortKey(PropertyType.STRING, property.getString());
+                    }
+                }
+            }
+            return key;
+        }
+
+        private String encode() {
+            String typed = PropertyType.nameFromValue(_type) + TYPE_SEPARATOR + _value;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(typed.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static SortKey decode(final String part) {
+            String typed = new String(Base64.getUrlDecoder().decode(part), StandardCharsets.UTF_8);
+            int type = PropertyType.valueFromName(substringBefore(typed, TYPE_SEPARATOR));
+            SortKey key = new SortKey(type, substringAfter(typed, TYPE_SEPARATOR));
+            // validate the value early, so that invalid tokens are detected before building the statement
+            key.toCondition(JcrConstants.JCR_UUID, true, false);
+            return key;
+        }
+
+        private Sql2JoinConstraint toCondition(final String name, final boolean equal, final boolean descending) {
+            Sql2JoinConstraint condition;
+            switch (_type) {
+                case PropertyType.LONG:
+                    condition = compare(Sql2LongCondition.property(name), Long.valueOf(_value), equal, descending);
+                    break;
+                case PropertyType.DOUBLE:
+                    condition = compare(Sql2DoubleCondition.property(name), Double.valueOf(_value), equal, descending);
+                    break;
+                case PropertyType.DATE:
+                    Calendar date = ISO8601.parse(_value);
+                    if (date == null) {
+                        throw new IllegalArgumentException("Invalid date sort key " + _value);
+                    }
+                    condition = compare(Sql2CalendarCondition.property(name), date, equal, descending);
+                    break;
+                case PropertyType.STRING:
+                    condition = compare(Sql2StringCondition.property(name), _value, equal, descending);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported sort key type " + _type);
+            }
+            return condition;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <V> Sql2JoinConstraint compare(final Sql2Compare<V> operand, final V value, final boolean equal, final boolean descending) {
+            Sql2JoinConstraint condition;
+            if (equal) {
+                condition = operand.equalsAny().values(value);
+            } else if (descending) {
+                condition = operand.lowerThan().value(value);
+            } else {
+                condition = operand.greaterThan().value(value);
+            }
+            return condition;
+        }
+    }
+}
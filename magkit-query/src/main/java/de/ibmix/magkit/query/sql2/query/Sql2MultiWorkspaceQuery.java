@@ -0,0 +1,364 @@
+package de.ibmix.magkit.query.sql2.query;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.query.QueryExecutors;
+import de.ibmix.magkit.query.sql2.statement.Sql2Builder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.Node;
+import javax.jcr.Property;
+import javax.jcr.PropertyType;
+import javax.jcr.RepositoryException;
+import javax.jcr.Value;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Fan-out of SQL2 node queries over several workspaces with a merged result.
+ * <p>Purpose: Searches spanning e.g. the {@code website}, {@code dam} and content app workspaces otherwise execute
+ * one query per workspace and merge the results by hand.</p>
+ * <p>Key features:</p>
+ * <ul>
+ *   <li>The same statement for several workspaces or an individual statement per workspace.</li>
+ *   <li>Concurrent execution of the workspace queries on a bounded executor, by default
+ *   {@link QueryExecutors#getDefaultExecutor()}. Each query runs with its own JCR sessions of the calling user, see
+ *   {@link QueryExecutors#withOwnSessions(java.util.concurrent.Callable)}, so it respects the access rights of the
+ *   caller. The results are loaded in the sessions of the caller when merging.</li>
+ *   <li>Timeout measured from the start of the fan-out. Workspaces whose query has not finished when it has elapsed
+ *   are cancelled and missing in the result. A running repository call finishes in the background.</li>
+ *   <li>Global ordering by a node comparator ({@link #byProperty(String, boolean)}) and global limit. With both, the
+ *   results are merged with a bounded top-K heap instead of sorting all results. The sort property of
+ *   {@link #byProperty(String, boolean)} is read once per node.</li>
+ * </ul>
+ * <p>Preconditions: With limit and ordering the limit is also applied to each workspace query, so the statements
+ * must order their results consistently with the comparator. Without ordering the results are concatenated in the
+ * order of the workspaces.</p>
+ * <p>Null and error handling: Failing workspace queries are logged at WARN level and contribute no results.</p>
+ * <p>Thread-safety: NOT thread-safe while configuring. Statements are built on configuration, so a configured query
+ * may be executed by several threads, each with its own Magnolia context.</p>
+ * <p>Usage example:</p>
+ * <pre>{@code
+ * List<Node> hits = Sql2MultiWorkspaceQuery.create()
+ *     .forWorkspaces(Sql2Statement.select().whereAll(Sql2.Condition.FullText.containsAll("magnolia")).orderBy("mgnl:lastModified").descending(), "website", "dam")
+ *     .orderBy(Sql2MultiWorkspaceQuery.byProperty("mgnl:lastModified", true))
+ *     .withLimit(20)
+ *     .withTimeout(2, TimeUnit.SECONDS)
+ *     .getResultNodes();
+ * }</pre>
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public final class Sql2MultiWorkspaceQuery {
+    private static final Logger LOG = LoggerFactory.getLogger(Sql2MultiWorkspaceQuery.class);
+
+    private final Map<String, String> _statements = new LinkedHashMap<>();
+    private final Map<String, Value> _bindValues = new LinkedHashMap<>();
+    private long _timeoutNanos;
+    private long _limit;
+    private Comparator<? super Node> _order;
+    private Executor _executor = QueryExecutors.getDefaultExecutor();
+
+    private Sql2MultiWorkspaceQuery() {
+    }
+
+    /**
+     * Create an empty fan-out query.
+     * @return new fan-out query
+     */
+    public static Sql2MultiWorkspaceQuery create() {
+        return new Sql2MultiWorkspaceQuery();
+    }
+
+    /**
+     * Create a comparator ordering nodes by a single valued property. Dates (by time) and numbers are compared
+     * numerically, other types as strings. Nodes without the property are ordered last. When merging results the
+     * property is read once per node instead of once per comparison.
+     * @param name the property name
+     * @param descending true for descending order
+     * @return node comparator
+     */
+    public static Comparator<Node> byProperty(final String name, final boolean descending) {
+        return new PropertyOrder(name, descending);
+    }
+
+    /**
+     * Execute the statement in the given workspaces.
+     * @param statementBuilder the statement builder, built once
+     * @param workspaces the workspace names
+     * @return this query
+     */
+    public Sql2MultiWorkspaceQuery forWorkspaces(final Sql2Builder statementBuilder, final String... workspaces) {
+        return forWorkspaces(statementBuilder.build(), workspaces);
+    }
+
+    /**
+     * Execute the statement in the given workspaces.
+     * @param sql2 the SQL2 statement
+     * @param workspaces the workspace names
+     * @return this query
+     */
+    public Sql2MultiWorkspaceQuery forWorkspaces(final String sql2, final String... workspaces) {
+        if (workspaces != null) {
+            for (String workspace : workspaces) {
+                _statements.put(workspace, sql2);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Execute an individual statement in the given workspace, replacing a previous statement of the workspace.
+     * @param workspace the workspace name
+     * @param statementBuilder the statement builder, built once
+     * @return this query
+     */
+    public Sql2MultiWorkspaceQuery forWorkspace(final String workspace, final Sql2Builder statementBuilder) {
+        return forWorkspaces(statementBuilder.build(), workspace);
+    }
+
+    /**
+     * Bind a value to a variable of all statements.
+     * @param name the variable name without leading {@code $}
+     * @param value the value
+     * @return this query
+     */
+    public Sql2MultiWorkspaceQuery withBindValue(final String name, final Value value) {
+        _bindValues.put(name, value);
+        return this;
+    }
+
+    /**
+     * Set the timeout of the fan-out. Workspaces whose query has not finished when the timeout has elapsed are missing
+     * in the result. Applies to concurrent execution only.
+     * @param timeout the timeout, 0 or less to wait for all workspaces
+     * @param unit the unit of the timeout
+     * @return this query
+     */
+    public Sql2MultiWorkspaceQuery withTimeout(final long timeout, final TimeUnit unit) {
+        _timeoutNanos = unit.toNanos(timeout);
+        return this;
+    }
+
+    /**
+     * Limit the merged result.
+     * @param limit the maximum number of nodes, 0 or less for no limit
+     * @return this query
+     */
+    public Sql2MultiWorkspaceQuery withLimit(final long limit) {
+        _limit = limit;
+        return this;
+    }
+
+    /**
+     * Set the executor of the workspace queries.
+     * @param executor the executor, null to execute the queries sequentially on the calling thread
+     * @return this query
+     */
+    public Sql2MultiWorkspaceQuery withExecutor(final Executor executor) {
+        _executor = executor;
+        return this;
+    }
+
+    /**
+     * Order the merged result.
+     * @param order the node comparator, null to concatenate the results in workspace order
+     * @return this query
+     */
+    public Sql2MultiWorkspaceQuery orderBy(final Comparator<? super Node> order) {
+        _order = order;
+        return this;
+    }
+
+    /**
+     * Execute the workspace queries and merge their results.
+     * @return non-null list of nodes
+     */
+    public List<Node> getResultNodes() {
+        List<List<Node>> results = new ArrayList<>();
+        if (_executor == null || _statements.size() < 2) {
+            _statements.forEach((workspace, statement) -> results.add(newBuilder(workspace, statement).getResultNodes()));
+        } else {
+            long deadline = System.nanoTime() + _timeoutNanos;
+            Map<String, CompletableFuture<List<Node>>> futures = new LinkedHashMap<>();
+            _statements.forEach((workspace, statement) -> futures.put(workspace, QueryExecutors.supplyNodesAsync(workspace, () -> newBuilder(workspace, statement).getResultNodeStream(), _executor, 0, TimeUnit.NANOSECONDS)));
+            futures.forEach((workspace, future) -> results.add(await(workspace, future, deadline)));
+        }
+        return merge(results);
+    }
+
+    private NodesQueryBuilder newBuilder(final String workspace, final String statement) {
+        NodesQueryBuilder builder = Sql2QueryBuilder.forNodes().fromWorkspace(workspace).withStatement(statement);
+        _bindValues.forEach(builder::withBindValue);
+        if (_limit > 0 && _order != null) {
+            builder.withLimit(_limit);
+        }
+        return builder;
+    }
+
+    private List<Node> await(final String workspace, final CompletableFuture<List<Node>> future, final long deadline) {
+        List<Node> result = Collections.emptyList();
+        try {
+            result = _timeoutNanos > 0 ? future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS) : future.get();
+        } catch (TimeoutException e) {
+            LOG.warn("Query in workspace {} timed out after {} ms, ignoring its results.", workspace, TimeUnit.NANOSECONDS.toMillis(_timeoutNanos));
+            future.cancel(true);
+        } catch (InterruptedException e) {
+            LOG.warn("Interrupted while waiting for the query in workspace {}.", workspace);
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LOG.warn("Failed to query workspace {}.", workspace, e.getCause());
+        }
+        return result;
+    }
+
+    private List<Node> merge(final List<List<Node>> results) {
+        List<Node> merged = new ArrayList<>();
+        if (_order == null) {
+            results.forEach(merged::addAll);
+            if (_limit > 0 && merged.size() > _limit) {
+                merged = new ArrayList<>(merged.subList(0, (int) _limit));
+            }
+        } else {
+            Comparator<SortEntry> order = getEntryOrder();
+            List<SortEntry> entries = new ArrayList<>();
+            if (_limit > 0) {
+                // bounded max-heap keeping the smallest nodes, the head is the largest node that is kept
+                PriorityQueue<SortEntry> heap = new PriorityQueue<>(order.reversed());
+                for (List<Node> nodes : results) {
+                    for (Node node : nodes) {
+                        heap.offer(toEntry(node));
+                        if (heap.size() > _limit) {
+                            heap.poll();
+                        }
+                    }
+                }
+                while (!heap.isEmpty()) {
+                    entries.add(heap.poll());
+                }
+                Collections.reverse(entries);
+            } else {
+                results.forEach(nodes -> nodes.forEach(node -> entries.add(toEntry(node))));
+                entries.sort(order);
+            }
+            entries.forEach(entry -> merged.add(entry._node));
+        }
+        return merged;
+    }
+
+    private Comparator<SortEntry> getEntryOrder() {
+        Comparator<SortEntry> order;
+        if (_order instanceof PropertyOrder) {
+            PropertyOrder propertyOrder = (PropertyOrder) _order;
+            order = (first, second) -> propertyOrder.compareKeys(first._key, second._key);
+        } else {
+            order = (first, second) -> _order.compare(first._node, second._node);
+        }
+        return order;
+    }
+
+    private SortEntry toEntry(final Node node) {
+        return new SortEntry(node, _order instanceof PropertyOrder ? ((PropertyOrder) _order).sortKey(node) : null);
+    }
+
+    /**
+     * Node with its sort key, read once before merging.
+     */
+    private static final class SortEntry {
+        private final Node _node;
+        private final Comparable<Object> _key;
+
+        private SortEntry(final Node node, final Comparable<Object> key) {
+            _node = node;
+            _key = key;
+        }
+    }
+
+    /**
+     * Order by a single valued property, see {@link #byProperty(String, boolean)}.
+     */
+    private static final class PropertyOrder implements Comparator<Node> {
+        private final String _name;
+        private final boolean _descending;
+
+        private PropertyOrder(final String name, final boolean descending) {
+            _name = name;
+            _descending = descending;
+        }
+
+        @Override
+        public int compare(final Node first, final Node second) {
+            return compareKeys(sortKey(first), sortKey(second));
+        }
+
+        private int compareKeys(final Comparable<Object> first, final Comparable<Object> second) {
+            int result;
+            if (first == null || second == null) {
+                result = first == null ? (second == null ? 0 : 1) : -1;
+            } else {
+                // properties with different types in different nodes are ordered by type
+                result = first.getClass() == second.getClass() ? first.compareTo(second) : first.getClass().getName().compareTo(second.getClass().getName());
+                result = _descending ? -result : result;
+            }
+            return result;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Comparable<Object> sortKey(final Node node) {
+            Comparable<?> key = null;
+            try {
+                if (node.hasProperty(_name)) {
+                    Property property = node.getProperty(_name);
+                    if (!property.isMultiple()) {
+                        switch (property.getType()) {
+                            case PropertyType.DATE:
+                                key = (double) property.getDate().getTimeInMillis();
+                                break;
+                            case PropertyType.LONG:
+                            case PropertyType.DOUBLE:
+                            case PropertyType.DECIMAL:
+                                key = property.getDouble();
+                                break;
+                            default:
+                                key = property.getString();
+                        }
+                    }
+                }
+            } catch (RepositoryException e) {
+                LOG.debug("Could not read sort property {}.", _name, e);
+            }
+            return (Comparable<Object>) key;
+        }
+    }
+}
@@ -20,6 +20,8 @@ package de.ibmix.magkit.query.sql2.query;
  * #L%
  */
 
+import de.ibmix.magkit.query.QueryExecutors;
+import de.ibmix.magkit.query.QueryGuardrails;
 import de.ibmix.magkit.query.sql2.query.jcrwrapper.NodesQuery;
 import de.ibmix.magkit.query.sql2.statement.Sql2Builder;
 import info.magnolia.repository.RepositoryConstants;
@@ -28,8 +30,14 @@ import org.slf4j.LoggerFactory;
 
 import javax.jcr.Node;
 import javax.jcr.RepositoryException;
+import javax.jcr.Value;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Concrete builder implementation for constructing and executing node-focused JCR-SQL2 queries.
@@ -39,7 +47,10 @@ import java.util.List;
  * <ul>
  *   <li>Fluent workspace selection (explicit or {@link #fromWebsite()}).</li>
  *   <li>Supports raw SQL2 strings and {@link Sql2Builder} instances.</li>
- *   <li>Optional limit/offset for paging.</li>
+ *   <li>Optional limit/offset for paging and bind values.</li>
+ *   <li>Opt-in result caching with a shared {@link QueryResultCache}.</li>
+ *   <li>Lazily evaluated stream and consumer access for large results.</li>
+ *   <li>Keyset paging with continuation tokens (see {@link Sql2Keyset}).</li>
  *   <li>Graceful error handling returning empty lists on failure.</li>
  * </ul>
  * <p>Null and error handling: Methods never return {@code null}. Repository exceptions during execution are caught and
@@ -118,28 +129,203 @@ public class Sql2NodesQueryBuilder extends Sql2QueryBuilder implements QueryWork
         return withStatement(() -> sql2);
     }
 
+    /**
+     * Bind a value to a variable of the statement.
+     * @param name bind variable name without leading {@code $}
+     * @param value value to bind
+     * @return this builder
+     */
+    public NodesQueryBuilder withBindValue(String name, Value value) {
+        addBindValue(name, value);
+        return me();
+    }
+
+    /**
+     * Cache the results in the given cache, invalidated by any change in the workspace.
+     * @param resultCache shared cache instance, null disables caching
+     * @return this builder
+     */
+    public NodesQueryBuilder withResultCache(QueryResultCache resultCache) {
+        return withResultCache(resultCache, null);
+    }
+
+    /**
+     * Cache the results in the given cache, invalidated by changes in the subtree of the scope path.
+     * @param resultCache shared cache instance, null disables caching
+     * @param scopePath path of the subtree the results depend on
+     * @return this builder
+     */
+    public NodesQueryBuilder withResultCache(QueryResultCache resultCache, String scopePath) {
+        setResultCache(resultCache, scopePath);
+        return me();
+    }
+
     /**
      * Build a {@link NodesQuery} from current builder state.
      * @return non-null {@link NodesQuery}
      */
     public NodesQuery buildNodesQuery() {
-        return new NodesQuery(getQuery());
+        return new NodesQuery(getQuery(), getWorkspace()).withGuardrails(getGuardrails().forQueryLimit(getLimit()));
     }
 
     /**
-     * Execute the query returning all {@link Node} instances.
+     * Execute the query returning all {@link Node} instances. With a result cache configured, cached results are
+     * returned if available.
      * @return non-null list of nodes (empty on error)
      */
     public List<Node> getResultNodes() {
         List<Node> nodes = Collections.emptyList();
         try {
-            nodes = buildNodesQuery().execute().getNodeList();
+            QueryResultCache cache = getResultCache();
+            nodes = cache == null ? buildNodesQuery().execute().getNodeList()
+                : cache.getNodes(getCacheKey(QueryResultCache.TYPE_NODES), () -> buildNodesQuery().execute());
         } catch (RepositoryException e) {
             LOG.warn("Failed to get query result nodes. Returning empty list.", e);
         }
         return nodes;
     }
 
+    /**
+     * Execute the query returning a lazily evaluated stream of {@link Node} instances. With a result cache configured,
+     * the cached result list is streamed.
+     * @return non-null stream of nodes (empty on error)
+     */
+    public Stream<Node> getResultNodeStream() {
+        Stream<Node> nodes = Stream.empty();
+        if (getResultCache() != null) {
+            nodes = getResultNodes().stream();
+        } else {
+            try {
+                nodes = buildNodesQuery().execute().getNodeStream();
+            } catch (RepositoryException e) {
+                LOG.warn("Failed to get query result nodes. Returning empty stream.", e);
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * Execute the query passing each {@link Node} to the consumer without collecting the results.
+     * @param consumer action performed for each node, must not be null
+     */
+    public void forEachResultNode(Consumer<? super Node> consumer) {
+        try (Stream<Node> nodes = getResultNodeStream()) {
+            nodes.forEach(consumer);
+        }
+    }
+
+    /**
+     * Execute the query asynchronously on the default query executor with its own JCR sessions of the current user,
+     * see {@link QueryExecutors#withOwnSessions(java.util.concurrent.Callable)}. The builder must not be changed until
+     * the future is completed.
+     * @param timeout timeout, 0 or less to wait without timeout
+     * @param unit unit of the timeout
+     * @return future completing with all nodes, with the nodes collected until the timeout, or exceptionally on
+     * repository errors
+     */
+    public CompletableFuture<List<Node>> getResultNodesAsync(long timeout, TimeUnit unit) {
+        return getResultNodesAsync(QueryExecutors.getDefaultExecutor(), timeout, unit);
+    }
+
+    /**
+     * Execute the query asynchronously on the given executor with its own JCR sessions, see
+     * {@link QueryExecutors#supplyNodesAsync(String, java.util.concurrent.Callable, Executor, long, TimeUnit)}.
+     * The result nodes are loaded in the session of the thread accessing the result list. The builder must not be
+     * changed until the future is completed.
+     * @param executor executor running the query, e.g. a virtual thread executor
+     * @param timeout timeout, 0 or less to wait without timeout
+     * @param unit unit of the timeout
+     * @return future completing with all nodes, with the nodes collected until the timeout, or exceptionally on
+     * repository errors
+     */
+    public CompletableFuture<List<Node>> getResultNodesAsync(Executor executor, long timeout, TimeUnit unit) {
+        return QueryExecutors.supplyNodesAsync(getWorkspace(), () -> {
+            QueryResultCache cache = getResultCache();
+            return cache == null ? buildNodesQuery().execute().getNodeStream()
+                : cache.getNodes(getCacheKey(QueryResultCache.TYPE_NODES), () -> buildNodesQuery().execute()).stream();
+        }, executor, timeout, unit);
+    }
+
+    /**
+     * Use keyset (cursor) paging instead of offset paging. Must be called after the statement has been provided.
+     * @param keyset keyset paging definition with the continuation token of the previous page
+     * @return this builder
+     * @throws IllegalStateException if the statement is not a {@link de.ibmix.magkit.query.sql2.statement.Sql2Statement}
+     */
+    public NodesQueryBuilder withKeyset(Sql2Keyset keyset) {
+        setKeyset(keyset);
+        return me();
+    }
+
+    /**
+     * Render the condition literals as generated bind variables. Must be called after the statement has been provided.
+     * @return this builder
+     * @throws IllegalStateException if the statement is not a {@link de.ibmix.magkit.query.sql2.statement.Sql2Statement}
+     */
+    public NodesQueryBuilder withBoundLiterals() {
+        setBindLiterals(true);
+        return me();
+    }
+
+    /**
+     * Explain every new statement once before execution and log a warning if it traverses the repository.
+     * @return this builder
+     */
+    public NodesQueryBuilder withTraversalCheck() {
+        setTraversalCheck(true);
+        return me();
+    }
+
+    /**
+     * Bound this query by the given guardrails instead of the default guardrails.
+     * @param guardrails the guardrails of this query, null for the defaults
+     * @return this builder
+     */
+    public NodesQueryBuilder withGuardrails(QueryGuardrails guardrails) {
+        setGuardrails(guardrails);
+        return me();
+    }
+
+    /**
+     * Explain the query with the repository's {@code explain} command.
+     * @return the query plan, unsupported if the repository cannot explain queries
+     * @throws RepositoryException on repository errors
+     */
+    public Sql2QueryPlan explain() throws RepositoryException {
+        return getQueryPlan();
+    }
+
+    /**
+     * Count the results of the query without loading the result nodes. Configured limit and offset apply.
+     * @return number of results (0 on error)
+     */
+    public long count() {
+        return countResults();
+    }
+
+    /**
+     * Check whether the query has any result. Executes the query with limit 1 without loading the result node.
+     * @return true if at least one result exists (false on error)
+     */
+    public boolean exists() {
+        return hasResults();
+    }
+
+    /**
+     * Execute the query returning the nodes of the requested page. A continuation token is provided if keyset paging
+     * is enabled and the page is full.
+     * @return non-null result page (empty on error)
+     */
+    public ResultPage<Node> getResultPage() {
+        List<Node> nodes = getResultNodes();
+        String token = null;
+        Sql2Keyset keyset = getKeyset();
+        if (keyset != null && getLimit() > 0 && nodes.size() >= getLimit()) {
+            token = keyset.createToken(nodes.get(nodes.size() - 1));
+        }
+        return new ResultPage<>(nodes, token);
+    }
+
     /**
      * Self-type accessor for fluent chaining.
      * @return this builder instance
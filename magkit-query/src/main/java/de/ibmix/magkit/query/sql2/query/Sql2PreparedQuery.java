@@ -0,0 +1,285 @@
+package de.ibmix.magkit.query.sql2.query;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.query.QueryGuardrails;
+import de.ibmix.magkit.query.monitor.QueryMeasurement;
+import de.ibmix.magkit.query.monitor.QueryStatistics;
+import de.ibmix.magkit.query.sql2.query.jcrwrapper.NodesResult;
+import de.ibmix.magkit.query.sql2.query.jcrwrapper.RowsResult;
+import de.ibmix.magkit.query.sql2.statement.Sql2Builder;
+import info.magnolia.context.MgnlContext;
+import info.magnolia.repository.RepositoryConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.Value;
+import javax.jcr.query.Query;
+import javax.jcr.query.QueryResult;
+import javax.jcr.query.Row;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reusable prepared SQL2 query: the statement is built once, the parsed JCR {@link Query} is cached per session and
+ * each execution only binds values and applies limit and offset.
+ * <p>Purpose: {@link Sql2QueryBuilder} builds the statement String and lets the repository parse it on every
+ * execution, even for statements differing only by bind values (see
+ * {@link de.ibmix.magkit.query.sql2.condition.Sql2PropertyCondition#bindVariable(String)}). A prepared query avoids
+ * both for repeated executions.</p>
+ * <p>Key features:</p>
+ * <ul>
+ *   <li>Statement built once on creation.</li>
+ *   <li>Parsed {@link Query} objects cached per JCR session of the workspace. JCR queries are bound to the session
+ *   that created them, so a new session (e.g. of the next request) parses the statement once again. Queries of
+ *   sessions that are no longer live are released on every access, so the cache does not keep the sessions of
+ *   finished requests reachable. A query references its session, so weak keys would not release them.</li>
+ *   <li>All bind variables of the statement must be bound on every execution, values of previous executions are
+ *   never reused.</li>
+ *   <li>Counters for executions and parses and the time spent building and parsing the statement, e.g. for
+ *   benchmarks.</li>
+ *   <li>Executions are bounded by the {@link QueryGuardrails#getDefaults() default guardrails}.</li>
+ * </ul>
+ * <p>Null and error handling: Repository exceptions are propagated by the execute methods; the {@code getResult*}
+ * methods log them at WARN level and return empty lists. Missing bind values cause an
+ * {@link IllegalArgumentException}.</p>
+ * <p>Thread-safety: Thread-safe. Executions on the same cached {@link Query} are serialized.</p>
+ * <p>Usage example:</p>
+ * <pre>{@code
+ * private static final Sql2PreparedQuery NEWS = Sql2PreparedQuery.prepare(WEBSITE, Sql2Statement.select().from("mgnl:page")
+ *     .whereAll(Sql2.Condition.String.property("mgnl:template").equalsAny().bindVariable("template")));
+ * List<Node> nodes = NEWS.getResultNodes(Map.of("template", new StringValue("my-module:pages/news")), 5, 0);
+ * }</pre>
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public final class Sql2PreparedQuery {
+    private static final Logger LOG = LoggerFactory.getLogger(Sql2PreparedQuery.class);
+
+    public static final int DEFAULT_MAX_SESSIONS = 64;
+
+    private final String _workspace;
+    private final String _statement;
+    private final long _buildNanos;
+    private final int _maxSessions;
+    private final Map<Session, Query> _queries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Session, Query> eldest) {
+            return size() > _maxSessions;
+        }
+    };
+    private final AtomicLong _executions = new AtomicLong();
+    private final AtomicLong _parses = new AtomicLong();
+    private final AtomicLong _parseNanos = new AtomicLong();
+
+    private Sql2PreparedQuery(final String workspace, final Sql2Builder statementBuilder, final int maxSessions) {
+        long start = System.nanoTime();
+        _statement = statementBuilder.build();
+        _buildNanos = System.nanoTime() - start;
+        _workspace = workspace;
+        _maxSessions = Math.max(1, maxSessions);
+    }
+
+    /**
+     * Prepare a query on the given workspace.
+     * @param workspace JCR workspace name
+     * @param statementBuilder statement builder, called once
+     * @return prepared query
+     */
+    public static Sql2PreparedQuery prepare(final String workspace, final Sql2Builder statementBuilder) {
+        return prepare(workspace, statementBuilder, DEFAULT_MAX_SESSIONS);
+    }
+
+    /**
+     * Prepare a query on the given workspace.
+     * @param workspace JCR workspace name
+     * @param statementBuilder statement builder, called once
+     * @param maxSessions maximum number of sessions with a cached parsed query
+     * @return prepared query
+     */
+    public static Sql2PreparedQuery prepare(final String workspace, final Sql2Builder statementBuilder, final int maxSessions) {
+        return new Sql2PreparedQuery(workspace, statementBuilder, maxSessions);
+    }
+
+    /**
+     * Prepare a query on the website workspace.
+     * @param statementBuilder statement builder, called once
+     * @return prepared query
+     */
+    public static Sql2PreparedQuery prepareForWebsite(final Sql2Builder statementBuilder) {
+        return prepare(RepositoryConstants.WEBSITE, statementBuilder);
+    }
+
+    /**
+     * Execute the query for the nodes of the result.
+     * @param bindValues values for all bind variables by name (without leading {@code $}), may be null without variables
+     * @param limit maximum number of results, 0 or less for no limit
+     * @param offset number of results to skip, 0 or less for none
+     * @return nodes result
+     * @throws RepositoryException on repository errors
+     * @throws IllegalArgumentException if a bind variable has no value
+     */
+    public NodesResult executeForNodes(final Map<String, Value> bindValues, final long limit, final long offset) throws RepositoryException {
+        QueryMeasurement measurement = QueryStatistics.getInstance().start(_statement, Query.JCR_SQL2, _workspace);
+        return new NodesResult(execute(bindValues, limit, offset, measurement), measurement, QueryGuardrails.getDefaults().forQueryLimit(limit), _statement);
+    }
+
+    /**
+     * Execute the query for the rows of the result.
+     * @param bindValues values for all bind variables by name (without leading {@code $}), may be null without variables
+     * @param limit maximum number of results, 0 or less for no limit
+     * @param offset number of results to skip, 0 or less for none
+     * @return rows result
+     * @throws RepositoryException on repository errors
+     * @throws IllegalArgumentException if a bind variable has no value
+     */
+    public RowsResult executeForRows(final Map<String, Value> bindValues, final long limit, final long offset) throws RepositoryException {
+        QueryMeasurement measurement = QueryStatistics.getInstance().start(_statement, Query.JCR_SQL2, _workspace);
+        return new RowsResult(execute(bindValues, limit, offset, measurement), measurement, QueryGuardrails.getDefaults().forQueryLimit(limit), _statement);
+    }
+
+    /**
+     * Execute the query returning all result nodes.
+     * @param bindValues values for all bind variables by name, may be null without variables
+     * @param limit maximum number of results, 0 or less for no limit
+     * @param offset number of results to skip, 0 or less for none
+     * @return non-null list of nodes (empty on repository error)
+     */
+    public List<Node> getResultNodes(final Map<String, Value> bindValues, final long limit, final long offset) {
+        List<Node> nodes = Collections.emptyList();
+        try {
+            nodes = executeForNodes(bindValues, limit, offset).getNodeList();
+        } catch (RepositoryException e) {
+            LOG.warn("Failed to get prepared query result nodes. Returning empty list.", e);
+        }
+        return nodes;
+    }
+
+    /**
+     * Execute the query returning all result rows.
+     * @param bindValues values for all bind variables by name, may be null without variables
+     * @param limit maximum number of results, 0 or less for no limit
+     * @param offset number of results to skip, 0 or less for none
+     * @return non-null list of rows (empty on repository error)
+     */
+    public List<Row> getResultRows(final Map<String, Value> bindValues, final long limit, final long offset) {
+        List<Row> rows = Collections.emptyList();
+        try {
+            rows = executeForRows(bindValues, limit, offset).getRowList();
+        } catch (RepositoryException e) {
+            LOG.warn("Failed to get prepared query result rows. Returning empty list.", e);
+        }
+        return rows;
+    }
+
+    /**
+     * Get the statement built on preparation.
+     * @return SQL2 statement
+     */
+    public String getStatement() {
+        return _statement;
+    }
+
+    /**
+     * Get the workspace the query is executed on.
+     * @return workspace name
+     */
+    public String getWorkspace() {
+        return _workspace;
+    }
+
+    /**
+     * Get the time spent building the statement.
+     * @return build time in nanoseconds
+     */
+    public long getBuildNanos() {
+        return _buildNanos;
+    }
+
+    /**
+     * Get the number of executions.
+     * @return execution count
+     */
+    public long getExecutionCount() {
+        return _executions.get();
+    }
+
+    /**
+     * Get the number of times the statement has been parsed by the repository, i.e. the number of cache misses.
+     * @return parse count
+     */
+    public long getParseCount() {
+        return _parses.get();
+    }
+
+    /**
+     * Get the total time spent parsing the statement.
+     * @return parse time in nanoseconds
+     */
+    public long getParseNanos() {
+        return _parseNanos.get();
+    }
+
+    private QueryResult execute(final Map<String, Value> bindValues, final long limit, final long offset, final QueryMeasurement measurement) throws RepositoryException {
+        Query query = getQuery(MgnlContext.getJCRSession(_workspace));
+        _executions.incrementAndGet();
+        synchronized (query) {
+            for (String name : query.getBindVariableNames()) {
+                Value value = bindValues == null ? null : bindValues.get(name);
+                if (value == null) {
+                    throw new IllegalArgumentException("Missing value for bind variable $" + name + " of statement " + _statement);
+                }
+                query.bindValue(name, value);
+            }
+            // always set limit and offset to reset the values of previous executions
+            long maxLimit = QueryGuardrails.getDefaults().applyLimit(limit, _statement);
+            query.setLimit(maxLimit > 0 ? maxLimit : Long.MAX_VALUE);
+            query.setOffset(Math.max(offset, 0));
+            return measurement.execute(query);
+        }
+    }
+
+    private Query getQuery(final Session session) throws RepositoryException {
+        Query query;
+        synchronized (_queries) {
+            // sessions of finished requests are logged out, release their queries on every access
+            _queries.keySet().removeIf(cached -> !cached.isLive());
+            query = _queries.get(session);
+        }
+        if (query == null) {
+            long start = System.nanoTime();
+            query = session.getWorkspace().getQueryManager().createQuery(_statement, Query.JCR_SQL2);
+            _parseNanos.addAndGet(System.nanoTime() - start);
+            _parses.incrementAndGet();
+            synchronized (_queries) {
+                _queries.put(session, query);
+            }
+        }
+        return query;
+    }
+}
@@ -20,15 +20,22 @@ package de.ibmix.magkit.query.sql2.query;
  * #L%
  */
 
+import de.ibmix.magkit.query.QueryGuardrails;
+import de.ibmix.magkit.query.sql2.query.jcrwrapper.RowsQuery;
 import de.ibmix.magkit.query.sql2.statement.Sql2Builder;
+import de.ibmix.magkit.query.sql2.statement.Sql2SelectorNames;
+import de.ibmix.magkit.query.sql2.statement.Sql2TemplateBuilder;
 import info.magnolia.context.MgnlContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
+import javax.jcr.Value;
 import javax.jcr.query.Query;
 import javax.jcr.query.QueryManager;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Abstract base class for node and row query builders providing shared configuration and query creation logic.
@@ -39,6 +46,13 @@ import javax.jcr.query.QueryManager;
  *   <li>Centralized limit/offset sanitization (negative values coerced to zero).</li>
  *   <li>Flexible statement sourcing via {@link Sql2Builder} functional interface.</li>
  *   <li>Factory methods {@link #forNodes()} and {@link #forRows()} initiating fluent build chains.</li>
+ *   <li>Bind values applied to every created query.</li>
+ *   <li>Opt-in result caching with a shared {@link QueryResultCache}.</li>
+ *   <li>Keyset paging with {@link Sql2Keyset} for {@link Sql2TemplateBuilder} statements.</li>
+ *   <li>Optional rendering of condition literals as generated bind variables, keeping the statement text stable.</li>
+ *   <li>Query plan explanation and optional runtime warning for statements traversing the repository.</li>
+ *   <li>{@link QueryGuardrails} capping the limit and truncating runaway result iterations, the defaults or per
+ *   query.</li>
  * </ul>
  * <p>Usage example:</p>
  * <pre>{@code Sql2QueryBuilder.forNodes().fromWebsite().withStatement("SELECT * FROM [mgnl:page]")
@@ -58,6 +72,13 @@ public abstract class Sql2QueryBuilder {
     private long _limit = 0;
     private long _offset = 0;
     private Sql2Builder _statementBuilder;
+    private final Map<String, Value> _bindValues = new LinkedHashMap<>();
+    private QueryResultCache _resultCache;
+    private String _cacheScopePath;
+    private Sql2Keyset _keyset;
+    private boolean _bindLiterals;
+    private boolean _traversalCheck;
+    private QueryGuardrails _guardrails;
 
     protected Sql2QueryBuilder(){}
 
@@ -81,6 +102,14 @@ public abstract class Sql2QueryBuilder {
         _workspace = workspace;
     }
 
+    /**
+     * Get the workspace the query is executed in.
+     * @return the workspace name
+     */
+    protected String getWorkspace() {
+        return _workspace;
+    }
+
     protected void setLimit(long limit) {
         _limit = Math.max(limit, 0);
     }
@@ -98,7 +127,196 @@ public abstract class Sql2QueryBuilder {
     }
 
     /**
-     * Create the underlying JCR {@link Query} object applying limit and offset if configured.
+     * Get the configured result limit.
+     * @return the limit or 0 if the result is not limited
+     */
+    protected long getLimit() {
+        return _limit;
+    }
+
+    /**
+     * Enable keyset paging. The statement ordering is replaced by the keyset ordering and the keyset constraint is
+     * added to the statement constraints.
+     * @param keyset keyset paging definition, null disables keyset paging
+     * @throws IllegalStateException if the statement is not a {@link Sql2TemplateBuilder}
+     */
+    protected void setKeyset(Sql2Keyset keyset) {
+        if (keyset != null && !(_statementBuilder instanceof Sql2TemplateBuilder)) {
+            throw new IllegalStateException("Keyset paging requires a Sql2Statement or Sql2ImmutableStatement.");
+        }
+        _keyset = keyset;
+    }
+
+    /**
+     * Get the configured keyset paging.
+     * @return the keyset or {@code null} if keyset paging is not enabled
+     */
+    protected Sql2Keyset getKeyset() {
+        return _keyset;
+    }
+
+    /**
+     * Render the condition literals of the statement as generated bind variables, so that the statement text is the
+     * same for all literal values and the repository can reuse its parsed and planned queries.
+     * @param bindLiterals true to bind literals, false to render them into the statement
+     * @throws IllegalStateException if literals should be bound and the statement is not a {@link Sql2TemplateBuilder}
+     */
+    protected void setBindLiterals(boolean bindLiterals) {
+        if (bindLiterals && !(_statementBuilder instanceof Sql2TemplateBuilder)) {
+            throw new IllegalStateException("Binding literals requires a Sql2Statement or Sql2ImmutableStatement.");
+        }
+        _bindLiterals = bindLiterals;
+    }
+
+    /**
+     * Explain every new statement once before execution and log a warning if it traverses the repository.
+     * @param traversalCheck true to check the query plans
+     */
+    protected void setTraversalCheck(boolean traversalCheck) {
+        _traversalCheck = traversalCheck;
+    }
+
+    /**
+     * Bound the query by the given guardrails instead of the default guardrails.
+     * @param guardrails the guardrails of this query, null for the defaults
+     */
+    protected void setGuardrails(QueryGuardrails guardrails) {
+        _guardrails = guardrails;
+    }
+
+    /**
+     * Get the guardrails bounding the query.
+     * @return the configured guardrails or the {@link QueryGuardrails#getDefaults() defaults}
+     */
+    protected QueryGuardrails getGuardrails() {
+        return _guardrails == null ? QueryGuardrails.getDefaults() : _guardrails;
+    }
+
+    /**
+     * Explain the query of the current builder state.
+     * @return the query plan, unsupported if the repository cannot explain queries
+     * @throws RepositoryException on repository errors
+     */
+    protected Sql2QueryPlan getQueryPlan() throws RepositoryException {
+        Map<String, Value> bindValues = new LinkedHashMap<>(_bindValues);
+        String statement = buildStatement(bindValues);
+        return Sql2QueryPlan.explain(_workspace, statement, bindValues);
+    }
+
+    /**
+     * Execute the query and count the results without loading the result nodes. The maximum limit of the guardrails
+     * is not applied, a count must not be truncated by it.
+     * @return number of results, 0 on repository errors
+     */
+    protected long countResults() {
+        long count = 0;
+        QueryGuardrails guardrails = _guardrails;
+        _guardrails = getGuardrails().withMaxLimit(0);
+        try {
+            Query query = getQuery();
+            if (query != null) {
+                count = new RowsQuery(query, _workspace).execute().getSize();
+            }
+        } catch (RepositoryException e) {
+            LOG.warn("Failed to count query results. Returning 0.", e);
+        } finally {
+            _guardrails = guardrails;
+        }
+        return count;
+    }
+
+    /**
+     * Execute the query with limit 1 and check for a result without loading the result node.
+     * @return true if there is a result, false if there is none or on repository errors
+     */
+    protected boolean hasResults() {
+        boolean hasResults = false;
+        long limit = _limit;
+        _limit = 1;
+        try {
+            Query query = getQuery();
+            hasResults = query != null && new RowsQuery(query, _workspace).execute().hasResults();
+        } catch (RepositoryException e) {
+            LOG.warn("Failed to check for query results. Returning false.", e);
+        } finally {
+            _limit = limit;
+        }
+        return hasResults;
+    }
+
+    /**
+     * Get the selector name of the FROM clause of the statement.
+     * @return the selector name or {@code null} if the statement does not define one
+     */
+    protected String getFromSelectorName() {
+        return _statementBuilder instanceof Sql2SelectorNames ? ((Sql2SelectorNames) _statementBuilder).getFromSelectorName() : null;
+    }
+
+    /**
+     * Add a value bound to the variable of the statement, e.g. {@code $path} for variable name {@code path}.
+     * @param name bind variable name without leading {@code $}
+     * @param value value to bind, ignored if name or value are null
+     */
+    protected void addBindValue(String name, Value value) {
+        if (name != null && value != null) {
+            _bindValues.put(name, value);
+        }
+    }
+
+    /**
+     * Enable result caching for this query. Changes in the subtree of the scope path invalidate the cached result.
+     * @param resultCache shared cache instance, null disables caching
+     * @param scopePath path of the subtree the result depends on, null or blank for the whole workspace
+     */
+    protected void setResultCache(QueryResultCache resultCache, String scopePath) {
+        _resultCache = resultCache;
+        _cacheScopePath = scopePath;
+    }
+
+    /**
+     * Get the configured result cache.
+     * @return the cache or {@code null} if caching is not enabled
+     */
+    protected QueryResultCache getResultCache() {
+        return _resultCache;
+    }
+
+    /**
+     * Create the result cache key for the current builder state.
+     * @param resultType the type of the cached result
+     * @return the key or {@code null} if caching is disabled or not possible for this query
+     */
+    QueryResultCache.CacheKey getCacheKey(String resultType) {
+        QueryResultCache.CacheKey key = null;
+        if (_resultCache != null && _statementBuilder != null) {
+            Map<String, Value> bindValues = new LinkedHashMap<>(_bindValues);
+            String statement = buildStatement(bindValues);
+            key = _resultCache.createKey(resultType, _workspace, statement, bindValues, _limit, _offset, _cacheScopePath);
+        }
+        return key;
+    }
+
+    /**
+     * Build the statement with keyset paging and generated literal bind variables if configured.
+     * @param bindValues map receiving the generated literal bind values
+     * @return SQL2 statement
+     */
+    private String buildStatement(Map<String, Value> bindValues) {
+        String statement;
+        Map<String, Value> literalBindings = _bindLiterals ? bindValues : null;
+        if (_keyset != null) {
+            statement = ((Sql2TemplateBuilder) _statementBuilder).build(_keyset.getConstraint(), _keyset.getOrderAttributes(), _keyset.isDescending(), literalBindings);
+        } else if (literalBindings != null) {
+            statement = ((Sql2TemplateBuilder) _statementBuilder).build(literalBindings);
+        } else {
+            statement = _statementBuilder.build();
+        }
+        return statement;
+    }
+
+    /**
+     * Create the underlying JCR {@link Query} object applying limit, offset and bind values if configured. The limit is
+     * capped by the maximum limit of the guardrails.
      * May return {@code null} on repository errors which are logged.
      * @return {@link Query} or {@code null} if creation failed
      */
@@ -107,13 +325,22 @@ public abstract class Sql2QueryBuilder {
         try {
             final Session jcrSession = MgnlContext.getJCRSession(_workspace);
             final QueryManager queryManager = jcrSession.getWorkspace().getQueryManager();
-            query = queryManager.createQuery(_statementBuilder.build(), Query.JCR_SQL2);
-            if (_limit > 0) {
-                query.setLimit(_limit);
+            final Map<String, Value> bindValues = new LinkedHashMap<>(_bindValues);
+            final String statement = buildStatement(bindValues);
+            if (_traversalCheck) {
+                Sql2QueryPlan.warnOnTraversal(_workspace, statement, bindValues);
+            }
+            query = queryManager.createQuery(statement, Query.JCR_SQL2);
+            final long limit = getGuardrails().applyLimit(_limit, statement);
+            if (limit > 0) {
+                query.setLimit(limit);
             }
             if (_offset > 0) {
                 query.setOffset(_offset);
             }
+            for (Map.Entry<String, Value> binding : bindValues.entrySet()) {
+                query.bindValue(binding.getKey(), binding.getValue());
+            }
         } catch (RepositoryException e) {
             LOG.error("Could not create query object. Return NULL", e);
         }
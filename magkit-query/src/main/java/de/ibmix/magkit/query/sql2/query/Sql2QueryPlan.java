@@ -0,0 +1,222 @@
+package de.ibmix.magkit.query.sql2.query;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.query.monitor.QueryStatistics;
+import info.magnolia.context.MgnlContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.Value;
+import javax.jcr.query.InvalidQueryException;
+import javax.jcr.query.Query;
+import javax.jcr.query.RowIterator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.apache.commons.lang3.StringUtils.substringAfter;
+import static org.apache.commons.lang3.StringUtils.trimToEmpty;
+
+/**
+ * Execution plan of a SQL2 statement as reported by the repository's {@code explain} command.
+ * <p>Purpose: Queries that are not backed by an index fall back to traversing the repository and get slow with growing
+ * content. The plan reveals which index the repository would use for every selector of the statement and whether it
+ * would traverse.</p>
+ * <p>Key features:</p>
+ * <ul>
+ *   <li>{@link #explain(Session, String, Map)} runs {@code explain <statement>} and parses the index of every selector,
+ *   e.g. {@code property}, {@code lucene:damAssetLucene} or {@code traverse}.</li>
+ *   <li>{@link #warnOnTraversal(String, String, Map)} logs traversal plans once per statement fingerprint at WARN level,
+ *   used by the query builders with {@code withTraversalCheck()}.</li>
+ *   <li>{@link QueryPlanAssertions} for tests asserting that statements are index-backed.</li>
+ * </ul>
+ * <p>Preconditions: Explain is supported by Jackrabbit Oak repositories. Repositories without explain support, like
+ * Jackrabbit 2, produce an unsupported plan ({@link #isSupported()} returns false).</p>
+ * <p>Null and error handling: Unsupported plans have a null plan text, no indexes and are not traversal plans. Other
+ * repository errors are propagated by {@code explain}.</p>
+ * <p>Thread-safety: Immutable.</p>
+ * <p>Usage example:</p>
+ * <pre>{@code
+ * Sql2QueryPlan plan = Sql2QueryBuilder.forNodes().fromWebsite().withStatement(statement).explain();
+ * if (plan.isTraversal()) {
+ *     LOG.warn("Traversing query: {}", plan.getPlan());
+ * }
+ * }</pre>
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public final class Sql2QueryPlan {
+    private static final Logger LOG = LoggerFactory.getLogger(Sql2QueryPlan.class);
+
+    public static final String EXPLAIN = "explain ";
+    public static final String PLAN_COLUMN = "plan";
+    public static final String TRAVERSE = "traverse";
+    public static final int MAX_CHECKED_STATEMENTS = 1000;
+
+    private static final String COMMENT_START = "/*";
+    private static final Set<String> CHECKED_STATEMENTS = ConcurrentHashMap.newKeySet();
+
+    private final String _statement;
+    private final String _plan;
+    private final List<String> _indexes;
+
+    private Sql2QueryPlan(final String statement, final String plan) {
+        _statement = statement;
+        _plan = plan;
+        _indexes = parseIndexes(plan);
+    }
+
+    /**
+     * Explain the statement in the workspace using the session of the current Magnolia context.
+     * @param workspace workspace name
+     * @param statement SQL2 statement
+     * @param bindValues values of the bind variables, may be null
+     * @return the query plan, unsupported if the repository cannot explain queries
+     * @throws RepositoryException on repository errors
+     */
+    public static Sql2QueryPlan explain(final String workspace, final String statement, final Map<String, Value> bindValues) throws RepositoryException {
+        return explain(MgnlContext.getJCRSession(workspace), statement, bindValues);
+    }
+
+    /**
+     * Explain the statement in the given session.
+     * @param session JCR session
+     * @param statement SQL2 statement
+     * @param bindValues values of the bind variables, may be null
+     * @return the query plan, unsupported if the repository cannot explain queries
+     * @throws RepositoryException on repository errors
+     */
+    public static Sql2QueryPlan explain(final Session session, final String statement, final Map<String, Value> bindValues) throws RepositoryException {
+        String plan = null;
+        try {
+            Query query = session.getWorkspace().getQueryManager().createQuery(EXPLAIN + statement, Query.JCR_SQL2);
+            if (bindValues != null) {
+                for (Map.Entry<String, Value> binding : bindValues.entrySet()) {
+                    query.bindValue(binding.getKey(), binding.getValue());
+                }
+            }
+            RowIterator rows = query.execute().getRows();
+            if (rows.hasNext()) {
+                plan = rows.nextRow().getValue(PLAN_COLUMN).getString();
+            }
+        } catch (InvalidQueryException e) {
+            LOG.debug("Repository does not support explaining statement {}.", statement, e);
+        }
+        return new Sql2QueryPlan(statement, plan);
+    }
+
+    /**
+     * Explain the statement once per workspace and statement fingerprint and log a warning if the repository would
+     * traverse. Errors are logged at DEBUG level and never affect the query.
+     * @param workspace workspace name
+     * @param statement SQL2 statement
+     * @param bindValues values of the bind variables, may be null
+     */
+    public static void warnOnTraversal(final String workspace, final String statement, final Map<String, Value> bindValues) {
+        if (CHECKED_STATEMENTS.size() < MAX_CHECKED_STATEMENTS && CHECKED_STATEMENTS.add(workspace + '|' + QueryStatistics.fingerprint(statement))) {
+            try {
+                Sql2QueryPlan plan = explain(workspace, statement, bindValues);
+                if (plan.isTraversal()) {
+                    LOG.warn("Query in workspace {} is not backed by an index and traverses the repository. Plan: {}", workspace, plan.getPlan());
+                }
+            } catch (RepositoryException | RuntimeException e) {
+                LOG.debug("Could not explain statement {}.", statement, e);
+            }
+        }
+    }
+
+    /**
+     * Forget the statements checked by {@link #warnOnTraversal(String, String, Map)}, e.g. after index changes.
+     */
+    public static void resetTraversalChecks() {
+        CHECKED_STATEMENTS.clear();
+    }
+
+    /**
+     * Get the explained statement.
+     * @return SQL2 statement
+     */
+    public String getStatement() {
+        return _statement;
+    }
+
+    /**
+     * Get the plan text reported by the repository.
+     * @return the plan or null if not supported
+     */
+    public String getPlan() {
+        return _plan;
+    }
+
+    /**
+     * Check whether the repository supports explaining queries.
+     * @return true if a plan has been reported
+     */
+    public boolean isSupported() {
+        return _plan != null;
+    }
+
+    /**
+     * Get the indexes used for the selectors of the statement in order of appearance, e.g. {@code property},
+     * {@code lucene:damAssetLucene} or {@code traverse}.
+     * @return non-null unmodifiable list of index names
+     */
+    public List<String> getIndexes() {
+        return _indexes;
+    }
+
+    /**
+     * Check whether any selector of the statement would traverse the repository instead of using an index.
+     * @return true for traversal plans
+     */
+    public boolean isTraversal() {
+        return _indexes.contains(TRAVERSE);
+    }
+
+    @Override
+    public String toString() {
+        return isSupported() ? _plan : "explain not supported: " + _statement;
+    }
+
+    private static List<String> parseIndexes(final String plan) {
+        List<String> indexes = new ArrayList<>();
+        String remaining = plan;
+        while (remaining != null && remaining.contains(COMMENT_START)) {
+            remaining = trimToEmpty(substringAfter(remaining, COMMENT_START));
+            int end = 0;
+            while (end < remaining.length() && !Character.isWhitespace(remaining.charAt(end)) && remaining.charAt(end) != '('
+                && remaining.charAt(end) != '*') {
+                end++;
+            }
+            if (end > 0) {
+                indexes.add(remaining.substring(0, end));
+            }
+        }
+        return Collections.unmodifiableList(indexes);
+    }
+}
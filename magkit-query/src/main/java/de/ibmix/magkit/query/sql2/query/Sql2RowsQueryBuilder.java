@@ -20,16 +20,31 @@ package de.ibmix.magkit.query.sql2.query;
  * #L%
  */
 
+import de.ibmix.magkit.query.QueryExecutors;
+import de.ibmix.magkit.query.QueryGuardrails;
+import de.ibmix.magkit.query.sql2.query.jcrwrapper.Facets;
+import de.ibmix.magkit.query.sql2.query.jcrwrapper.NodeGroup;
+import de.ibmix.magkit.query.sql2.query.jcrwrapper.NodePair;
+import de.ibmix.magkit.query.sql2.query.jcrwrapper.ProjectedRow;
+import de.ibmix.magkit.query.sql2.query.jcrwrapper.RowMapper;
 import de.ibmix.magkit.query.sql2.query.jcrwrapper.RowsQuery;
 import de.ibmix.magkit.query.sql2.statement.Sql2Builder;
 import info.magnolia.repository.RepositoryConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.jcr.Node;
 import javax.jcr.RepositoryException;
+import javax.jcr.Value;
 import javax.jcr.query.Row;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Concrete builder implementation for constructing and executing row-focused JCR-SQL2 queries.
@@ -39,7 +54,11 @@ import java.util.List;
  * <ul>
  *   <li>Fluent workspace selection (explicit or {@link #fromWebsite()}).</li>
  *   <li>Supports raw SQL2 strings and {@link Sql2Builder} instances.</li>
- *   <li>Optional limit/offset for paging.</li>
+ *   <li>Optional limit/offset for paging and bind values.</li>
+ *   <li>Opt-in result caching with a shared {@link QueryResultCache}.</li>
+ *   <li>Lazily evaluated stream and consumer access for large results.</li>
+ *   <li>Keyset paging with continuation tokens (see {@link Sql2Keyset}).</li>
+ *   <li>Facet counts per property value in one pass over the rows (see {@link Facets}).</li>
  *   <li>Graceful error handling returning empty collections or false on failure.</li>
  * </ul>
  * <p>Null and error handling: Methods never return {@code null}. Repository exceptions during execution are caught and
@@ -118,22 +137,56 @@ public class Sql2RowsQueryBuilder extends Sql2QueryBuilder implements QueryWorks
         return withStatement(() -> sql2);
     }
 
+    /**
+     * Bind a value to a variable of the statement.
+     * @param name bind variable name without leading {@code $}
+     * @param value value to bind
+     * @return this builder
+     */
+    public RowsQueryBuilder withBindValue(String name, Value value) {
+        addBindValue(name, value);
+        return me();
+    }
+
+    /**
+     * Cache the results in the given cache, invalidated by any change in the workspace.
+     * @param resultCache shared cache instance, null disables caching
+     * @return this builder
+     */
+    public RowsQueryBuilder withResultCache(QueryResultCache resultCache) {
+        return withResultCache(resultCache, null);
+    }
+
+    /**
+     * Cache the results in the given cache, invalidated by changes in the subtree of the scope path.
+     * @param resultCache shared cache instance, null disables caching
+     * @param scopePath path of the subtree the results depend on
+     * @return this builder
+     */
+    public RowsQueryBuilder withResultCache(QueryResultCache resultCache, String scopePath) {
+        setResultCache(resultCache, scopePath);
+        return me();
+    }
+
     /**
      * Build a {@link RowsQuery} from current builder state.
      * @return non-null {@link RowsQuery}
      */
     public RowsQuery buildRowsQuery() {
-        return new RowsQuery(getQuery());
+        return new RowsQuery(getQuery(), getWorkspace()).withGuardrails(getGuardrails().forQueryLimit(getLimit()));
     }
 
     /**
-     * Execute the query returning all {@link Row} instances.
+     * Execute the query returning all {@link Row} instances. With a result cache configured, cached results are
+     * returned if available.
      * @return non-null list of rows (empty on error)
      */
     public List<Row> getResultRows() {
         List<Row> rows = Collections.emptyList();
         try {
-            rows = buildRowsQuery().execute().getRowList();
+            QueryResultCache cache = getResultCache();
+            rows = cache == null ? buildRowsQuery().execute().getRowList()
+                : cache.getRows(getCacheKey(QueryResultCache.TYPE_ROWS), () -> buildRowsQuery().execute());
         } catch (RepositoryException e) {
             LOG.warn("Failed to get query result rows. Returning empty list.", e);
         }
@@ -154,6 +207,233 @@ public class Sql2RowsQueryBuilder extends Sql2QueryBuilder implements QueryWorks
         return result;
     }
 
+    /**
+     * Execute the query returning a lazily evaluated stream of {@link Row} instances. With a result cache configured,
+     * the cached result list is streamed.
+     * @return non-null stream of rows (empty on error)
+     */
+    public Stream<Row> getResultRowStream() {
+        Stream<Row> rows = Stream.empty();
+        if (getResultCache() != null) {
+            rows = getResultRows().stream();
+        } else {
+            try {
+                rows = buildRowsQuery().execute().getRowStream();
+            } catch (RepositoryException e) {
+                LOG.warn("Failed to get query result rows. Returning empty stream.", e);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Execute the query passing each {@link Row} to the consumer without collecting the results.
+     * @param consumer action performed for each row, must not be null
+     */
+    public void forEachResultRow(Consumer<? super Row> consumer) {
+        try (Stream<Row> rows = getResultRowStream()) {
+            rows.forEach(consumer);
+        }
+    }
+
+    /**
+     * Execute the query asynchronously on the default query executor with its own JCR sessions of the current user,
+     * see {@link QueryExecutors#withOwnSessions(java.util.concurrent.Callable)}. The builder must not be changed until
+     * the future is completed.
+     * @param timeout timeout, 0 or less to wait without timeout
+     * @param unit unit of the timeout
+     * @return future completing with all rows, with the rows collected until the timeout, or exceptionally on
+     * repository errors
+     */
+    public CompletableFuture<List<Row>> getResultRowsAsync(long timeout, TimeUnit unit) {
+        return getResultRowsAsync(QueryExecutors.getDefaultExecutor(), timeout, unit);
+    }
+
+    /**
+     * Execute the query asynchronously on the given executor with its own JCR sessions, see
+     * {@link QueryExecutors#supplyRowsAsync(String, java.util.concurrent.Callable, Executor, long, TimeUnit)}.
+     * Rows of nodes the thread accessing the result list cannot read are removed. The builder must not be changed
+     * until the future is completed.
+     * @param executor executor running the query, e.g. a virtual thread executor
+     * @param timeout timeout, 0 or less to wait without timeout
+     * @param unit unit of the timeout
+     * @return future completing with all rows, with the rows collected until the timeout, or exceptionally on
+     * repository errors
+     */
+    public CompletableFuture<List<Row>> getResultRowsAsync(Executor executor, long timeout, TimeUnit unit) {
+        final String workspace = getWorkspace();
+        return QueryExecutors.supplyRowsAsync(workspace, () -> {
+            QueryResultCache cache = getResultCache();
+            return cache == null ? buildRowsQuery().execute().getDetachedRowStream(workspace)
+                : cache.getRows(getCacheKey(QueryResultCache.TYPE_ROWS), () -> buildRowsQuery().execute()).stream();
+        }, executor, timeout, unit);
+    }
+
+    /**
+     * Execute the query and project the selected columns of all rows without loading the result nodes. The result
+     * cache is not used for projections.
+     * @return non-null list of projected rows (empty on error)
+     */
+    public List<ProjectedRow> getResultProjectedRows() {
+        return getResultProjection(row -> row);
+    }
+
+    /**
+     * Execute the query and map the selected columns of all rows to typed objects without loading the result nodes.
+     * The result cache is not used for projections.
+     * @param mapper the row mapper, must not be null
+     * @param <T> the result type
+     * @return non-null list of mapped objects (empty on error)
+     */
+    public <T> List<T> getResultProjection(RowMapper<T> mapper) {
+        List<T> projection = Collections.emptyList();
+        try {
+            projection = buildRowsQuery().execute().getProjection(mapper);
+        } catch (RepositoryException e) {
+            LOG.warn("Failed to get query result projection. Returning empty list.", e);
+        }
+        return projection;
+    }
+
+    /**
+     * Execute a join query and return the nodes of the left and right selector of all rows, collected in one pass.
+     * The result cache is not used.
+     * @return non-null list of node pairs (empty on error)
+     */
+    public List<NodePair> getResultNodePairs() {
+        List<NodePair> pairs = Collections.emptyList();
+        try {
+            pairs = buildRowsQuery().execute().getRowNodePairs();
+        } catch (RepositoryException e) {
+            LOG.warn("Failed to get query result node pairs. Returning empty list.", e);
+        }
+        return pairs;
+    }
+
+    /**
+     * Execute a join query and return the right selector nodes grouped by their left selector node, collected in one
+     * pass. The result cache is not used.
+     * @return non-null list of node groups (empty on error)
+     */
+    public List<NodeGroup> getResultNodeGroups() {
+        List<NodeGroup> groups = Collections.emptyList();
+        try {
+            groups = buildRowsQuery().execute().getRowNodeGroups();
+        } catch (RepositoryException e) {
+            LOG.warn("Failed to get query result node groups. Returning empty list.", e);
+        }
+        return groups;
+    }
+
+    /**
+     * Execute the query and count the results per value of the facet properties in one pass over the rows, using the
+     * native facet columns of the repository if selected (see {@link Facets#column(String)}). The result cache is not
+     * used. Native facets count the whole result (top values only), other facets count the rows of the page selected
+     * by limit and offset, cut off by the guardrails (see {@link RowsQueryBuilder#getResultFacets(String...)}).
+     * @param properties the facet property names
+     * @return non-null map of property name to the counts per value ordered by descending count (empty on error)
+     */
+    public Map<String, Map<String, Long>> getResultFacets(String... properties) {
+        Map<String, Map<String, Long>> facets = Collections.emptyMap();
+        try {
+            facets = buildRowsQuery().execute().getFacets(properties);
+        } catch (RepositoryException e) {
+            LOG.warn("Failed to get query result facets. Returning empty map.", e);
+        }
+        return facets;
+    }
+
+    /**
+     * Use keyset (cursor) paging instead of offset paging. Must be called after the statement has been provided.
+     * @param keyset keyset paging definition with the continuation token of the previous page
+     * @return this builder
+     * @throws IllegalStateException if the statement is not a {@link de.ibmix.magkit.query.sql2.statement.Sql2Statement}
+     */
+    public RowsQueryBuilder withKeyset(Sql2Keyset keyset) {
+        setKeyset(keyset);
+        return me();
+    }
+
+    /**
+     * Render the condition literals as generated bind variables. Must be called after the statement has been provided.
+     * @return this builder
+     * @throws IllegalStateException if the statement is not a {@link de.ibmix.magkit.query.sql2.statement.Sql2Statement}
+     */
+    public RowsQueryBuilder withBoundLiterals() {
+        setBindLiterals(true);
+        return me();
+    }
+
+    /**
+     * Explain every new statement once before execution and log a warning if it traverses the repository.
+     * @return this builder
+     */
+    public RowsQueryBuilder withTraversalCheck() {
+        setTraversalCheck(true);
+        return me();
+    }
+
+    /**
+     * Bound this query by the given guardrails instead of the default guardrails.
+     * @param guardrails the guardrails of this query, null for the defaults
+     * @return this builder
+     */
+    public RowsQueryBuilder withGuardrails(QueryGuardrails guardrails) {
+        setGuardrails(guardrails);
+        return me();
+    }
+
+    /**
+     * Explain the query with the repository's {@code explain} command.
+     * @return the query plan, unsupported if the repository cannot explain queries
+     * @throws RepositoryException on repository errors
+     */
+    public Sql2QueryPlan explain() throws RepositoryException {
+        return getQueryPlan();
+    }
+
+    /**
+     * Count the results of the query without loading the result nodes. Configured limit and offset apply.
+     * @return number of results (0 on error)
+     */
+    public long count() {
+        return countResults();
+    }
+
+    /**
+     * Check whether the query has any result. Executes the query with limit 1 without loading the result node.
+     * @return true if at least one result exists (false on error)
+     */
+    public boolean exists() {
+        return hasResults();
+    }
+
+    /**
+     * Execute the query returning the rows of the requested page. A continuation token is provided if keyset paging
+     * is enabled and the page is full.
+     * @return non-null result page (empty on error)
+     */
+    public ResultPage<Row> getResultPage() {
+        List<Row> rows = getResultRows();
+        String token = null;
+        Sql2Keyset keyset = getKeyset();
+        if (keyset != null && getLimit() > 0 && rows.size() >= getLimit()) {
+            token = keyset.createToken(getLastRowNode(rows.get(rows.size() - 1)));
+        }
+        return new ResultPage<>(rows, token);
+    }
+
+    private Node getLastRowNode(final Row row) {
+        Node node = null;
+        try {
+            String selector = getFromSelectorName();
+            node = selector == null ? row.getNode() : row.getNode(selector);
+        } catch (RepositoryException e) {
+            LOG.warn("Failed to get node of the last result row.", e);
+        }
+        return node;
+    }
+
     /**
      * Self-type accessor for fluent chaining.
      * @return this builder instance
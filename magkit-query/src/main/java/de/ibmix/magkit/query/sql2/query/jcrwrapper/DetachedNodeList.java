@@ -0,0 +1,130 @@
+package de.ibmix.magkit.query.sql2.query.jcrwrapper;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import info.magnolia.context.MgnlContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.ItemNotFoundException;
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Result node list holding only node identifiers, the nodes are loaded in the session of the thread accessing the list.
+ * <p>Purpose: Queries executed on other threads use JCR sessions of their own, because a session must not be used by
+ * several threads concurrently. Their result nodes are bound to that session and cannot be used by the caller. This
+ * list keeps the identifiers instead and loads the nodes in the session of the Magnolia context of the thread that
+ * first accesses the list, i.e. with the access rights of the caller.</p>
+ * <p>Null and error handling: Nodes that cannot be loaded (removed or not readable by the caller) are skipped. If the
+ * session cannot be obtained, the error is logged at WARN level and the list is empty; loading is tried again on the
+ * next access. Accessing the list on a thread without Magnolia context fails with an {@link IllegalStateException}.</p>
+ * <p>Thread-safety: Thread-safe. The nodes are loaded once, on the first access.</p>
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public final class DetachedNodeList extends AbstractList<Node> implements RandomAccess {
+    private static final Logger LOG = LoggerFactory.getLogger(DetachedNodeList.class);
+
+    private final String _workspace;
+    private final List<String> _identifiers;
+    private List<Node> _nodes;
+
+    /**
+     * Create a list of the nodes with the given identifiers.
+     * @param workspace the workspace of the nodes
+     * @param identifiers the node identifiers in result order
+     */
+    public DetachedNodeList(final String workspace, final List<String> identifiers) {
+        _workspace = workspace;
+        _identifiers = identifiers == null ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(identifiers));
+    }
+
+    /**
+     * Get the identifiers of the result nodes without loading them.
+     * @return unmodifiable list of identifiers
+     */
+    public List<String> getIdentifiers() {
+        return _identifiers;
+    }
+
+    @Override
+    public Node get(final int index) {
+        return getNodes().get(index);
+    }
+
+    @Override
+    public int size() {
+        return getNodes().size();
+    }
+
+    /**
+     * Load the nodes with the given identifiers in the session, skipping nodes that cannot be loaded.
+     * @param session the session of the caller
+     * @param identifiers the node identifiers
+     * @return non-null list of the loaded nodes in the order of the identifiers
+     */
+    public static List<Node> loadNodes(final Session session, final List<String> identifiers) {
+        List<Node> nodes = new ArrayList<>(identifiers.size());
+        for (String identifier : identifiers) {
+            Node node = loadNode(session, identifier);
+            if (node != null) {
+                nodes.add(node);
+            }
+        }
+        return nodes;
+    }
+
+    static Node loadNode(final Session session, final String identifier) {
+        Node node = null;
+        if (identifier != null) {
+            try {
+                node = session.getNodeByIdentifier(identifier);
+            } catch (ItemNotFoundException e) {
+                LOG.debug("Result node {} is not available anymore.", identifier);
+            } catch (RepositoryException e) {
+                LOG.debug("Could not load result node {}.", identifier, e);
+            }
+        }
+        return node;
+    }
+
+    private synchronized List<Node> getNodes() {
+        List<Node> nodes = _nodes;
+        if (nodes == null) {
+            try {
+                nodes = Collections.unmodifiableList(loadNodes(MgnlContext.getJCRSession(_workspace), _identifiers));
+                _nodes = nodes;
+            } catch (RepositoryException e) {
+                LOG.warn("Could not get session of workspace {}, result nodes are not available.", _workspace, e);
+                nodes = Collections.emptyList();
+            }
+        }
+        return nodes;
+    }
+}
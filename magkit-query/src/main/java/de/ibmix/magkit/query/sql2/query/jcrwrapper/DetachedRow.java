@@ -0,0 +1,184 @@
+package de.ibmix.magkit.query.sql2.query.jcrwrapper;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import info.magnolia.context.MgnlContext;
+
+import javax.jcr.ItemNotFoundException;
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.Value;
+import javax.jcr.query.Row;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Query result row detached from the JCR session that executed the query.
+ * <p>Purpose: Keeps the row values, the scores and the node identifiers per selector, so the row can be cached or
+ * handed over to another thread. The nodes are loaded lazily in the session of the Magnolia context of the thread
+ * calling {@link #getNode(String)}, i.e. with the access rights of the caller.</p>
+ * <p>Null and error handling: Nodes that are not available anymore or not readable are returned as null like the
+ * missing side of an outer join. Unknown columns and selectors cause the exceptions defined by {@link Row}.</p>
+ * <p>Thread-safety: Immutable. Binary values share their stream and should not be read concurrently.</p>
+ * <p>Usage example:</p>
+ * <pre>{@code
+ * DetachedRow row = DetachedRow.of("website", result.getColumnNames(), result.getSelectorNames(), liveRow);
+ * }</pre>
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public final class DetachedRow implements Row {
+    private final String _workspace;
+    private final String[] _columnNames;
+    private final Value[] _values;
+    private final Map<String, String> _identifiers;
+    private final Map<String, Double> _scores;
+
+    private DetachedRow(final String workspace, final String[] columnNames, final Value[] values, final Map<String, String> identifiers, final Map<String, Double> scores) {
+        _workspace = workspace;
+        _columnNames = columnNames;
+        _values = values;
+        _identifiers = identifiers;
+        _scores = scores;
+    }
+
+    /**
+     * Detach the row from its session. Detached rows are returned unchanged.
+     * @param workspace the workspace of the row nodes
+     * @param columnNames the column names of the query result
+     * @param selectorNames the selector names of the query result
+     * @param row the row to detach
+     * @return the detached row
+     * @throws RepositoryException if the row values or nodes cannot be read
+     */
+    public static DetachedRow of(final String workspace, final String[] columnNames, final String[] selectorNames, final Row row) throws RepositoryException {
+        DetachedRow detached;
+        if (row instanceof DetachedRow) {
+            detached = (DetachedRow) row;
+        } else {
+            Value[] values = row.getValues();
+            Map<String, String> identifiers = new LinkedHashMap<>();
+            Map<String, Double> scores = new HashMap<>();
+            for (String selector : selectorNames) {
+                Node node = row.getNode(selector);
+                identifiers.put(selector, node == null ? null : node.getIdentifier());
+                scores.put(selector, row.getScore(selector));
+            }
+            detached = new DetachedRow(workspace, columnNames.clone(), values == null ? new Value[0] : values,
+                Collections.unmodifiableMap(identifiers), Collections.unmodifiableMap(scores));
+        }
+        return detached;
+    }
+
+    /**
+     * Get the identifier of the node of the selector without loading it.
+     * @param selectorName the selector name
+     * @return the identifier or null for the missing side of an outer join
+     * @throws RepositoryException if the selector is unknown
+     */
+    public String getIdentifier(final String selectorName) throws RepositoryException {
+        if (!_identifiers.containsKey(selectorName)) {
+            throw new RepositoryException("No selector " + selectorName + " in detached row.");
+        }
+        return _identifiers.get(selectorName);
+    }
+
+    /**
+     * Check whether all nodes of the row can be loaded in the session, i.e. are still available and readable.
+     * @param session the session of the caller
+     * @return true if the nodes of all selectors (except missing sides of outer joins) can be loaded
+     */
+    boolean isReadable(final Session session) {
+        boolean readable = true;
+        for (Iterator<String> identifiers = _identifiers.values().iterator(); readable && identifiers.hasNext();) {
+            String identifier = identifiers.next();
+            readable = identifier == null || DetachedNodeList.loadNode(session, identifier) != null;
+        }
+        return readable;
+    }
+
+    @Override
+    public Value[] getValues() {
+        return _values.clone();
+    }
+
+    @Override
+    public Value getValue(final String columnName) throws ItemNotFoundException {
+        Value value = null;
+        for (int i = 0; value == null && i < _columnNames.length && i < _values.length; i++) {
+            if (_columnNames[i].equals(columnName)) {
+                value = _values[i];
+            }
+        }
+        if (value == null) {
+            throw new ItemNotFoundException("No column " + columnName + " in detached row.");
+        }
+        return value;
+    }
+
+    @Override
+    public Node getNode() throws RepositoryException {
+        return getNode(getDefaultSelector());
+    }
+
+    @Override
+    public Node getNode(final String selectorName) throws RepositoryException {
+        String identifier = getIdentifier(selectorName);
+        return identifier == null ? null : DetachedNodeList.loadNode(MgnlContext.getJCRSession(_workspace), identifier);
+    }
+
+    @Override
+    public String getPath() throws RepositoryException {
+        return getPath(getDefaultSelector());
+    }
+
+    @Override
+    public String getPath(final String selectorName) throws RepositoryException {
+        Node node = getNode(selectorName);
+        return node == null ? null : node.getPath();
+    }
+
+    @Override
+    public double getScore() throws RepositoryException {
+        return getScore(getDefaultSelector());
+    }
+
+    @Override
+    public double getScore(final String selectorName) throws RepositoryException {
+        Double score = _scores.get(selectorName);
+        if (score == null) {
+            throw new RepositoryException("No selector " + selectorName + " in detached row.");
+        }
+        return score;
+    }
+
+    private String getDefaultSelector() throws RepositoryException {
+        if (_identifiers.size() != 1) {
+            throw new RepositoryException("Detached row has more than one selector.");
+        }
+        return _identifiers.keySet().iterator().next();
+    }
+}
@@ -0,0 +1,95 @@
+package de.ibmix.magkit.query.sql2.query.jcrwrapper;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import info.magnolia.context.MgnlContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.query.Row;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Result row list checking the access rights of the thread accessing the list, see {@link DetachedNodeList}.
+ * <p>Purpose: Rows of queries executed on other threads are read with the rights of the session of that thread.
+ * This list keeps only the {@link DetachedRow detached rows} whose nodes can be loaded in the session of the Magnolia
+ * context of the thread that first accesses the list, i.e. rows of nodes the caller cannot read are removed.</p>
+ * <p>Null and error handling: Rows that are not detached are kept unchecked. If the session cannot be obtained, the
+ * error is logged at WARN level and the list is empty; the check is tried again on the next access.</p>
+ * <p>Thread-safety: Thread-safe. The rows are checked once, on the first access.</p>
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public final class DetachedRowList extends AbstractList<Row> implements RandomAccess {
+    private static final Logger LOG = LoggerFactory.getLogger(DetachedRowList.class);
+
+    private final String _workspace;
+    private final List<Row> _detached;
+    private List<Row> _rows;
+
+    /**
+     * Create a list of the readable rows.
+     * @param workspace the workspace of the row nodes
+     * @param rows the rows in result order
+     */
+    public DetachedRowList(final String workspace, final List<? extends Row> rows) {
+        _workspace = workspace;
+        _detached = rows == null ? Collections.emptyList() : new ArrayList<>(rows);
+    }
+
+    @Override
+    public Row get(final int index) {
+        return getRows().get(index);
+    }
+
+    @Override
+    public int size() {
+        return getRows().size();
+    }
+
+    private synchronized List<Row> getRows() {
+        List<Row> rows = _rows;
+        if (rows == null) {
+            try {
+                Session session = MgnlContext.getJCRSession(_workspace);
+                rows = new ArrayList<>(_detached.size());
+                for (Row row : _detached) {
+                    if (!(row instanceof DetachedRow) || ((DetachedRow) row).isReadable(session)) {
+                        rows.add(row);
+                    }
+                }
+                rows = Collections.unmodifiableList(rows);
+                _rows = rows;
+            } catch (RepositoryException e) {
+                LOG.warn("Could not get session of workspace {}, result rows are not available.", _workspace, e);
+                rows = Collections.emptyList();
+            }
+        }
+        return rows;
+    }
+}
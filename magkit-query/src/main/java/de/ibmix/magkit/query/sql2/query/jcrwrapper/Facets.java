@@ -0,0 +1,296 @@
+package de.ibmix.magkit.query.sql2.query.jcrwrapper;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.Node;
+import javax.jcr.Property;
+import javax.jcr.RepositoryException;
+import javax.jcr.Value;
+import javax.jcr.query.Row;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * Facet counting over query result rows: the number of results per value of the facet properties.
+ * <p>Purpose: Search and filter pages show counts per category, tag or content type. Instead of one query per facet
+ * value or loading every result node, the counts of all facet properties are computed in one pass over the result
+ * rows.</p>
+ * <p>Key features:</p>
+ * <ul>
+ *   <li>Native facets: if the statement selects the facet column of the repository ({@link #column(String)}, e.g.
+ *   {@code SELECT [rep:facet(tags)] FROM ...}, requires an Oak index with facets enabled), the counts computed by the
+ *   index are read from the first row.</li>
+ *   <li>Selected columns: facet properties selected as columns are counted from the row values without loading the
+ *   result nodes.</li>
+ *   <li>Other properties are counted from the (single valued or multi valued) properties of the row node, which
+ *   requires a single selector.</li>
+ *   <li>One mutable counter per distinct value, the row values are not retained, so memory depends on the number of
+ *   distinct values only.</li>
+ *   <li>If all facets are native, only the first row is read.</li>
+ * </ul>
+ * <p>Scope of the counts: native facets are computed by the index for the whole result, ignoring limit and offset,
+ * but contain only the most frequent values (the top children configured for the index facets). All other facets
+ * count every value of the rows that are read, which are only the rows of the requested page and at most as many as
+ * the query guardrails allow ({@link de.ibmix.magkit.query.QueryGuardrails#getMaxReads()}). A row counted facet
+ * therefore covers the whole result only if the query has no offset and the result fits into the limits.</p>
+ * <p>Null and error handling: Missing properties are not counted. Rows failing to read and invalid native facet values
+ * are logged at WARN level and skipped.</p>
+ * <p>Thread-safety: Stateless utility, the returned maps are unmodifiable.</p>
+ * <p>Usage example:</p>
+ * <pre>{@code
+ * Map<String, Map<String, Long>> facets = Sql2.Query.rowsFromWebsite()
+ *     .withStatement(Sql2Statement.select("mgnl:template", Facets.column("tags")).from("mgnl:page")
+ *         .whereAll(Sql2.Condition.FullText.containsAll("news")))
+ *     .getResultFacets("tags", "mgnl:template");
+ * long newsPages = facets.get("mgnl:template").getOrDefault("my-module:pages/news", 0L);
+ * }</pre>
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public final class Facets {
+    private static final Logger LOG = LoggerFactory.getLogger(Facets.class);
+
+    public static final String NATIVE_COLUMN_PREFIX = "rep:facet(";
+    public static final String NATIVE_COLUMN_SUFFIX = ")";
+
+    private Facets() {
+    }
+
+    /**
+     * Get the name of the native facet column of a property.
+     * @param property the facet property name
+     * @return the column name, e.g. {@code rep:facet(tags)}
+     */
+    public static String column(final String property) {
+        return NATIVE_COLUMN_PREFIX + property + NATIVE_COLUMN_SUFFIX;
+    }
+
+    /**
+     * Count the values of the facet properties in one pass over the rows.
+     * @param rows the result rows
+     * @param columnNames the column names of the result
+     * @param singleSelector true if the rows have a single selector node
+     * @param properties the facet property names, blank names are ignored
+     * @return unmodifiable map of property name to the counts per value ordered by descending count
+     */
+    static Map<String, Map<String, Long>> count(final Iterator<Row> rows, final String[] columnNames, final boolean singleSelector, final String... properties) {
+        Map<String, Integer> columnIndex = ProjectedRow.indexColumns(columnNames);
+        List<FacetCounter> counters = new ArrayList<>();
+        for (String property : properties == null ? new String[0] : properties) {
+            if (isNotBlank(property)) {
+                Integer nativeColumn = columnIndex.get(column(property));
+                Integer valueColumn = columnIndex.get(property);
+                counters.add(new FacetCounter(property, nativeColumn == null ? -1 : nativeColumn, valueColumn == null ? -1 : valueColumn));
+            }
+        }
+        boolean pending = !counters.isEmpty();
+        while (pending && rows.hasNext()) {
+            Row row = rows.next();
+            pending = false;
+            for (FacetCounter counter : counters) {
+                pending |= counter.add(row, singleSelector);
+            }
+        }
+        Map<String, Map<String, Long>> result = new LinkedHashMap<>();
+        counters.forEach(counter -> result.put(counter._property, counter.toMap()));
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Parse the JSON value of a native facet column, e.g. {@code {"red":3,"blue":1}}.
+     * @param json the column value
+     * @param counts the counts to add the facet counts to
+     * @throws IllegalArgumentException if the value is no valid facet JSON
+     */
+    static void parseNative(final String json, final Map<String, Counter> counts) {
+        int[] pos = {skip(json, 0)};
+        expect(json, pos, '{');
+        if (pos[0] < json.length() && json.charAt(pos[0]) != '}') {
+            boolean more = true;
+            while (more) {
+                String label = readString(json, pos);
+                expect(json, pos, ':');
+                int start = pos[0];
+                while (pos[0] < json.length() && Character.isDigit(json.charAt(pos[0]))) {
+                    pos[0]++;
+                }
+                if (start == pos[0]) {
+                    throw new IllegalArgumentException("Expected a count at position " + start + " of facet " + json);
+                }
+                counts.computeIfAbsent(label, k -> new Counter())._count += Long.parseLong(json.substring(start, pos[0]));
+                pos[0] = skip(json, pos[0]);
+                more = pos[0] < json.length() && json.charAt(pos[0]) == ',';
+                if (more) {
+                    pos[0]++;
+                }
+            }
+        }
+        expect(json, pos, '}');
+    }
+
+    private static String readString(final String json, final int[] pos) {
+        expect(json, pos, '"');
+        StringBuilder value = new StringBuilder();
+        boolean closed = false;
+        while (!closed && pos[0] < json.length()) {
+            char c = json.charAt(pos[0]++);
+            if (c == '\\' && pos[0] < json.length()) {
+                char escaped = json.charAt(pos[0]++);
+                if (escaped == 'u' && pos[0] + 4 <= json.length()) {
+                    value.append((char) Integer.parseInt(json.substring(pos[0], pos[0] + 4), 16));
+                    pos[0] += 4;
+                } else {
+                    value.append(escaped == 'n' ? '\n' : escaped == 't' ? '\t' : escaped == 'r' ? '\r' : escaped);
+                }
+            } else if (c == '"') {
+                closed = true;
+            } else {
+                value.append(c);
+            }
+        }
+        if (!closed) {
+            throw new IllegalArgumentException("Unterminated label in facet " + json);
+        }
+        return value.toString();
+    }
+
+    private static void expect(final String json, final int[] pos, final char c) {
+        pos[0] = skip(json, pos[0]);
+        if (pos[0] >= json.length() || json.charAt(pos[0]) != c) {
+            throw new IllegalArgumentException("Expected '" + c + "' at position " + pos[0] + " of facet " + json);
+        }
+        pos[0] = skip(json, pos[0] + 1);
+    }
+
+    private static int skip(final String json, final int pos) {
+        int result = pos;
+        while (result < json.length() && Character.isWhitespace(json.charAt(result))) {
+            result++;
+        }
+        return result;
+    }
+
+    /**
+     * Mutable count of one facet value, incremented without boxing.
+     */
+    static final class Counter {
+        private long _count;
+    }
+
+    /**
+     * Counts of one facet property.
+     */
+    private static final class FacetCounter {
+        private final String _property;
+        private int _nativeColumn;
+        private final int _valueColumn;
+        private final Map<String, Counter> _counts = new HashMap<>();
+        private boolean _done;
+
+        private FacetCounter(final String property, final int nativeColumn, final int valueColumn) {
+            _property = property;
+            _nativeColumn = nativeColumn;
+            _valueColumn = valueColumn;
+        }
+
+        /**
+         * Count the values of the row.
+         * @return true if further rows are needed
+         */
+        private boolean add(final Row row, final boolean singleSelector) {
+            if (!_done) {
+                try {
+                    if (_nativeColumn >= 0) {
+                        addNative(row.getValues());
+                    }
+                    if (_done) {
+                        LOG.debug("Read native facet {} from query result.", _property);
+                    } else if (_valueColumn >= 0) {
+                        increment(row.getValues()[_valueColumn]);
+                    } else if (singleSelector) {
+                        addProperty(row.getNode());
+                    } else {
+                        LOG.warn("Facet property {} is neither selected nor readable from a single selector, not counted.", _property);
+                        _done = true;
+                    }
+                } catch (RepositoryException e) {
+                    LOG.warn("Failed to count facet {} of query result row.", _property, e);
+                }
+            }
+            return !_done;
+        }
+
+        private void addNative(final Value[] values) throws RepositoryException {
+            Value value = values[_nativeColumn];
+            // read the native facets once, without value (no facets configured in the index) count the rows
+            _nativeColumn = -1;
+            if (value != null) {
+                try {
+                    // the index computes the facets of the complete result, every row holds the same value
+                    parseNative(value.getString(), _counts);
+                    _done = true;
+                } catch (IllegalArgumentException e) {
+                    LOG.warn("Invalid native facet {}, counting the result rows.", _property, e);
+                    _counts.clear();
+                }
+            }
+        }
+
+        private void addProperty(final Node node) throws RepositoryException {
+            if (node != null && node.hasProperty(_property)) {
+                Property property = node.getProperty(_property);
+                if (property.isMultiple()) {
+                    for (Value value : property.getValues()) {
+                        increment(value);
+                    }
+                } else {
+                    increment(property.getValue());
+                }
+            }
+        }
+
+        private void increment(final Value value) throws RepositoryException {
+            if (value != null) {
+                _counts.computeIfAbsent(value.getString(), k -> new Counter())._count++;
+            }
+        }
+
+        private Map<String, Long> toMap() {
+            List<Map.Entry<String, Counter>> entries = new ArrayList<>(_counts.entrySet());
+            entries.sort((a, b) -> a.getValue()._count == b.getValue()._count
+                ? a.getKey().compareTo(b.getKey()) : Long.compare(b.getValue()._count, a.getValue()._count));
+            Map<String, Long> result = new LinkedHashMap<>();
+            entries.forEach(entry -> result.put(entry.getKey(), entry.getValue()._count));
+            return Collections.unmodifiableMap(result);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package de.ibmix.magkit.query.sql2.query.jcrwrapper;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import javax.jcr.Node;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A node of the left selector of a join with all nodes of the right selector joined to it.
+ * <p>Created by {@link RowsResult#getRowNodeGroups()} and {@link RowsResult#getRowNodeGroupStream()} in a single pass
+ * over the result rows.</p>
+ * <p>Null handling: The left node is never null, the list of right nodes is never null and empty for outer joins
+ * without match.</p>
+ * <p>Thread-safety: Immutable, the list of right nodes is unmodifiable.</p>
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public final class NodeGroup {
+    private final Node _left;
+    private final List<Node> _rights;
+
+    NodeGroup(final Node left, final List<Node> rights) {
+        _left = left;
+        _rights = Collections.unmodifiableList(rights);
+    }
+
+    /**
+     * Get the node of the first (left) selector.
+     * @return non-null left node
+     */
+    public Node getLeft() {
+        return _left;
+    }
+
+    /**
+     * Get the nodes of the second (right) selector joined to the left node, in result order.
+     * @return non-null unmodifiable list of right nodes
+     */
+    public List<Node> getRights() {
+        return _rights;
+    }
+}
@@ -0,0 +1,58 @@
+package de.ibmix.magkit.query.sql2.query.jcrwrapper;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import javax.jcr.Node;
+
+/**
+ * The nodes of the left and right selector of one join result row.
+ * <p>Created by {@link RowsResult#getRowNodePairs()} in a single pass over the result rows.</p>
+ * <p>Null handling: The left node is never null. The right node is null for rows of outer joins without right node.</p>
+ * <p>Thread-safety: Immutable.</p>
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public final class NodePair {
+    private final Node _left;
+    private final Node _right;
+
+    NodePair(final Node left, final Node right) {
+        _left = left;
+        _right = right;
+    }
+
+    /**
+     * Get the node of the first (left) selector.
+     * @return non-null left node
+     */
+    public Node getLeft() {
+        return _left;
+    }
+
+    /**
+     * Get the node of the second (right) selector.
+     * @return the right node or null for outer joins without match
+     */
+    public Node getRight() {
+        return _right;
+    }
+}
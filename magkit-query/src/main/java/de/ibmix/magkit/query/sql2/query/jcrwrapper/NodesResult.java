@@ -20,6 +20,8 @@ package de.ibmix.magkit.query.sql2.query.jcrwrapper;
  * #L%
  */
 
+import de.ibmix.magkit.query.QueryGuardrails;
+import de.ibmix.magkit.query.monitor.QueryMeasurement;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -30,6 +32,8 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Specialized {@link ResultWrapper} exposing node-oriented access to a {@link javax.jcr.query.QueryResult}.
@@ -39,6 +43,7 @@ import java.util.List;
  * <ul>
  *   <li>Safe iteration over result nodes with graceful degradation (empty iterator if errors occur).</li>
  *   <li>Convenience conversion of the iterator to a {@link List} while preserving iteration order.</li>
+ *   <li>Lazily evaluated {@link Stream}, {@link Iterable} and consumer access pulling nodes on demand.</li>
  *   <li>Consistent non-null return contracts.</li>
  * </ul>
  * <p>Null and error handling: All accessors return non-null collections (possibly empty). Repository access issues are
@@ -62,6 +67,26 @@ public class NodesResult extends ResultWrapper {
         super(result);
     }
 
+    /**
+     * Create a new node-oriented result wrapper recording the result iteration in the measurement of the execution.
+     * @param result underlying JCR query result
+     * @param measurement measurement of the query execution, null for none
+     */
+    public NodesResult(QueryResult result, QueryMeasurement measurement) {
+        super(result, measurement);
+    }
+
+    /**
+     * Create a new node-oriented result wrapper recording the result iteration and stopping it when a guardrail trips.
+     * @param result underlying JCR query result
+     * @param measurement measurement of the query execution, null for none
+     * @param guardrails guardrails of the result iteration, null for none
+     * @param statement statement of the query for logging tripped guardrails
+     */
+    public NodesResult(QueryResult result, QueryMeasurement measurement, QueryGuardrails guardrails, String statement) {
+        super(result, measurement, guardrails, statement);
+    }
+
     /**
      * Obtain an iterator over all {@link Node} objects in their query-defined order.
      * Returns an empty iterator if the underlying JCR call fails.
@@ -71,7 +96,7 @@ public class NodesResult extends ResultWrapper {
     public Iterator<Node> getNodes() {
         Iterator<Node> nodes = Collections.emptyIterator();
         try {
-            nodes = getResult().getNodes();
+            nodes = measure(getResult().getNodes());
         } catch (RepositoryException e) {
             LOGGER.warn("Failed to get query result rows.", e);
         }
@@ -90,4 +115,32 @@ public class NodesResult extends ResultWrapper {
         }
         return rows;
     }
+
+    /**
+     * Create a lazily evaluated stream of the result nodes. Nodes are pulled from the JCR iterator on demand, so
+     * short-circuiting operations like {@code findFirst()} stop fetching results. Closing the stream releases the
+     * underlying iterator.
+     * @return non-null sequential stream of nodes (possibly empty)
+     */
+    public Stream<Node> getNodeStream() {
+        return new ResultIterator<>(getNodes()).stream();
+    }
+
+    /**
+     * Provide the result nodes as {@link Iterable} for enhanced for loops without copying them into a list.
+     * Each call of {@link Iterable#iterator()} requests the nodes from the JCR result again; repositories may not
+     * support iterating a result more than once.
+     * @return non-null iterable of nodes
+     */
+    public Iterable<Node> getNodeIterable() {
+        return () -> new ResultIterator<>(getNodes());
+    }
+
+    /**
+     * Pass each result node to the consumer without collecting them.
+     * @param consumer action performed for each node, must not be null
+     */
+    public void forEachNode(Consumer<? super Node> consumer) {
+        getNodes().forEachRemaining(consumer);
+    }
 }
@@ -0,0 +1,213 @@
+package de.ibmix.magkit.query.sql2.query.jcrwrapper;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Value;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.apache.commons.lang3.StringUtils.contains;
+import static org.apache.commons.lang3.StringUtils.substringAfterLast;
+
+/**
+ * Array-backed projection of the selected columns of one query result row.
+ * <p>Purpose: Listings often need only a few properties like title, date and path. Reading them from the row values
+ * avoids loading the result nodes. The column positions are resolved once per result
+ * ({@link #indexColumns(String[])}) and shared by all rows of the result.</p>
+ * <p>Key features:</p>
+ * <ul>
+ *   <li>Access by column name or position, selector qualified column names ({@code p.title}) are also available by
+ *   property name ({@code title}) if unambiguous.</li>
+ *   <li>Typed accessors converting the JCR values.</li>
+ *   <li>The path of the row for queries with a single selector.</li>
+ * </ul>
+ * <p>Null and error handling: Unknown columns, missing values and values that cannot be converted are returned as
+ * null; conversion errors are logged at DEBUG level.</p>
+ * <p>Thread-safety: Immutable.</p>
+ * <p>Usage example:</p>
+ * <pre>{@code
+ * for (ProjectedRow row : Sql2.Query.rowsFromWebsite()
+ *         .withStatement(Sql2Statement.select("title", "date").from("mgnl:page"))
+ *         .getResultProjectedRows()) {
+ *     render(row.getPath(), row.getString("title"), row.getDate("date"));
+ * }
+ * }</pre>
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public final class ProjectedRow {
+    private static final Logger LOG = LoggerFactory.getLogger(ProjectedRow.class);
+
+    private final Map<String, Integer> _columnIndex;
+    private final Value[] _values;
+    private final String _path;
+
+    ProjectedRow(final Map<String, Integer> columnIndex, final Value[] values, final String path) {
+        _columnIndex = columnIndex;
+        _values = values;
+        _path = path;
+    }
+
+    /**
+     * Resolve the positions of the result columns.
+     * @param columnNames the column names of the query result
+     * @return unmodifiable map of column name to position, shared by the rows of the result
+     */
+    static Map<String, Integer> indexColumns(final String[] columnNames) {
+        Map<String, Integer> index = new HashMap<>();
+        Map<String, Integer> unqualified = new HashMap<>();
+        for (int i = 0; i < columnNames.length; i++) {
+            index.put(columnNames[i], i);
+            if (contains(columnNames[i], '.')) {
+                // -1 marks property names of several selectors as ambiguous
+                unqualified.merge(substringAfterLast(columnNames[i], "."), i, (first, second) -> -1);
+            }
+        }
+        unqualified.forEach((name, i) -> {
+            if (i >= 0) {
+                index.putIfAbsent(name, i);
+            }
+        });
+        return Collections.unmodifiableMap(index);
+    }
+
+    /**
+     * Get the number of columns.
+     * @return column count
+     */
+    public int size() {
+        return _values.length;
+    }
+
+    /**
+     * Get the path of the row.
+     * @return the path or null if the query has several selectors
+     */
+    public String getPath() {
+        return _path;
+    }
+
+    /**
+     * Get the value of a column.
+     * @param index the column position
+     * @return the value or null if the position is out of range or the row has no value
+     */
+    public Value getValue(final int index) {
+        return index >= 0 && index < _values.length ? _values[index] : null;
+    }
+
+    /**
+     * Get the value of a column.
+     * @param column the column name
+     * @return the value or null if the column is unknown or the row has no value
+     */
+    public Value getValue(final String column) {
+        Integer index = _columnIndex.get(column);
+        return index == null ? null : getValue(index);
+    }
+
+    /**
+     * Get the value of a column as String.
+     * @param column the column name
+     * @return the String value or null
+     */
+    public String getString(final String column) {
+        String result = null;
+        Value value = getValue(column);
+        try {
+            result = value == null ? null : value.getString();
+        } catch (RepositoryException e) {
+            LOG.debug("Could not convert value of column {}.", column, e);
+        }
+        return result;
+    }
+
+    /**
+     * Get the value of a column as Long.
+     * @param column the column name
+     * @return the Long value or null
+     */
+    public Long getLong(final String column) {
+        Long result = null;
+        Value value = getValue(column);
+        try {
+            result = value == null ? null : value.getLong();
+        } catch (RepositoryException e) {
+            LOG.debug("Could not convert value of column {}.", column, e);
+        }
+        return result;
+    }
+
+    /**
+     * Get the value of a column as Double.
+     * @param column the column name
+     * @return the Double value or null
+     */
+    public Double getDouble(final String column) {
+        Double result = null;
+        Value value = getValue(column);
+        try {
+            result = value == null ? null : value.getDouble();
+        } catch (RepositoryException e) {
+            LOG.debug("Could not convert value of column {}.", column, e);
+        }
+        return result;
+    }
+
+    /**
+     * Get the value of a column as Boolean.
+     * @param column the column name
+     * @return the Boolean value or null
+     */
+    public Boolean getBoolean(final String column) {
+        Boolean result = null;
+        Value value = getValue(column);
+        try {
+            result = value == null ? null : value.getBoolean();
+        } catch (RepositoryException e) {
+            LOG.debug("Could not convert value of column {}.", column, e);
+        }
+        return result;
+    }
+
+    /**
+     * Get the value of a column as date.
+     * @param column the column name
+     * @return the Calendar value or null
+     */
+    public Calendar getDate(final String column) {
+        Calendar result = null;
+        Value value = getValue(column);
+        try {
+            result = value == null ? null : value.getDate();
+        } catch (RepositoryException e) {
+            LOG.debug("Could not convert value of column {}.", column, e);
+        }
+        return result;
+    }
+}
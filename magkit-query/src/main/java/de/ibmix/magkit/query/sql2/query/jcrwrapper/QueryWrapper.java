@@ -20,6 +20,9 @@ package de.ibmix.magkit.query.sql2.query.jcrwrapper;
  * #L%
  */
 
+import de.ibmix.magkit.query.QueryGuardrails;
+import de.ibmix.magkit.query.monitor.QueryMeasurement;
+import de.ibmix.magkit.query.monitor.QueryStatistics;
 import org.apache.jackrabbit.value.BooleanValue;
 import org.apache.jackrabbit.value.DateValue;
 import org.apache.jackrabbit.value.DoubleValue;
@@ -40,6 +43,9 @@ import java.util.Calendar;
  *   <li>Fluent binding of typed values (String, Long, Double, Calendar, Boolean) to named bind variables.</li>
  *   <li>Preserves original JCR statement for inspection or logging.</li>
  *   <li>Provides direct access to declared bind variable names.</li>
+ *   <li>Executions are measured by the {@link QueryStatistics}.</li>
+ *   <li>Result iterations are bounded by the {@link QueryGuardrails#getDefaults() default} or the configured
+ *   {@link QueryGuardrails}.</li>
  * </ul>
  * <p>Usage example:</p>
  * <pre>{@code RowsResult result = new RowsQuery(jcrQuery).bindString("title", "Welcome").bindBoolean("active", true).execute();}</pre>
@@ -57,19 +63,58 @@ import java.util.Calendar;
  */
 public abstract class QueryWrapper<T extends QueryWrapper<T>> {
     private final Query _query;
+    private final String _workspace;
+    private QueryGuardrails _guardrails;
 
     /**
      * Create a new wrapper around a JCR {@link Query}.
      * @param query underlying JCR query (must not be null)
      */
     protected QueryWrapper(Query query) {
+        this(query, null);
+    }
+
+    /**
+     * Create a new wrapper around a JCR {@link Query} of the given workspace.
+     * @param query underlying JCR query (must not be null)
+     * @param workspace workspace of the query session, recorded in the query statistics (may be null)
+     */
+    protected QueryWrapper(Query query, String workspace) {
         _query = query;
+        _workspace = workspace;
     }
 
     protected Query getQuery() {
         return _query;
     }
 
+    /**
+     * Bound the result iteration by the given guardrails instead of the default guardrails. The maximum limit is not
+     * applied to the query, set the query limit before wrapping it.
+     * @param guardrails guardrails of the result iteration, null for the defaults
+     * @return this wrapper instance for fluent chaining
+     */
+    public T withGuardrails(QueryGuardrails guardrails) {
+        _guardrails = guardrails;
+        return me();
+    }
+
+    /**
+     * Get the guardrails of the result iteration.
+     * @return the configured guardrails or the defaults
+     */
+    protected QueryGuardrails getGuardrails() {
+        return _guardrails == null ? QueryGuardrails.getDefaults() : _guardrails;
+    }
+
+    /**
+     * Start measuring the execution of the query.
+     * @return the measurement passed to the result wrapper
+     */
+    protected QueryMeasurement startMeasurement() {
+        return QueryStatistics.getInstance().start(_query.getStatement(), _query.getLanguage(), _workspace);
+    }
+
     /**
      * Binds the given {@code value} to the variable named {@code varName}.
      * @param varName name of the variable inside the query (must not be null)
@@ -0,0 +1,96 @@
+package de.ibmix.magkit.query.sql2.query.jcrwrapper;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.query.monitor.QueryMeasurement;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Closeable iterator pulling query results from the underlying JCR iterator on demand.
+ * <p>Purpose: Backs the lazily evaluated {@link Stream} results of {@link NodesResult} and {@link RowsResult}. Results
+ * are never copied into a collection, so consumers that stop early or process large results use constant memory.</p>
+ * <p>Closing releases the reference to the JCR iterator, so already fetched result batches can be garbage collected.
+ * A closed iterator has no further elements. Streams created by {@link #stream()} close the iterator on
+ * {@link Stream#close()}.</p>
+ * <p>With a {@link QueryMeasurement} the consumed results are counted and reported when the iterator is exhausted or
+ * closed.</p>
+ * <p>Thread-safety: NOT thread-safe, like the underlying JCR iterator.</p>
+ *
+ * @param <T> the element type, {@link javax.jcr.Node} or {@link javax.jcr.query.Row}
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+final class ResultIterator<T> implements Iterator<T>, AutoCloseable {
+    private final QueryMeasurement _measurement;
+    private Iterator<T> _delegate;
+    private long _count;
+
+    ResultIterator(final Iterator<T> delegate) {
+        this(delegate, QueryMeasurement.NONE);
+    }
+
+    ResultIterator(final Iterator<T> delegate, final QueryMeasurement measurement) {
+        _delegate = delegate;
+        _measurement = measurement;
+    }
+
+    @Override
+    public boolean hasNext() {
+        boolean hasNext = _delegate != null && _delegate.hasNext();
+        if (!hasNext) {
+            _measurement.finished(_count);
+        }
+        return hasNext;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more query results.");
+        }
+        _count++;
+        return _delegate.next();
+    }
+
+    @Override
+    public void close() {
+        _measurement.finished(_count);
+        if (_delegate instanceof ResultIterator) {
+            ((ResultIterator<T>) _delegate).close();
+        }
+        _delegate = null;
+    }
+
+    /**
+     * Create a sequential stream over the remaining results that closes this iterator when the stream is closed.
+     * @return lazily evaluated stream
+     */
+    Stream<T> stream() {
+        Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(this::close);
+    }
+}
@@ -20,12 +20,16 @@ package de.ibmix.magkit.query.sql2.query.jcrwrapper;
  * #L%
  */
 
+import de.ibmix.magkit.query.QueryGuardrails;
+import de.ibmix.magkit.query.monitor.QueryMeasurement;
 import org.apache.commons.lang3.ArrayUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.jcr.RepositoryException;
 import javax.jcr.query.QueryResult;
+import javax.jcr.query.RowIterator;
+import java.util.Iterator;
 
 /**
  * Base abstraction wrapping a {@link javax.jcr.query.QueryResult} in order to clearly separate
@@ -36,6 +40,10 @@ import javax.jcr.query.QueryResult;
  * <ul>
  *   <li>Safe accessor methods for column and selector names with graceful error handling (exceptions are caught and logged).</li>
  *   <li>Uniform API surface to be extended by concrete result wrappers.</li>
+ *   <li>Counting and existence checks on the result rows without loading the result nodes.</li>
+ *   <li>Optional {@link QueryMeasurement} recording iterate time and number of results when the results have been
+ *   iterated completely or their stream has been closed.</li>
+ *   <li>Optional {@link QueryGuardrails} truncating the iterated results.</li>
  * </ul>
  * <p>Null and error handling: All accessor methods return an empty array instead of {@code null}; repository exceptions
  * are logged at WARN level to avoid disrupting calling code.</p>
@@ -50,13 +58,50 @@ public abstract class ResultWrapper {
     private static final Logger LOG = LoggerFactory.getLogger(ResultWrapper.class);
 
     private final QueryResult _result;
+    private final QueryMeasurement _measurement;
+    private final QueryGuardrails _guardrails;
+    private final String _statement;
 
     /**
      * Create a new wrapper around a JCR {@link QueryResult}.
      * @param result underlying query result (must not be null for successful accessors)
      */
     protected ResultWrapper(QueryResult result) {
+        this(result, QueryMeasurement.NONE);
+    }
+
+    /**
+     * Create a new wrapper around a JCR {@link QueryResult} recording the result iteration.
+     * @param result underlying query result (must not be null for successful accessors)
+     * @param measurement measurement of the query execution, null for none
+     */
+    protected ResultWrapper(QueryResult result, QueryMeasurement measurement) {
+        this(result, measurement, QueryGuardrails.NONE, null);
+    }
+
+    /**
+     * Create a new wrapper around a JCR {@link QueryResult} recording and guarding the result iteration.
+     * @param result underlying query result (must not be null for successful accessors)
+     * @param measurement measurement of the query execution, null for none
+     * @param guardrails guardrails of the result iteration, null for none
+     * @param statement statement of the query for logging tripped guardrails
+     */
+    protected ResultWrapper(QueryResult result, QueryMeasurement measurement, QueryGuardrails guardrails, String statement) {
         _result = result;
+        _measurement = measurement == null ? QueryMeasurement.NONE : measurement;
+        _guardrails = guardrails == null ? QueryGuardrails.NONE : guardrails;
+        _statement = statement;
+    }
+
+    /**
+     * Wrap the result iterator to apply the guardrails and to record the iteration in the query measurement.
+     * @param iterator the iterator of the JCR result
+     * @param <T> the element type
+     * @return the iterator counting the results or the given iterator if nothing is guarded or measured
+     */
+    protected <T> Iterator<T> measure(Iterator<T> iterator) {
+        Iterator<T> guarded = _guardrails.guard(iterator, _statement);
+        return _measurement.isActive() ? new ResultIterator<>(guarded, _measurement) : guarded;
     }
 
     /**
@@ -67,6 +112,47 @@ public abstract class ResultWrapper {
         return _result;
     }
 
+    /**
+     * Count the results. The size reported by the repository is used if known, otherwise the result rows are
+     * iterated without reading their values or nodes.
+     * @return number of results, 0 on repository errors
+     */
+    public long getSize() {
+        long size = 0;
+        try {
+            RowIterator rows = _result.getRows();
+            size = rows.getSize();
+            if (size < 0) {
+                size = 0;
+                while (rows.hasNext()) {
+                    rows.nextRow();
+                    size++;
+                }
+            }
+            _measurement.finished(size);
+        } catch (RepositoryException e) {
+            LOG.warn("Failed to count query results.", e);
+            _measurement.failed();
+        }
+        return size;
+    }
+
+    /**
+     * Check whether the result is not empty without loading any result node.
+     * @return true if there is at least one result, false if there is none or on repository errors
+     */
+    public boolean hasResults() {
+        boolean hasResults = false;
+        try {
+            hasResults = _result.getRows().hasNext();
+            _measurement.finished(hasResults ? 1 : 0);
+        } catch (RepositoryException e) {
+            LOG.warn("Failed to check query results.", e);
+            _measurement.failed();
+        }
+        return hasResults;
+    }
+
     /**
      * Returns an array of all column names present in the tabular view of this query result.
      * The method never returns {@code null}; in case of a repository access problem an empty array is returned and the
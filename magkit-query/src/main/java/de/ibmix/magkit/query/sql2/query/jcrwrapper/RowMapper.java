@@ -0,0 +1,47 @@
+package de.ibmix.magkit.query.sql2.query.jcrwrapper;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import javax.jcr.RepositoryException;
+
+/**
+ * Maps a {@link ProjectedRow} of a query result to a typed result object.
+ * <p>Used by {@link RowsResult#getProjection(RowMapper)} to read selected columns without loading the result nodes.</p>
+ * <p>Usage example:</p>
+ * <pre>{@code
+ * List<Teaser> teasers = result.getProjection(row -> new Teaser(row.getPath(), row.getString("title"), row.getDate("date")));
+ * }</pre>
+ *
+ * @param <T> the result type
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    /**
+     * Map the projected row.
+     * @param row the projected row
+     * @return the mapped object, null values are skipped
+     * @throws RepositoryException on repository errors, the row is skipped
+     */
+    T map(ProjectedRow row) throws RepositoryException;
+}
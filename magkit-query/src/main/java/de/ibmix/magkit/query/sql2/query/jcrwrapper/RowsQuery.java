@@ -20,6 +20,8 @@ package de.ibmix.magkit.query.sql2.query.jcrwrapper;
  * #L%
  */
 
+import de.ibmix.magkit.query.monitor.QueryMeasurement;
+
 import javax.jcr.RepositoryException;
 import javax.jcr.query.InvalidQueryException;
 import javax.jcr.query.Query;
@@ -45,6 +47,15 @@ public class RowsQuery extends QueryWrapper<RowsQuery> {
         super(query);
     }
 
+    /**
+     * Create a wrapper for a query of the given workspace.
+     * @param query underlying JCR query
+     * @param workspace workspace of the query session, recorded in the query statistics
+     */
+    public RowsQuery(Query query, String workspace) {
+        super(query, workspace);
+    }
+
     @Override
     RowsQuery me() {
         return this;
@@ -58,6 +69,7 @@ public class RowsQuery extends QueryWrapper<RowsQuery> {
      * @throws RepositoryException for other repository access issues
      */
     public RowsResult execute() throws RepositoryException {
-        return new RowsResult(getQuery().execute());
+        QueryMeasurement measurement = startMeasurement();
+        return new RowsResult(measurement.execute(getQuery()), measurement, getGuardrails(), getStatement());
     }
 }
@@ -20,6 +20,8 @@ package de.ibmix.magkit.query.sql2.query.jcrwrapper;
  * #L%
  */
 
+import de.ibmix.magkit.query.QueryGuardrails;
+import de.ibmix.magkit.query.monitor.QueryMeasurement;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,8 +31,18 @@ import javax.jcr.query.QueryResult;
 import javax.jcr.query.Row;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
@@ -45,6 +57,12 @@ import static org.apache.commons.lang3.StringUtils.isNotBlank;
  *       are returned instead of {@code null}.</li>
  *   <li>Utility accessors for common join scenarios (left/right selector convenience).</li>
  *   <li>Selector-based node extraction from result rows.</li>
+ *   <li>Lazily evaluated {@link Stream}, {@link Iterable} and consumer access pulling rows on demand.</li>
+ *   <li>Single-pass access to both sides of a join as node pairs ({@link NodePair}) or grouped by the left node
+ *       ({@link NodeGroup}).</li>
+ *   <li>Facet counts per property value computed in one pass ({@link Facets}).</li>
+ *   <li>Typed column projections ({@link ProjectedRow}, {@link RowMapper}) reading the selected columns from the row
+ *       values without loading the result nodes.</li>
  * </ul>
  * <p>Null and error handling: All public accessors return non-null collections (possibly empty). Invalid selector names
  * or repository access issues are logged at WARN level.</p>
@@ -67,6 +85,26 @@ public class RowsResult extends ResultWrapper {
         super(result);
     }
 
+    /**
+     * Create a new row-oriented result wrapper recording the result iteration in the measurement of the execution.
+     * @param result underlying JCR query result
+     * @param measurement measurement of the query execution, null for none
+     */
+    public RowsResult(QueryResult result, QueryMeasurement measurement) {
+        super(result, measurement);
+    }
+
+    /**
+     * Create a new row-oriented result wrapper recording the result iteration and stopping it when a guardrail trips.
+     * @param result underlying JCR query result
+     * @param measurement measurement of the query execution, null for none
+     * @param guardrails guardrails of the result iteration, null for none
+     * @param statement statement of the query for logging tripped guardrails
+     */
+    public RowsResult(QueryResult result, QueryMeasurement measurement, QueryGuardrails guardrails, String statement) {
+        super(result, measurement, guardrails, statement);
+    }
+
     /**
      * Obtain an iterator over all {@link Row} objects in their query-defined order.
      * Returns an empty iterator if the underlying JCR call fails.
@@ -76,7 +114,7 @@ public class RowsResult extends ResultWrapper {
     public Iterator<Row> getRows() {
         Iterator<Row> rows = Collections.emptyIterator();
         try {
-            rows = getResult().getRows();
+            rows = measure(getResult().getRows());
         } catch (RepositoryException e) {
             LOGGER.warn("Failed to get query result rows.", e);
         }
@@ -97,7 +135,8 @@ public class RowsResult extends ResultWrapper {
     }
 
     /**
-     * Convenience accessor for nodes belonging to the first selector name ("left" side of a join).
+     * Convenience accessor for nodes belonging to the first selector name ("left" side of a join). Iterates the result
+     * rows, use {@link #getRowNodePairs()} to access both sides of a join in one pass.
      * @return non-null list of nodes (possibly empty)
      */
     public List<Node> getLeftRowNodeList() {
@@ -106,7 +145,8 @@ public class RowsResult extends ResultWrapper {
     }
 
     /**
-     * Convenience accessor for nodes belonging to the second selector name ("right" side of a join).
+     * Convenience accessor for nodes belonging to the second selector name ("right" side of a join). Iterates the
+     * result rows, use {@link #getRowNodePairs()} to access both sides of a join in one pass.
      * @return non-null list of nodes (possibly empty)
      */
     public List<Node> getRightRowNodeList() {
@@ -125,16 +165,264 @@ public class RowsResult extends ResultWrapper {
         List<Node> result = new ArrayList<>();
         if (isNotBlank(selector)) {
             while (iterator.hasNext()) {
-                try {
-                    Node selected = iterator.next().getNode(selector);
-                    if (selected != null) {
-                        result.add(selected);
-                    }
-                } catch (RepositoryException e) {
-                    LOGGER.warn("Failed to get node for selector " + selector + " from result row.", e);
+                Node selected = getNode(iterator.next(), selector);
+                if (selected != null) {
+                    result.add(selected);
                 }
             }
         }
         return result;
     }
+
+    /**
+     * Create a lazily evaluated stream of the result rows. Rows are pulled from the JCR iterator on demand, so
+     * short-circuiting operations like {@code findFirst()} stop fetching results. Closing the stream releases the
+     * underlying iterator.
+     * @return non-null sequential stream of rows (possibly empty)
+     */
+    public Stream<Row> getRowStream() {
+        return new ResultIterator<>(getRows()).stream();
+    }
+
+    /**
+     * Create a lazily evaluated stream of the result rows detached from the JCR session of the query, see
+     * {@link DetachedRow}. Rows that cannot be read are logged at WARN level and skipped.
+     * @param workspace the workspace of the query
+     * @return non-null sequential stream of detached rows (possibly empty)
+     */
+    public Stream<Row> getDetachedRowStream(final String workspace) {
+        final String[] columnNames = getColumnNames();
+        final String[] selectorNames = getSelectorNames();
+        return getRowStream().map(row -> detach(workspace, columnNames, selectorNames, row)).filter(Objects::nonNull);
+    }
+
+    /**
+     * Create a lazily evaluated stream of the nodes of the given selector. Rows without node for the selector
+     * (e.g. outer joins) or failing node access are skipped.
+     * @param selector selector name; blank returns an empty stream
+     * @return non-null sequential stream of nodes (possibly empty)
+     */
+    public Stream<Node> getRowNodeStreamFor(String selector) {
+        Stream<Node> nodes = Stream.empty();
+        if (isNotBlank(selector)) {
+            nodes = getRowStream().map(row -> getNode(row, selector)).filter(Objects::nonNull);
+        }
+        return nodes;
+    }
+
+    /**
+     * Provide the result rows as {@link Iterable} for enhanced for loops without copying them into a list.
+     * Each call of {@link Iterable#iterator()} requests the rows from the JCR result again; repositories may not
+     * support iterating a result more than once.
+     * @return non-null iterable of rows
+     */
+    public Iterable<Row> getRowIterable() {
+        return () -> new ResultIterator<>(getRows());
+    }
+
+    /**
+     * Pass each result row to the consumer without collecting them.
+     * @param consumer action performed for each row, must not be null
+     */
+    public void forEachRow(Consumer<? super Row> consumer) {
+        getRows().forEachRemaining(consumer);
+    }
+
+    /**
+     * Collect the nodes of the first (left) and second (right) selector of all join rows in one pass over the result.
+     * @return non-null list of node pairs in result order, empty if the query has less than two selectors
+     */
+    public List<NodePair> getRowNodePairs() {
+        List<NodePair> pairs;
+        try (Stream<NodePair> rows = getRowNodePairStream()) {
+            pairs = rows.collect(Collectors.toList());
+        }
+        return pairs;
+    }
+
+    /**
+     * Create a lazily evaluated stream of the nodes of the first (left) and second (right) selector of the join rows.
+     * Rows without left node are skipped.
+     * @return non-null sequential stream of node pairs, empty if the query has less than two selectors
+     */
+    public Stream<NodePair> getRowNodePairStream() {
+        Stream<NodePair> pairs = Stream.empty();
+        String[] selectors = getSelectorNames();
+        if (selectors.length > 1) {
+            final String left = selectors[0];
+            final String right = selectors[1];
+            pairs = getRowStream().map(row -> toPair(row, left, right)).filter(Objects::nonNull);
+        }
+        return pairs;
+    }
+
+    /**
+     * Group the nodes of the second (right) selector by the node of the first (left) selector in one pass over the
+     * result. The groups keep the order of the first occurrence of their left node.
+     * @return non-null list of node groups, empty if the query has less than two selectors
+     */
+    public List<NodeGroup> getRowNodeGroups() {
+        Map<Object, Node> lefts = new LinkedHashMap<>();
+        Map<Object, List<Node>> rights = new HashMap<>();
+        try (Stream<NodePair> pairs = getRowNodePairStream()) {
+            pairs.forEach(pair -> {
+                Object key = keyOf(pair.getLeft());
+                lefts.putIfAbsent(key, pair.getLeft());
+                addRight(rights.computeIfAbsent(key, k -> new ArrayList<>()), pair);
+            });
+        }
+        List<NodeGroup> groups = new ArrayList<>(lefts.size());
+        lefts.forEach((key, left) -> groups.add(new NodeGroup(left, rights.get(key))));
+        return groups;
+    }
+
+    /**
+     * Create a lazily evaluated stream of the right nodes grouped by their left node. Only consecutive rows with the
+     * same left node are grouped, so the statement should be ordered by the left selector (e.g. by its path) to get
+     * one group per left node. Memory use is limited to one group.
+     * @return non-null sequential stream of node groups, empty if the query has less than two selectors
+     */
+    public Stream<NodeGroup> getRowNodeGroupStream() {
+        Stream<NodePair> pairs = getRowNodePairStream();
+        Spliterator<NodeGroup> groups = Spliterators.spliteratorUnknownSize(new GroupingIterator(pairs.iterator()), Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(groups, false).onClose(pairs::close);
+    }
+
+    /**
+     * Project the selected columns of all rows without loading the result nodes.
+     * @return non-null list of projected rows (possibly empty)
+     */
+    public List<ProjectedRow> getProjectedRows() {
+        return getProjection(row -> row);
+    }
+
+    /**
+     * Map the selected columns of all rows to typed objects without loading the result nodes. Rows failing to map or
+     * mapped to null are skipped.
+     * @param mapper the row mapper, must not be null
+     * @param <T> the result type
+     * @return non-null list of mapped objects (possibly empty)
+     */
+    public <T> List<T> getProjection(RowMapper<T> mapper) {
+        List<T> projection;
+        try (Stream<T> rows = getProjectionStream(mapper)) {
+            projection = rows.collect(Collectors.toList());
+        }
+        return projection;
+    }
+
+    /**
+     * Create a lazily evaluated stream of the rows mapped to typed objects. The column positions are resolved once
+     * for all rows. Rows failing to map or mapped to null are skipped.
+     * @param mapper the row mapper, must not be null
+     * @param <T> the result type
+     * @return non-null sequential stream of mapped objects (possibly empty)
+     */
+    public <T> Stream<T> getProjectionStream(RowMapper<T> mapper) {
+        final Map<String, Integer> columnIndex = ProjectedRow.indexColumns(getColumnNames());
+        final boolean singleSelector = getSelectorNames().length < 2;
+        return getRowStream().map(row -> project(row, columnIndex, singleSelector, mapper)).filter(Objects::nonNull);
+    }
+
+    /**
+     * Count the rows per value of the facet properties in one pass over the result. Native facet columns of the
+     * repository ({@link Facets#column(String)}) are used if selected by the statement, other facets are counted from
+     * the selected columns or the row nodes. Native facets cover the whole result with its most frequent values, all
+     * other facets only the rows of this result, see {@link Facets} for details.
+     * @param properties the facet property names, blank names are ignored
+     * @return non-null unmodifiable map of property name to the counts per value ordered by descending count
+     */
+    public Map<String, Map<String, Long>> getFacets(String... properties) {
+        Map<String, Map<String, Long>> facets;
+        try (ResultIterator<Row> rows = new ResultIterator<>(getRows())) {
+            facets = Facets.count(rows, getColumnNames(), getSelectorNames().length < 2, properties);
+        }
+        return facets;
+    }
+
+    private static <T> T project(final Row row, final Map<String, Integer> columnIndex, final boolean singleSelector, final RowMapper<T> mapper) {
+        T result = null;
+        try {
+            result = mapper.map(new ProjectedRow(columnIndex, row.getValues(), singleSelector ? row.getPath() : null));
+        } catch (RepositoryException e) {
+            LOGGER.warn("Failed to project query result row.", e);
+        }
+        return result;
+    }
+
+    private static NodePair toPair(final Row row, final String left, final String right) {
+        Node leftNode = getNode(row, left);
+        return leftNode == null ? null : new NodePair(leftNode, getNode(row, right));
+    }
+
+    private static Object keyOf(final Node node) {
+        Object key = node;
+        try {
+            key = node.getPath();
+        } catch (RepositoryException e) {
+            LOGGER.debug("Failed to get path of joined node, grouping by instance.", e);
+        }
+        return key;
+    }
+
+    private static void addRight(final List<Node> rights, final NodePair pair) {
+        if (pair.getRight() != null) {
+            rights.add(pair.getRight());
+        }
+    }
+
+    /**
+     * Groups consecutive node pairs with the same left node, looking ahead one pair.
+     */
+    private static final class GroupingIterator implements Iterator<NodeGroup> {
+        private final Iterator<NodePair> _pairs;
+        private NodePair _next;
+
+        private GroupingIterator(final Iterator<NodePair> pairs) {
+            _pairs = pairs;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _next != null || _pairs.hasNext();
+        }
+
+        @Override
+        public NodeGroup next() {
+            NodePair first = _next == null ? _pairs.next() : _next;
+            _next = null;
+            Object key = keyOf(first.getLeft());
+            List<Node> rights = new ArrayList<>();
+            addRight(rights, first);
+            while (_next == null && _pairs.hasNext()) {
+                NodePair pair = _pairs.next();
+                if (key.equals(keyOf(pair.getLeft()))) {
+                    addRight(rights, pair);
+                } else {
+                    _next = pair;
+                }
+            }
+            return new NodeGroup(first.getLeft(), rights);
+        }
+    }
+
+    private static Row detach(final String workspace, final String[] columnNames, final String[] selectorNames, final Row row) {
+        Row detached = null;
+        try {
+            detached = DetachedRow.of(workspace, columnNames, selectorNames, row);
+        } catch (RepositoryException e) {
+            LOGGER.warn("Failed to read result row, skipping it.", e);
+        }
+        return detached;
+    }
+
+    private static Node getNode(final Row row, final String selector) {
+        Node node = null;
+        try {
+            node = row.getNode(selector);
+        } catch (RepositoryException e) {
+            LOGGER.warn("Failed to get node for selector " + selector + " from result row.", e);
+        }
+        return node;
+    }
 }
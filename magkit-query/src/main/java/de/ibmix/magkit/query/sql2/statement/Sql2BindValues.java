@@ -0,0 +1,42 @@
+package de.ibmix.magkit.query.sql2.statement;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import javax.jcr.Value;
+
+/**
+ * Collector for literal condition values that are rendered as generated bind variables instead of statement literals.
+ * <p>Passed to the conditions as {@link Sql2SelectorNames} implementation while rendering a parameterized statement
+ * (see {@link Sql2Statement#build(java.util.Map)}). Conditions check for this interface and register their literal
+ * values, so that the statement text is the same for all values and the repository can reuse parsed queries.</p>
+ * <p>Thread-safety: Implementations are not thread-safe.</p>
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public interface Sql2BindValues {
+    /**
+     * Register a literal value for a new generated bind variable.
+     * @param value the typed literal value (never null)
+     * @return the generated bind variable name without leading {@code $}
+     */
+    String addBindValue(Value value);
+}
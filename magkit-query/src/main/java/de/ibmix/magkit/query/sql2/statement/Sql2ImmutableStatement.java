@@ -0,0 +1,357 @@
+package de.ibmix.magkit.query.sql2.statement;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.query.sql2.condition.Sql2Constraint;
+import de.ibmix.magkit.query.sql2.condition.Sql2ConstraintGroup;
+import de.ibmix.magkit.query.sql2.condition.Sql2JoinConstraint;
+import org.apache.commons.lang3.ArrayUtils;
+
+import javax.jcr.Value;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.apache.commons.lang3.StringUtils.splitByWholeSeparatorPreserveAllTokens;
+
+/**
+ * Immutable, thread-safe SQL2 statement that can be defined once as constant and rendered concurrently.
+ * <p>Purpose: {@link Sql2Statement} and the condition builders are mutable fluent builders that render the statement
+ * on every {@link Sql2Statement#build()}. Hot statements converted with {@link #of(Sql2Builder)} are rendered once at
+ * class load, every {@link #build()} returns the cached SQL2.</p>
+ * <p>Key features:</p>
+ * <ul>
+ *   <li>Immutable syntax tree: the SELECT, FROM and JOIN part, a tree of AND-combined constraint nodes and the
+ *   ordering. The conditions are converted into immutable nodes holding their rendered SQL2 and their typed literal
+ *   values, later changes of the builders do not affect the statement.</li>
+ *   <li>Structural sharing: {@link #whereAlso(Sql2JoinConstraint...)} and {@link #orderBy(boolean, String...)} create
+ *   new statements sharing the unchanged parts of this statement.</li>
+ *   <li>Cached rendering: {@link #build()} and {@link #build(Map)} with an empty map return cached statements.</li>
+ *   <li>{@link Sql2TemplateBuilder} support, so keyset paging and bound literals of the query builders work as for
+ *   {@link Sql2Statement}.</li>
+ * </ul>
+ * <p>Null and error handling: Null or empty constraints are ignored. Only {@link Sql2Statement} builders can be
+ * converted, other builders cause an {@link IllegalArgumentException}.</p>
+ * <p>Thread-safety: Immutable and thread-safe. Additional constraints passed to
+ * {@link #build(Sql2JoinConstraint, String[], boolean, Map)} are rendered by the calling thread.</p>
+ * <p>Usage example:</p>
+ * <pre>{@code
+ * private static final Sql2ImmutableStatement NEWS = Sql2ImmutableStatement.of(Sql2Statement.select().from("mgnl:page")
+ *     .whereAll(Sql2.Condition.String.templateEquals("my-module:pages/news")).orderBy("mgnl:created"));
+ *
+ * List<Node> news = Sql2QueryBuilder.forNodes().fromWebsite().withStatement(NEWS.whereAlso(Sql2.Condition.Path.isDescendant(root)))
+ *     .withLimit(10).getResultNodes();
+ * }</pre>
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public final class Sql2ImmutableStatement implements Sql2TemplateBuilder {
+
+    /**
+     * Marker rendered as bind variable name while converting a constraint into a template.
+     */
+    private static final String VARIABLE_MARKER = "\u0000";
+
+    private final String _head;
+    private final String _fromSelectorName;
+    private final String _joinSelectorName;
+    private final String _orderSelectorName;
+    private final Node _constraint;
+    private final String[] _orderAttributes;
+    private final boolean _descending;
+    private final String _sql2;
+    private final String _boundSql2;
+    private final List<Value> _boundValues;
+
+    private Sql2ImmutableStatement(final String head, final String fromSelectorName, final String joinSelectorName, final String orderSelectorName,
+                                   final Node constraint, final String[] orderAttributes, final boolean descending) {
+        _head = head;
+        _fromSelectorName = fromSelectorName;
+        _joinSelectorName = joinSelectorName;
+        _orderSelectorName = orderSelectorName;
+        _constraint = constraint;
+        _orderAttributes = orderAttributes;
+        _descending = descending;
+        _sql2 = render(null, _orderAttributes, _descending, null);
+        List<Value> boundValues = new ArrayList<>();
+        _boundSql2 = render(null, _orderAttributes, _descending, new Sql2LiteralBindings(this, new ListMap(boundValues)));
+        _boundValues = Collections.unmodifiableList(boundValues);
+    }
+
+    /**
+     * Convert the statement builder into an immutable statement.
+     * @param statement a {@link Sql2Statement} or an immutable statement
+     * @return the immutable statement, the given statement if it is immutable already
+     * @throws IllegalArgumentException if the statement is neither a {@link Sql2Statement} nor immutable
+     */
+    public static Sql2ImmutableStatement of(final Sql2Builder statement) {
+        Sql2ImmutableStatement result;
+        if (statement instanceof Sql2ImmutableStatement) {
+            result = (Sql2ImmutableStatement) statement;
+        } else if (statement instanceof Sql2Statement) {
+            Sql2Statement source = (Sql2Statement) statement;
+            StringBuilder head = new StringBuilder();
+            source.appendHead(head, source);
+            result = new Sql2ImmutableStatement(head.toString(), source.getFromSelectorName(), source.getJoinSelectorName(), source.getOrderSelectorName(),
+                Leaf.of(source.getOptimizedConstraint(), source), copy(source.getOrderAttributes()), source.isDescending());
+        } else {
+            throw new IllegalArgumentException("Only Sql2Statement builders can be converted into immutable statements.");
+        }
+        return result;
+    }
+
+    /**
+     * Create a statement with additional constraints combined with the constraints of this statement by AND.
+     * @param constraints the additional constraints, combined by AND, null or empty constraints are ignored
+     * @return new statement sharing the parts of this statement or this statement if there are no constraints
+     */
+    public Sql2ImmutableStatement whereAlso(final Sql2JoinConstraint... constraints) {
+        Node additional = Leaf.of(Sql2ConstraintGroup.and().matches(constraints).optimize(), this);
+        Sql2ImmutableStatement result = this;
+        if (additional != null) {
+            Node constraint = _constraint == null ? additional : new Group(_constraint, additional);
+            result = new Sql2ImmutableStatement(_head, _fromSelectorName, _joinSelectorName, _orderSelectorName, constraint, _orderAttributes, _descending);
+        }
+        return result;
+    }
+
+    /**
+     * Create a statement with another ordering.
+     * @param descending true to order descending
+     * @param attributes the attributes to order by, null or empty for no ordering
+     * @return new statement sharing the other parts of this statement
+     */
+    public Sql2ImmutableStatement orderBy(final boolean descending, final String... attributes) {
+        return new Sql2ImmutableStatement(_head, _fromSelectorName, _joinSelectorName, _orderSelectorName, _constraint, copy(attributes), descending);
+    }
+
+    @Override
+    public String getFromSelectorName() {
+        return _fromSelectorName;
+    }
+
+    @Override
+    public String getJoinSelectorName() {
+        return _joinSelectorName;
+    }
+
+    /**
+     * Get the cached SQL2 statement.
+     * @return SQL2 query string
+     */
+    @Override
+    public String build() {
+        return _sql2;
+    }
+
+    @Override
+    public String build(final Map<String, Value> bindValues) {
+        String result;
+        if (bindValues.isEmpty()) {
+            for (int i = 0; i < _boundValues.size(); i++) {
+                bindValues.put(Sql2Statement.LITERAL_VARIABLE_PREFIX + (i + 1), _boundValues.get(i));
+            }
+            result = _boundSql2;
+        } else {
+            result = build(null, _orderAttributes, _descending, bindValues);
+        }
+        return result;
+    }
+
+    @Override
+    public String build(final Sql2JoinConstraint additionalConstraint, final String[] orderAttributes, final boolean descending, final Map<String, Value> bindValues) {
+        return render(additionalConstraint, orderAttributes, descending, bindValues == null ? null : new Sql2LiteralBindings(this, bindValues));
+    }
+
+    private String render(final Sql2JoinConstraint additionalConstraint, final String[] orderAttributes, final boolean descending, final Sql2LiteralBindings bindings) {
+        Sql2SelectorNames selectorNames = bindings == null ? this : bindings;
+        StringBuilder result = new StringBuilder(_head.length() + 64).append(_head);
+        boolean hasAdditional = additionalConstraint != null && additionalConstraint.isNotEmpty();
+        if (_constraint != null || hasAdditional) {
+            result.append(" WHERE ");
+            if (_constraint != null && hasAdditional) {
+                result.append('(');
+                _constraint.appendTo(result, bindings);
+                result.append(Sql2Constraint.SQL2_OP_AND);
+                additionalConstraint.appendTo(result, selectorNames);
+                result.append(')');
+            } else if (_constraint != null) {
+                _constraint.appendTo(result, bindings);
+            } else {
+                additionalConstraint.appendTo(result, selectorNames);
+            }
+        }
+        Sql2Statement.appendOrderAttributes(result, orderAttributes, descending, _orderSelectorName);
+        return result.toString();
+    }
+
+    private static String[] copy(final String[] attributes) {
+        return ArrayUtils.isEmpty(attributes) ? null : attributes.clone();
+    }
+
+    @Override
+    public String toString() {
+        return _sql2;
+    }
+
+    /**
+     * Immutable node of the constraint tree.
+     */
+    private abstract static class Node {
+        /**
+         * Append the constraint.
+         * @param sql2 the buffer
+         * @param bindings bindings receiving the literals as generated bind variables, null to render the literals
+         */
+        abstract void appendTo(StringBuilder sql2, Sql2BindValues bindings);
+    }
+
+    /**
+     * Constraint converted from a condition builder: the rendered SQL2 and a template with the typed literal values.
+     */
+    private static final class Leaf extends Node {
+        private final String _sql2;
+        private final String[] _segments;
+        private final Value[] _values;
+
+        private Leaf(final String sql2, final String[] segments, final Value[] values) {
+            _sql2 = sql2;
+            _segments = segments;
+            _values = values;
+        }
+
+        /**
+         * Convert the constraint for the given selector names.
+         * @param constraint the constraint builder, may be null
+         * @param selectorNames the selector names of the statement
+         * @return the immutable node or null if the constraint renders nothing
+         */
+        static Leaf of(final Sql2JoinConstraint constraint, final Sql2SelectorNames selectorNames) {
+            Leaf leaf = null;
+            if (constraint != null && constraint.isNotEmpty()) {
+                StringBuilder sql2 = new StringBuilder();
+                constraint.appendTo(sql2, selectorNames);
+                List<Value> values = new ArrayList<>();
+                StringBuilder template = new StringBuilder();
+                constraint.appendTo(template, new RecordingBindings(selectorNames, values));
+                if (sql2.length() > 0) {
+                    String[] segments = splitByWholeSeparatorPreserveAllTokens(template.toString(), '$' + VARIABLE_MARKER);
+                    leaf = new Leaf(sql2.toString(), segments, values.toArray(new Value[0]));
+                }
+            }
+            return leaf;
+        }
+
+        @Override
+        void appendTo(final StringBuilder sql2, final Sql2BindValues bindings) {
+            if (bindings == null || _values.length == 0) {
+                sql2.append(_sql2);
+            } else {
+                for (int i = 0; i < _values.length; i++) {
+                    sql2.append(_segments[i]).append('$').append(bindings.addBindValue(_values[i]));
+                }
+                sql2.append(_segments[_values.length]);
+            }
+        }
+    }
+
+    /**
+     * Two constraint nodes combined by AND, sharing the existing node.
+     */
+    private static final class Group extends Node {
+        private final Node _left;
+        private final Node _right;
+
+        private Group(final Node left, final Node right) {
+            _left = left;
+            _right = right;
+        }
+
+        @Override
+        void appendTo(final StringBuilder sql2, final Sql2BindValues bindings) {
+            sql2.append('(');
+            _left.appendTo(sql2, bindings);
+            sql2.append(Sql2Constraint.SQL2_OP_AND);
+            _right.appendTo(sql2, bindings);
+            sql2.append(')');
+        }
+    }
+
+    /**
+     * Selector names recording the condition literals and rendering them as marker variables.
+     */
+    private static final class RecordingBindings implements Sql2SelectorNames, Sql2BindValues {
+        private final Sql2SelectorNames _selectorNames;
+        private final List<Value> _values;
+
+        private RecordingBindings(final Sql2SelectorNames selectorNames, final List<Value> values) {
+            _selectorNames = selectorNames;
+            _values = values;
+        }
+
+        @Override
+        public String getFromSelectorName() {
+            return _selectorNames.getFromSelectorName();
+        }
+
+        @Override
+        public String getJoinSelectorName() {
+            return _selectorNames.getJoinSelectorName();
+        }
+
+        @Override
+        public String addBindValue(final Value value) {
+            _values.add(value);
+            return VARIABLE_MARKER;
+        }
+    }
+
+    /**
+     * Minimal map collecting the values of generated bind variables in order of their creation.
+     */
+    private static final class ListMap extends AbstractMap<String, Value> {
+        private final List<Value> _values;
+
+        private ListMap(final List<Value> values) {
+            _values = values;
+        }
+
+        @Override
+        public Value put(final String key, final Value value) {
+            _values.add(value);
+            return null;
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            return false;
+        }
+
+        @Override
+        public Set<Entry<String, Value>> entrySet() {
+            return Collections.emptySet();
+        }
+    }
+}
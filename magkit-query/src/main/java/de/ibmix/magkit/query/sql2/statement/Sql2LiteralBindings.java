@@ -0,0 +1,63 @@
+package de.ibmix.magkit.query.sql2.statement;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import javax.jcr.Value;
+import java.util.Map;
+
+/**
+ * Selector names of a statement collecting the condition literals as generated bind variables
+ * ({@code literal1}, {@code literal2}, ...). Names already contained in the map are skipped.
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+final class Sql2LiteralBindings implements Sql2SelectorNames, Sql2BindValues {
+    private final Sql2SelectorNames _selectorNames;
+    private final Map<String, Value> _bindValues;
+    private int _count;
+
+    Sql2LiteralBindings(final Sql2SelectorNames selectorNames, final Map<String, Value> bindValues) {
+        _selectorNames = selectorNames;
+        _bindValues = bindValues;
+    }
+
+    @Override
+    public String getFromSelectorName() {
+        return _selectorNames.getFromSelectorName();
+    }
+
+    @Override
+    public String getJoinSelectorName() {
+        return _selectorNames.getJoinSelectorName();
+    }
+
+    @Override
+    public String addBindValue(final Value value) {
+        String name;
+        do {
+            _count++;
+            name = Sql2Statement.LITERAL_VARIABLE_PREFIX + _count;
+        } while (_bindValues.containsKey(name));
+        _bindValues.put(name, value);
+        return name;
+    }
+}
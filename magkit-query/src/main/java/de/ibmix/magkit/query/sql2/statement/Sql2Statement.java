@@ -26,6 +26,9 @@ import de.ibmix.magkit.query.sql2.condition.Sql2JoinConstraint;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.jackrabbit.JcrConstants;
 
+import javax.jcr.Value;
+import java.util.Map;
+
 import static org.apache.commons.lang3.StringUtils.EMPTY;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import static org.apache.commons.lang3.StringUtils.trimToNull;
@@ -40,6 +43,12 @@ import static org.apache.commons.lang3.StringUtils.trimToNull;
  *   <li>INNER, LEFT OUTER and RIGHT OUTER JOIN with custom ON conditions</li>
  *   <li>WHERE constraints grouped by logical AND (whereAll) or OR (whereAny)</li>
  *   <li>ORDER BY on properties or JCR score with ascending/descending direction</li>
+ *   <li>Optional rendering of condition literals as generated bind variables ({@link #build(Map)})</li>
+ *   <li>Conversion into an immutable, thread-safe {@link Sql2ImmutableStatement} to be shared as constant</li>
+ *   <li>Optimized WHERE constraints: empty and nested groups, duplicate values and redundant path conditions are
+ *   removed before rendering (see {@link Sql2JoinConstraint#optimize()}). The optimized constraints are created on
+ *   the first build and reused until the WHERE constraints are replaced, so conditions must be complete when they are
+ *   passed to {@link #whereAll(Sql2JoinConstraint...)} or {@link #whereAny(Sql2JoinConstraint...)}.</li>
  * </ul>
  * Limitations: DISTINCT and IN are not supported by Jackrabbit and thus omitted. Ordering on join attributes is not yet implemented
  * (see inline TODO comments). Multiple selectors are supported but some convenience handling (e.g. join attribute names) is pending.
@@ -57,12 +66,16 @@ import static org.apache.commons.lang3.StringUtils.trimToNull;
  * <p>Side effects: Mutates internal state on each fluent step until {@link #build()} is invoked.</p>
  * <p>Null handling: Attribute arrays may be null/empty (treated as wildcard). Node type defaults to nt:base if blank. Selector names become null if blank.
  * Constraint arrays may be null/empty (no WHERE clause). Join attributes ordering currently falls back to from-selector prefix only.</p>
- * <p>Thread-safety: Not thread-safe; use per-thread instances.</p>
+ * <p>Thread-safety: Not thread-safe; use per-thread instances. Rendering only caches the optimized constraints, so
+ * statements that are no longer modified may be rendered concurrently; prefer {@link Sql2ImmutableStatement#of(Sql2Builder)} for shared
+ * statements.</p>
  *
  * @author wolf.bubenik@ibmix.de
  * @since 2020-02-28
  */
-public final class Sql2Statement implements Sql2From, Sql2As, Sql2Join, Sql2JoinAs, Sql2JoinOn, Sql2Where, Sql2Order, Sql2OrderDirection, Sql2Builder, Sql2SelectorNames {
+public final class Sql2Statement implements Sql2From, Sql2As, Sql2Join, Sql2JoinAs, Sql2JoinOn, Sql2Where, Sql2Order, Sql2OrderDirection, Sql2TemplateBuilder {
+
+    public static final String LITERAL_VARIABLE_PREFIX = "literal";
 
     private static final String DESC = " DESC";
     private static final String ASC = " ASC";
@@ -81,6 +94,7 @@ public final class Sql2Statement implements Sql2From, Sql2As, Sql2Join, Sql2Join
     private String _fromSelectorName;
     private String _joinSelectorName;
     private Sql2ConstraintGroup _constraintGroup;
+    private volatile Sql2JoinConstraint _optimizedConstraint;
     private String[] _orderAttributes;
     private String _orderDirection = DESC;
     private Sql2JoinCondition _joinCondition;
@@ -195,6 +209,7 @@ public final class Sql2Statement implements Sql2From, Sql2As, Sql2Join, Sql2Join
 
     private Sql2Order where(Sql2ConstraintGroup constraintGroup) {
         _constraintGroup = constraintGroup;
+        _optimizedConstraint = null;
         return this;
     }
 
@@ -271,7 +286,103 @@ public final class Sql2Statement implements Sql2From, Sql2As, Sql2Join, Sql2Join
      * @return SQL2 query string
      */
     public String build() {
+        return build(null, _orderAttributes, isDescending());
+    }
+
+    /**
+     * Render the SQL2 statement with an additional constraint and a replaced ordering, e.g. for keyset paging.
+     * The statement itself is not modified.
+     * @param additionalConstraint constraint combined with the WHERE constraints by AND, may be null
+     * @param orderAttributes attributes to order by instead of the configured ones, may be null or empty
+     * @param descending true to order descending, false to order ascending
+     * @return SQL2 query string
+     */
+    public String build(final Sql2JoinConstraint additionalConstraint, final String[] orderAttributes, final boolean descending) {
+        return build(additionalConstraint, orderAttributes, descending, null);
+    }
+
+    /**
+     * Render the SQL2 statement with all condition literals replaced by generated bind variables
+     * ({@code $literal1}, {@code $literal2}, ...). The statement text does not depend on the literal values, so the
+     * repository can reuse parsed queries.
+     * @param bindValues map receiving the generated bind variables and their values, existing names are not reused
+     * @return SQL2 query string
+     */
+    public String build(final Map<String, Value> bindValues) {
+        return build(null, _orderAttributes, isDescending(), bindValues);
+    }
+
+    /**
+     * Render the SQL2 statement with an additional constraint and a replaced ordering, optionally replacing all
+     * condition literals by generated bind variables. The statement itself is not modified.
+     * @param additionalConstraint constraint combined with the WHERE constraints by AND, may be null
+     * @param orderAttributes attributes to order by instead of the configured ones, may be null or empty
+     * @param descending true to order descending, false to order ascending
+     * @param bindValues map receiving generated bind variables and their values, null to render literals
+     * @return SQL2 query string
+     */
+    public String build(final Sql2JoinConstraint additionalConstraint, final String[] orderAttributes, final boolean descending, final Map<String, Value> bindValues) {
+        Sql2SelectorNames selectorNames = bindValues == null ? this : new Sql2LiteralBindings(this, bindValues);
         StringBuilder result = new StringBuilder();
+        appendHead(result, selectorNames);
+
+        Sql2JoinConstraint constraint = getOptimizedConstraint();
+        if (additionalConstraint != null && additionalConstraint.isNotEmpty()) {
+            constraint = constraint != null && constraint.isNotEmpty() ? Sql2ConstraintGroup.and().matches(constraint, additionalConstraint) : additionalConstraint;
+        }
+        if (constraint != null && constraint.isNotEmpty()) {
+            result.append(WHERE);
+            constraint.appendTo(result, selectorNames);
+        }
+        appendOrderAttributes(result, orderAttributes, descending, getOrderSelectorName());
+
+        return result.toString();
+    }
+
+    /**
+     * Get the optimized WHERE constraints, created once until the constraints are replaced. Concurrent first calls may
+     * optimize more than once, all results are equal.
+     * @return the optimized constraints or null if no constraints have been defined
+     */
+    Sql2JoinConstraint getOptimizedConstraint() {
+        Sql2JoinConstraint optimized = _optimizedConstraint;
+        if (optimized == null && _constraintGroup != null) {
+            optimized = _constraintGroup.optimize();
+            _optimizedConstraint = optimized;
+        }
+        return optimized;
+    }
+
+    /**
+     * Get the configured order attributes.
+     * @return the order attributes, may be null
+     */
+    String[] getOrderAttributes() {
+        return _orderAttributes;
+    }
+
+    /**
+     * Check the configured order direction.
+     * @return true if ordered descending
+     */
+    boolean isDescending() {
+        return DESC.equals(_orderDirection);
+    }
+
+    /**
+     * Get the selector name prefixing the order attributes.
+     * @return the from selector name for statements with two selectors, null otherwise
+     */
+    String getOrderSelectorName() {
+        return hasTwoSelectors() ? _fromSelectorName : null;
+    }
+
+    /**
+     * Append the SELECT, FROM and JOIN part of the statement.
+     * @param result the buffer
+     * @param selectorNames selector names passed to the join condition
+     */
+    void appendHead(final StringBuilder result, final Sql2SelectorNames selectorNames) {
         result.append(SELECT);
         if (ArrayUtils.isEmpty(_attributes)) {
             appendAllAttributes(result);
@@ -285,16 +396,8 @@ public final class Sql2Statement implements Sql2From, Sql2As, Sql2Join, Sql2Join
 
         if (hasJoin()) {
             result.append(_joinMethod).append('[').append(_joinNodeType).append(']').append(AS).append(_joinSelectorName).append(ON);
-            _joinCondition.appendTo(result, this);
-        }
-
-        if (_constraintGroup != null && _constraintGroup.isNotEmpty()) {
-            result.append(WHERE);
-            _constraintGroup.appendTo(result, this);
+            _joinCondition.appendTo(result, selectorNames);
         }
-        appendOrderAttributes(result);
-
-        return result.toString();
     }
 
     private void appendAttributes(final StringBuilder result) {
@@ -332,16 +435,24 @@ public final class Sql2Statement implements Sql2From, Sql2As, Sql2Join, Sql2Join
         }
     }
 
-    private void appendOrderAttributes(final StringBuilder result) {
-        if (ArrayUtils.isNotEmpty(_orderAttributes)) {
+    /**
+     * Append the ORDER BY part of the statement.
+     * @param result the buffer
+     * @param orderAttributes the attributes to order by, may be null or empty
+     * @param descending true to order descending
+     * @param selectorName selector name prefixing the attributes, may be null
+     */
+    static void appendOrderAttributes(final StringBuilder result, final String[] orderAttributes, final boolean descending, final String selectorName) {
+        if (ArrayUtils.isNotEmpty(orderAttributes)) {
+            String orderDirection = descending ? DESC : ASC;
             result.append(ORDER_BY);
-            for (String attribute : _orderAttributes) {
-                if (hasTwoSelectors()) {
+            for (String attribute : orderAttributes) {
+                if (selectorName != null) {
                     //TODO: handle ordering on join attributes
-                    result.append(_fromSelectorName).append('.');
+                    result.append(selectorName).append('.');
                 }
-                result.append('[').append(attribute).append(']').append(_orderDirection);
-                if (ArrayUtils.indexOf(_orderAttributes, attribute) < _orderAttributes.length - 1) {
+                result.append('[').append(attribute).append(']').append(orderDirection);
+                if (ArrayUtils.indexOf(orderAttributes, attribute) < orderAttributes.length - 1) {
                     result.append(", ");
                 }
             }
@@ -0,0 +1,58 @@
+package de.ibmix.magkit.query.sql2.statement;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.query.sql2.condition.Sql2JoinConstraint;
+
+import javax.jcr.Value;
+import java.util.Map;
+
+/**
+ * Statement builder that can render its statement with generated literal bind variables, an additional constraint and
+ * a replaced ordering.
+ * <p>Implemented by {@link Sql2Statement} and {@link Sql2ImmutableStatement}. Used by the query builders for keyset
+ * paging and bound literals.</p>
+ * <p>Thread-safety: Depends on the implementation.</p>
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public interface Sql2TemplateBuilder extends Sql2Builder, Sql2SelectorNames {
+
+    /**
+     * Render the SQL2 statement with all condition literals replaced by generated bind variables
+     * ({@code $literal1}, {@code $literal2}, ...).
+     * @param bindValues map receiving the generated bind variables and their values, existing names are not reused
+     * @return SQL2 query string
+     */
+    String build(Map<String, Value> bindValues);
+
+    /**
+     * Render the SQL2 statement with an additional constraint and a replaced ordering, optionally replacing all
+     * condition literals by generated bind variables. The statement itself is not modified.
+     * @param additionalConstraint constraint combined with the WHERE constraints by AND, may be null
+     * @param orderAttributes attributes to order by instead of the configured ones, may be null or empty
+     * @param descending true to order descending, false to order ascending
+     * @param bindValues map receiving generated bind variables and their values, null to render literals
+     * @return SQL2 query string
+     */
+    String build(Sql2JoinConstraint additionalConstraint, String[] orderAttributes, boolean descending, Map<String, Value> bindValues);
+}
@@ -0,0 +1,706 @@
+package de.ibmix.magkit.query.xpath;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.query.sql2.condition.Sql2CalendarCondition;
+import de.ibmix.magkit.query.sql2.condition.Sql2Compare;
+import de.ibmix.magkit.query.sql2.condition.Sql2ConstraintGroup;
+import de.ibmix.magkit.query.sql2.condition.Sql2ContainsCondition;
+import de.ibmix.magkit.query.sql2.condition.Sql2DoubleCondition;
+import de.ibmix.magkit.query.sql2.condition.Sql2JoinConstraint;
+import de.ibmix.magkit.query.sql2.condition.Sql2LongCondition;
+import de.ibmix.magkit.query.sql2.condition.Sql2NameCondition;
+import de.ibmix.magkit.query.sql2.condition.Sql2NullCondition;
+import de.ibmix.magkit.query.sql2.condition.Sql2PathCondition;
+import de.ibmix.magkit.query.sql2.condition.Sql2StringCondition;
+import de.ibmix.magkit.query.sql2.statement.Sql2Builder;
+import de.ibmix.magkit.query.sql2.statement.Sql2Order;
+import de.ibmix.magkit.query.sql2.statement.Sql2SelectorNames;
+import de.ibmix.magkit.query.sql2.statement.Sql2Statement;
+import org.apache.jackrabbit.JcrConstants;
+import org.apache.jackrabbit.util.ISO8601;
+import org.apache.jackrabbit.util.ISO9075;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.Node;
+import javax.jcr.Property;
+import javax.jcr.RepositoryException;
+import javax.jcr.Value;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+import static org.apache.commons.lang3.StringUtils.removeEnd;
+import static org.apache.commons.lang3.StringUtils.removeStart;
+import static org.apache.commons.lang3.StringUtils.trim;
+
+/**
+ * Translator of XPath queries into SQL2 statement builders.
+ * <p>Purpose: Legacy queries built with {@link XpathBuilder} and {@link ConstraintBuilder} (or written by hand in the
+ * same style) are converted into {@link Sql2Statement} builders, so they are executed as JCR-SQL2 statements that
+ * plan better on the repository, without rewriting them.</p>
+ * <p>Supported XPath subset:</p>
+ * <ul>
+ *   <li>Location: {@code /jcr:root[/path]//element(name,type)} or {@code //*} (descendants), {@code /element(...)}
+ *   or {@code /*} (children) and {@code /jcr:root/path} (the node itself). The ISO 9075 encoded path is decoded.</li>
+ *   <li>Predicates: {@code [...]} combined by AND, {@code and}, {@code or}, {@code not(...)} and parentheses.</li>
+ *   <li>Comparisons {@code = != < <= > >=} (and {@code eq ne lt le gt ge}) of {@code @property},
+ *   {@code fn:name()}, {@code fn:lower-case(@property)} or {@code fn:upper-case(@property)} with string, integer,
+ *   decimal or {@code xs:dateTime('...')} literals.</li>
+ *   <li>Property existence {@code @property}, {@code jcr:like(@property, 'pattern')} and
+ *   {@code jcr:contains(@property|.|*, 'terms')}.</li>
+ *   <li>{@code order by @property [ascending|descending]} and {@code jcr:score()} with one direction for all
+ *   attributes.</li>
+ * </ul>
+ * <p>Magnolia 4 meta data properties ({@code MetaData/@mgnl:template}) are mapped to the node properties used
+ * since Magnolia 5 ({@code [mgnl:template]}). The dummy ordering by {@code @jcr:primaryType} is dropped.</p>
+ * <p>Null and error handling: Unsupported or invalid XPath syntax causes an {@link IllegalArgumentException} naming
+ * the position in the statement.</p>
+ * <p>Thread-safety: Stateless and thread-safe. The created builders are not thread-safe.</p>
+ * <p>Usage example:</p>
+ * <pre>{@code
+ * String xpath = XpathBuilder.xPathBuilder().path("/news").type("mgnl:page")
+ *     .property(ConstraintBuilder.constraintBuilder().addTplNameConstraint("my-module:pages/news")).build();
+ * Sql2Builder statement = XpathTranslator.toSql2(xpath);
+ * // SELECT * FROM [mgnl:page] WHERE (isdescendantnode('/news') AND [mgnl:template] = 'my-module:pages/news')
+ * }</pre>
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public final class XpathTranslator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(XpathTranslator.class);
+
+    private static final String JCR_ROOT = XpathBuilder.JCR_ROOT_PATH;
+    private static final String ORDER_BY = "order by";
+    private static final String ELEMENT = "element(";
+    private static final String META_DATA = "MetaData/";
+    private static final String ASCENDING = "ascending";
+    private static final String DESCENDING = "descending";
+    private static final String DUMMY_ORDERING = "@" + JcrConstants.JCR_PRIMARYTYPE;
+
+    private XpathTranslator() {
+    }
+
+    /**
+     * Translate the XPath query of the builder. The builder cannot be used anymore.
+     * @param xpathBuilder the XPath builder
+     * @return the equivalent SQL2 statement builder
+     * @throws IllegalArgumentException if the XPath query uses unsupported syntax
+     */
+    public static Sql2Builder toSql2(final XpathBuilder xpathBuilder) {
+        return toSql2(xpathBuilder.build());
+    }
+
+    /**
+     * Translate an XPath query.
+     * @param xpath the XPath query starting with {@code /jcr:root}
+     * @return the equivalent SQL2 statement builder
+     * @throws IllegalArgumentException if the XPath query uses unsupported syntax
+     */
+    public static Sql2Builder toSql2(final String xpath) {
+        String query = trim(xpath);
+        if (query == null || !query.startsWith(JCR_ROOT)) {
+            throw new IllegalArgumentException("XPath query must start with " + JCR_ROOT + ": " + xpath);
+        }
+        Parser parser = new Parser(query);
+        parser._pos = JCR_ROOT.length();
+        int predicatesStart = parser.indexOutsideLiterals('[', ORDER_BY);
+        List<Sql2JoinConstraint> constraints = new ArrayList<>();
+        String nodeType = parseLocation(trim(query.substring(JCR_ROOT.length(), predicatesStart)), constraints);
+
+        parser._pos = predicatesStart;
+        while (parser.accept('[')) {
+            constraints.add(parser.parseOr());
+            parser.expect(']');
+        }
+        String[] orderAttributes = null;
+        boolean descending = false;
+        if (parser.acceptKeyword(ORDER_BY)) {
+            List<String> attributes = new ArrayList<>();
+            Boolean direction = null;
+            do {
+                String attribute = parser.readName();
+                if (attribute.equals("jcr:score")) {
+                    parser.expect('(');
+                    parser.expect(')');
+                    attribute = JcrConstants.JCR_SCORE;
+                } else if (!DUMMY_ORDERING.equals(attribute)) {
+                    attribute = toPropertyName(attribute, parser);
+                }
+                boolean isDescending = parser.acceptKeyword(DESCENDING);
+                if (!isDescending) {
+                    parser.acceptKeyword(ASCENDING);
+                }
+                if (!DUMMY_ORDERING.equals(attribute)) {
+                    if (direction != null && direction != isDescending) {
+                        throw parser.error("Mixed order directions are not supported");
+                    }
+                    direction = isDescending;
+                    attributes.add(attribute);
+                }
+            } while (parser.accept(','));
+            descending = direction != null && direction;
+            orderAttributes = attributes.isEmpty() ? null : attributes.toArray(new String[0]);
+        }
+        parser.expectEnd();
+
+        Sql2Order statement = Sql2Statement.select().from(nodeType).whereAll(constraints.toArray(new Sql2JoinConstraint[0]));
+        Sql2Builder result = statement;
+        if (orderAttributes != null) {
+            result = descending ? statement.orderBy(orderAttributes).descending() : statement.orderBy(orderAttributes).ascending();
+        }
+        return result;
+    }
+
+    /**
+     * Translate the XPath constraint of the builder, i.e. the predicate without surrounding brackets.
+     * @param constraintBuilder the constraint builder
+     * @return the equivalent SQL2 constraint
+     * @throws IllegalArgumentException if the constraint uses unsupported syntax
+     */
+    public static Sql2JoinConstraint toConstraint(final ConstraintBuilder constraintBuilder) {
+        return toConstraint(constraintBuilder.build());
+    }
+
+    /**
+     * Translate an XPath constraint. Surrounding brackets are optional, several bracketed predicates are combined by
+     * AND.
+     * @param constraint the XPath constraint, blank for an empty constraint
+     * @return the equivalent SQL2 constraint
+     * @throws IllegalArgumentException if the constraint uses unsupported syntax
+     */
+    public static Sql2JoinConstraint toConstraint(final String constraint) {
+        List<Sql2JoinConstraint> constraints = new ArrayList<>();
+        if (isNotBlank(constraint)) {
+            Parser parser = new Parser(constraint);
+            if (parser.peek() == '[') {
+                while (parser.accept('[')) {
+                    constraints.add(parser.parseOr());
+                    parser.expect(']');
+                }
+            } else {
+                constraints.add(parser.parseOr());
+            }
+            parser.expectEnd();
+        }
+        return constraints.size() == 1 ? constraints.get(0) : Sql2ConstraintGroup.and().matches(constraints.toArray(new Sql2JoinConstraint[0]));
+    }
+
+    private static String parseLocation(final String location, final List<Sql2JoinConstraint> constraints) {
+        String nodeType = null;
+        String nodeTest = null;
+        if (location.endsWith("*") && !location.endsWith("(*")) {
+            nodeTest = "*";
+        } else if (location.endsWith(")") && location.contains(ELEMENT)) {
+            nodeTest = location.substring(location.lastIndexOf(ELEMENT));
+        }
+        String path = nodeTest == null ? location : location.substring(0, location.length() - nodeTest.length());
+        if (nodeTest == null) {
+            constraints.add(Sql2PathCondition.is().same(decodePath(path)));
+        } else if (path.endsWith("//")) {
+            String root = decodePath(removeEnd(path, "//"));
+            if (!"/".equals(root)) {
+                constraints.add(Sql2PathCondition.is().descendant(root));
+            }
+        } else if (path.endsWith("/")) {
+            constraints.add(Sql2PathCondition.is().child(decodePath(removeEnd(path, "/"))));
+        } else {
+            throw new IllegalArgumentException("Unsupported XPath location step: " + location);
+        }
+        if (nodeTest != null && nodeTest.startsWith(ELEMENT)) {
+            String[] arguments = removeEnd(nodeTest.substring(ELEMENT.length()), ")").split(",");
+            String name = trim(arguments[0]);
+            if (!"*".equals(name)) {
+                constraints.add(new Sql2NameCondition().equalsAny().values(ISO9075.decode(name)));
+            }
+            if (arguments.length > 1 && isNotBlank(arguments[1])) {
+                nodeType = trim(arguments[1]);
+            }
+        }
+        return nodeType;
+    }
+
+    private static String decodePath(final String path) {
+        String decoded = ISO9075.decode(path);
+        return isBlank(decoded) ? "/" : decoded;
+    }
+
+    private static String toPropertyName(final String name, final Parser parser) {
+        String property = removeStart(name, META_DATA);
+        if (!property.startsWith("@") || property.length() == 1) {
+            throw parser.error("Expected a property (@name) instead of " + name);
+        }
+        return property.substring(1);
+    }
+
+    /**
+     * Recursive descent parser of XPath predicates.
+     */
+    private static final class Parser {
+        private static final String NAME_DELIMITERS = "()[],=!<>'\"";
+
+        private final String _input;
+        private int _pos;
+
+        private Parser(final String input) {
+            _input = input;
+        }
+
+        private Sql2JoinConstraint parseOr() {
+            List<Sql2JoinConstraint> parts = new ArrayList<>();
+            parts.add(parseAnd());
+            while (acceptKeyword("or")) {
+                parts.add(parseAnd());
+            }
+            return parts.size() == 1 ? parts.get(0) : Sql2ConstraintGroup.or().matches(parts.toArray(new Sql2JoinConstraint[0]));
+        }
+
+        private Sql2JoinConstraint parseAnd() {
+            List<Sql2JoinConstraint> parts = new ArrayList<>();
+            parts.add(parsePrimary());
+            while (acceptKeyword("and")) {
+                parts.add(parsePrimary());
+            }
+            return parts.size() == 1 ? parts.get(0) : Sql2ConstraintGroup.and().matches(parts.toArray(new Sql2JoinConstraint[0]));
+        }
+
+        private Sql2JoinConstraint parsePrimary() {
+            Sql2JoinConstraint result;
+            if (accept('(')) {
+                result = parseOr();
+                expect(')');
+            } else {
+                String name = readName();
+                if ("not".equals(name) || "fn:not".equals(name)) {
+                    expect('(');
+                    result = Sql2ConstraintGroup.and().not().matches(parseOr());
+                    expect(')');
+                } else if ("jcr:like".equals(name)) {
+                    expect('(');
+                    String property = toPropertyName(readName(), this);
+                    expect(',');
+                    result = like(property, readString());
+                    expect(')');
+                } else if ("jcr:contains".equals(name)) {
+                    expect('(');
+                    String target = readName();
+                    String property = ".".equals(target) || "*".equals(target) ? "*" : toPropertyName(target, this);
+                    expect(',');
+                    result = new ContainsConstraint(property, readString());
+                    expect(')');
+                } else {
+                    result = parseComparison(name);
+                }
+            }
+            return result;
+        }
+
+        private Sql2JoinConstraint parseComparison(final String name) {
+            Sql2JoinConstraint result;
+            if ("fn:name".equals(name)) {
+                expect('(');
+                expect(')');
+                String operator = readOperator();
+                result = compareName(operator, readString());
+            } else if ("fn:lower-case".equals(name) || "fn:upper-case".equals(name)) {
+                expect('(');
+                String property = toPropertyName(readName(), this);
+                expect(')');
+                String operator = readOperator();
+                Sql2Compare<String> operand = "fn:lower-case".equals(name)
+                    ? Sql2StringCondition.property(property).lowerCase() : Sql2StringCondition.property(property).upperCase();
+                result = compare(operand, operator, readString());
+            } else {
+                String property = toPropertyName(name, this);
+                String operator = readOperator();
+                if (operator == null) {
+                    result = Sql2NullCondition.isNotNull(property);
+                } else {
+                    result = compareLiteral(property, operator);
+                }
+            }
+            return result;
+        }
+
+        private Sql2JoinConstraint compareLiteral(final String property, final String operator) {
+            Sql2JoinConstraint result;
+            char next = peek();
+            if (next == '\'' || next == '"') {
+                result = compare(Sql2StringCondition.property(property), operator, readString());
+            } else {
+                String literal = readName();
+                if ("xs:dateTime".equals(literal)) {
+                    expect('(');
+                    String value = readString();
+                    expect(')');
+                    Calendar date = ISO8601.parse(value);
+                    if (date == null) {
+                        throw error("Invalid date " + value);
+                    }
+                    result = compare(Sql2CalendarCondition.property(property), operator, date);
+                } else {
+                    try {
+                        if (literal.contains(".") || literal.contains("e") || literal.contains("E")) {
+                            result = compare(Sql2DoubleCondition.property(property), operator, Double.valueOf(literal));
+                        } else {
+                            result = compare(Sql2LongCondition.property(property), operator, Long.valueOf(literal));
+                        }
+                    } catch (NumberFormatException e) {
+                        throw error("Unsupported literal " + literal);
+                    }
+                }
+            }
+            return result;
+        }
+
+        @SuppressWarnings("unchecked")
+        private <V> Sql2JoinConstraint compare(final Sql2Compare<V> operand, final String operator, final V value) {
+            Sql2JoinConstraint result;
+            switch (operator == null ? "" : operator) {
+                case "=":
+                    result = operand.equalsAny().values(value);
+                    break;
+                case "!=":
+                    result = operand.excludeAny().values(value);
+                    break;
+                case "<":
+                    result = operand.lowerThan().value(value);
+                    break;
+                case "<=":
+                    result = operand.lowerOrEqualThan().value(value);
+                    break;
+                case ">":
+                    result = operand.greaterThan().value(value);
+                    break;
+                case ">=":
+                    result = operand.greaterOrEqualThan().value(value);
+                    break;
+                default:
+                    throw error("Missing comparison operator");
+            }
+            return result;
+        }
+
+        private Sql2JoinConstraint compareName(final String operator, final String value) {
+            Sql2JoinConstraint result;
+            Sql2NameCondition operand = new Sql2NameCondition();
+            switch (operator == null ? "" : operator) {
+                case "=":
+                    result = operand.equalsAny().values(value);
+                    break;
+                case "!=":
+                    result = operand.excludeAny().values(value);
+                    break;
+                case "<":
+                    result = operand.lowerThan().value(value);
+                    break;
+                case "<=":
+                    result = operand.lowerOrEqualThan().value(value);
+                    break;
+                case ">":
+                    result = operand.greaterThan().value(value);
+                    break;
+                case ">=":
+                    result = operand.greaterOrEqualThan().value(value);
+                    break;
+                default:
+                    throw error("Missing comparison operator");
+            }
+            return result;
+        }
+
+        private Sql2JoinConstraint like(final String property, final String pattern) {
+            String value = removeEnd(removeStart(pattern, "%"), "%");
+            Sql2JoinConstraint result;
+            if (value.contains("%") || value.contains("_") || value.isEmpty()) {
+                result = new LikeConstraint(property, pattern);
+            } else if (pattern.startsWith("%") && pattern.endsWith("%") && pattern.length() > 1) {
+                result = Sql2StringCondition.property(property).likeAny().values(value);
+            } else if (pattern.endsWith("%")) {
+                result = Sql2StringCondition.property(property).startsWithAny().values(value);
+            } else if (pattern.startsWith("%")) {
+                result = Sql2StringCondition.property(property).endsWithAny().values(value);
+            } else {
+                result = Sql2StringCondition.property(property).equalsAny().values(value);
+            }
+            return result;
+        }
+
+        private String readOperator() {
+            skipWhitespace();
+            String operator = null;
+            for (String candidate : new String[]{"!=", "<=", ">=", "=", "<", ">"}) {
+                if (operator == null && _input.startsWith(candidate, _pos)) {
+                    operator = candidate;
+                    _pos += candidate.length();
+                }
+            }
+            if (operator == null) {
+                String[][] keywords = {{"eq", "="}, {"ne", "!="}, {"lt", "<"}, {"le", "<="}, {"gt", ">"}, {"ge", ">="}};
+                for (String[] keyword : keywords) {
+                    if (operator == null && acceptKeyword(keyword[0])) {
+                        operator = keyword[1];
+                    }
+                }
+            }
+            return operator;
+        }
+
+        private String readString() {
+            skipWhitespace();
+            char quote = peek();
+            if (quote != '\'' && quote != '"') {
+                throw error("Expected a string literal");
+            }
+            StringBuilder value = new StringBuilder();
+            _pos++;
+            boolean closed = false;
+            while (!closed && _pos < _input.length()) {
+                char c = _input.charAt(_pos++);
+                if (c == quote && _pos < _input.length() && _input.charAt(_pos) == quote) {
+                    value.append(c);
+                    _pos++;
+                } else if (c == quote) {
+                    closed = true;
+                } else {
+                    value.append(c);
+                }
+            }
+            if (!closed) {
+                throw error("Unterminated string literal");
+            }
+            return value.toString();
+        }
+
+        private String readName() {
+            skipWhitespace();
+            int start = _pos;
+            while (_pos < _input.length() && !Character.isWhitespace(_input.charAt(_pos)) && NAME_DELIMITERS.indexOf(_input.charAt(_pos)) < 0) {
+                _pos++;
+            }
+            if (start == _pos) {
+                throw error("Expected a name");
+            }
+            return _input.substring(start, _pos);
+        }
+
+        private boolean acceptKeyword(final String keyword) {
+            skipWhitespace();
+            int end = _pos + keyword.length();
+            boolean accepted = _input.startsWith(keyword, _pos)
+                && (end == _input.length() || Character.isWhitespace(_input.charAt(end)) || _input.charAt(end) == '(');
+            if (accepted) {
+                _pos = end;
+            }
+            return accepted;
+        }
+
+        private boolean accept(final char c) {
+            boolean accepted = peek() == c;
+            if (accepted) {
+                _pos++;
+            }
+            return accepted;
+        }
+
+        private void expect(final char c) {
+            if (!accept(c)) {
+                throw error("Expected '" + c + "'");
+            }
+        }
+
+        private void expectEnd() {
+            skipWhitespace();
+            if (_pos < _input.length()) {
+                throw error("Unexpected input");
+            }
+        }
+
+        private char peek() {
+            skipWhitespace();
+            return _pos < _input.length() ? _input.charAt(_pos) : 0;
+        }
+
+        private void skipWhitespace() {
+            while (_pos < _input.length() && Character.isWhitespace(_input.charAt(_pos))) {
+                _pos++;
+            }
+        }
+
+        /**
+         * Find the first occurrence of the character or keyword outside of string literals, starting at the current
+         * position.
+         */
+        private int indexOutsideLiterals(final char c, final String keyword) {
+            int result = _input.length();
+            char quote = 0;
+            for (int i = _pos; i < result; i++) {
+                char current = _input.charAt(i);
+                if (quote != 0) {
+                    quote = current == quote ? 0 : quote;
+                } else if (current == '\'' || current == '"') {
+                    quote = current;
+                } else if (current == c || Character.isWhitespace(current) && _input.startsWith(keyword, i + 1)) {
+                    result = i;
+                }
+            }
+            return result;
+        }
+
+        private IllegalArgumentException error(final String message) {
+            return new IllegalArgumentException(message + " at position " + _pos + " of XPath " + _input);
+        }
+    }
+
+    /**
+     * LIKE condition with a pattern that cannot be expressed by {@link Sql2StringCondition}, rendered unchanged.
+     * In memory any value of the property must match the pattern with the wildcards {@code %} and {@code _}.
+     */
+    private static final class LikeConstraint extends RawConstraint {
+        private final String _property;
+        private final String _pattern;
+
+        private LikeConstraint(final String property, final String pattern) {
+            super('[' + property + ']', " LIKE '" + pattern.replace("'", "''") + '\'');
+            _property = property;
+            _pattern = pattern;
+        }
+
+        @Override
+        public Predicate<Node> asPredicate() {
+            StringBuilder regex = new StringBuilder();
+            int start = 0;
+            for (int i = 0; i < _pattern.length(); i++) {
+                char c = _pattern.charAt(i);
+                if (c == '%' || c == '_') {
+                    regex.append(Pattern.quote(_pattern.substring(start, i))).append(c == '%' ? ".*" : ".");
+                    start = i + 1;
+                } else if (c == '\\' && i + 1 < _pattern.length()) {
+                    regex.append(Pattern.quote(_pattern.substring(start, i)));
+                    start = ++i;
+                }
+            }
+            regex.append(Pattern.quote(_pattern.substring(start)));
+            final Pattern pattern = Pattern.compile(regex.toString(), Pattern.DOTALL);
+            return node -> anyValueMatches(node, _property, pattern);
+        }
+
+        private static boolean anyValueMatches(final Node node, final String name, final Pattern pattern) {
+            boolean result = false;
+            try {
+                if (node != null && node.hasProperty(name)) {
+                    Property property = node.getProperty(name);
+                    Value[] values = property.isMultiple() ? property.getValues() : new Value[]{property.getValue()};
+                    for (int i = 0; !result && i < values.length; i++) {
+                        result = pattern.matcher(values[i].getString()).matches();
+                    }
+                }
+            } catch (RepositoryException e) {
+                LOG.debug("Could not read property {} for in-memory evaluation.", name, e);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Full text condition with the terms of {@code jcr:contains}, rendered unchanged.
+     * In memory the terms are evaluated like the terms of a {@link Sql2ContainsCondition}.
+     */
+    private static final class ContainsConstraint extends RawConstraint {
+        private static final Pattern TERM = Pattern.compile("(-)?(?:\"([^\"]*)\"|((?:\\\\.|[^\\s~^])+))(?:[~^][0-9.]*)*");
+
+        private final String _property;
+        private final String _terms;
+
+        private ContainsConstraint(final String property, final String terms) {
+            super("contains(", property, ", '" + terms.replace("'", "''") + "')");
+            _property = property;
+            _terms = terms;
+        }
+
+        @Override
+        public Predicate<Node> asPredicate() {
+            Sql2ContainsCondition condition = new Sql2ContainsCondition(_property);
+            boolean isOptional = false;
+            Matcher matcher = TERM.matcher(_terms);
+            while (matcher.find()) {
+                boolean isPhrase = matcher.group(2) != null;
+                String term = isPhrase ? matcher.group(2) : matcher.group(3).replaceAll("\\\\(.)", "$1");
+                if (!isPhrase && matcher.group(1) == null && "OR".equals(term)) {
+                    isOptional = true;
+                } else {
+                    condition.addTerm(1, matcher.group(1) != null, isOptional, false, 0, false, term);
+                    isOptional = false;
+                }
+            }
+            return condition.asPredicate();
+        }
+    }
+
+    /**
+     * Constraint rendered from fixed parts around the optionally selector prefixed operand.
+     */
+    private abstract static class RawConstraint implements Sql2JoinConstraint {
+        private final String _prefix;
+        private final String _operand;
+        private final String _suffix;
+        private boolean _forJoin;
+
+        RawConstraint(final String operand, final String suffix) {
+            this("", operand, suffix);
+        }
+
+        RawConstraint(final String prefix, final String operand, final String suffix) {
+            _prefix = prefix;
+            _operand = operand;
+            _suffix = suffix;
+        }
+
+        @Override
+        public Sql2JoinConstraint forJoin() {
+            _forJoin = true;
+            return this;
+        }
+
+        @Override
+        public void appendTo(final StringBuilder sql2, final Sql2SelectorNames selectorNames) {
+            String selectorName = selectorNames == null ? null : _forJoin ? selectorNames.getJoinSelectorName() : selectorNames.getFromSelectorName();
+            sql2.append(_prefix);
+            if (isNotBlank(selectorName)) {
+                sql2.append(selectorName).append('.');
+            }
+            sql2.append(_operand).append(_suffix);
+        }
+
+        @Override
+        public boolean isNotEmpty() {
+            return true;
+        }
+    }
+}
@@ -22,9 +22,21 @@ package de.ibmix.magkit.query;
 
 import org.junit.jupiter.api.Test;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Calendar;
 import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
 
+import static de.ibmix.magkit.query.DateUtils.appendIso8601;
 import static de.ibmix.magkit.query.DateUtils.createQueryDate;
+import static de.ibmix.magkit.query.DateUtils.toCalendar;
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -42,4 +54,64 @@ public class DateUtilsTest {
         // use regex to prevent time zone difference on build server
         assertTrue(queryDate.matches("1970-01-15T0(6|7):56:07\\.890\\+0(0|1):00"));
     }
+
+    @Test
+    public void testCreateQueryDateKeepsCalendarOutsideFourDigitGregorianYears() {
+        Calendar calendar = new GregorianCalendar();
+        calendar.clear();
+        calendar.set(1500, Calendar.MARCH, 1, 12, 0, 0);
+        assertTrue(createQueryDate(calendar.getTime()).startsWith("1500-03-01T12:00:00.000"));
+
+        calendar.clear();
+        calendar.set(Calendar.ERA, GregorianCalendar.BC);
+        calendar.set(44, Calendar.MARCH, 15, 12, 0, 0);
+        assertTrue(createQueryDate(calendar.getTime()).startsWith("0044-03-15T12:00:00.000"));
+
+        calendar.clear();
+        calendar.set(12345, Calendar.JANUARY, 2, 3, 4, 5);
+        assertTrue(createQueryDate(calendar.getTime()).startsWith("12345-01-02T03:04:05.000"));
+    }
+
+    @Test
+    public void testCreateQueryDateJavaTime() {
+        assertTrue(createQueryDate(Instant.ofEpochMilli(1234567890)).matches("1970-01-15T0(6|7):56:07\\.890\\+0(0|1):00"));
+        assertEquals("2024-02-29T23:05:01.007-05:00", createQueryDate(ZonedDateTime.of(2024, 2, 29, 23, 5, 1, 7_999_999, ZoneId.of("America/New_York"))));
+        assertEquals("1969-12-31T23:59:59.999+00:00", createQueryDate(ZonedDateTime.of(1969, 12, 31, 23, 59, 59, 999_000_000, ZoneOffset.UTC)));
+        assertTrue(createQueryDate(LocalDate.of(2000, 3, 1)).startsWith("2000-03-01T00:00:00.000"));
+        assertThrows(NullPointerException.class, () -> createQueryDate((Instant) null));
+    }
+
+    @Test
+    public void testAppendIso8601() {
+        assertEquals("x1970-01-01T00:00:00.000Z", appendIso8601(new StringBuilder("x"), 0L, 0, true).toString());
+        assertEquals("1970-01-01T05:30:00.000+05:30", appendIso8601(new StringBuilder(), 0L, 19800000, false).toString());
+        assertEquals("1969-12-31T14:00:00.000-10:00", appendIso8601(new StringBuilder(), 0L, -36000000, true).toString());
+        assertEquals("-0001-12-31T23:59:59.999Z", appendIso8601(new StringBuilder(), -62167219200001L, 0, true).toString());
+        assertEquals("9999-12-31T23:59:59.999Z", appendIso8601(new StringBuilder(), 253402300799999L, 0, true).toString());
+        assertThrows(IllegalArgumentException.class, () -> appendIso8601(new StringBuilder(), 253402300800000L, 0, true));
+
+        Calendar calendar = new GregorianCalendar(TimeZone.getTimeZone("Europe/Berlin"));
+        calendar.clear();
+        calendar.set(2020, Calendar.JULY, 2, 3, 4, 5);
+        assertEquals("2020-07-02T03:04:05.000+02:00", appendIso8601(new StringBuilder(), calendar).toString());
+    }
+
+    @Test
+    public void testToCalendar() {
+        assertNull(toCalendar(null));
+        Calendar utc = toCalendar(Instant.ofEpochMilli(1234567890));
+        assertEquals(1234567890, utc.getTimeInMillis());
+        assertEquals(0, utc.getTimeZone().getRawOffset());
+
+        ZonedDateTime zoned = ZonedDateTime.of(2024, 2, 29, 23, 5, 1, 0, ZoneId.of("America/New_York"));
+        Calendar newYork = toCalendar(zoned);
+        assertEquals(zoned.toInstant().toEpochMilli(), newYork.getTimeInMillis());
+        assertEquals("America/New_York", newYork.getTimeZone().getID());
+
+        LocalDate day = LocalDate.of(2024, 3, 1);
+        assertEquals(day.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli(), toCalendar(day).getTimeInMillis());
+        LocalDateTime local = LocalDateTime.of(2024, 3, 1, 12, 0);
+        assertEquals(local.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), toCalendar(local).getTimeInMillis());
+        assertThrows(IllegalArgumentException.class, () -> toCalendar(LocalTime.NOON));
+    }
 }
@@ -35,10 +35,15 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import static de.ibmix.magkit.query.NodeQueryUtil.findComponentOnPage;
+import static de.ibmix.magkit.query.NodeQueryUtil.findComponentsOnPages;
 import static de.ibmix.magkit.query.NodeQueryUtil.findDescendantComponent;
 import static de.ibmix.magkit.query.NodeQueryUtil.findDescendantComponents;
 import static de.ibmix.magkit.query.NodeQueryUtil.getComponentsWithTemplate;
+import static de.ibmix.magkit.query.NodeQueryUtil.getComponentsWithTemplateSql2;
+import static de.ibmix.magkit.query.NodeQueryUtil.getComponentsWithTemplateSql2FromXpath;
 import static de.ibmix.magkit.query.NodeQueryUtil.getPagesWithTemplate;
+import static de.ibmix.magkit.query.NodeQueryUtil.getPagesWithTemplateSql2FromXpath;
 import static de.ibmix.magkit.query.NodeQueryUtil.createSqlQuery;
 import static de.ibmix.magkit.query.NodeQueryUtil.createXPathQuery;
 import static de.ibmix.magkit.query.NodeQueryUtil.createQuery;
@@ -49,14 +54,20 @@ import static de.ibmix.magkit.test.cms.context.ContextMockUtils.mockQuery;
 import static de.ibmix.magkit.test.cms.context.ContextMockUtils.mockQueryResult;
 import static de.ibmix.magkit.test.cms.context.ContextMockUtils.mockWebContext;
 import static de.ibmix.magkit.test.cms.context.WebContextStubbingOperation.stubJcrSession;
+import static de.ibmix.magkit.test.cms.node.MagnoliaNodeMockUtils.mockAreaNode;
+import static de.ibmix.magkit.test.cms.node.MagnoliaNodeMockUtils.mockComponentNode;
+import static de.ibmix.magkit.test.cms.node.MagnoliaNodeMockUtils.mockPageNode;
 import static de.ibmix.magkit.test.jcr.NodeMockUtils.mockNode;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubProperty;
 import static de.ibmix.magkit.test.jcr.query.QueryMockUtils.mockQueryManager;
 import static de.ibmix.magkit.test.jcr.query.QueryStubbingOperation.stubResult;
 import static info.magnolia.repository.RepositoryConstants.WEBSITE;
 import static javax.jcr.query.Query.JCR_SQL2;
 import static javax.jcr.query.Query.XPATH;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.anyString;
@@ -132,6 +143,12 @@ public class NodeQueryUtilTest {
         verify(_queryManager).createQuery("select * from [mgnl:component] where [mgnl:template] = 'test-case:pages/templateName' and (ISDESCENDANTNODE('/portal/news/node/area1') or ISDESCENDANTNODE('/portal/news/node/area2'))", JCR_SQL2);
     }
 
+    @Test
+    public void findComponentsWithNestedSearchRoots() throws Exception {
+        findDescendantComponents(TEST_TPL_NAME, TEST_NODE_PATH + "/area1/sub", TEST_NODE_PATH + "/area1", TEST_NODE_PATH + "/area1");
+        verify(_queryManager).createQuery("select * from [mgnl:component] where [mgnl:template] = 'test-case:pages/templateName' and (ISDESCENDANTNODE('/portal/news/node/area1'))", JCR_SQL2);
+    }
+
     @Test
     public void findComponentsWithoutSearchRoots() throws Exception {
         findDescendantComponents(TEST_TPL_NAME);
@@ -164,6 +181,54 @@ public class NodeQueryUtilTest {
         verify(_queryManager).createQuery("/jcr:root/rootPath//element(*,mgnl:page)[MetaData/@mgnl:template='test-case:pages/templateName'][jcr:contains(.,'abc')]", XPATH);
     }
 
+    @Test
+    public void getPagesWithTemplateSql2WithRootAndCondition() throws Exception {
+        Node root = mockNode("/rootPath");
+        getPagesWithTemplateSql2FromXpath(TEST_TPL_NAME, root, "[jcr:contains(.,'abc')]");
+        verify(_queryManager).createQuery("SELECT * FROM [mgnl:page] WHERE (isdescendantnode('/rootPath') AND [mgnl:template] = 'test-case:pages/templateName' AND contains(*, 'abc'))", JCR_SQL2);
+    }
+
+    @Test
+    public void getComponentsWithTemplateSql2() throws Exception {
+        getComponentsWithTemplateSql2(TEST_TPL_NAME, "", null);
+        verify(_queryManager).createQuery("SELECT * FROM [mgnl:component] WHERE [mgnl:template] = 'test-case:pages/templateName'", JCR_SQL2);
+
+        getComponentsWithTemplateSql2FromXpath(TEST_TPL_NAME, "/stringRoot", "@prop='value' or @count > 2");
+        verify(_queryManager).createQuery("SELECT * FROM [mgnl:component] WHERE (isdescendantnode('/stringRoot') AND [mgnl:template] = 'test-case:pages/templateName' AND ([prop] = 'value' OR [count] > 2))", JCR_SQL2);
+    }
+
+    @Test
+    public void findComponentOnPageTraversesSmallPages() throws Exception {
+        Node teaser = mockPageWithTeaser("/page");
+        assertEquals(teaser, findComponentOnPage(TEST_TPL_NAME, "/page"));
+        assertNull(findComponentOnPage("other:components/missing", "/page"));
+        assertNull(findComponentOnPage(TEST_TPL_NAME, "/missing"));
+        verify(_queryManager, never()).createQuery(anyString(), anyString());
+    }
+
+    @Test
+    public void findComponentOnPageQueriesLargePages() throws Exception {
+        mockPageWithTeaser("/page");
+        findComponentOnPage(TEST_TPL_NAME, "/page", 1);
+        verify(_queryManager).createQuery("SELECT area.*,component.* FROM [mgnl:area] AS area INNER JOIN [mgnl:component] AS component ON isdescendantnode(component,area)"
+            + " WHERE (ischildnode(area, '/page') AND component.[mgnl:template] = 'test-case:pages/templateName')", JCR_SQL2);
+    }
+
+    @Test
+    public void findComponentsOnPagesQueriesLargePagesOnce() throws Exception {
+        mockPageNode("/small");
+        mockAreaNode("/small/main");
+        Node teaser = mockComponentNode("/small/main/teaser", stubProperty("mgnl:template", TEST_TPL_NAME));
+        mockPageWithTeaser("/large1");
+        mockPageWithTeaser("/large2");
+
+        Map<String, Node> components = findComponentsOnPages(TEST_TPL_NAME, 2, "/small", "/missing", "/large1", "/large2", "/small");
+        assertEquals(teaser, components.get("/small"));
+        assertFalse(components.containsKey("/missing"));
+        verify(_queryManager).createQuery("SELECT area.*,component.* FROM [mgnl:area] AS area INNER JOIN [mgnl:component] AS component ON isdescendantnode(component,area)"
+            + " WHERE ((ischildnode(area, '/large1') OR ischildnode(area, '/large2')) AND component.[mgnl:template] = 'test-case:pages/templateName')", JCR_SQL2);
+    }
+
     @Test
     public void findDescendantComponentReturnsFirstResult() throws Exception {
         Node result1 = mockNode(WEBSITE, "/page/area/component1");
@@ -243,6 +308,22 @@ public class NodeQueryUtilTest {
         assertTrue(resultNodes.isEmpty());
     }
 
+    /**
+     * Mock a page with a teaser component nested in another component, the teaser is the third node visited below
+     * the areas of the page. A sub page contains a teaser as well.
+     */
+    private static Node mockPageWithTeaser(final String path) throws RepositoryException {
+        mockPageNode(path);
+        mockAreaNode(path + "/main");
+        mockComponentNode(path + "/main/container", stubProperty("mgnl:template", "other"));
+        mockAreaNode(path + "/main/container/items");
+        Node teaser = mockComponentNode(path + "/main/container/items/teaser", stubProperty("mgnl:template", TEST_TPL_NAME));
+        mockPageNode(path + "/sub");
+        mockAreaNode(path + "/sub/main");
+        mockComponentNode(path + "/sub/main/teaser", stubProperty("mgnl:template", TEST_TPL_NAME));
+        return teaser;
+    }
+
     @BeforeEach
     public void setUp() throws RepositoryException {
         // setup mock context
@@ -35,7 +35,9 @@ import static de.ibmix.magkit.test.cms.context.ContextMockUtils.mockQuery;
 import static de.ibmix.magkit.test.jcr.NodeMockUtils.mockNode;
 import static de.ibmix.magkit.test.jcr.query.QueryStubbingOperation.stubResult;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
 
 /**
  * Tests for {@link NodesByQuery}.
@@ -66,4 +68,15 @@ class NodesByQueryTest {
         assertEquals(n1, nodes.get(0));
         assertEquals(n2, nodes.get(1));
     }
-}
\ No newline at end of file
+
+    @Test
+    void existsOther() throws RepositoryException {
+        NodesByQuery nodesByQuery = new NodesByQuery("test", NodeTypes.Content.NAME, "title");
+        Query all = mockQuery("test", Query.JCR_SQL2, "SELECT * FROM [mgnl:content] WHERE [title] = 'Some Title'", stubResult());
+        Query others = mockQuery("test", Query.JCR_SQL2, "SELECT * FROM [mgnl:content] WHERE ([title] = 'Some Title' AND [jcr:uuid] <> 'id-1')", stubResult());
+        assertFalse(nodesByQuery.exists("Some Title"));
+        assertFalse(nodesByQuery.existsOther("Some Title", "id-1"));
+        verify(all).setLimit(1);
+        verify(others).setLimit(1);
+    }
+}
@@ -0,0 +1,184 @@
+package de.ibmix.magkit.query;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.query.sql2.query.jcrwrapper.DetachedNodeList;
+import info.magnolia.cms.security.User;
+import info.magnolia.context.Context;
+import info.magnolia.context.MgnlContext;
+import info.magnolia.context.SystemContext;
+import info.magnolia.context.WebContext;
+import info.magnolia.repository.RepositoryManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static de.ibmix.magkit.test.cms.context.ComponentsMockUtils.mockComponentInstance;
+import static de.ibmix.magkit.test.cms.context.ContextMockUtils.cleanContext;
+import static de.ibmix.magkit.test.cms.context.ContextMockUtils.mockSystemContext;
+import static de.ibmix.magkit.test.cms.context.ContextMockUtils.mockWebContext;
+import static de.ibmix.magkit.test.cms.node.MagnoliaNodeMockUtils.mockPageNode;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubIdentifier;
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for {@link QueryExecutors}.
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public class QueryExecutorsTest {
+
+    private SystemContext _systemContext;
+    private WebContext _webContext;
+    private User _user;
+    private Node _first;
+    private Node _second;
+
+    @BeforeEach
+    public void setUp() throws RepositoryException {
+        _systemContext = mockSystemContext();
+        mockComponentInstance(RepositoryManager.class);
+        _webContext = mockWebContext();
+        _user = mock(User.class);
+        doReturn(_user).when(_webContext).getUser();
+        _first = mockPageNode("/first", stubIdentifier("first-id"));
+        _second = mockPageNode("/second", stubIdentifier("second-id"));
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        cleanContext();
+    }
+
+    @Test
+    public void runsWithOwnContextOfCallingUserOnOtherThreads() throws Exception {
+        doReturn(Locale.GERMAN).when(_webContext).getLocale();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Context taskContext = executor.submit(QueryExecutors.withOwnSessions(MgnlContext::getInstance)).get();
+            assertNotSame(_webContext, taskContext);
+            assertNotSame(_systemContext, taskContext);
+            assertSame(_user, taskContext.getUser());
+            assertEquals(Locale.GERMAN, taskContext.getLocale());
+            // the context is removed from the executing thread afterwards
+            assertFalse(executor.submit(MgnlContext::hasInstance).get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void runsWithSystemContextIfCreatedInSystemContext() throws Exception {
+        MgnlContext.setInstance(_systemContext);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            assertSame(_systemContext, executor.submit(QueryExecutors.withOwnSessions(MgnlContext::getInstance)).get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void runsWithContextOfCurrentThread() throws Exception {
+        Context context = mockWebContext();
+        assertSame(context, QueryExecutors.withOwnSessions(MgnlContext::getInstance).call());
+    }
+
+    @Test
+    public void defaultExecutorRunsDaemonThreads() throws Exception {
+        assertTrue(QueryExecutors.getDefaultExecutor().submit(() -> Thread.currentThread().isDaemon()).get());
+    }
+
+    @Test
+    public void supplyNodesAsyncCollectsIdentifiers() throws Exception {
+        CompletableFuture<List<Node>> future = QueryExecutors.supplyNodesAsync("website", () -> Stream.of(_first, _second), Runnable::run, 0, TimeUnit.SECONDS);
+        DetachedNodeList nodes = assertInstanceOf(DetachedNodeList.class, future.get());
+        assertEquals(asList("first-id", "second-id"), nodes.getIdentifiers());
+    }
+
+    @Test
+    public void supplyNodesAsyncReturnsPartialResultsOnTimeout() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<List<Node>> future = QueryExecutors.supplyNodesAsync("website", () -> Stream.of(_first, _second).peek(node -> {
+            if (node == _second) {
+                await(release);
+            }
+        }), 50, TimeUnit.MILLISECONDS);
+        assertEquals(asList("first-id"), ((DetachedNodeList) future.get(5, TimeUnit.SECONDS)).getIdentifiers());
+        release.countDown();
+    }
+
+    @Test
+    public void supplyNodesAsyncCompletesExceptionallyOnError() {
+        CompletableFuture<List<Node>> future = QueryExecutors.supplyNodesAsync("website", () -> {
+            throw new RepositoryException("test");
+        }, Runnable::run, 0, TimeUnit.SECONDS);
+        ExecutionException e = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(RepositoryException.class, e.getCause());
+
+        CompletableFuture<List<Node>> failed = QueryExecutors.supplyNodesAsync("website", () -> {
+            throw new NoClassDefFoundError("test");
+        }, 0, TimeUnit.SECONDS);
+        e = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(NoClassDefFoundError.class, e.getCause());
+    }
+
+    @Test
+    public void cancelStopsCollecting() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        CompletableFuture<List<Node>> future = QueryExecutors.supplyNodesAsync("website", () -> Stream.generate(() -> _first).peek(node -> await(release)).onClose(done::countDown), 0, TimeUnit.SECONDS);
+        future.cancel(true);
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(future.isCancelled());
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
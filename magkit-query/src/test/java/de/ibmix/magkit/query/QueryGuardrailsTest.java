@@ -0,0 +1,137 @@
+package de.ibmix.magkit.query;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.query.monitor.QueryStatistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link QueryGuardrails}.
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public class QueryGuardrailsTest {
+
+    @AfterEach
+    public void tearDown() {
+        QueryGuardrails.setDefaults(null);
+        QueryStatistics.getInstance().reset();
+    }
+
+    @Test
+    public void defaultsFromSystemProperties() {
+        QueryGuardrails defaults = QueryGuardrails.getDefaults();
+        assertEquals(QueryGuardrails.DEFAULT_MAX_LIMIT, defaults.getMaxLimit());
+        assertEquals(QueryGuardrails.DEFAULT_MAX_READS, defaults.getMaxReads());
+        assertEquals(QueryGuardrails.DEFAULT_MAX_TIME_MILLIS, defaults.getMaxTimeMillis());
+
+        QueryGuardrails custom = QueryGuardrails.of(10, 20, 30);
+        QueryGuardrails.setDefaults(custom);
+        assertSame(custom, QueryGuardrails.getDefaults());
+    }
+
+    @Test
+    public void applyLimitCapsMissingAndLargerLimits() {
+        QueryGuardrails guardrails = QueryGuardrails.NONE.withMaxLimit(100);
+        assertEquals(100, guardrails.applyLimit(0, "statement"));
+        assertEquals(100, guardrails.applyLimit(500, "statement"));
+        assertEquals(50, guardrails.applyLimit(50, "statement"));
+        assertEquals(0, QueryGuardrails.NONE.applyLimit(-1, "statement"));
+    }
+
+    @Test
+    public void resultFillingCappedLimitTrips() {
+        QueryGuardrails guardrails = QueryGuardrails.NONE.withMaxLimit(2);
+        assertEquals(asList("a", "b"), collect(guardrails.forQueryLimit(0).guard(asList("a", "b").iterator(), "statement")));
+        assertEquals(1, QueryStatistics.getInstance().getGuardrailTripCount());
+
+        // the limit of the query is not capped, a full result is not truncated by the guardrails
+        assertSame(guardrails, guardrails.forQueryLimit(2));
+        assertEquals(asList("a", "b"), collect(guardrails.forQueryLimit(2).guard(asList("a", "b").iterator(), "statement")));
+        assertEquals(asList("a"), collect(guardrails.forQueryLimit(0).guard(asList("a").iterator(), "statement")));
+        assertEquals(1, QueryStatistics.getInstance().getGuardrailTripCount());
+    }
+
+    @Test
+    public void checkResultSizeReportsCappedResults() {
+        QueryGuardrails guardrails = QueryGuardrails.NONE.withMaxLimit(2);
+        assertFalse(guardrails.checkResultSize(2, "statement"));
+        assertFalse(guardrails.forQueryLimit(0).checkResultSize(-1, "statement"));
+        assertFalse(guardrails.forQueryLimit(0).checkResultSize(1, "statement"));
+        assertTrue(guardrails.forQueryLimit(0).checkResultSize(2, "statement"));
+        assertEquals(1, QueryStatistics.getInstance().getGuardrailTripCount());
+    }
+
+    @Test
+    public void guardStopsAfterMaxReads() {
+        List<String> results = collect(QueryGuardrails.NONE.withMaxReads(2).guard(asList("a", "b", "c").iterator(), "statement"));
+        assertEquals(asList("a", "b"), results);
+        assertEquals(1, QueryStatistics.getInstance().getGuardrailTripCount());
+    }
+
+    @Test
+    public void guardUsesSmallerOfLimitAndReads() {
+        QueryGuardrails guardrails = QueryGuardrails.of(1, 2, 0);
+        assertEquals(asList("a"), collect(guardrails.guard(asList("a", "b", "c").iterator(), "statement")));
+    }
+
+    @Test
+    public void completeResultDoesNotTrip() {
+        List<String> results = collect(QueryGuardrails.NONE.withMaxReads(2).guard(asList("a", "b").iterator(), "statement"));
+        assertEquals(asList("a", "b"), results);
+        assertEquals(0, QueryStatistics.getInstance().getGuardrailTripCount());
+    }
+
+    @Test
+    public void guardStopsAfterMaxTime() throws InterruptedException {
+        Iterator<String> iterator = QueryGuardrails.NONE.withMaxTime(1, TimeUnit.MILLISECONDS).guard(asList("a", "b").iterator(), "statement");
+        assertTrue(iterator.hasNext());
+        assertEquals("a", iterator.next());
+        Thread.sleep(10);
+        assertFalse(iterator.hasNext());
+        assertEquals(1, QueryStatistics.getInstance().getGuardrailTripCount());
+    }
+
+    @Test
+    public void disabledGuardrailsReturnIterator() {
+        Iterator<String> iterator = asList("a").iterator();
+        assertSame(iterator, QueryGuardrails.NONE.guard(iterator, "statement"));
+    }
+
+    private static List<String> collect(final Iterator<String> iterator) {
+        List<String> results = new ArrayList<>();
+        iterator.forEachRemaining(results::add);
+        return results;
+    }
+}
@@ -0,0 +1,212 @@
+package de.ibmix.magkit.query.monitor;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.query.NodeQueryUtil;
+import de.ibmix.magkit.query.sql2.query.jcrwrapper.NodesQuery;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.query.Query;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static de.ibmix.magkit.test.cms.context.ContextMockUtils.cleanContext;
+import static de.ibmix.magkit.test.cms.context.ContextMockUtils.mockQuery;
+import static de.ibmix.magkit.test.cms.context.ContextMockUtils.mockQueryResult;
+import static de.ibmix.magkit.test.jcr.NodeMockUtils.mockNode;
+import static de.ibmix.magkit.test.jcr.query.QueryStubbingOperation.stubResult;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link QueryStatistics} covering fingerprints, recording of executions, listeners and the slow query
+ * threshold.
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public class QueryStatisticsTest {
+
+    private static final String STATEMENT = "SELECT * FROM [mgnl:page] WHERE [title] = 'News'";
+
+    private final List<QueryExecution> _executions = new ArrayList<>();
+    private final QueryMetricsListener _listener = _executions::add;
+
+    @BeforeEach
+    public void setUp() {
+        QueryStatistics.getInstance().reset();
+        QueryStatistics.getInstance().addListener(_listener);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        QueryStatistics.getInstance().removeListener(_listener);
+        QueryStatistics.getInstance().setEnabled(true);
+        QueryStatistics.getInstance().setSlowQueryThresholdMillis(QueryStatistics.DEFAULT_SLOW_QUERY_THRESHOLD);
+        cleanContext();
+    }
+
+    @Test
+    public void fingerprintStripsLiterals() {
+        assertEquals("", QueryStatistics.fingerprint(null));
+        assertEquals("SELECT * FROM [mgnl:page] WHERE [title] = ? AND [count] > ? AND isdescendantnode(?)",
+            QueryStatistics.fingerprint("SELECT  *\nFROM [mgnl:page] WHERE [title] = 'it''s' AND [count] > 10.5 AND isdescendantnode('/news')"));
+        assertEquals("SELECT * FROM [mgnl:page] AS p2 WHERE p2.[title] = $literal1",
+            QueryStatistics.fingerprint("SELECT * FROM [mgnl:page] AS p2 WHERE p2.[title] = $literal1"));
+        assertEquals("//element(*, mgnl:page)[@title=?]", QueryStatistics.fingerprint("//element(*, mgnl:page)[@title=\"News\"]"));
+        assertEquals("[title] = ?", QueryStatistics.fingerprint("[title] = 'unclosed"));
+    }
+
+    @Test
+    public void queryWrapperRecordsExecution() throws RepositoryException {
+        Node first = mockNode("website", "/first");
+        Node second = mockNode("website", "/second");
+        Query query = mockQuery("website", Query.JCR_SQL2, STATEMENT, stubResult(first, second));
+        when(query.getStatement()).thenReturn(STATEMENT);
+        when(query.getLanguage()).thenReturn(Query.JCR_SQL2);
+
+        assertEquals(List.of(first, second), new NodesQuery(query, "website").execute().getNodeList());
+
+        assertEquals(1, _executions.size());
+        QueryExecution execution = _executions.get(0);
+        assertEquals(STATEMENT, execution.getStatement());
+        assertEquals("SELECT * FROM [mgnl:page] WHERE [title] = ?", execution.getFingerprint());
+        assertEquals("website", execution.getWorkspace());
+        assertEquals(Query.JCR_SQL2, execution.getLanguage());
+        assertEquals(2, execution.getRowCount());
+        assertFalse(execution.isFailed());
+        assertTrue(execution.getExecuteNanos() >= 0);
+        assertTrue(execution.getIterateNanos() >= 0);
+
+        QueryStatistics statistics = QueryStatistics.getInstance();
+        assertEquals(1, statistics.getExecutionCount());
+        assertEquals(1, statistics.getFingerprintCount());
+        FingerprintStatistics fingerprint = statistics.getStatistics().get(0);
+        assertEquals(1, fingerprint.getCount());
+        assertEquals(2, fingerprint.getTotalRows());
+        assertEquals(1, statistics.getTopFingerprints().length);
+    }
+
+    @Test
+    public void closedStreamRecordsConsumedRows() throws RepositoryException {
+        Query query = mockQuery("website", Query.JCR_SQL2, STATEMENT, stubResult(mockNode("website", "/first"), mockNode("website", "/second")));
+        when(query.getStatement()).thenReturn(STATEMENT);
+
+        try (Stream<Node> nodes = new NodesQuery(query, "website").execute().getNodeStream()) {
+            assertTrue(nodes.findFirst().isPresent());
+            assertTrue(_executions.isEmpty());
+        }
+        assertEquals(1, _executions.size());
+        assertEquals(1, _executions.get(0).getRowCount());
+    }
+
+    @Test
+    public void failedExecutionIsRecorded() throws RepositoryException {
+        Query query = mockQuery("website", Query.JCR_SQL2, STATEMENT);
+        when(query.getStatement()).thenReturn(STATEMENT);
+        when(query.execute()).thenThrow(new RepositoryException("test"));
+
+        assertThrows(RepositoryException.class, () -> new NodesQuery(query, "website").execute());
+        assertEquals(1, _executions.size());
+        assertTrue(_executions.get(0).isFailed());
+        assertEquals(1, QueryStatistics.getInstance().getStatistics().get(0).getFailures());
+    }
+
+    @Test
+    public void slowQueriesAndDisabledInstrumentation() throws RepositoryException {
+        mockQueryResult("website", Query.XPATH, "//element(*, mgnl:page)", mockNode("website", "/first"));
+        QueryStatistics statistics = QueryStatistics.getInstance();
+
+        statistics.setSlowQueryThresholdMillis(-1);
+        assertEquals(0, statistics.getSlowQueryThresholdMillis());
+        NodeQueryUtil.executeQuery("//element(*, mgnl:page)", Query.XPATH, "website");
+        assertEquals(0, statistics.getSlowExecutionCount());
+
+        statistics.setEnabled(false);
+        NodeQueryUtil.executeQuery("//element(*, mgnl:page)", Query.XPATH, "website");
+        assertEquals(1, statistics.getExecutionCount());
+        assertEquals(1, _executions.size());
+    }
+
+    @Test
+    public void executionIsRecordedBeforeResultIsConsumed() throws InterruptedException {
+        QueryStatistics statistics = new QueryStatistics(10);
+        statistics.addListener(_listener);
+        statistics.setSlowQueryThresholdMillis(1);
+        QueryMeasurement measurement = statistics.start(STATEMENT, Query.JCR_SQL2, "website");
+        Thread.sleep(5);
+        measurement.executed();
+        assertEquals(1, statistics.getExecutionCount());
+        assertEquals(1, statistics.getSlowExecutionCount());
+        assertEquals(1, statistics.getStatistics().get(0).getCount());
+        assertTrue(_executions.isEmpty());
+
+        measurement.finished(2);
+        assertEquals(1, statistics.getExecutionCount());
+        assertEquals(1, statistics.getSlowExecutionCount());
+        assertEquals(1, statistics.getStatistics().get(0).getCount());
+        assertEquals(2, statistics.getStatistics().get(0).getTotalRows());
+        assertEquals(1, _executions.size());
+    }
+
+    @Test
+    public void listenerErrorsAndFingerprintLimit() {
+        QueryStatistics statistics = new QueryStatistics(1);
+        statistics.addListener(execution -> {
+            throw new IllegalStateException("test");
+        });
+        statistics.setSlowQueryThresholdMillis(0);
+
+        statistics.start("SELECT * FROM [mgnl:page] WHERE [title] = 'a'", Query.JCR_SQL2, "website").finished(1);
+        statistics.start("SELECT * FROM [mgnl:page] WHERE [title] = 'b'", Query.JCR_SQL2, "website").finished(1);
+        statistics.start("SELECT * FROM [mgnl:area]", Query.JCR_SQL2, "website").finished(1);
+
+        assertEquals(3, statistics.getExecutionCount());
+        assertEquals(1, statistics.getFingerprintCount());
+        assertEquals(2, statistics.getStatistics().get(0).getCount());
+        statistics.reset();
+        assertEquals(0, statistics.getExecutionCount());
+        assertEquals(0, statistics.getFingerprintCount());
+    }
+
+    @Test
+    public void measurementIsRecordedOnce() {
+        QueryStatistics statistics = new QueryStatistics(10);
+        QueryMeasurement measurement = statistics.start(STATEMENT, Query.JCR_SQL2, null);
+        assertTrue(measurement.isActive());
+        measurement.executed();
+        measurement.finished(3);
+        measurement.finished(5);
+        measurement.failed();
+        assertEquals(1, statistics.getExecutionCount());
+        assertEquals(3, statistics.getStatistics().get(0).getTotalRows());
+        assertFalse(QueryMeasurement.NONE.isActive());
+        QueryMeasurement.NONE.finished(1);
+    }
+}
@@ -24,6 +24,12 @@ import org.junit.jupiter.api.Test;
 
 import javax.jcr.Node;
 import javax.jcr.RepositoryException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
 import java.util.Calendar;
 
 import static de.ibmix.magkit.test.jcr.NodeMockUtils.mockNode;
@@ -109,6 +115,17 @@ public class Sql2ConditionTest {
         assertTrue(Sql2.Condition.Date.deletedAfter(getDateZero()).asString().endsWith("' as date)"));
     }
 
+    @Test
+    public void dateJavaTime() {
+        assertEquals("", Sql2.Condition.Date.createdBeforeTemporal(null).asString());
+        assertEquals("[mgnl:created] < cast('1970-01-01T00:00:00.000Z' as date)", Sql2.Condition.Date.createdBeforeTemporal(Instant.EPOCH).asString());
+        assertEquals("[mgnl:lastModified] > cast('2024-02-29T23:05:01.007-05:00' as date)",
+            Sql2.Condition.Date.lastModifiedAfterTemporal(ZonedDateTime.of(2024, 2, 29, 23, 5, 1, 7_000_000, ZoneId.of("America/New_York"))).asString());
+        assertEquals("[mgnl:deleted] < cast('2024-03-01T00:00:00.000+01:00' as date)",
+            Sql2.Condition.Date.deletedBeforeTemporal(OffsetDateTime.of(2024, 3, 1, 0, 0, 0, 0, ZoneOffset.ofHours(1))).asString());
+        assertTrue(Sql2.Condition.Date.lastActivatedAfterTemporal(LocalDate.of(2024, 3, 1)).asString().startsWith("[mgnl:lastActivated] > cast('2024-03-01T00:00:00.000"));
+    }
+
     @Test
     public void longPropertyLowerThan() {
         assertEquals("[test] < 0", Sql2.Condition.Long.propertyLowerThan("test", 0L).asString());
@@ -20,6 +20,7 @@ package de.ibmix.magkit.query.sql2;
  * #L%
  */
 
+import de.ibmix.magkit.query.QueryGuardrails;
 import de.ibmix.magkit.query.sql2.query.NodesQueryBuilder;
 import de.ibmix.magkit.query.sql2.query.QueryRowsStatement;
 import de.ibmix.magkit.query.sql2.query.jcrwrapper.NodesQuery;
@@ -158,7 +159,7 @@ public class Sql2QueryTest {
     @Test
     public void withStatement() {
         assertInstanceOf(RowsQuery.class, Sql2.Query.rowsFromWebsite().withStatement(_statement).buildRowsQuery());
-        verify(_query, times(0)).setLimit(anyLong());
+        verify(_query, times(1)).setLimit(QueryGuardrails.DEFAULT_MAX_LIMIT);
         verify(_query, times(0)).setOffset(anyLong());
     }
 
@@ -20,8 +20,16 @@ package de.ibmix.magkit.query.sql2.condition;
  * #L%
  */
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import java.util.Calendar;
+
+import static de.ibmix.magkit.test.cms.context.ContextMockUtils.cleanContext;
+import static de.ibmix.magkit.test.jcr.NodeMockUtils.mockNode;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubProperty;
 import static org.apache.commons.lang3.StringUtils.EMPTY;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -47,6 +55,11 @@ public class Sql2ConstraintGroupTest {
         }
     };
 
+    @AfterEach
+    public void tearDown() throws Exception {
+        cleanContext();
+    }
+
     @Test
     public void and() {
         assertEquals(EMPTY, Sql2ConstraintGroup.and().asString());
@@ -113,14 +126,14 @@ public class Sql2ConstraintGroupTest {
     }
 
     /**
-     * Verify multiple empty child constraints produce an empty parenthesis block (current implementation) and with NOT wrapper.
+     * Verify groups of empty child constraints are empty, also with NOT wrapper.
      */
     @Test
     public void multipleEmptyConstraints() {
-        assertEquals("()", Sql2ConstraintGroup.and().matches(EMPTY_CONSTRAINT, EMPTY_CONSTRAINT).asString());
-        assertEquals("()", Sql2ConstraintGroup.or().matches(EMPTY_CONSTRAINT, EMPTY_CONSTRAINT).asString());
-        assertEquals("not()", Sql2ConstraintGroup.and().not().matches(EMPTY_CONSTRAINT, EMPTY_CONSTRAINT).asString());
-        assertEquals("not()", Sql2ConstraintGroup.or().not().matches(EMPTY_CONSTRAINT, EMPTY_CONSTRAINT).asString());
+        assertEquals(EMPTY, Sql2ConstraintGroup.and().matches(EMPTY_CONSTRAINT, EMPTY_CONSTRAINT).asString());
+        assertEquals(EMPTY, Sql2ConstraintGroup.or().matches(EMPTY_CONSTRAINT, EMPTY_CONSTRAINT).asString());
+        assertEquals(EMPTY, Sql2ConstraintGroup.and().not().matches(EMPTY_CONSTRAINT, EMPTY_CONSTRAINT).asString());
+        assertEquals(EMPTY, Sql2ConstraintGroup.or().not().matches(EMPTY_CONSTRAINT, EMPTY_CONSTRAINT).asString());
     }
 
     /**
@@ -147,6 +160,16 @@ public class Sql2ConstraintGroupTest {
         ).forJoin().asString("f", "j"));
     }
 
+    /**
+     * Verify forJoin() rendering does not change the child constraints, so they can be rendered again and shared.
+     */
+    @Test
+    public void forJoinKeepsChildrenUnchanged() {
+        Sql2JoinConstraint title = Sql2StringCondition.property("title").equalsAny().values("Hello");
+        assertEquals("j.[title] = 'Hello'", Sql2ConstraintGroup.and().matches(title).forJoin().asString("f", "j"));
+        assertEquals("f.[title] = 'Hello'", title.asString("f", "j"));
+    }
+
     /**
      * Verify isNotEmpty semantics for various matches inputs.
      */
@@ -161,6 +184,72 @@ public class Sql2ConstraintGroupTest {
         Sql2ConstraintGroup g4 = Sql2ConstraintGroup.and().matches();
         assertFalse(g4.isNotEmpty());
         Sql2ConstraintGroup g5 = Sql2ConstraintGroup.and().matches(EMPTY_CONSTRAINT);
-        assertTrue(g5.isNotEmpty());
+        assertFalse(g5.isNotEmpty());
+        Sql2ConstraintGroup g6 = Sql2ConstraintGroup.and().matches(EMPTY_CONSTRAINT, Sql2ConstraintGroup.or().matches(EMPTY_CONSTRAINT));
+        assertFalse(g6.isNotEmpty());
+        Sql2ConstraintGroup g7 = Sql2ConstraintGroup.and().matches(EMPTY_CONSTRAINT, Sql2NullCondition.isNull("a"));
+        assertTrue(g7.isNotEmpty());
+    }
+
+    /**
+     * Verify optimized groups are flattened and free of empty, duplicate and redundant constraints.
+     */
+    @Test
+    public void optimize() {
+        Sql2ConstraintGroup group = Sql2ConstraintGroup.and().matches(
+            EMPTY_CONSTRAINT,
+            Sql2ConstraintGroup.and().matches(Sql2NullCondition.isNull("a"), Sql2ConstraintGroup.or().matches(EMPTY_CONSTRAINT)),
+            Sql2ConstraintGroup.or().matches(Sql2StringCondition.property("b").equalsAny().values("1", "2", "1")),
+            Sql2ConstraintGroup.or().matches(
+                Sql2PathCondition.is().descendant("/news"),
+                Sql2PathCondition.is().descendant("/news/2020"),
+                Sql2PathCondition.is().child("/news"),
+                Sql2PathCondition.is().same("/events"),
+                Sql2PathCondition.is().not().descendant("/news/archive")
+            )
+        );
+        String original = group.asString();
+        assertEquals("([a] IS NULL AND ([b] = '1' OR [b] = '2') AND (isdescendantnode('/news') OR issamenode('/events') OR not(isdescendantnode('/news/archive'))))",
+            group.optimize().asString());
+        assertEquals(original, group.asString());
+
+        assertEquals("ischildnode('/news/2020')", Sql2ConstraintGroup.and().matches(
+            Sql2PathCondition.is().descendant("/news"),
+            Sql2PathCondition.is().child("/news/2020")
+        ).optimize().asString());
+        assertEquals("(isdescendantnode('/news') AND isdescendantnode('/events'))", Sql2ConstraintGroup.and().matches(
+            Sql2PathCondition.is().descendant("/news"),
+            Sql2PathCondition.is().descendant("/events")
+        ).optimize().asString());
+        assertEquals("j.[a] IS NULL", Sql2ConstraintGroup.and().matches(Sql2ConstraintGroup.and().matches(Sql2NullCondition.isNull("a")).forJoin()).optimize().asString("f", "j"));
+        assertEquals(EMPTY, Sql2ConstraintGroup.and().matches(EMPTY_CONSTRAINT).optimize().asString());
+    }
+
+    /**
+     * Verify the in-memory evaluation of groups with different condition types.
+     */
+    @Test
+    public void asPredicate() throws RepositoryException {
+        Calendar created = Calendar.getInstance();
+        Node node = mockNode("/news/article", stubProperty("views", 150L), stubProperty("rating", 4.5D), stubProperty("mgnl:created", created));
+        Calendar yesterday = (Calendar) created.clone();
+        yesterday.add(Calendar.DAY_OF_MONTH, -1);
+        assertTrue(Sql2ConstraintGroup.and().matches(
+            Sql2LongCondition.property("views").greaterThan().value(100L),
+            Sql2DoubleCondition.property("rating").lowerOrEqualThan().value(4.5D),
+            Sql2CalendarCondition.created().greaterThan().value(yesterday),
+            Sql2NullCondition.isNull("deleted"),
+            Sql2NullCondition.isNotNull("views"),
+            new Sql2NameCondition().equalsAny().values("other", "article"),
+            Sql2PathCondition.is().child("/news"),
+            EMPTY_CONSTRAINT
+        ).asPredicate().test(node));
+        assertTrue(Sql2ConstraintGroup.or().matches(
+            Sql2LongCondition.property("views").lowerThan().value(100L),
+            new Sql2NameCondition().upperCase().equalsAny().value("ARTICLE")
+        ).asPredicate().test(node));
+        assertFalse(Sql2ConstraintGroup.and().not().matches(Sql2LongCondition.property("views").equalsAny().value(150L)).asPredicate().test(node));
+        assertTrue(Sql2ConstraintGroup.and().asPredicate().test(node));
+        assertFalse(Sql2ConstraintGroup.and().matches(new Sql2ContainsCondition("title").all("news")).asPredicate().test(node));
     }
 }
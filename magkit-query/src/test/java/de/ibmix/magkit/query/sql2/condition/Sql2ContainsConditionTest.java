@@ -21,9 +21,16 @@ package de.ibmix.magkit.query.sql2.condition;
  */
 
 import de.ibmix.magkit.query.sql2.statement.Sql2SelectorNames;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+
+import static de.ibmix.magkit.test.cms.context.ContextMockUtils.cleanContext;
+import static de.ibmix.magkit.test.jcr.NodeMockUtils.mockNode;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubProperty;
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -218,4 +225,27 @@ public class Sql2ContainsConditionTest {
         _containsCondition.range(false, "alpha", "omega").appendTo(sql2, SELECTOR_NAMES);
         assertEquals("contains(from.*, '{alpha TO omega}')", sql2.toString());
     }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        cleanContext();
+    }
+
+    @Test
+    public void asPredicate() throws RepositoryException {
+        Node node = mockNode("/page", stubProperty("title", "Hello World"), stubProperty("tags", "News", "sports"));
+        assertTrue(new Sql2ContainsCondition("title").asPredicate().test(node));
+        assertTrue(new Sql2ContainsCondition("title").all("hello", "world").asPredicate().test(node));
+        assertFalse(new Sql2ContainsCondition("title").all("hello", "moon").asPredicate().test(node));
+        assertTrue(new Sql2ContainsCondition("title").all("moon").any("hello").asPredicate().test(node));
+        assertTrue(new Sql2ContainsCondition("[title]").all("hello world", "wor*").asPredicate().test(node));
+        assertFalse(new Sql2ContainsCondition("title").all("world hello").asPredicate().test(node));
+        assertTrue(new Sql2ContainsCondition("title").all("w?rld").asPredicate().test(node));
+        assertFalse(new Sql2ContainsCondition("title").all("hello").excludeAll("world").asPredicate().test(node));
+        assertTrue(new Sql2ContainsCondition().all("news", "hello").asPredicate().test(node));
+        assertFalse(new Sql2ContainsCondition("tags").all("hello").asPredicate().test(node));
+        assertTrue(new Sql2ContainsCondition("tags").range(true, "sports", "tennis").asPredicate().test(node));
+        assertFalse(new Sql2ContainsCondition("tags").range(false, "sports", "tennis").asPredicate().test(node));
+        assertFalse(new Sql2ContainsCondition("missing").all("hello").asPredicate().test(node));
+    }
 }
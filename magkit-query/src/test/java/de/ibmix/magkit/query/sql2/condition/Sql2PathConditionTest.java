@@ -114,4 +114,27 @@ public class Sql2PathConditionTest {
         assertFalse(Sql2PathCondition.is().not().isNotEmpty());
         assertTrue(Sql2PathCondition.is().child("a/b").isNotEmpty());
     }
+
+    @Test
+    public void asPredicate() throws RepositoryException {
+        Node child = mockNode("/test/path");
+        Node grandChild = mockNode("/test/path/sub");
+        Node other = mockNode("/test/pathOther");
+        assertTrue(Sql2PathCondition.is().descendant("test").asPredicate().test(grandChild));
+        assertFalse(Sql2PathCondition.is().descendant("/test/path").asPredicate().test(child));
+        assertFalse(Sql2PathCondition.is().descendant("/test/path").asPredicate().test(other));
+        assertTrue(Sql2PathCondition.is().child("/test").asPredicate().test(child));
+        assertFalse(Sql2PathCondition.is().child("/test").asPredicate().test(grandChild));
+        assertTrue(Sql2PathCondition.is().same("/test/path").asPredicate().test(child));
+        assertTrue(Sql2PathCondition.is().not().child("/test").asPredicate().test(grandChild));
+        assertTrue(Sql2PathCondition.is().asPredicate().test(other));
+    }
+
+    @Test
+    public void removeNestedPaths() {
+        assertArrayEquals(new String[0], Sql2PathCondition.removeNestedPaths((String[]) null));
+        assertArrayEquals(new String[]{"/news", "/events"}, Sql2PathCondition.removeNestedPaths("/news/2020", "/news", " ", "/events", "news", "/news/2021/a"));
+        assertArrayEquals(new String[]{"/news", "/newsroom"}, Sql2PathCondition.removeNestedPaths("/news", "/newsroom"));
+        assertArrayEquals(new String[]{"/"}, Sql2PathCondition.removeNestedPaths("/news", "/"));
+    }
 }
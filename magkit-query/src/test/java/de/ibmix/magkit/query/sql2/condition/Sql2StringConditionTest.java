@@ -20,8 +20,15 @@ package de.ibmix.magkit.query.sql2.condition;
  * #L%
  */
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+
+import static de.ibmix.magkit.test.cms.context.ContextMockUtils.cleanContext;
+import static de.ibmix.magkit.test.jcr.NodeMockUtils.mockNode;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubProperty;
 import static org.apache.commons.lang3.StringUtils.EMPTY;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -32,6 +39,11 @@ import static org.junit.jupiter.api.Assertions.*;
  */
 public class Sql2StringConditionTest {
 
+    @AfterEach
+    public void tearDown() throws Exception {
+        cleanContext();
+    }
+
     @Test
     public void property() {
         assertEquals(EMPTY, Sql2StringCondition.property("test").excludeAll().values().asString());
@@ -183,4 +195,24 @@ public class Sql2StringConditionTest {
         assertEquals(EMPTY, Sql2StringCondition.property("").equalsAny().values("x").asString());
         assertEquals(EMPTY, Sql2StringCondition.property(null).equalsAny().values("x").asString());
     }
+
+    @Test
+    public void asPredicate() throws RepositoryException {
+        Node node = mockNode("/page", stubProperty("title", "Hello World"), stubProperty("tags", "news", "sports"));
+        assertTrue(Sql2StringCondition.property("title").equalsAny().values("Other", "Hello World").asPredicate().test(node));
+        assertFalse(Sql2StringCondition.property("title").equalsAll().values("Other", "Hello World").asPredicate().test(node));
+        assertTrue(Sql2StringCondition.property("title").lowerCase().equalsAny().values("hello world").asPredicate().test(node));
+        assertTrue(Sql2StringCondition.property("title").startsWithAny().values("Hello").asPredicate().test(node));
+        assertTrue(Sql2StringCondition.property("title").endsWithAny().values("World").asPredicate().test(node));
+        assertFalse(Sql2StringCondition.property("title").likeAll().values("lo W", "xyz").asPredicate().test(node));
+        assertTrue(Sql2StringCondition.property("title").greaterThan().value("A").asPredicate().test(node));
+        assertTrue(Sql2StringCondition.property("tags").equalsAny().values("sports").asPredicate().test(node));
+        assertFalse(Sql2StringCondition.property("tags").not().equalsAny().values("sports").asPredicate().test(node));
+        assertFalse(Sql2StringCondition.property("missing").excludeAny().values("x").asPredicate().test(node));
+        assertTrue(Sql2StringCondition.property("missing").equalsAny().values((String) null).asPredicate().test(node));
+        assertTrue(Sql2StringCondition.property("title").likeAny().values("").asPredicate().test(node));
+        assertTrue(Sql2StringCondition.property("title").not().likeAny().values("").asPredicate().test(node));
+        assertFalse(Sql2StringCondition.property("title").likeAll().values("", "xyz").asPredicate().test(node));
+        assertThrows(UnsupportedOperationException.class, () -> Sql2StringCondition.property("title").equalsAny().bindVariable("title").asPredicate());
+    }
 }
@@ -0,0 +1,252 @@
+package de.ibmix.magkit.query.sql2.query;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import info.magnolia.cms.security.User;
+import info.magnolia.context.MgnlContext;
+import info.magnolia.repository.RepositoryManager;
+import org.apache.jackrabbit.value.StringValue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.Workspace;
+import javax.jcr.observation.Event;
+import javax.jcr.observation.EventIterator;
+import javax.jcr.observation.EventListener;
+import javax.jcr.observation.ObservationManager;
+import javax.jcr.query.Query;
+import javax.jcr.query.QueryResult;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static de.ibmix.magkit.test.cms.context.ComponentsMockUtils.mockComponentInstance;
+import static de.ibmix.magkit.test.cms.context.ContextMockUtils.cleanContext;
+import static de.ibmix.magkit.test.cms.context.ContextMockUtils.mockQuery;
+import static de.ibmix.magkit.test.cms.node.MagnoliaNodeMockUtils.mockPageNode;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubIdentifier;
+import static de.ibmix.magkit.test.jcr.query.QueryMockUtils.mockQueryResult;
+import static de.ibmix.magkit.test.jcr.query.QueryStubbingOperation.stubResult;
+import static info.magnolia.repository.RepositoryConstants.WEBSITE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link QueryResultCache} covering cache hits, key composition, observation based invalidation and
+ * the size bound.
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public class QueryResultCacheTest {
+
+    private static final String NEWS = "SELECT * FROM [mgnl:page] WHERE ISDESCENDANTNODE('/news')";
+
+    private QueryResultCache _cache;
+    private Query _query;
+    private Node _first;
+    private Node _second;
+    private ObservationManager _observationManager;
+    private Workspace _observedWorkspace;
+    private Session _observedSession;
+    private RepositoryManager _repositoryManager;
+
+    @BeforeEach
+    public void setUp() throws RepositoryException {
+        _cache = new QueryResultCache();
+        _repositoryManager = mockComponentInstance(RepositoryManager.class);
+        _first = mockPageNode("/news/first", stubIdentifier("first-id"));
+        _second = mockPageNode("/news/second", stubIdentifier("second-id"));
+        _query = mockQuery(WEBSITE, Query.JCR_SQL2, NEWS, stubResult(_first, _second));
+
+        _observationManager = mock(ObservationManager.class);
+        _observedWorkspace = mock(Workspace.class);
+        when(_observedWorkspace.getObservationManager()).thenReturn(_observationManager);
+        _observedSession = mock(Session.class);
+        when(_observedSession.getWorkspace()).thenReturn(_observedWorkspace);
+        when(_observedSession.isLive()).thenReturn(true);
+        when(_repositoryManager.getSystemSession(WEBSITE)).thenReturn(_observedSession);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        cleanContext();
+    }
+
+    @Test
+    public void repeatedQueryIsServedFromCache() throws RepositoryException {
+        assertEquals(List.of(_first, _second), newsQuery().getResultNodes());
+        assertEquals(List.of(_first, _second), newsQuery().getResultNodes());
+        verify(_query, times(1)).execute();
+        assertEquals(1, _cache.size());
+    }
+
+    @Test
+    public void limitAndBindValuesArePartOfTheKey() throws RepositoryException {
+        newsQuery().getResultNodes();
+        newsQuery().withLimit(1).getResultNodes();
+        newsQuery().withBindValue("path", new StringValue("/news")).getResultNodes();
+        newsQuery().withBindValue("path", new StringValue("/news")).getResultNodes();
+        verify(_query, times(3)).execute();
+        assertEquals(3, _cache.size());
+    }
+
+    @Test
+    public void usersWithDifferentRolesDoNotShareResults() throws RepositoryException {
+        QueryResultCache.CacheKey anonymous = createKey();
+        User editor = mock(User.class);
+        when(editor.getAllRoles()).thenReturn(Set.of("editor", "base"));
+        when(MgnlContext.getInstance().getUser()).thenReturn(editor);
+        QueryResultCache.CacheKey editorKey = createKey();
+        assertNotEquals(anonymous, editorKey);
+
+        User otherEditor = mock(User.class);
+        when(otherEditor.getAllRoles()).thenReturn(Set.of("base", "editor"));
+        when(MgnlContext.getInstance().getUser()).thenReturn(otherEditor);
+        assertEquals(editorKey, createKey());
+    }
+
+    @Test
+    public void changeInScopeInvalidatesResult() throws RepositoryException {
+        newsQuery().getResultNodes();
+        captureListener().onEvent(mockEvents(Event.PROPERTY_CHANGED, "/news/first/title"));
+        newsQuery().getResultNodes();
+        verify(_query, times(2)).execute();
+    }
+
+    @Test
+    public void changeOutsideScopeKeepsResult() throws RepositoryException {
+        newsQuery().getResultNodes();
+        captureListener().onEvent(mockEvents(Event.NODE_ADDED, "/events/new"));
+        newsQuery().getResultNodes();
+        verify(_query, times(1)).execute();
+    }
+
+    @Test
+    public void removalOfScopeAncestorInvalidatesResult() {
+        newsQuery().getResultNodes();
+        _cache.invalidate(WEBSITE, "/", false);
+        assertEquals(1, _cache.size());
+        _cache.invalidate(WEBSITE, "/", true);
+        assertEquals(0, _cache.size());
+    }
+
+    @Test
+    public void noCachingWithoutSize() throws RepositoryException {
+        _cache.setMaxSize(0);
+        newsQuery().getResultNodes();
+        newsQuery().getResultNodes();
+        verify(_query, times(2)).execute();
+        assertNull(createKey());
+    }
+
+    @Test
+    public void noCachingWithoutObservation() throws RepositoryException {
+        when(_observedWorkspace.getObservationManager()).thenReturn(null);
+        newsQuery().getResultNodes();
+        newsQuery().getResultNodes();
+        verify(_query, times(2)).execute();
+        assertEquals(0, _cache.size());
+    }
+
+    @Test
+    public void failedRegistrationIsNotRetriedOnEveryQuery() throws RepositoryException {
+        when(_repositoryManager.getSystemSession(WEBSITE)).thenThrow(new RepositoryException("test"));
+        newsQuery().getResultNodes();
+        newsQuery().getResultNodes();
+        verify(_query, times(2)).execute();
+        verify(_repositoryManager, times(1)).getSystemSession(WEBSITE);
+    }
+
+    @Test
+    public void resultLoadedDuringChangeIsNotCached() throws RepositoryException {
+        QueryResult result = mockQueryResult(_first, _second);
+        when(_query.execute()).thenAnswer(invocation -> {
+            _cache.invalidate(WEBSITE, "/news/first", false);
+            return result;
+        });
+        newsQuery().getResultNodes();
+        assertEquals(0, _cache.size());
+    }
+
+    @Test
+    public void listenerIsRegisteredOnceOnItsOwnSession() throws RepositoryException {
+        newsQuery().getResultNodes();
+        newsQuery().withLimit(1).getResultNodes();
+        captureListener();
+        verify(_observedSession, never()).logout();
+    }
+
+    @Test
+    public void listenerIsRegisteredAgainWhenItsSessionIsClosed() throws RepositoryException {
+        newsQuery().getResultNodes();
+        Session newSession = mock(Session.class);
+        when(newSession.getWorkspace()).thenReturn(_observedWorkspace);
+        when(newSession.isLive()).thenReturn(true);
+        when(_repositoryManager.getSystemSession(WEBSITE)).thenReturn(newSession);
+        when(_observedSession.isLive()).thenReturn(false);
+        newsQuery().getResultNodes();
+        // results cached before may have missed changes
+        verify(_query, times(2)).execute();
+        verify(_observedSession).logout();
+        verify(_observationManager, times(2)).addEventListener(any(EventListener.class), anyInt(), anyString(), anyBoolean(), isNull(), isNull(), anyBoolean());
+    }
+
+    private NodesQueryBuilder newsQuery() {
+        return Sql2QueryBuilder.forNodes().fromWebsite().withStatement(NEWS).withResultCache(_cache, "/news");
+    }
+
+    private QueryResultCache.CacheKey createKey() {
+        return _cache.createKey(QueryResultCache.TYPE_NODES, WEBSITE, NEWS, Collections.emptyMap(), 0, 0, "/news");
+    }
+
+    private EventListener captureListener() throws RepositoryException {
+        ArgumentCaptor<EventListener> listener = ArgumentCaptor.forClass(EventListener.class);
+        verify(_observationManager).addEventListener(listener.capture(), anyInt(), anyString(), anyBoolean(), isNull(), isNull(), anyBoolean());
+        return listener.getValue();
+    }
+
+    private EventIterator mockEvents(int type, String path) throws RepositoryException {
+        Event event = mock(Event.class);
+        when(event.getType()).thenReturn(type);
+        when(event.getPath()).thenReturn(path);
+        EventIterator events = mock(EventIterator.class);
+        when(events.hasNext()).thenReturn(true, false);
+        when(events.nextEvent()).thenReturn(event);
+        return events;
+    }
+}
@@ -0,0 +1,113 @@
+package de.ibmix.magkit.query.sql2.query;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import info.magnolia.context.MgnlContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.jcr.ItemNotFoundException;
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.query.Query;
+import java.util.List;
+
+import static de.ibmix.magkit.test.cms.context.ContextMockUtils.cleanContext;
+import static de.ibmix.magkit.test.cms.context.ContextMockUtils.mockQueryManager;
+import static de.ibmix.magkit.test.cms.context.ContextMockUtils.mockQueryResult;
+import static de.ibmix.magkit.test.cms.node.MagnoliaNodeMockUtils.mockPageNode;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubIdentifier;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link Sql2IdentifierLookup}.
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public class Sql2IdentifierLookupTest {
+
+    private static final String CHUNK_1 = "SELECT * FROM [nt:base] WHERE ([jcr:uuid] = 'id-1' OR [jcr:uuid] = 'id-2')";
+    private static final String CHUNK_2 = "SELECT * FROM [nt:base] WHERE [jcr:uuid] = 'id-3'";
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        cleanContext();
+    }
+
+    @Test
+    public void emptyIdentifiersDoNotQuery() throws RepositoryException {
+        mockQueryManager("website");
+        assertTrue(Sql2IdentifierLookup.inWorkspace("website").getResultNodes((String[]) null).isEmpty());
+        assertTrue(Sql2IdentifierLookup.inWorkspace("website").getResultNodes("", " ").isEmpty());
+        verify(MgnlContext.getJCRSession("website").getWorkspace().getQueryManager(), never()).createQuery(anyString(), anyString());
+    }
+
+    @Test
+    public void chunksAreMergedInIdentifierOrder() throws RepositoryException {
+        Node first = mockPageNode("/first", stubIdentifier("id-1"));
+        Node second = mockPageNode("/second", stubIdentifier("id-2"));
+        Node third = mockPageNode("/third", stubIdentifier("id-3"));
+        mockQueryResult("website", Query.JCR_SQL2, CHUNK_1, first, second);
+        mockQueryResult("website", Query.JCR_SQL2, CHUNK_2, third);
+
+        List<Node> result = Sql2IdentifierLookup.inWorkspace("website").withChunkSize(2).getResultNodes("id-3", "id-1", "id-3", "id-2");
+        assertEquals(List.of(third, first, second), result);
+    }
+
+    @Test
+    public void parallelChunksAreLoadedInCallerSession() throws RepositoryException {
+        Node first = mockPageNode("/first", stubIdentifier("id-1"));
+        Node second = mockPageNode("/second", stubIdentifier("id-2"));
+        Node third = mockPageNode("/third", stubIdentifier("id-3"));
+        mockQueryResult("website", Query.JCR_SQL2, CHUNK_1, second, first);
+        mockQueryResult("website", Query.JCR_SQL2, CHUNK_2, third);
+        Session session = MgnlContext.getJCRSession("website");
+        when(session.getNodeByIdentifier("id-1")).thenReturn(first);
+        when(session.getNodeByIdentifier("id-2")).thenReturn(second);
+        when(session.getNodeByIdentifier("id-3")).thenReturn(third);
+
+        // tasks executed on the calling thread keep its context, other threads get their own sessions
+        List<Node> result = Sql2IdentifierLookup.inWorkspace("website").withChunkSize(2).parallel(Runnable::run).getResultNodes("id-1", "id-2", "id-3");
+        assertEquals(List.of(first, second, third), result);
+    }
+
+    @Test
+    public void directResolutionSkipsQuery() throws RepositoryException {
+        Node first = mockPageNode("/first", stubIdentifier("id-1"));
+        Node third = mockPageNode("/third", stubIdentifier("id-3"));
+        Session session = MgnlContext.getJCRSession("website");
+        when(session.getNodeByIdentifier("id-1")).thenReturn(first);
+        when(session.getNodeByIdentifier("id-2")).thenThrow(new ItemNotFoundException("id-2"));
+        when(session.getNodeByIdentifier("id-3")).thenThrow(new RepositoryException("id-3"));
+        mockQueryResult("website", Query.JCR_SQL2, CHUNK_2, third);
+
+        List<Node> result = Sql2IdentifierLookup.inWorkspace("website").resolveDirectly().getResultNodes("id-1", "id-2", "id-3");
+        assertEquals(List.of(first, third), result);
+        verify(session.getWorkspace().getQueryManager(), never()).createQuery(CHUNK_1, Query.JCR_SQL2);
+    }
+}
@@ -0,0 +1,119 @@
+package de.ibmix.magkit.query.sql2.query;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.query.sql2.statement.Sql2Statement;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.query.Query;
+
+import static de.ibmix.magkit.test.cms.context.ContextMockUtils.cleanContext;
+import static de.ibmix.magkit.test.cms.context.ContextMockUtils.mockQuery;
+import static de.ibmix.magkit.test.cms.node.MagnoliaNodeMockUtils.mockPageNode;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubIdentifier;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubProperty;
+import static de.ibmix.magkit.test.jcr.query.QueryStubbingOperation.stubResult;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link Sql2Keyset} and keyset paging of the {@link Sql2NodesQueryBuilder}.
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public class Sql2KeysetTest {
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        cleanContext();
+    }
+
+    @Test
+    public void firstPageOnlyRequiresSortProperties() {
+        Sql2Keyset keyset = Sql2Keyset.orderBy("title").after(null);
+        assertTrue(keyset.isFirstPage());
+        assertEquals("[title] IS NOT NULL", keyset.getConstraint().asString());
+        Sql2Statement statement = (Sql2Statement) Sql2Statement.select().from("mgnl:page").orderBy("other").descending();
+        assertEquals("SELECT * FROM [mgnl:page] WHERE [title] IS NOT NULL ORDER BY [title] ASC, [jcr:uuid] ASC",
+            statement.build(keyset.getConstraint(), keyset.getOrderAttributes(), keyset.isDescending()));
+        assertFalse(Sql2Keyset.orderBy().getConstraint().isNotEmpty());
+    }
+
+    @Test
+    public void tokenContinuesAfterLastNode() throws RepositoryException {
+        Node last = mockPageNode("/news/b", stubIdentifier("b-id"), stubProperty("title", "B"));
+        String token = Sql2Keyset.orderBy("title").createToken(last);
+        assertNotNull(token);
+
+        Sql2Keyset ascending = Sql2Keyset.orderBy("title").after(token);
+        assertFalse(ascending.isFirstPage());
+        assertEquals("([title] IS NOT NULL AND ([title] > 'B' OR ([title] = 'B' AND [jcr:uuid] > 'b-id')))", ascending.getConstraint().asString());
+
+        Sql2Keyset descending = Sql2Keyset.orderBy("title").descending().after(token);
+        assertEquals("([title] IS NOT NULL AND ([title] < 'B' OR ([title] = 'B' AND [jcr:uuid] < 'b-id')))", descending.getConstraint().asString());
+    }
+
+    @Test
+    public void invalidTokenIsRejected() throws RepositoryException {
+        assertThrows(IllegalArgumentException.class, () -> Sql2Keyset.orderBy("title").after("not a token"));
+        String identifierOnly = Sql2Keyset.orderBy().createToken(mockPageNode("/news/a", stubIdentifier("a-id")));
+        assertThrows(IllegalArgumentException.class, () -> Sql2Keyset.orderBy("title").after(identifierOnly));
+        assertTrue(Sql2Keyset.orderBy("title").after(" ").isFirstPage());
+    }
+
+    @Test
+    public void missingSortPropertyIsRejected() throws RepositoryException {
+        Node withoutTitle = mockPageNode("/news/a", stubIdentifier("a-id"));
+        assertThrows(IllegalStateException.class, () -> Sql2Keyset.orderBy("title").createToken(withoutTitle));
+        assertNull(Sql2Keyset.orderBy("title").createToken(null));
+    }
+
+    @Test
+    public void builderReturnsPageWithContinuationToken() throws RepositoryException {
+        Node first = mockPageNode("/news/a", stubIdentifier("a-id"), stubProperty("title", "A"));
+        Node second = mockPageNode("/news/b", stubIdentifier("b-id"), stubProperty("title", "B"));
+        mockQuery("website", Query.JCR_SQL2, "SELECT * FROM [mgnl:page] WHERE [title] IS NOT NULL ORDER BY [title] ASC, [jcr:uuid] ASC", stubResult(first, second));
+
+        ResultPage<Node> page = Sql2QueryBuilder.forNodes().fromWebsite()
+            .withStatement(Sql2Statement.select().from("mgnl:page"))
+            .withLimit(2)
+            .withKeyset(Sql2Keyset.orderBy("title"))
+            .getResultPage();
+        assertEquals(2, page.getItems().size());
+        assertTrue(page.hasNext());
+        assertEquals("([title] IS NOT NULL AND ([title] > 'B' OR ([title] = 'B' AND [jcr:uuid] > 'b-id')))",
+            Sql2Keyset.orderBy("title").after(page.getContinuationToken()).getConstraint().asString());
+    }
+
+    @Test
+    public void keysetRequiresStatementBuilder() {
+        NodesQueryBuilder builder = Sql2QueryBuilder.forNodes().fromWebsite().withStatement("SELECT * FROM [mgnl:page]");
+        assertThrows(IllegalStateException.class, () -> builder.withKeyset(Sql2Keyset.orderBy("title")));
+    }
+}
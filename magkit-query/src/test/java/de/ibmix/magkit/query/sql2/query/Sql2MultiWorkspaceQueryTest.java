@@ -0,0 +1,150 @@
+package de.ibmix.magkit.query.sql2.query;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import info.magnolia.context.MgnlContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.query.Query;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static de.ibmix.magkit.test.cms.context.ContextMockUtils.cleanContext;
+import static de.ibmix.magkit.test.cms.context.ContextMockUtils.mockQueryResult;
+import static de.ibmix.magkit.test.jcr.NodeMockUtils.mockNode;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubIdentifier;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubProperty;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link Sql2MultiWorkspaceQuery}.
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public class Sql2MultiWorkspaceQueryTest {
+
+    private static final String STATEMENT = "SELECT * FROM [nt:base] ORDER BY [title] ASC";
+
+    private boolean _submitted;
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        cleanContext();
+    }
+
+    @Test
+    public void mergesTopResultsOfAllWorkspaces() throws RepositoryException {
+        Node pageA = mockNode("website", "/a", stubProperty("title", "A"));
+        Node pageD = mockNode("website", "/d", stubProperty("title", "D"));
+        Node assetB = mockNode("dam", "/b", stubProperty("title", "B"));
+        Node assetC = mockNode("dam", "/c", stubProperty("title", "C"));
+        Node untitled = mockNode("dam", "/untitled");
+        mockQueryResult("website", Query.JCR_SQL2, STATEMENT, pageA, pageD);
+        mockQueryResult("dam", Query.JCR_SQL2, STATEMENT, assetB, assetC, untitled);
+
+        Sql2MultiWorkspaceQuery query = Sql2MultiWorkspaceQuery.create().forWorkspaces(STATEMENT, "website", "dam")
+            .withExecutor(null)
+            .orderBy(Sql2MultiWorkspaceQuery.byProperty("title", false));
+        assertEquals(List.of(pageA, assetB, assetC), query.withLimit(3).getResultNodes());
+        assertEquals(List.of(pageA, assetB, assetC, pageD, untitled), query.withLimit(0).getResultNodes());
+        assertEquals(List.of(pageD, assetC), query.orderBy(Sql2MultiWorkspaceQuery.byProperty("title", true)).withLimit(2).getResultNodes());
+    }
+
+    @Test
+    public void concatenatesWithoutOrder() throws RepositoryException {
+        Node page = mockNode("website", "/page");
+        Node asset = mockNode("dam", "/asset");
+        mockQueryResult("website", Query.JCR_SQL2, "SELECT * FROM [mgnl:page]", page);
+        mockQueryResult("dam", Query.JCR_SQL2, "SELECT * FROM [mgnl:asset]", asset);
+
+        List<Node> result = Sql2MultiWorkspaceQuery.create()
+            .forWorkspaces("SELECT * FROM [mgnl:page]", "website")
+            .forWorkspaces("SELECT * FROM [mgnl:asset]", "dam")
+            .withExecutor(null)
+            .getResultNodes();
+        assertEquals(List.of(page, asset), result);
+    }
+
+    @Test
+    public void executesWorkspacesOnExecutor() throws RepositoryException {
+        Node page = mockNode("website", "/page", stubIdentifier("page-id"), stubProperty("title", "B"));
+        Node asset = mockNode("dam", "/asset", stubIdentifier("asset-id"), stubProperty("title", "A"));
+        mockQueryResult("website", Query.JCR_SQL2, STATEMENT, page);
+        mockQueryResult("dam", Query.JCR_SQL2, STATEMENT, asset);
+        // the results are loaded by identifier in the session of the caller
+        when(MgnlContext.getJCRSession("website").getNodeByIdentifier("page-id")).thenReturn(page);
+        when(MgnlContext.getJCRSession("dam").getNodeByIdentifier("asset-id")).thenReturn(asset);
+        List<Node> result = Sql2MultiWorkspaceQuery.create().forWorkspaces(STATEMENT, "website", "dam")
+            .withExecutor(Runnable::run)
+            .orderBy(Sql2MultiWorkspaceQuery.byProperty("title", false))
+            .getResultNodes();
+        assertEquals(List.of(asset, page), result);
+    }
+
+    @Test
+    public void unfinishedWorkspacesAreMissingAfterTimeout() throws Exception {
+        Node page = mockNode("website", "/page", stubIdentifier("page-id"));
+        mockQueryResult("website", Query.JCR_SQL2, STATEMENT, page);
+        mockQueryResult("dam", Query.JCR_SQL2, STATEMENT, mockNode("dam", "/asset"));
+        when(MgnlContext.getJCRSession("website").getNodeByIdentifier("page-id")).thenReturn(page);
+        // the dam query is never started and thereby never finishes
+        Executor executor = task -> {
+            if (!_submitted) {
+                _submitted = true;
+                task.run();
+            }
+        };
+        List<Node> result = Sql2MultiWorkspaceQuery.create().forWorkspaces(STATEMENT, "website", "dam")
+            .withExecutor(executor)
+            .withTimeout(50, TimeUnit.MILLISECONDS)
+            .getResultNodes();
+        assertEquals(List.of(page), result);
+    }
+
+    @Test
+    public void sortPropertyIsReadOncePerNode() throws RepositoryException {
+        Node pageA = mockNode("website", "/a", stubProperty("title", "A"));
+        Node pageB = mockNode("website", "/b", stubProperty("title", "B"));
+        Node assetC = mockNode("dam", "/c", stubProperty("title", "C"));
+        Node assetD = mockNode("dam", "/d", stubProperty("title", "D"));
+        mockQueryResult("website", Query.JCR_SQL2, STATEMENT, pageB, pageA);
+        mockQueryResult("dam", Query.JCR_SQL2, STATEMENT, assetD, assetC);
+        clearInvocations(pageA, pageB, assetC, assetD);
+
+        List<Node> result = Sql2MultiWorkspaceQuery.create().forWorkspaces(STATEMENT, "website", "dam")
+            .orderBy(Sql2MultiWorkspaceQuery.byProperty("title", false))
+            .withLimit(3)
+            .getResultNodes();
+        assertEquals(List.of(pageA, pageB, assetC), result);
+        for (Node node : List.of(pageA, pageB, assetC, assetD)) {
+            verify(node, times(1)).getProperty("title");
+        }
+    }
+}
@@ -20,22 +20,39 @@ package de.ibmix.magkit.query.sql2.query;
  * #L%
  */
 
+import de.ibmix.magkit.query.QueryGuardrails;
+import de.ibmix.magkit.query.sql2.condition.Sql2StringCondition;
+import de.ibmix.magkit.query.sql2.query.jcrwrapper.DetachedNodeList;
+import de.ibmix.magkit.query.sql2.statement.Sql2Statement;
+import org.apache.jackrabbit.value.StringValue;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
 import javax.jcr.Node;
 import javax.jcr.RepositoryException;
 import javax.jcr.query.Query;
+import javax.jcr.query.QueryResult;
+import javax.jcr.query.Row;
+import javax.jcr.query.RowIterator;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static de.ibmix.magkit.test.cms.context.ContextMockUtils.cleanContext;
 import static de.ibmix.magkit.test.cms.context.ContextMockUtils.mockQuery;
 import static de.ibmix.magkit.test.jcr.NodeMockUtils.mockNode;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubIdentifier;
 import static de.ibmix.magkit.test.jcr.query.QueryStubbingOperation.stubResult;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -49,6 +66,11 @@ import static org.mockito.Mockito.when;
  *   <li>Negative limit and offset values are coerced to zero and not applied to underlying {@link Query}.</li>
  *   <li>withStatement(String) overload produces expected statement value.</li>
  *   <li>getResultNodes() returns empty list when underlying query execution throws {@link RepositoryException}.</li>
+ *   <li>Stream and consumer access deliver the result nodes and degrade to empty results on errors.</li>
+ *   <li>Bound literals produce a stable statement and are bound to the query.</li>
+ *   <li>count() and exists() use the result rows without loading nodes.</li>
+ *   <li>Asynchronous execution delivers the result nodes or completes exceptionally on errors.</li>
+ *   <li>Guardrails cap the limit and truncate the result nodes.</li>
  * </ul>
  *
  * @author wolf.bubenik@ibmix.de
@@ -64,7 +86,8 @@ public class Sql2NodesQueryBuilderTest {
     }
 
     /**
-     * Ensures negative limit and offset values are sanitized to zero resulting in no setLimit/setOffset invocation.
+     * Ensures negative limit and offset values are sanitized to zero resulting in the default maximum limit and no
+     * setOffset invocation.
      */
     @Test
     public void negativeLimitAndOffsetAreIgnored() throws RepositoryException {
@@ -75,7 +98,7 @@ public class Sql2NodesQueryBuilderTest {
         builder.withLimit(-5);
         builder.withOffset(-10);
         builder.buildNodesQuery();
-        verify(query, never()).setLimit(anyLong());
+        verify(query).setLimit(QueryGuardrails.DEFAULT_MAX_LIMIT);
         verify(query, never()).setOffset(anyLong());
         assertEquals(SELECT_ALL, builder.buildNodesQuery().getStatement());
     }
@@ -94,4 +117,134 @@ public class Sql2NodesQueryBuilderTest {
         List<?> result = builder.getResultNodes();
         assertTrue(result.isEmpty());
     }
+
+    /**
+     * Verifies getResultNodeStream and forEachResultNode deliver the result nodes in order.
+     */
+    @Test
+    public void streamAndConsumerDeliverResultNodes() throws RepositoryException {
+        Node n1 = mockNode("website", "/node1");
+        Node n2 = mockNode("website", "/node2");
+        mockQuery("website", Query.JCR_SQL2, SELECT_ALL, stubResult(n1, n2));
+        Sql2NodesQueryBuilder builder = new Sql2NodesQueryBuilder();
+        builder.fromWebsite();
+        builder.withStatement(SELECT_ALL);
+        assertEquals(n1, builder.getResultNodeStream().findFirst().orElse(null));
+
+        mockQuery("website", Query.JCR_SQL2, SELECT_ALL, stubResult(n1, n2));
+        List<Node> consumed = new ArrayList<>();
+        builder.forEachResultNode(consumed::add);
+        assertEquals(List.of(n1, n2), consumed);
+    }
+
+    /**
+     * Verifies getResultNodeStream returns an empty stream when query execution fails.
+     */
+    @Test
+    public void getResultNodeStreamIsEmptyOnRepositoryException() throws RepositoryException {
+        Query brokenQuery = mockQuery("website", Query.JCR_SQL2, SELECT_ALL);
+        when(brokenQuery.execute()).thenThrow(new RepositoryException("boom"));
+        Sql2NodesQueryBuilder builder = new Sql2NodesQueryBuilder();
+        builder.fromWebsite();
+        builder.withStatement(SELECT_ALL);
+        assertEquals(0, builder.getResultNodeStream().count());
+    }
+
+    @Test
+    public void boundLiteralsAreBoundToQuery() throws RepositoryException {
+        Node n1 = mockNode("website", "/node1");
+        Query query = mockQuery("website", Query.JCR_SQL2, "SELECT * FROM [mgnl:page] WHERE [title] = $literal1", stubResult(n1));
+        List<Node> result = Sql2QueryBuilder.forNodes().fromWebsite()
+            .withStatement(Sql2Statement.select().from("mgnl:page").whereAll(Sql2StringCondition.property("title").equalsAny().values("News")))
+            .withBoundLiterals()
+            .getResultNodes();
+        assertEquals(List.of(n1), result);
+        verify(query).bindValue(eq("literal1"), eq(new StringValue("News")));
+    }
+
+    @Test
+    public void boundLiteralsRequireStatementBuilder() {
+        NodesQueryBuilder builder = Sql2QueryBuilder.forNodes().fromWebsite().withStatement(SELECT_ALL);
+        assertThrows(IllegalStateException.class, builder::withBoundLiterals);
+    }
+
+    @Test
+    public void countUsesKnownSizeOrScansRows() throws RepositoryException {
+        Query query = mockQuery("website", Query.JCR_SQL2, SELECT_ALL);
+        RowIterator rows = stubRows(query, 3);
+        when(rows.getSize()).thenReturn(5L);
+        NodesQueryBuilder builder = Sql2QueryBuilder.forNodes().fromWebsite().withStatement(SELECT_ALL);
+        assertEquals(5, builder.count());
+
+        rows = stubRows(query, 3);
+        when(rows.getSize()).thenReturn(-1L);
+        assertEquals(3, builder.count());
+        verify(query, never()).setLimit(anyLong());
+    }
+
+    @Test
+    public void existsForcesLimitOne() throws RepositoryException {
+        Query query = mockQuery("website", Query.JCR_SQL2, SELECT_ALL);
+        RowIterator rows = stubRows(query, 1);
+        NodesQueryBuilder builder = Sql2QueryBuilder.forNodes().fromWebsite().withStatement(SELECT_ALL).withLimit(10);
+        assertTrue(builder.exists());
+        verify(query).setLimit(1);
+        verify(rows, never()).nextRow();
+
+        stubRows(query, 0);
+        assertFalse(builder.exists());
+        assertEquals(10, ((Sql2QueryBuilder) builder).getLimit());
+
+        when(query.execute()).thenThrow(new RepositoryException("boom"));
+        assertFalse(builder.exists());
+        assertEquals(0, builder.count());
+    }
+
+    private static RowIterator stubRows(final Query query, final int count) throws RepositoryException {
+        int[] remaining = {count};
+        RowIterator rows = mock(RowIterator.class);
+        when(rows.hasNext()).thenAnswer(invocation -> remaining[0] > 0);
+        when(rows.nextRow()).thenAnswer(invocation -> {
+            remaining[0]--;
+            return mock(Row.class);
+        });
+        QueryResult result = mock(QueryResult.class);
+        when(result.getRows()).thenReturn(rows);
+        when(query.execute()).thenReturn(result);
+        return rows;
+    }
+
+    /**
+     * Verifies asynchronous execution delivers the detached result nodes and propagates repository errors.
+     */
+    @Test
+    public void getResultNodesAsync() throws Exception {
+        Node n1 = mockNode("website", "/node1", stubIdentifier("node1-id"));
+        Query query = mockQuery("website", Query.JCR_SQL2, SELECT_ALL, stubResult(n1));
+        Sql2NodesQueryBuilder builder = new Sql2NodesQueryBuilder();
+        builder.fromWebsite();
+        builder.withStatement(SELECT_ALL);
+        DetachedNodeList nodes = assertInstanceOf(DetachedNodeList.class, builder.getResultNodesAsync(Runnable::run, 1, TimeUnit.SECONDS).get());
+        assertEquals(List.of("node1-id"), nodes.getIdentifiers());
+
+        when(query.execute()).thenThrow(new RepositoryException("boom"));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> builder.getResultNodesAsync(Runnable::run, 0, TimeUnit.SECONDS).get());
+        assertInstanceOf(RepositoryException.class, e.getCause());
+    }
+
+    /**
+     * Verifies guardrails cap the query limit and stop reading result nodes.
+     */
+    @Test
+    public void guardrailsCapLimitAndReads() throws RepositoryException {
+        Node n1 = mockNode("website", "/node1");
+        Node n2 = mockNode("website", "/node2");
+        Query query = mockQuery("website", Query.JCR_SQL2, SELECT_ALL, stubResult(n1, n2));
+        Sql2NodesQueryBuilder builder = new Sql2NodesQueryBuilder();
+        builder.fromWebsite();
+        builder.withStatement(SELECT_ALL);
+        builder.withGuardrails(QueryGuardrails.of(10, 1, 0));
+        assertEquals(List.of(n1), builder.getResultNodes());
+        verify(query).setLimit(10);
+    }
 }
@@ -0,0 +1,136 @@
+package de.ibmix.magkit.query.sql2.query;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.query.QueryGuardrails;
+import de.ibmix.magkit.query.sql2.statement.Sql2Statement;
+import info.magnolia.context.MgnlContext;
+import org.apache.jackrabbit.value.StringValue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.Value;
+import javax.jcr.query.Query;
+import java.util.List;
+import java.util.Map;
+
+import static de.ibmix.magkit.query.sql2.condition.Sql2StringCondition.property;
+import static de.ibmix.magkit.test.cms.context.ContextMockUtils.cleanContext;
+import static de.ibmix.magkit.test.cms.context.ContextMockUtils.mockQuery;
+import static de.ibmix.magkit.test.cms.node.MagnoliaNodeMockUtils.mockPageNode;
+import static de.ibmix.magkit.test.jcr.query.QueryStubbingOperation.stubResult;
+import static info.magnolia.repository.RepositoryConstants.WEBSITE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link Sql2PreparedQuery} covering statement reuse, rebinding and the parse counters.
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public class Sql2PreparedQueryTest {
+
+    private static final String STATEMENT = "SELECT * FROM [mgnl:page] WHERE [title] = $title";
+
+    private Query _query;
+    private Node _page;
+
+    @BeforeEach
+    public void setUp() throws RepositoryException {
+        _page = mockPageNode("/news");
+        _query = mockQuery(WEBSITE, Query.JCR_SQL2, STATEMENT, stubResult(_page));
+        when(_query.getBindVariableNames()).thenReturn(new String[]{"title"});
+        when(MgnlContext.getJCRSession(WEBSITE).isLive()).thenReturn(true);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        cleanContext();
+    }
+
+    @Test
+    public void statementIsParsedOncePerSession() throws RepositoryException {
+        Sql2PreparedQuery prepared = newsQuery();
+        assertEquals(STATEMENT, prepared.getStatement());
+        assertEquals(WEBSITE, prepared.getWorkspace());
+        assertTrue(prepared.getBuildNanos() >= 0);
+
+        Value news = new StringValue("News");
+        Value events = new StringValue("Events");
+        assertEquals(List.of(_page), prepared.getResultNodes(Map.of("title", news), 0, 0));
+        prepared.getResultNodes(Map.of("title", events), 5, 10);
+
+        Session session = MgnlContext.getJCRSession(WEBSITE);
+        verify(session.getWorkspace().getQueryManager(), times(1)).createQuery(STATEMENT, Query.JCR_SQL2);
+        verify(_query).bindValue("title", news);
+        verify(_query).bindValue("title", events);
+        verify(_query).setLimit(QueryGuardrails.DEFAULT_MAX_LIMIT);
+        verify(_query).setOffset(0);
+        verify(_query).setLimit(5);
+        verify(_query).setOffset(10);
+        verify(_query, times(2)).execute();
+        assertEquals(2, prepared.getExecutionCount());
+        assertEquals(1, prepared.getParseCount());
+        assertTrue(prepared.getParseNanos() >= 0);
+    }
+
+    @Test
+    public void queryOfClosedSessionIsReleased() throws RepositoryException {
+        Sql2PreparedQuery prepared = newsQuery();
+        Map<String, Value> bindValues = Map.of("title", new StringValue("News"));
+        prepared.getResultNodes(bindValues, 0, 0);
+
+        Session session = MgnlContext.getJCRSession(WEBSITE);
+        when(session.isLive()).thenReturn(false);
+        prepared.getResultNodes(bindValues, 0, 0);
+        verify(session.getWorkspace().getQueryManager(), times(2)).createQuery(STATEMENT, Query.JCR_SQL2);
+        assertEquals(2, prepared.getParseCount());
+    }
+
+    @Test
+    public void missingBindValueIsRejected() {
+        Sql2PreparedQuery prepared = newsQuery();
+        assertThrows(IllegalArgumentException.class, () -> prepared.executeForNodes(null, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> prepared.executeForRows(Map.of("other", new StringValue("x")), 0, 0));
+    }
+
+    @Test
+    public void repositoryErrorReturnsEmptyList() throws RepositoryException {
+        when(_query.execute()).thenThrow(new RepositoryException("test"));
+        Sql2PreparedQuery prepared = newsQuery();
+        Map<String, Value> bindValues = Map.of("title", new StringValue("News"));
+        assertTrue(prepared.getResultNodes(bindValues, 0, 0).isEmpty());
+        assertTrue(prepared.getResultRows(bindValues, 0, 0).isEmpty());
+    }
+
+    private Sql2PreparedQuery newsQuery() {
+        return Sql2PreparedQuery.prepareForWebsite(Sql2Statement.select().from("mgnl:page").whereAll(property("title").equalsAny().bindVariable("title")));
+    }
+}
@@ -0,0 +1,154 @@
+package de.ibmix.magkit.query.sql2.query;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.query.sql2.condition.Sql2StringCondition;
+import de.ibmix.magkit.query.sql2.statement.Sql2Statement;
+import org.apache.jackrabbit.value.StringValue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.Workspace;
+import javax.jcr.query.InvalidQueryException;
+import javax.jcr.query.Query;
+import javax.jcr.query.QueryManager;
+import javax.jcr.query.QueryResult;
+import javax.jcr.query.Row;
+import javax.jcr.query.RowIterator;
+import java.util.List;
+
+import static de.ibmix.magkit.test.cms.context.ContextMockUtils.cleanContext;
+import static de.ibmix.magkit.test.cms.context.ContextMockUtils.mockQuery;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link Sql2QueryPlan}, {@link QueryPlanAssertions} and the explain support of the query builders.
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public class Sql2QueryPlanTest {
+
+    private static final String STATEMENT = "SELECT * FROM [mgnl:page] WHERE [mgnl:template] = 'news'";
+    private static final String INDEXED_PLAN = "[mgnl:page] as [a] /* property mgnl:template = news */";
+    private static final String TRAVERSAL_PLAN = "[mgnl:page] as [a] /* traverse \"*\" where [a].[mgnl:template] = 'news' */";
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        Sql2QueryPlan.resetTraversalChecks();
+        cleanContext();
+    }
+
+    @Test
+    public void parsesIndexesOfAllSelectors() throws RepositoryException {
+        Session session = mockSession(mockExplain("[mgnl:page] as [p] /* lucene:pages(/oak:index/pages) +:ancestors:/news */ "
+            + "inner join [mgnl:component] as [c] /* traverse \"/news//*\" */ on isdescendantnode([c], [p])"));
+        Sql2QueryPlan plan = Sql2QueryPlan.explain(session, STATEMENT, null);
+        assertTrue(plan.isSupported());
+        assertEquals(STATEMENT, plan.getStatement());
+        assertEquals(List.of("lucene:pages", "traverse"), plan.getIndexes());
+        assertTrue(plan.isTraversal());
+    }
+
+    @Test
+    public void unsupportedExplain() throws RepositoryException {
+        QueryManager queryManager = mock(QueryManager.class);
+        when(queryManager.createQuery(anyString(), anyString())).thenThrow(new InvalidQueryException("explain"));
+        Sql2QueryPlan plan = Sql2QueryPlan.explain(mockSession(queryManager), STATEMENT, null);
+        assertFalse(plan.isSupported());
+        assertNull(plan.getPlan());
+        assertTrue(plan.getIndexes().isEmpty());
+        assertFalse(plan.isTraversal());
+        assertThrows(AssertionError.class, () -> QueryPlanAssertions.assertIndexBacked(mockSession(queryManager), STATEMENT));
+    }
+
+    @Test
+    public void assertions() throws RepositoryException {
+        Session indexed = mockSession(mockExplain(INDEXED_PLAN));
+        assertEquals(List.of("property"), QueryPlanAssertions.assertIndexBacked(indexed, STATEMENT).getIndexes());
+        QueryPlanAssertions.assertUsesIndex(indexed, STATEMENT, "property");
+        assertThrows(AssertionError.class, () -> QueryPlanAssertions.assertUsesIndex(indexed, STATEMENT, "lucene:pages"));
+        Session traversing = mockSession(mockExplain(TRAVERSAL_PLAN));
+        assertThrows(AssertionError.class, () -> QueryPlanAssertions.assertIndexBacked(traversing, STATEMENT));
+    }
+
+    @Test
+    public void builderExplainsBuiltStatement() throws RepositoryException {
+        Query explain = mockQuery("website", Query.JCR_SQL2, "explain SELECT * FROM [mgnl:page] WHERE [title] = $title");
+        stubPlan(explain, TRAVERSAL_PLAN);
+        StringValue title = new StringValue("News");
+        Sql2QueryPlan plan = Sql2QueryBuilder.forNodes().fromWebsite()
+            .withStatement(Sql2Statement.select().from("mgnl:page").whereAll(Sql2StringCondition.property("title").equalsAny().bindVariable("title")))
+            .withBindValue("title", title)
+            .explain();
+        assertTrue(plan.isTraversal());
+        verify(explain).bindValue("title", title);
+    }
+
+    @Test
+    public void traversalCheckExplainsStatementOnce() throws RepositoryException {
+        Query explain = mockQuery("website", Query.JCR_SQL2, "explain SELECT * FROM [mgnl:page]");
+        stubPlan(explain, TRAVERSAL_PLAN);
+        mockQuery("website", Query.JCR_SQL2, "SELECT * FROM [mgnl:page]");
+        NodesQueryBuilder builder = Sql2QueryBuilder.forNodes().fromWebsite().withStatement("SELECT * FROM [mgnl:page]").withTraversalCheck();
+        builder.getResultNodes();
+        builder.getResultNodes();
+        verify(explain, times(1)).execute();
+    }
+
+    private static QueryManager mockExplain(final String plan) throws RepositoryException {
+        Query query = mock(Query.class);
+        stubPlan(query, plan);
+        QueryManager queryManager = mock(QueryManager.class);
+        when(queryManager.createQuery(anyString(), anyString())).thenReturn(query);
+        return queryManager;
+    }
+
+    private static void stubPlan(final Query query, final String plan) throws RepositoryException {
+        Row row = mock(Row.class);
+        when(row.getValue(Sql2QueryPlan.PLAN_COLUMN)).thenReturn(new StringValue(plan));
+        RowIterator rows = mock(RowIterator.class);
+        when(rows.hasNext()).thenReturn(true, false);
+        when(rows.nextRow()).thenReturn(row);
+        QueryResult result = mock(QueryResult.class);
+        when(result.getRows()).thenReturn(rows);
+        when(query.execute()).thenReturn(result);
+    }
+
+    private static Session mockSession(final QueryManager queryManager) throws RepositoryException {
+        Workspace workspace = mock(Workspace.class);
+        when(workspace.getQueryManager()).thenReturn(queryManager);
+        Session session = mock(Session.class);
+        when(session.getWorkspace()).thenReturn(workspace);
+        return session;
+    }
+}
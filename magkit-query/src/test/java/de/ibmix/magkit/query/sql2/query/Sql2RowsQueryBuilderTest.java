@@ -20,6 +20,7 @@ package de.ibmix.magkit.query.sql2.query;
  * #L%
  */
 
+import de.ibmix.magkit.query.QueryGuardrails;
 import de.ibmix.magkit.query.sql2.query.jcrwrapper.RowsQuery;
 import de.ibmix.magkit.query.sql2.statement.Sql2Builder;
 import de.ibmix.magkit.test.jcr.query.QueryMockUtils;
@@ -79,7 +80,7 @@ public class Sql2RowsQueryBuilderTest {
                 .withStatement("test-statement")
                 .buildRowsQuery());
         verify(_query, times(0)).setOffset(anyLong());
-        verify(_query, times(0)).setLimit(anyLong());
+        verify(_query, times(1)).setLimit(QueryGuardrails.DEFAULT_MAX_LIMIT);
     }
 
     @Test
@@ -110,7 +111,7 @@ public class Sql2RowsQueryBuilderTest {
                 .withLimit(-5)
                 .withOffset(-10)
                 .buildRowsQuery();
-        verify(_query, times(0)).setLimit(anyLong());
+        verify(_query, times(1)).setLimit(QueryGuardrails.DEFAULT_MAX_LIMIT);
         verify(_query, times(0)).setOffset(anyLong());
     }
 
@@ -124,7 +125,7 @@ public class Sql2RowsQueryBuilderTest {
                 .withLimit(0)
                 .withOffset(0)
                 .buildRowsQuery();
-        verify(_query, times(0)).setLimit(anyLong());
+        verify(_query, times(1)).setLimit(QueryGuardrails.DEFAULT_MAX_LIMIT);
         verify(_query, times(0)).setOffset(anyLong());
     }
 
@@ -141,7 +142,7 @@ public class Sql2RowsQueryBuilderTest {
                 .withOffset(7)
                 .getResultRows();
         verify(_query, times(1)).setOffset(7);
-        verify(_query, times(0)).setLimit(anyLong());
+        verify(_query, times(1)).setLimit(QueryGuardrails.DEFAULT_MAX_LIMIT);
     }
 
     @Test
@@ -215,7 +216,7 @@ public class Sql2RowsQueryBuilderTest {
                 .fromWebsite()
                 .withStatement(_statement)
                 .buildRowsQuery());
-        verify(_query, times(0)).setLimit(anyLong());
+        verify(_query, times(1)).setLimit(QueryGuardrails.DEFAULT_MAX_LIMIT);
         verify(_query, times(0)).setOffset(anyLong());
     }
 }
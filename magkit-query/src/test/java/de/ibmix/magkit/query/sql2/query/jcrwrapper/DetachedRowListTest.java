@@ -0,0 +1,103 @@
+package de.ibmix.magkit.query.sql2.query.jcrwrapper;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.jackrabbit.value.StringValue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.jcr.ItemNotFoundException;
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.Value;
+import javax.jcr.query.Row;
+import java.util.List;
+
+import static de.ibmix.magkit.test.cms.context.ContextMockUtils.cleanContext;
+import static de.ibmix.magkit.test.jcr.SessionMockUtils.mockSession;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link DetachedRowList} and {@link DetachedRow}.
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public class DetachedRowListTest {
+
+    private static final String[] COLUMNS = {"s.title"};
+    private static final String[] SELECTORS = {"s"};
+
+    private Session _session;
+    private Node _readable;
+
+    @BeforeEach
+    public void setUp() throws RepositoryException {
+        _session = mockSession("website");
+        _readable = mock(Node.class);
+        when(_session.getNodeByIdentifier("readable-id")).thenReturn(_readable);
+        when(_session.getNodeByIdentifier("hidden-id")).thenThrow(new ItemNotFoundException());
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        cleanContext();
+    }
+
+    @Test
+    public void detachedRowKeepsValuesAndIdentifiers() throws RepositoryException {
+        DetachedRow row = detach("readable-id", "Readable");
+        assertEquals("Readable", row.getValue("s.title").getString());
+        assertEquals("readable-id", row.getIdentifier("s"));
+        assertEquals(0.5, row.getScore());
+        assertSame(_readable, row.getNode());
+        assertSame(row, DetachedRow.of("website", COLUMNS, SELECTORS, row));
+    }
+
+    @Test
+    public void rowsOfUnreadableNodesAreRemoved() throws RepositoryException {
+        DetachedRow readable = detach("readable-id", "Readable");
+        DetachedRow hidden = detach("hidden-id", "Hidden");
+        DetachedRow outerJoin = detach(null, "Outer");
+        List<Row> rows = new DetachedRowList("website", List.of(readable, hidden, outerJoin));
+        assertEquals(List.of(readable, outerJoin), rows);
+        assertNull(hidden.getNode("s"));
+    }
+
+    private static DetachedRow detach(final String identifier, final String title) throws RepositoryException {
+        Row row = mock(Row.class);
+        when(row.getValues()).thenReturn(new Value[]{new StringValue(title)});
+        Node node = null;
+        if (identifier != null) {
+            node = mock(Node.class);
+            when(node.getIdentifier()).thenReturn(identifier);
+        }
+        when(row.getNode("s")).thenReturn(node);
+        when(row.getScore("s")).thenReturn(0.5);
+        return DetachedRow.of("website", COLUMNS, SELECTORS, row);
+    }
+}
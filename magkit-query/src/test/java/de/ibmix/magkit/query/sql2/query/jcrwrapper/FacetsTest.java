@@ -0,0 +1,136 @@
+package de.ibmix.magkit.query.sql2.query.jcrwrapper;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.jackrabbit.value.StringValue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Value;
+import javax.jcr.query.QueryResult;
+import javax.jcr.query.Row;
+import javax.jcr.query.RowIterator;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static de.ibmix.magkit.test.cms.context.ContextMockUtils.cleanContext;
+import static de.ibmix.magkit.test.jcr.NodeMockUtils.mockNode;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubProperty;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link Facets} and {@link RowsResult#getFacets(String...)}.
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public class FacetsTest {
+
+    @AfterEach
+    public void tearDown() {
+        cleanContext();
+    }
+
+    @Test
+    public void column() {
+        assertEquals("rep:facet(tags)", Facets.column("tags"));
+    }
+
+    @Test
+    public void countSelectedColumnsAndNodeProperties() throws RepositoryException {
+        Row first = row(mockNode("/a", stubProperty("tags", "red", "blue")), "news");
+        Row second = row(mockNode("/b", stubProperty("tags", "red")), "article");
+        Row third = row(mockNode("/c"), "news");
+        QueryResult result = mockResult(new String[]{"p.mgnl:template"}, new String[]{"p"}, first, second, third);
+
+        Map<String, Map<String, Long>> facets = new RowsResult(result).getFacets("mgnl:template", "tags", " ");
+        assertEquals(List.of("mgnl:template", "tags"), List.copyOf(facets.keySet()));
+        assertEquals(Map.of("news", 2L, "article", 1L), facets.get("mgnl:template"));
+        assertEquals(List.of("news", "article"), List.copyOf(facets.get("mgnl:template").keySet()));
+        assertEquals(Map.of("red", 2L, "blue", 1L), facets.get("tags"));
+    }
+
+    @Test
+    public void readNativeFacetsFromFirstRow() throws RepositoryException {
+        Row first = mock(Row.class);
+        doReturn(new Value[]{new StringValue("{\"red\": 3, \"b\\\"lue\": 1, \"green\": 3}")}).when(first).getValues();
+        Row second = mock(Row.class);
+        QueryResult result = mockResult(new String[]{"rep:facet(tags)"}, new String[]{"p"}, first, second);
+
+        Map<String, Long> tags = new RowsResult(result).getFacets("tags").get("tags");
+        assertEquals(List.of("green", "red", "b\"lue"), List.copyOf(tags.keySet()));
+        assertEquals(3L, tags.get("red"));
+        verify(second, never()).getValues();
+    }
+
+    @Test
+    public void countRowsWithoutNativeFacetValue() throws RepositoryException {
+        Row first = mock(Row.class);
+        doReturn(new Value[]{null, new StringValue("red")}).when(first).getValues();
+        Row second = mock(Row.class);
+        doReturn(new Value[]{null, new StringValue("red")}).when(second).getValues();
+        QueryResult result = mockResult(new String[]{"rep:facet(tags)", "tags"}, new String[]{"p"}, first, second);
+
+        assertEquals(Map.of("red", 2L), new RowsResult(result).getFacets("tags").get("tags"));
+    }
+
+    @Test
+    public void parseNative() {
+        Map<String, Facets.Counter> counts = new HashMap<>();
+        Facets.parseNative(" { } ", counts);
+        assertTrue(counts.isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> Facets.parseNative("{\"red\":}", counts));
+        assertThrows(IllegalArgumentException.class, () -> Facets.parseNative("[\"red\"]", counts));
+        assertThrows(IllegalArgumentException.class, () -> Facets.parseNative("{\"red\":1", counts));
+    }
+
+    private static Row row(final Node node, final String template) throws RepositoryException {
+        Row row = mock(Row.class);
+        doReturn(new Value[]{new StringValue(template)}).when(row).getValues();
+        doReturn(node).when(row).getNode();
+        return row;
+    }
+
+    private static QueryResult mockResult(final String[] columnNames, final String[] selectorNames, final Row... rows) throws RepositoryException {
+        RowIterator iterator = mock(RowIterator.class);
+        Boolean[] hasNext = new Boolean[rows.length];
+        Arrays.fill(hasNext, Boolean.TRUE);
+        hasNext[rows.length - 1] = Boolean.FALSE;
+        when(iterator.hasNext()).thenReturn(Boolean.TRUE, hasNext);
+        when(iterator.next()).thenReturn(rows[0], (Object[]) Arrays.copyOfRange(rows, 1, rows.length));
+        QueryResult result = mock(QueryResult.class);
+        doReturn(columnNames).when(result).getColumnNames();
+        doReturn(selectorNames).when(result).getSelectorNames();
+        doReturn(iterator).when(result).getRows();
+        return result;
+    }
+}
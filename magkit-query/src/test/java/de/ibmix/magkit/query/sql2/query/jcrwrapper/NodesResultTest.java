@@ -28,7 +28,10 @@ import javax.jcr.RepositoryException;
 import javax.jcr.NodeIterator;
 import javax.jcr.query.Query;
 import javax.jcr.query.QueryResult;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static de.ibmix.magkit.test.jcr.NodeMockUtils.mockNode;
 import static de.ibmix.magkit.test.jcr.query.QueryMockUtils.mockQueryResult;
@@ -47,6 +50,7 @@ import static org.mockito.Mockito.mock;
  *   <li>Verify getNodes returns empty iterator on {@link RepositoryException}.</li>
  *   <li>Verify getNodeList collects all nodes preserving order.</li>
  *   <li>Verify getNodeList returns empty list when no nodes are present.</li>
+ *   <li>Verify stream, iterable and consumer access deliver nodes lazily in order.</li>
  * </ul>
  * @author wolf.bubenik@ibmix.de
  * @since 2025-10-29
@@ -113,4 +117,52 @@ class NodesResultTest {
         assertEquals(0, collected.size());
         verify(result).getNodes();
     }
+
+    /**
+     * Verifies getNodeStream delivers all nodes in order and supports short-circuiting.
+     */
+    @Test
+    @DisplayName("getNodeStream streams nodes lazily")
+    void testGetNodeStream() throws RepositoryException {
+        Node node1 = mockNode("query", "/root/a");
+        Node node2 = mockNode("query", "/root/b");
+        QueryResult result = mockQueryResult("test", Query.JCR_SQL2, "SELECT * FROM [nt:base]", node1, node2);
+        try (Stream<Node> nodes = new NodesResult(result).getNodeStream()) {
+            assertEquals(node1, nodes.findFirst().orElse(null));
+        }
+        result = mockQueryResult("test", Query.JCR_SQL2, "SELECT * FROM [nt:base]", node1, node2);
+        assertEquals(List.of(node1, node2), new NodesResult(result).getNodeStream().collect(Collectors.toList()));
+    }
+
+    /**
+     * Verifies getNodeStream returns an empty stream on RepositoryException.
+     */
+    @Test
+    @DisplayName("getNodeStream returns empty stream on RepositoryException")
+    void testGetNodeStreamException() throws RepositoryException {
+        QueryResult result = mock(QueryResult.class);
+        doThrow(new RepositoryException("failure")).when(result).getNodes();
+        assertEquals(0, new NodesResult(result).getNodeStream().count());
+    }
+
+    /**
+     * Verifies getNodeIterable and forEachNode deliver all nodes preserving order.
+     */
+    @Test
+    @DisplayName("getNodeIterable and forEachNode deliver nodes in order")
+    void testGetNodeIterableAndForEach() throws RepositoryException {
+        Node node1 = mockNode("query", "/root/a");
+        Node node2 = mockNode("query", "/root/b");
+        QueryResult result = mockQueryResult("test", Query.JCR_SQL2, "SELECT * FROM [nt:base]", node1, node2);
+        List<Node> iterated = new ArrayList<>();
+        for (Node node : new NodesResult(result).getNodeIterable()) {
+            iterated.add(node);
+        }
+        assertEquals(List.of(node1, node2), iterated);
+
+        result = mockQueryResult("test", Query.JCR_SQL2, "SELECT * FROM [nt:base]", node1, node2);
+        List<Node> consumed = new ArrayList<>();
+        new NodesResult(result).forEachNode(consumed::add);
+        assertEquals(List.of(node1, node2), consumed);
+    }
 }
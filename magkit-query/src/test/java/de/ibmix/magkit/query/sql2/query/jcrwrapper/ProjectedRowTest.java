@@ -0,0 +1,78 @@
+package de.ibmix.magkit.query.sql2.query.jcrwrapper;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.jackrabbit.value.DateValue;
+import org.apache.jackrabbit.value.LongValue;
+import org.apache.jackrabbit.value.StringValue;
+import org.junit.jupiter.api.Test;
+
+import javax.jcr.Value;
+import java.util.Calendar;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link ProjectedRow}.
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public class ProjectedRowTest {
+
+    @Test
+    public void indexColumns() {
+        Map<String, Integer> index = ProjectedRow.indexColumns(new String[]{"p.title", "c.title", "p.date", "name"});
+        assertEquals(0, index.get("p.title"));
+        assertEquals(1, index.get("c.title"));
+        assertEquals(2, index.get("date"));
+        assertEquals(3, index.get("name"));
+        // ambiguous property names are only available qualified
+        assertFalse(index.containsKey("title"));
+    }
+
+    @Test
+    public void typedAccess() {
+        Calendar date = Calendar.getInstance();
+        Map<String, Integer> index = ProjectedRow.indexColumns(new String[]{"title", "count", "date", "missing"});
+        ProjectedRow row = new ProjectedRow(index, new Value[]{new StringValue("News"), new LongValue(3), new DateValue(date), null}, "/news");
+
+        assertEquals(4, row.size());
+        assertEquals("/news", row.getPath());
+        assertEquals("News", row.getString("title"));
+        assertEquals(3L, row.getLong("count"));
+        assertEquals(3.0, row.getDouble("count"));
+        assertEquals("3", row.getString("count"));
+        assertEquals(date.getTimeInMillis(), row.getDate("date").getTimeInMillis());
+        assertTrue(row.getValue(0) instanceof StringValue);
+
+        assertNull(row.getString("missing"));
+        assertNull(row.getString("unknown"));
+        assertNull(row.getValue(7));
+        // not convertible
+        assertNull(row.getLong("title"));
+        assertNull(row.getDate("title"));
+    }
+}
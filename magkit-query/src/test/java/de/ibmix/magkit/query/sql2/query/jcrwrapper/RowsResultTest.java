@@ -20,15 +20,21 @@ package de.ibmix.magkit.query.sql2.query.jcrwrapper;
  * #L%
  */
 
+import org.apache.jackrabbit.value.LongValue;
+import org.apache.jackrabbit.value.StringValue;
 import org.junit.jupiter.api.Test;
 
 import javax.jcr.Node;
 import javax.jcr.RepositoryException;
+import javax.jcr.Value;
 import javax.jcr.query.Query;
 import javax.jcr.query.QueryResult;
 import javax.jcr.query.Row;
+import javax.jcr.query.RowIterator;
 import java.util.Iterator;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static de.ibmix.magkit.test.jcr.NodeMockUtils.mockNode;
 import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubNode;
@@ -36,9 +42,12 @@ import static de.ibmix.magkit.test.jcr.query.QueryMockUtils.mockQueryResult;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 /**
  * Unit tests for {@link RowsResult} covering all branches and error handling scenarios.
@@ -204,4 +213,118 @@ public class RowsResultTest {
         assertNotNull(rows);
         assertTrue(rows.isEmpty());
     }
+
+    /**
+     * Verifies getRowStream, getRowIterable and forEachRow deliver all rows.
+     */
+    @Test
+    public void shouldStreamAllRows() throws RepositoryException {
+        Node n1 = mockNode("testRepository", "/node1");
+        Node n2 = mockNode("testRepository", "/node2");
+        QueryResult result = mockQueryResult("testRepository", Query.JCR_SQL2, "SELECT * FROM [nt:base]", n1, n2);
+        assertEquals(2, new RowsResult(result).getRowStream().count());
+
+        result = mockQueryResult("testRepository", Query.JCR_SQL2, "SELECT * FROM [nt:base]", n1, n2);
+        int count = 0;
+        for (Row row : new RowsResult(result).getRowIterable()) {
+            assertNotNull(row);
+            count++;
+        }
+        assertEquals(2, count);
+
+        result = mockQueryResult("testRepository", Query.JCR_SQL2, "SELECT * FROM [nt:base]", n1, n2);
+        List<Row> consumed = new ArrayList<>();
+        new RowsResult(result).forEachRow(consumed::add);
+        assertEquals(2, consumed.size());
+    }
+
+    /**
+     * Verifies getRowNodeStreamFor skips rows without node for the selector and returns an empty stream for blank selectors.
+     */
+    @Test
+    public void shouldStreamSelectorNodes() throws RepositoryException {
+        Node n1 = mockNode("testRepository", "/node1", stubNode("leftSelector"), stubNode("rightSelector"));
+        Node n2 = mockNode("testRepository", "/node2", stubNode("leftSelector"));
+        Node n3 = mockNode("testRepository", "/node3", stubNode("rightSelector"));
+        doThrow(new RepositoryException("failure")).when(n1).getNode("leftSelector");
+        QueryResult result = mockQueryResult("testRepository", Query.JCR_SQL2, "SELECT * FROM [nt:base]", n1, n2, n3);
+        List<Node> nodes = new RowsResult(result).getRowNodeStreamFor("leftSelector").collect(Collectors.toList());
+        assertEquals(1, nodes.size());
+        assertEquals("/node2/leftSelector", nodes.get(0).getPath());
+        assertEquals(0, new RowsResult(result).getRowNodeStreamFor(" ").count());
+    }
+
+    /**
+     * Verifies that projections read the row values by column and skip rows failing to map.
+     */
+    @Test
+    public void getProjection() throws RepositoryException {
+        Row first = mock(Row.class);
+        doReturn(new Value[]{new StringValue("First"), new LongValue(1)}).when(first).getValues();
+        doReturn("/first").when(first).getPath();
+        Row second = mock(Row.class);
+        doReturn(new Value[]{new StringValue("Second"), new LongValue(2)}).when(second).getValues();
+        doReturn("/second").when(second).getPath();
+        Row broken = mock(Row.class);
+        doThrow(new RepositoryException("failure")).when(broken).getValues();
+        RowIterator rows = mock(RowIterator.class);
+        when(rows.hasNext()).thenReturn(true, true, true, false);
+        when(rows.nextRow()).thenReturn(first, broken, second);
+        QueryResult result = mock(QueryResult.class);
+        doReturn(new String[]{"title", "rank"}).when(result).getColumnNames();
+        doReturn(new String[]{"p"}).when(result).getSelectorNames();
+        doReturn(rows).when(result).getRows();
+
+        List<String> projection = new RowsResult(result).getProjection(row -> row.getPath() + ':' + row.getString("title") + ':' + row.getLong("rank"));
+        assertEquals(List.of("/first:First:1", "/second:Second:2"), projection);
+    }
+
+    /**
+     * Verifies that join rows are paired and grouped by the left node in a single pass over the rows.
+     */
+    @Test
+    public void pairsAndGroupsJoinRows() throws RepositoryException {
+        Node page1 = mockNode("website", "/page1");
+        Node page2 = mockNode("website", "/page2");
+        Node component1 = mockNode("website", "/page1/main/c1");
+        Node component2 = mockNode("website", "/page1/main/c2");
+        Row[] joinRows = {joinRow(page1, component1), joinRow(page1, component2), joinRow(page2, null), joinRow(null, component1)};
+
+        List<NodePair> pairs = new RowsResult(mockJoinResult(joinRows)).getRowNodePairs();
+        assertEquals(3, pairs.size());
+        assertEquals(page1, pairs.get(1).getLeft());
+        assertEquals(component2, pairs.get(1).getRight());
+        assertNull(pairs.get(2).getRight());
+
+        List<NodeGroup> groups = new RowsResult(mockJoinResult(joinRows)).getRowNodeGroups();
+        assertEquals(2, groups.size());
+        assertEquals(List.of(component1, component2), groups.get(0).getRights());
+        assertTrue(groups.get(1).getRights().isEmpty());
+
+        QueryResult unordered = mockJoinResult(joinRow(page1, component1), joinRow(page2, null), joinRow(page1, component2));
+        assertEquals(2, new RowsResult(unordered).getRowNodeGroups().size());
+        unordered = mockJoinResult(joinRow(page1, component1), joinRow(page2, null), joinRow(page1, component2));
+        List<NodeGroup> streamed = new RowsResult(unordered).getRowNodeGroupStream().collect(Collectors.toList());
+        // the stream only groups consecutive rows
+        assertEquals(3, streamed.size());
+        assertEquals(List.of(component2), streamed.get(2).getRights());
+    }
+
+    private static Row joinRow(final Node left, final Node right) throws RepositoryException {
+        Row row = mock(Row.class);
+        doReturn(left).when(row).getNode("p");
+        doReturn(right).when(row).getNode("c");
+        return row;
+    }
+
+    private static QueryResult mockJoinResult(final Row... rows) throws RepositoryException {
+        RowIterator iterator = mock(RowIterator.class);
+        int[] position = {0};
+        when(iterator.hasNext()).thenAnswer(invocation -> position[0] < rows.length);
+        when(iterator.nextRow()).thenAnswer(invocation -> rows[position[0]++]);
+        QueryResult result = mock(QueryResult.class);
+        doReturn(new String[]{"p", "c"}).when(result).getSelectorNames();
+        doReturn(iterator).when(result).getRows();
+        return result;
+    }
 }
@@ -0,0 +1,159 @@
+package de.ibmix.magkit.query.sql2.statement;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.query.sql2.condition.Sql2LongCondition;
+import de.ibmix.magkit.query.sql2.condition.Sql2PathCondition;
+import de.ibmix.magkit.query.sql2.condition.Sql2PathJoinCondition;
+import de.ibmix.magkit.query.sql2.condition.Sql2StringCondition;
+import org.apache.jackrabbit.value.StringValue;
+import org.junit.jupiter.api.Test;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Value;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for {@link Sql2ImmutableStatement}.
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public class Sql2ImmutableStatementTest {
+
+    private static Sql2Statement newsStatement() {
+        return (Sql2Statement) Sql2Statement.select().as("s")
+            .whereAll(
+                Sql2PathCondition.is().descendant("/news"),
+                Sql2StringCondition.property("title").equalsAny().values("it's"),
+                Sql2LongCondition.property("count").greaterThan().value(5L)
+            ).orderBy("title").descending();
+    }
+
+    @Test
+    public void buildEqualsMutableStatement() {
+        Sql2Statement statement = newsStatement();
+        Sql2ImmutableStatement immutable = Sql2ImmutableStatement.of(statement);
+        assertEquals(statement.build(), immutable.build());
+        assertSame(immutable.build(), immutable.build());
+        assertEquals(immutable.build(), immutable.toString());
+        assertSame(immutable, Sql2ImmutableStatement.of(immutable));
+    }
+
+    @Test
+    public void buildWithJoinEqualsMutableStatement() {
+        Sql2Statement statement = (Sql2Statement) Sql2Statement.select().from("mgnl:page").as("p")
+            .innerJoin("mgnl:component").joinAs("c").on(Sql2PathJoinCondition.isJoinedDescendantOfSelected())
+            .whereAll(
+                Sql2StringCondition.property("title").equalsAny().values("Hello"),
+                Sql2StringCondition.template().equalsAll().values("joined.template.id").forJoin()
+            )
+            .orderBy("title");
+        assertEquals(statement.build(), Sql2ImmutableStatement.of(statement).build());
+    }
+
+    @Test
+    public void laterBuilderChangesAreIgnored() {
+        Sql2Statement statement = newsStatement();
+        Sql2ImmutableStatement immutable = Sql2ImmutableStatement.of(statement);
+        String sql2 = immutable.build();
+        statement.orderBy("other");
+        assertEquals(sql2, immutable.build());
+    }
+
+    @Test
+    public void buildWithBoundLiterals() throws RepositoryException {
+        Sql2Statement statement = newsStatement();
+        Sql2ImmutableStatement immutable = Sql2ImmutableStatement.of(statement);
+        Map<String, Value> expectedValues = new LinkedHashMap<>();
+        Map<String, Value> bindValues = new LinkedHashMap<>();
+        assertEquals(statement.build(expectedValues), immutable.build(bindValues));
+        assertEquals("SELECT * FROM [nt:base] AS s WHERE (isdescendantnode(s, '/news') AND s.[title] = $literal1 AND s.[count] > $literal2) ORDER BY [title] DESC",
+            immutable.build(new LinkedHashMap<>()));
+        assertEquals(2, bindValues.size());
+        assertEquals("it's", bindValues.get("literal1").getString());
+        assertEquals(5L, bindValues.get("literal2").getLong());
+
+        Map<String, Value> taken = new LinkedHashMap<>();
+        taken.put("literal1", new StringValue("taken"));
+        assertEquals("SELECT * FROM [nt:base] AS s WHERE (isdescendantnode(s, '/news') AND s.[title] = $literal2 AND s.[count] > $literal3) ORDER BY [title] DESC",
+            immutable.build(taken));
+        assertEquals("taken", taken.get("literal1").getString());
+        assertEquals("it's", taken.get("literal2").getString());
+    }
+
+    @Test
+    public void buildWithAdditionalConstraintAndOrdering() {
+        Sql2Statement statement = newsStatement();
+        Sql2ImmutableStatement immutable = Sql2ImmutableStatement.of(statement);
+        String[] order = {"date"};
+        assertEquals(statement.build(Sql2StringCondition.property("title").greaterThan().value("B"), order, false, null),
+            immutable.build(Sql2StringCondition.property("title").greaterThan().value("B"), order, false, null));
+        Map<String, Value> expectedValues = new LinkedHashMap<>();
+        Map<String, Value> bindValues = new LinkedHashMap<>();
+        assertEquals(statement.build(Sql2StringCondition.property("title").greaterThan().value("B"), order, false, expectedValues),
+            immutable.build(Sql2StringCondition.property("title").greaterThan().value("B"), order, false, bindValues));
+        assertEquals(expectedValues.keySet(), bindValues.keySet());
+    }
+
+    @Test
+    public void derivedStatementsShareTheOriginal() {
+        Sql2ImmutableStatement immutable = Sql2ImmutableStatement.of(Sql2Statement.select().from("mgnl:page").whereAll(Sql2PathCondition.is().descendant("/news")));
+        Sql2ImmutableStatement derived = immutable.whereAlso(Sql2StringCondition.property("title").equalsAny().values("A")).orderBy(true, "title");
+        assertEquals("SELECT * FROM [mgnl:page] WHERE isdescendantnode('/news')", immutable.build());
+        assertEquals("SELECT * FROM [mgnl:page] WHERE (isdescendantnode('/news') AND [title] = 'A') ORDER BY [title] DESC", derived.build());
+        assertEquals("SELECT * FROM [mgnl:page] WHERE (isdescendantnode('/news') AND [title] = $literal1) ORDER BY [title] DESC", derived.build(new LinkedHashMap<>()));
+        assertSame(immutable, immutable.whereAlso());
+        assertEquals("SELECT * FROM [mgnl:page] WHERE isdescendantnode('/news')", immutable.orderBy(false).build());
+    }
+
+    @Test
+    public void onlyStatementBuildersCanBeConverted() {
+        assertThrows(IllegalArgumentException.class, () -> Sql2ImmutableStatement.of(() -> "SELECT * FROM [nt:base]"));
+    }
+
+    @Test
+    public void concurrentBuilds() throws Exception {
+        Sql2ImmutableStatement immutable = Sql2ImmutableStatement.of(newsStatement());
+        String expected = immutable.build(new LinkedHashMap<>());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Callable<String>> tasks = IntStream.range(0, 50).<Callable<String>>mapToObj(i -> () -> immutable.build(new LinkedHashMap<>())).collect(Collectors.toList());
+            for (Future<String> result : executor.invokeAll(tasks)) {
+                assertEquals(expected, result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
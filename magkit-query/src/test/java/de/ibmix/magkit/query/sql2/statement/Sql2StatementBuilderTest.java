@@ -20,15 +20,30 @@ package de.ibmix.magkit.query.sql2.statement;
  * #L%
  */
 
+import de.ibmix.magkit.query.sql2.condition.Sql2CalendarCondition;
+import de.ibmix.magkit.query.sql2.condition.Sql2ConstraintGroup;
+import de.ibmix.magkit.query.sql2.condition.Sql2JoinConstraint;
+import de.ibmix.magkit.query.sql2.condition.Sql2LongCondition;
 import de.ibmix.magkit.query.sql2.condition.Sql2PathCondition;
 import de.ibmix.magkit.query.sql2.condition.Sql2PathJoinCondition;
 import de.ibmix.magkit.query.sql2.condition.Sql2StringCondition;
 import org.apache.jackrabbit.JcrConstants;
+import org.apache.jackrabbit.value.StringValue;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.jcr.RepositoryException;
+import javax.jcr.Value;
+import java.util.Calendar;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * Tests for Sql2Statement builder.
@@ -67,6 +82,38 @@ public class Sql2StatementBuilderTest {
         );
     }
 
+    @Test
+    public void buildWithAdditionalConstraintAndOrdering() {
+        Sql2Statement statement = (Sql2Statement) Sql2Statement.select().as("s")
+            .whereAll(Sql2PathCondition.is().descendant("/news"))
+            .orderBy("title").descending();
+        assertEquals("SELECT * FROM [nt:base] AS s WHERE (isdescendantnode(s, '/news') AND s.[title] > 'B') ORDER BY [date] ASC",
+            statement.build(Sql2StringCondition.property("title").greaterThan().value("B"), new String[]{"date"}, false));
+        assertEquals("SELECT * FROM [nt:base] AS s WHERE isdescendantnode(s, '/news') ORDER BY [title] DESC", statement.build());
+    }
+
+    @Test
+    public void buildWithBoundLiterals() throws RepositoryException {
+        Calendar date = Calendar.getInstance();
+        Sql2Statement statement = (Sql2Statement) Sql2Statement.select().as("s")
+            .whereAll(
+                Sql2StringCondition.property("title").likeAny().values("it's 100%"),
+                Sql2LongCondition.property("count").greaterThan().value(5L),
+                Sql2CalendarCondition.property("date").lowerThan().value(date)
+            );
+        Map<String, Value> bindValues = new LinkedHashMap<>();
+        bindValues.put("literal1", new StringValue("taken"));
+        assertEquals("SELECT * FROM [nt:base] AS s WHERE (s.[title] LIKE $literal2 AND s.[count] > $literal3 AND s.[date] < $literal4)",
+            statement.build(bindValues));
+        assertEquals(4, bindValues.size());
+        assertEquals("taken", bindValues.get("literal1").getString());
+        assertEquals("%it's 100\\%%", bindValues.get("literal2").getString());
+        assertEquals(5L, bindValues.get("literal3").getLong());
+        assertEquals(date.getTimeInMillis(), bindValues.get("literal4").getDate().getTimeInMillis());
+
+        assertTrue(statement.build().startsWith("SELECT * FROM [nt:base] AS s WHERE (s.[title] LIKE '%it''s 100\\%%' AND s.[count] > 5 AND s.[date] < cast('"));
+    }
+
     @Test
     public void innerJoin() {
         assertEquals("SELECT s.*,j.* FROM [nt:base] AS s INNER JOIN [nt:base] AS j ON isdescendantnode(j,s) WHERE (s.[mgnl:template] = 'selected.template.id' AND j.[mgnl:template] = 'joined.template.id')",
@@ -79,6 +126,34 @@ public class Sql2StatementBuilderTest {
         );
     }
 
+    @Test
+    public void buildOptimizesConstraints() {
+        assertEquals("SELECT * FROM [nt:base] WHERE (isdescendantnode('/some/path') AND [test] = 'value')",
+            Sql2Statement.select().whereAll(
+                Sql2ConstraintGroup.and().matches(
+                    Sql2PathCondition.is().descendant("/some"),
+                    Sql2PathCondition.is().descendant("/some/path")
+                ),
+                Sql2ConstraintGroup.or().matches(Sql2StringCondition.property("test").equalsAny().values("value", "value")),
+                Sql2ConstraintGroup.or()
+            ).build());
+    }
+
+    @Test
+    public void buildOptimizesConstraintsOnce() {
+        Sql2JoinConstraint constraint = mock(Sql2JoinConstraint.class);
+        when(constraint.isNotEmpty()).thenReturn(true);
+        when(constraint.optimize()).thenReturn(constraint);
+        Sql2Statement statement = (Sql2Statement) Sql2Statement.select().whereAll(constraint);
+        statement.build();
+        statement.build(new LinkedHashMap<>());
+        verify(constraint, times(1)).optimize();
+
+        statement.whereAny(constraint);
+        statement.build();
+        verify(constraint, times(2)).optimize();
+    }
+
     @Test
     public void whereAll() {
         assertEquals("SELECT * FROM [nt:base] WHERE (isdescendantnode('/some/path') AND [test] = 'value')",
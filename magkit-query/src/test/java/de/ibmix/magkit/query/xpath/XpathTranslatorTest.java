@@ -0,0 +1,128 @@
+package de.ibmix.magkit.query.xpath;
+
+/*-
+ * #%L
+ * IBM iX Magnolia Kit
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+
+import static de.ibmix.magkit.test.cms.context.ContextMockUtils.cleanContext;
+import static de.ibmix.magkit.test.jcr.NodeMockUtils.mockNode;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubProperty;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link XpathTranslator}.
+ *
+ * @author wolf.bubenik@ibmix.de
+ * @since 2026-10-19
+ */
+public class XpathTranslatorTest {
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        cleanContext();
+    }
+
+    @Test
+    public void translateLocation() {
+        assertEquals("SELECT * FROM [nt:base] WHERE issamenode('/')", XpathTranslator.toSql2("/jcr:root").build());
+        assertEquals("SELECT * FROM [nt:base]", XpathTranslator.toSql2("/jcr:root//*").build());
+        assertEquals("SELECT * FROM [mgnl:page] WHERE isdescendantnode('/news')", XpathTranslator.toSql2("/jcr:root/news//element(*,mgnl:page)").build());
+        assertEquals("SELECT * FROM [mgnl:area] WHERE ischildnode('/news/page')", XpathTranslator.toSql2("/jcr:root/news/page/element(*, mgnl:area)").build());
+        assertEquals("SELECT * FROM [nt:base] WHERE issamenode('/news/00')", XpathTranslator.toSql2("/jcr:root/news/_x0030_0").build());
+        assertEquals("SELECT * FROM [mgnl:page] WHERE (isdescendantnode('/news') AND name() = 'home')", XpathTranslator.toSql2("/jcr:root/news//element(home,mgnl:page)").build());
+    }
+
+    @Test
+    public void translateXpathBuilder() {
+        XpathBuilder xpath = XpathBuilder.xPathBuilder().path("/news").type("mgnl:component")
+            .property(ConstraintBuilder.constraintBuilder().addTplNameConstraint("test:components/teaser"))
+            .orderBy("@jcr:primaryType");
+        assertEquals("SELECT * FROM [mgnl:component] WHERE (isdescendantnode('/news') AND [mgnl:template] = 'test:components/teaser')", XpathTranslator.toSql2(xpath).build());
+    }
+
+    @Test
+    public void translateComparisons() {
+        assertEquals("[title] = 'it''s'", XpathTranslator.toConstraint("@title='it''s'").asString());
+        assertEquals("[title] <> 'a'", XpathTranslator.toConstraint("@title != \"a\"").asString());
+        assertEquals("[count] > 2", XpathTranslator.toConstraint("@count > 2").asString());
+        assertEquals("[count] <= 2", XpathTranslator.toConstraint("@count le 2").asString());
+        assertEquals("[rating] >= 2.5", XpathTranslator.toConstraint("@rating>=2.5").asString());
+        assertEquals("[mgnl:template] = 'a'", XpathTranslator.toConstraint("MetaData/@mgnl:template='a'").asString());
+        assertEquals("[title] IS NOT NULL", XpathTranslator.toConstraint("@title").asString());
+        assertEquals("name() = 'home'", XpathTranslator.toConstraint("fn:name()='home'").asString());
+        assertEquals("lower([title]) = 'news'", XpathTranslator.toConstraint("fn:lower-case(@title)='news'").asString());
+        assertEquals("[date] < cast('2020-05-04T15:30:00.000Z' as date)", XpathTranslator.toConstraint("@date < xs:dateTime('2020-05-04T15:30:00.000Z')").asString());
+    }
+
+    @Test
+    public void translateFunctions() {
+        assertEquals("[mgnl:template] LIKE 'test:pages/%'", XpathTranslator.toConstraint("jcr:like(@mgnl:template, 'test:pages/%')").asString());
+        assertEquals("[title] LIKE '%news'", XpathTranslator.toConstraint("jcr:like(@title, '%news')").asString());
+        assertEquals("[mgnl:template] LIKE 'test:_/%'", XpathTranslator.toConstraint("jcr:like(@mgnl:template, 'test:_/%')").asString());
+        assertEquals("contains(*, 'abc')", XpathTranslator.toConstraint("[jcr:contains(.,'abc')]").asString());
+        assertEquals("contains(s.text, 'abc')", XpathTranslator.toConstraint("jcr:contains(@text,'abc')").asString("s", "j"));
+    }
+
+    @Test
+    public void translateLogicalOperators() {
+        assertEquals("([a] = '1' AND ([b] = '2' OR [c] = '3'))", XpathTranslator.toConstraint("@a='1' and (@b='2' or @c='3')").asString());
+        assertEquals("([a] = '1' AND not([b] = '2'))", XpathTranslator.toConstraint("[@a='1'][not(@b='2')]").asString());
+        assertFalse(XpathTranslator.toConstraint(" ").isNotEmpty());
+    }
+
+    @Test
+    public void translateOrdering() {
+        assertEquals("SELECT * FROM [mgnl:page] ORDER BY [title] ASC", XpathTranslator.toSql2("/jcr:root//element(*,mgnl:page) order by @title").build());
+        assertEquals("SELECT * FROM [mgnl:page] WHERE [title] = 'order by' ORDER BY [title] DESC, [jcr:score] DESC",
+            XpathTranslator.toSql2("/jcr:root//element(*,mgnl:page)[@title='order by'] order by @title descending, jcr:score() descending").build());
+        assertEquals("SELECT * FROM [mgnl:page]", XpathTranslator.toSql2("/jcr:root//element(*,mgnl:page) order by @jcr:primaryType").build());
+    }
+
+    @Test
+    public void unsupportedSyntax() {
+        assertThrows(IllegalArgumentException.class, () -> XpathTranslator.toSql2("//element(*,mgnl:page)"));
+        assertThrows(IllegalArgumentException.class, () -> XpathTranslator.toSql2("/jcr:root//*[@a='1'"));
+        assertThrows(IllegalArgumentException.class, () -> XpathTranslator.toSql2("/jcr:root//* order by @a ascending, @b descending"));
+        assertThrows(IllegalArgumentException.class, () -> XpathTranslator.toConstraint("@a = 'x' garbage"));
+        assertThrows(IllegalArgumentException.class, () -> XpathTranslator.toConstraint("title = 'x'"));
+        assertThrows(IllegalArgumentException.class, () -> XpathTranslator.toConstraint("@date = xs:dateTime('yesterday')"));
+    }
+
+    @Test
+    public void rawConstraintsAsPredicate() throws RepositoryException {
+        Node node = mockNode("/page", stubProperty("mgnl:template", "test:pages/home"), stubProperty("text", "Hello_World of news"));
+        assertTrue(XpathTranslator.toConstraint("jcr:like(@mgnl:template, 'test:_ages/%')").asPredicate().test(node));
+        assertFalse(XpathTranslator.toConstraint("jcr:like(@mgnl:template, 'test:_/%')").asPredicate().test(node));
+        assertTrue(XpathTranslator.toConstraint("jcr:like(@text, 'Hello\\_%')").asPredicate().test(node));
+        assertFalse(XpathTranslator.toConstraint("jcr:like(@text, 'Hello\\%%')").asPredicate().test(node));
+        assertTrue(XpathTranslator.toConstraint("jcr:contains(@text, 'news hello')").asPredicate().test(node));
+        assertTrue(XpathTranslator.toConstraint("jcr:contains(@text, 'moon OR \"of news\"~2')").asPredicate().test(node));
+        assertFalse(XpathTranslator.toConstraint("jcr:contains(@text, 'news -hello')").asPredicate().test(node));
+        assertFalse(XpathTranslator.toConstraint("jcr:contains(@text, 'moon^2')").asPredicate().test(node));
+    }
+}
@@ -72,6 +72,7 @@ import static org.apache.commons.lang3.StringUtils.strip;
  */
 public abstract class NodeOperationFactory extends Ops {
     public static final String PATH_SEPARATOR = "/";
+    public static final String NN_PATTERNS = "patterns";
 
     /**
      * Creates or returns a child node with the given name if it already exists.
@@ -221,6 +222,27 @@ public abstract class NodeOperationFactory extends Ops {
         return addOrGetContentNode(voterName).then(addOrSetProperty(StandardTasks.PN_CLASS, voterClass), addOrSetProperty(StandardTasks.PN_PATTERN, pattern));
     }
 
+    /**
+     * Adds a multi pattern voter configuration node, e.g. for a composite voter evaluating all patterns in one pass.
+     * The patterns are stored as properties of a {@value #NN_PATTERNS} child node, existing patterns are replaced.
+     *
+     * @param voterName  node name
+     * @param voterClass fully qualified voter implementation class name
+     * @param patterns   matching pattern strings
+     * @return operation building voter node
+     */
+    public static NodeOperation addPatternsVoter(final String voterName, final String voterClass, final String... patterns) {
+        NodeOperation[] patternOps = new NodeOperation[patterns.length];
+        for (int i = 0; i < patterns.length; i++) {
+            patternOps[i] = addOrSetProperty(String.valueOf(i), patterns[i]);
+        }
+        return addOrGetContentNode(voterName).then(
+            addOrSetProperty(StandardTasks.PN_CLASS, voterClass),
+            removeIfExists(NN_PATTERNS),
+            addOrGetContentNode(NN_PATTERNS).then(patternOps)
+        );
+    }
+
     private NodeOperationFactory() {
     }
 
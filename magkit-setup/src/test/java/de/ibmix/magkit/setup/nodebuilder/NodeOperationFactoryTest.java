@@ -209,4 +209,20 @@ public class NodeOperationFactoryTest {
         assertEquals("com.example.CustomVoter", voter.getProperty("class").getString());
         assertEquals("^/custom/.*", voter.getProperty("pattern").getString());
     }
+
+    /**
+     * Creates multi pattern voter node with class property and one property per pattern.
+     */
+    @Test
+    public void addPatternsVoterCreatesNode() throws RepositoryException {
+        mockSession("setup", stubValueFactory());
+        Node parent = NodeMockUtils.mockNode("setup", "/root/votersMulti");
+        NodeOperationFactory.addPatternsVoter("multiVoter", "com.example.MultiVoter", "/.resources/*", "*.json").exec(parent, EH);
+        Node voter = parent.getNode("multiVoter");
+        assertNotNull(voter);
+        assertEquals("com.example.MultiVoter", voter.getProperty("class").getString());
+        Node patterns = voter.getNode("patterns");
+        assertEquals("/.resources/*", patterns.getProperty("0").getString());
+        assertEquals("*.json", patterns.getProperty("1").getString());
+    }
 }
@@ -29,11 +29,11 @@ import lombok.extern.slf4j.Slf4j;
 
 import javax.jcr.Item;
 import javax.jcr.Node;
-import java.util.List;
 
 /**
  * Validator ensuring a string value is unique among nodes matching workspace/nodeType/property constraints.
- * <p>Executes a query via {@link NodesByQuery} to find nodes with the same property value; allows match with itself.</p>
+ * <p>Executes an existence query via {@link NodesByQuery} for other nodes with the same property value; allows match
+ * with itself. No result nodes are loaded.</p>
  * <p>Key features:</p>
  * <ul>
  *   <li>Workspace-scoped uniqueness check.</li>
@@ -42,7 +42,7 @@ import java.util.List;
  * </ul>
  *
  * <p>Null and config handling: If mandatory config values missing, validation returns false (not valid) or treats as valid? Here it's false until properly configured.</p>
- * <p>Item context handling: If the current item is absent, uniqueness is considered valid only when no matching nodes are found; a single found node without context counts as duplicate.</p>
+ * <p>Item context handling: If the current item is absent, uniqueness is considered valid only when no matching nodes are found.</p>
  * @author frank.sommer
  * @since 2024-03-12
  */
@@ -81,9 +81,8 @@ public class UniqueValueValidator extends AbstractValidator<String> {
         final String propertyName = _definition.getPropertyName();
         if (workspace != null && nodeType != null && propertyName != null) {
             LOGGER.debug("Validate for unique value {} by query [{},{},{}].", value, workspace, nodeType, propertyName);
-            final List<Node> foundNodes = new NodesByQuery(workspace, nodeType, propertyName).apply(value);
             final String currentNodeId = NodeUtils.getIdentifier((Node) _itemContext.getSingle().orElse(null));
-            valid = foundNodes.isEmpty() || (foundNodes.size() == 1 && currentNodeId != null && currentNodeId.equals(NodeUtils.getIdentifier(foundNodes.get(0))));
+            valid = !new NodesByQuery(workspace, nodeType, propertyName).existsOther(value, currentNodeId);
         }
         return valid;
     }
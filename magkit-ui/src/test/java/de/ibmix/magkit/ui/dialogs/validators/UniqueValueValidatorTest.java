@@ -81,7 +81,7 @@ public class UniqueValueValidatorTest {
         Node currentNode = mockNode(workspace, "/current", stubIdentifier("id-1"));
         info.magnolia.ui.ValueContext<Item> itemContext = mock(info.magnolia.ui.ValueContext.class);
         when(itemContext.getSingle()).thenReturn(Optional.of(currentNode));
-        String expectedQuery = "SELECT * FROM [" + nodeType + "] WHERE [" + propertyName + "] = '" + value + "' ORDER BY [mgnl:lastModified] DESC";
+        String expectedQuery = "SELECT * FROM [" + nodeType + "] WHERE ([" + propertyName + "] = '" + value + "' AND [jcr:uuid] <> 'id-1')";
         mockQuery(workspace, Query.JCR_SQL2, expectedQuery, stubResult());
         UniqueValueValidator validator = new UniqueValueValidator(definition, itemContext);
         ValidationResult result = validator.apply(value, new ValueContext());
@@ -98,9 +98,9 @@ public class UniqueValueValidatorTest {
         Node currentNode = mockNode(workspace, "/current", stubIdentifier("id-1"));
         info.magnolia.ui.ValueContext<Item> itemContext = mock(info.magnolia.ui.ValueContext.class);
         when(itemContext.getSingle()).thenReturn(Optional.of(currentNode));
-        Node foundNode = mockNode(workspace, "/found", stubIdentifier("id-1"));
-        String expectedQuery = "SELECT * FROM [" + nodeType + "] WHERE [" + propertyName + "] = '" + value + "' ORDER BY [mgnl:lastModified] DESC";
-        mockQuery(workspace, Query.JCR_SQL2, expectedQuery, stubResult(foundNode));
+        // the current node is excluded by the query
+        String expectedQuery = "SELECT * FROM [" + nodeType + "] WHERE ([" + propertyName + "] = '" + value + "' AND [jcr:uuid] <> 'id-1')";
+        mockQuery(workspace, Query.JCR_SQL2, expectedQuery, stubResult());
         UniqueValueValidator validator = new UniqueValueValidator(definition, itemContext);
         ValidationResult result = validator.apply(value, new ValueContext());
         assertFalse(result.isError());
@@ -118,7 +118,7 @@ public class UniqueValueValidatorTest {
         info.magnolia.ui.ValueContext<Item> itemContext = mock(info.magnolia.ui.ValueContext.class);
         when(itemContext.getSingle()).thenReturn(Optional.of(currentNode));
         Node foundNode = mockNode(workspace, "/found", stubIdentifier("id-2"));
-        String expectedQuery = "SELECT * FROM [" + nodeType + "] WHERE [" + propertyName + "] = '" + value + "' ORDER BY [mgnl:lastModified] DESC";
+        String expectedQuery = "SELECT * FROM [" + nodeType + "] WHERE ([" + propertyName + "] = '" + value + "' AND [jcr:uuid] <> 'id-1')";
         mockQuery(workspace, Query.JCR_SQL2, expectedQuery, stubResult(foundNode));
         UniqueValueValidator validator = new UniqueValueValidator(definition, itemContext);
         ValidationResult result = validator.apply(value, new ValueContext());
@@ -137,7 +137,7 @@ public class UniqueValueValidatorTest {
         when(itemContext.getSingle()).thenReturn(Optional.of(currentNode));
         Node foundNode1 = mockNode(workspace, "/found1", stubIdentifier("id-2"));
         Node foundNode2 = mockNode(workspace, "/found2", stubIdentifier("id-3"));
-        String expectedQuery = "SELECT * FROM [" + nodeType + "] WHERE [" + propertyName + "] = '" + value + "' ORDER BY [mgnl:lastModified] DESC";
+        String expectedQuery = "SELECT * FROM [" + nodeType + "] WHERE ([" + propertyName + "] = '" + value + "' AND [jcr:uuid] <> 'id-1')";
         mockQuery(workspace, Query.JCR_SQL2, expectedQuery, stubResult(foundNode1, foundNode2));
         UniqueValueValidator validator = new UniqueValueValidator(definition, itemContext);
         ValidationResult result = validator.apply(value, new ValueContext());
@@ -153,7 +153,7 @@ public class UniqueValueValidatorTest {
         UniqueValueValidatorDefinition definition = getValidatorDefinition(workspace, nodeType, propertyName);
         info.magnolia.ui.ValueContext<Item> itemContext = mock(info.magnolia.ui.ValueContext.class);
         when(itemContext.getSingle()).thenReturn(Optional.empty());
-        String expectedQuery = "SELECT * FROM [" + nodeType + "] WHERE [" + propertyName + "] = '" + value + "' ORDER BY [mgnl:lastModified] DESC";
+        String expectedQuery = "SELECT * FROM [" + nodeType + "] WHERE [" + propertyName + "] = '" + value + "'";
         mockQuery(workspace, Query.JCR_SQL2, expectedQuery, stubResult());
         UniqueValueValidator validator = new UniqueValueValidator(definition, itemContext);
         ValidationResult result = validator.apply(value, new ValueContext());
@@ -170,7 +170,7 @@ public class UniqueValueValidatorTest {
         info.magnolia.ui.ValueContext<Item> itemContext = mock(info.magnolia.ui.ValueContext.class);
         when(itemContext.getSingle()).thenReturn(Optional.empty());
         Node foundNode = mockNode(workspace, "/found", stubIdentifier("id-2"));
-        String expectedQuery = "SELECT * FROM [" + nodeType + "] WHERE [" + propertyName + "] = '" + value + "' ORDER BY [mgnl:lastModified] DESC";
+        String expectedQuery = "SELECT * FROM [" + nodeType + "] WHERE [" + propertyName + "] = '" + value + "'";
         mockQuery(workspace, Query.JCR_SQL2, expectedQuery, stubResult(foundNode));
         UniqueValueValidator validator = new UniqueValueValidator(definition, itemContext);
         ValidationResult result = validator.apply(value, new ValueContext());